@@ -1,3 +1,21 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+import javax.imageio.ImageIO;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
 import javax.sound.sampled.*;
 import javax.swing.*;
 import javax.swing.Timer;
@@ -9,19 +27,68 @@ import java.awt.event.KeyListener;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.StandardSocketOptions;
+import java.net.SocketAddress;
 import java.net.URI;
 import java.net.URL;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
 
 /**
  * EN: The main class for the Cyber Runner game, a Pac-Man style game.
@@ -65,6 +132,11 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      * FR: Le nombre maximum de meilleurs scores à stocker.
      */
     private static final int MAX_HIGHSCORES = 5;
+    /**
+     * EN: The number of levels in a full run.
+     * FR: Le nombre de niveaux d'une partie complète.
+     */
+    private static final int CAMPAIGN_LEVELS = 20;
 
     // =================================================================================
     // Game State Enum
@@ -75,7 +147,7 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      * FR: Représente les différents états du jeu.
      */
     private enum GameState {
-        MENU, PLAYING, PAUSED, GAME_OVER, WIN, HIGHSCORES
+        MENU, PLAYING, PAUSED, REWINDING, GAME_OVER, WIN, HIGHSCORES
     }
 
     private GameState currentGameState;
@@ -85,52 +157,128 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     // =================================================================================
 
     /**
-     * EN: The current position of the player on the grid.
-     * FR: La position actuelle du joueur sur la grille.
+     * EN: The simulation of the level being played (maze, player, enemies, power-ups, score).
+     * FR: La simulation du niveau en cours (labyrinthe, joueur, ennemis, power-ups, score).
+     */
+    private GameWorld world;
+    /**
+     * EN: The settings used to build each new world (classic board or swarm mode).
+     * FR: Les paramètres utilisés pour construire chaque nouveau monde (plateau classique ou mode essaim).
+     */
+    private WorldConfig worldConfig = WorldConfig.classic();
+    /**
+     * EN: The endless maze being played, or null outside endless mode; it then takes the place of {@code world}.
+     * FR: Le labyrinthe infini en cours, ou null hors du mode infini ; il remplace alors {@code world}.
      */
-    private Point playerPosition;
+    private EndlessWorld endless;
     /**
-     * EN: The list of dots that the player needs to collect.
-     * FR: La liste des points que le joueur doit collecter.
+     * EN: The connection to a LAN game, or null; it then takes the place of {@code world}. {@code arenaHost} is the
+     *     server this window runs when it hosts the game.
+     * FR: La connexion à une partie en réseau local, ou null ; elle remplace alors {@code world}. {@code arenaHost} est
+     *     le serveur que cette fenêtre fait tourner quand elle héberge la partie.
      */
-    private List<Point> dots;
+    private ArenaClient arena;
+    private ArenaServer arenaHost;
     /**
-     * EN: The set of obstacles (walls) on the grid.
-     * FR: L'ensemble des obstacles (murs) sur la grille.
+     * EN: Encodes the world when a level-based run is paused or the window closes; its buffer serves every save.
+     * FR: Encode le monde quand une partie à niveaux est mise en pause ou que la fenêtre se ferme ; son tampon sert à
+     *     chaque sauvegarde.
      */
-    private Set<Point> obstacles;
+    private final WorldSnapshot snapshots = new WorldSnapshot();
     /**
-     * EN: The player's current score.
-     * FR: Le score actuel du joueur.
+     * EN: Whether the save file holds the run being played, which then deletes it when it ends.
+     * FR: Indique si le fichier de sauvegarde contient la partie en cours, qui le supprime alors en se terminant.
      */
-    private int score;
+    private boolean runSaved;
+    /**
+     * EN: Whether missions start in practice mode, where a death rewinds the game instead of ending it.
+     * FR: Indique si les missions démarrent en mode entraînement, où une défaite fait revenir en arrière au lieu de
+     *     terminer la partie.
+     */
+    private boolean practiceMode;
+    /**
+     * EN: The history of the practice run being played, or null outside practice mode.
+     * FR: L'historique de la partie d'entraînement en cours, ou null hors du mode entraînement.
+     */
+    private RewindBuffer rewind;
+    private long rewindTarget;
+    private int rewindTicksPerFrame;
     /**
      * EN: The main timer for the game loop.
      * FR: Le minuteur principal pour la boucle de jeu.
      */
     private Timer gameTimer;
     /**
-     * EN: A random number generator for various game events.
-     * FR: Un générateur de nombres aléatoires pour divers événements de jeu.
+     * EN: A random number generator for menu animations and other cosmetic effects.
+     * FR: Un générateur de nombres aléatoires pour les animations du menu et autres effets visuels.
      */
     private Random random;
+    /**
+     * EN: The bot playing in place of the keyboard, or null; set with {@code --autoplay}. Its run is measured by {@code soakStats}.
+     * FR: Le robot qui joue à la place du clavier, ou null ; activé avec {@code --autoplay}. Sa partie est mesurée par {@code soakStats}.
+     */
+    private AutoPlayer autoPlayer;
+    private SoakStats soakStats;
+    /**
+     * EN: The performance overlay, shown with F3.
+     * FR: L'overlay de performance, affiché avec F3.
+     */
+    private final PerfOverlay perfOverlay = new PerfOverlay();
+    /**
+     * EN: The continuous flight recording started with {@code --jfr}, or null.
+     * FR: L'enregistrement JFR continu lancé avec {@code --jfr}, ou null.
+     */
+    private FlightRecording flightRecording;
+    /**
+     * EN: Broadcasts the level-based game to spectators, or null; started with {@code --broadcast} or by the F4 key.
+     * FR: Diffuse la partie à niveaux aux spectateurs, ou null ; lancée avec {@code --broadcast} ou par la touche F4.
+     */
+    private BroadcastHub broadcast;
+    /**
+     * EN: The log of every tick of the level-based game started with {@code --telemetry}, or null.
+     * FR: Le journal de chaque tick de la partie à niveaux lancé avec {@code --telemetry}, ou null.
+     */
+    private TelemetryLog telemetry;
+    /**
+     * EN: Where players stand, die and pick up power-ups on the classic board, across sessions; {@code heatmapKind} is
+     *     the kind shown over the maze with F5, or -1.
+     * FR: Où les joueurs se tiennent, meurent et ramassent des power-ups sur le plateau classique, d'une session à
+     *     l'autre ; {@code heatmapKind} est le type affiché sur le labyrinthe avec F5, ou -1.
+     */
+    private final HeatmapAnalytics heatmaps = new HeatmapAnalytics(Paths.get(HeatmapAnalytics.FILE), WIDTH / CELL_SIZE, HEIGHT / CELL_SIZE);
+    private int heatmapKind = -1;
+    /**
+     * EN: The capture of the game panel's frames, toggled with F6 (Shift+F6 for raw frames), or null.
+     * FR: La capture des images du panneau de jeu, activée avec F6 (Maj+F6 pour des images brutes), ou null.
+     */
+    private FrameCapture capture;
+    /**
+     * EN: Previews of the missions, rendered in the background for the buttons of the mission screen.
+     * FR: Aperçus des missions, rendus en arrière-plan pour les boutons de l'écran des missions.
+     */
+    private final LevelThumbnails thumbnails = new LevelThumbnails(Paths.get(LevelThumbnails.DIRECTORY),
+            WorldConfig.classic().withLevelPack(LevelPack.shared()), LevelThumbnails.PREVIEW_SEED, 1);
+    private final AnimatedButton[] missionButtons = new AnimatedButton[20];
+    /**
+     * EN: Carries what happens in the level-based game to the profile, the sounds, the session tally and the
+     *     achievements, each on a thread of its own.
+     * FR: Transmet ce qui se passe dans la partie à niveaux au profil, aux sons, au bilan de la session et aux succès,
+     *     chacun sur son propre thread.
+     */
+    private final GameEventBus events = new GameEventBus();
+    private final EventTally sessionTally = new EventTally();
+    private AchievementTracker achievements;
+    private static final String[] EVENT_SOUNDS = {"dot", "powerup", "enemy", "death", "level"};
 
     // =================================================================================
     // Level and Score Management
     // =================================================================================
 
     private int currentLevel = 1;
-    private int maxLevel = 20;
+    private int maxLevel = CAMPAIGN_LEVELS;
     private int unlockedLevel = 1;
     private int targetScore;
 
-    // =================================================================================
-    // Grid Dimensions
-    // =================================================================================
-
-    private int gridCols;
-    private int gridRows;
-
     // =================================================================================
     // UI Components
     // =================================================================================
@@ -139,6 +287,7 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     private GamePanel gamePanel;
     private JPanel endScreenPanel, highScoresPanel, creditsPanel;
     private JLabel endMessageLabel;
+    private AnimatedButton resumeButton;
     private JTextArea highScoresDisplay;
 
     /**
@@ -152,15 +301,44 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     // =================================================================================
 
     /**
-     * EN: Represents the player's profile, storing statistics.
-     * FR: Représente le profil du joueur, stockant des statistiques.
+     * EN: Represents the player's profile, storing statistics. The counters fed by game events are updated atomically
+     *     from the event consumers' threads while the Swing thread reads and saves them.
+     * FR: Représente le profil du joueur, stockant des statistiques. Les compteurs alimentés par les événements du jeu
+     *     sont mis à jour atomiquement depuis les threads des consommateurs d'événements pendant que le thread de Swing
+     *     les lit et les sauvegarde.
      */
     private static class PlayerProfile implements Serializable {
         private static final long serialVersionUID = 1L;
+        private static final AtomicIntegerFieldUpdater<PlayerProfile> POWERUPS = AtomicIntegerFieldUpdater.newUpdater(PlayerProfile.class, "powerupsCollected");
+        private static final AtomicIntegerFieldUpdater<PlayerProfile> ENEMIES = AtomicIntegerFieldUpdater.newUpdater(PlayerProfile.class, "enemiesDefeated");
+        private static final AtomicIntegerFieldUpdater<PlayerProfile> LEVELS = AtomicIntegerFieldUpdater.newUpdater(PlayerProfile.class, "levelsCompleted");
+        private static final AtomicIntegerFieldUpdater<PlayerProfile> ACHIEVEMENTS = AtomicIntegerFieldUpdater.newUpdater(PlayerProfile.class, "achievements");
         long totalScore = 0;
-        int powerupsCollected = 0;
-        int enemiesDefeated = 0;
-        int levelsCompleted = 0;
+        volatile int powerupsCollected = 0;
+        volatile int enemiesDefeated = 0;
+        volatile int levelsCompleted = 0;
+        volatile int achievements = 0; // Un bit par succès débloqué, voir Achievement.
+
+        /**
+         * EN: Counts an event in the statistics, from any thread.
+         * FR: Compte un événement dans les statistiques, depuis n'importe quel thread.
+         */
+        void count(GameEvent type) {
+            switch (type) {
+                case POWERUP: POWERUPS.incrementAndGet(this); break;
+                case ENEMY_DEFEATED: ENEMIES.incrementAndGet(this); break;
+                case LEVEL_COMPLETE: LEVELS.incrementAndGet(this); break;
+                default: break;
+            }
+        }
+
+        /**
+         * EN: Records an achievement as unlocked, from any thread.
+         * FR: Note un succès comme débloqué, depuis n'importe quel thread.
+         */
+        void unlock(Achievement achievement) {
+            ACHIEVEMENTS.getAndAccumulate(this, 1 << achievement.ordinal(), (bits, bit) -> bits | bit);
+        }
     }
     private PlayerProfile playerProfile;
     
@@ -213,38 +391,345 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     // =================================================================================
 
     private enum PowerUpType { SUPER_PELLET, FREEZE, SHIELD }
-    private static class PowerUp {
-        Point position; PowerUpType type; long spawnTime;
-        PowerUp(Point position, PowerUpType type) { this.position = position; this.type = type; this.spawnTime = System.currentTimeMillis(); }
+    /**
+     * EN: The power-ups lying in the maze, as parallel arrays; there is at most one of each type. Removing one moves
+     *     the last into its slot.
+     * FR: Les power-ups présents dans le labyrinthe, en tableaux parallèles ; il y en a au plus un de chaque type.
+     *     En retirer un déplace le dernier à sa place.
+     */
+    private static final class PowerUpStore {
+        private static final PowerUpType[] TYPES = PowerUpType.values();
+        int count;
+        final int[] x = new int[TYPES.length], y = new int[TYPES.length];
+        final byte[] type = new byte[TYPES.length];
+        /**
+         * EN: Wall-clock time of appearance, for the pulse animation only.
+         * FR: Heure d'apparition, uniquement pour l'animation de pulsation.
+         */
+        final long[] spawnTime = new long[TYPES.length];
+
+        void clear() { count = 0; }
+
+        void add(Point position, PowerUpType powerUpType) {
+            x[count] = position.x; y[count] = position.y;
+            type[count] = (byte) powerUpType.ordinal();
+            spawnTime[count] = System.currentTimeMillis();
+            count++;
+        }
+
+        PowerUpType type(int slot) { return TYPES[type[slot]]; }
+
+        /**
+         * EN: Finds the power-up on a cell.
+         * FR: Trouve le power-up d'une cellule.
+         * @return Its slot, or -1 if there is none.
+         */
+        int find(int cx, int cy) {
+            for (int i = 0; i < count; i++) if (x[i] == cx && y[i] == cy) return i;
+            return -1;
+        }
+
+        void remove(int slot) {
+            int last = --count;
+            x[slot] = x[last]; y[slot] = y[last]; type[slot] = type[last]; spawnTime[slot] = spawnTime[last];
+        }
+
+        /**
+         * EN: Writes the power-ups for a saved game: a byte count, then for each a char column, a char row and a byte type.
+         * FR: Écrit les power-ups d'une sauvegarde : un octet de nombre, puis pour chacun une colonne et une ligne en char
+         *     et un octet de type.
+         */
+        void write(ByteBuffer out) {
+            out.put((byte) count);
+            for (int i = 0; i < count; i++) out.putChar((char) x[i]).putChar((char) y[i]).put(type[i]);
+        }
+
+        void read(ByteBuffer in) {
+            count = 0;
+            for (int i = in.get(); i > 0; i--) add(new Point(in.getChar(), in.getChar()), TYPES[in.get()]);
+        }
     }
-    private List<PowerUp> powerUps;
-    private boolean isShieldActive = false, areEnemiesFrozen = false, areEnemiesVulnerable = false;
-    private long shieldEndTime = 0, freezeEndTime = 0, vulnerableEndTime = 0;
 
     // =================================================================================
     // Enemies
     // =================================================================================
 
     private enum EnemyState { PATROLLING, AGGRO_TELEGRAPH, CHASING, FLEEING }
-    private enum EnemyBehavior { HUNTER, AMBUSHER, FLANKER, ROAMER }
-    private static class Enemy {
-        Point position; EnemyBehavior behavior; EnemyState state = EnemyState.PATROLLING;
-        long stateChangeTime = 0;
-        int pathRecalculationCounter = 0;
+    /**
+     * EN: What can make an enemy change state; the reactions are defined per enemy type in the behaviour file.
+     * FR: Ce qui peut faire changer un ennemi d'état ; les réactions sont définies par type d'ennemi dans le fichier de comportements.
+     */
+    private enum EnemyEvent { NONE, PLAYER_NEAR, PLAYER_FAR, TIMEOUT, POWERUP, POWERUP_END }
+    /**
+     * EN: How an enemy moves while in a given state: stays put, walks its path to its target, or flees the player.
+     * FR: La façon dont un ennemi se déplace dans un état donné : il reste sur place, suit son chemin vers sa cible ou fuit le joueur.
+     */
+    private enum MoveMode { STAY, PURSUE, FLEE }
+    /**
+     * EN: The targeting rules an enemy type can use; see {@link InfluenceMaps} for how each cell is chosen.
+     * FR: Les règles de ciblage qu'un type d'ennemi peut utiliser ; voir {@link InfluenceMaps} pour le choix de chaque cellule.
+     */
+    private enum TargetRule { PLAYER, AMBUSH, FLANK, GUARD }
+    /**
+     * EN: The enemies of a level, as parallel primitive arrays indexed by slot. Live enemies fill slots [0, count) in
+     *     no particular order; removing one moves the last into its slot (its path buffer moves the other way, so
+     *     buffers are kept for reuse). Each enemy also has a stable handle, its rank in the level's spawn order, which
+     *     survives slot moves: asynchronous path results refer to enemies by handle. Enemies waiting to enter the maze
+     *     exist only as a handle, a spawn cell and a spawn time. Positions change only through {@link #moveTo}, which
+     *     keeps a per-cell occupancy list up to date.
+     * FR: Les ennemis d'un niveau, en tableaux primitifs parallèles indexés par emplacement. Les ennemis actifs occupent
+     *     les emplacements [0, count) sans ordre particulier ; en retirer un déplace le dernier à sa place (son tampon de
+     *     chemin part dans l'autre sens, afin que les tampons soient réutilisés). Chaque ennemi a aussi un identifiant
+     *     stable, son rang dans l'ordre d'apparition du niveau, qui survit aux déplacements : les résultats de chemin
+     *     asynchrones désignent les ennemis par identifiant. Les ennemis pas encore entrés dans le labyrinthe n'existent
+     *     que sous forme d'identifiant, de cellule et d'heure d'apparition. Les positions ne changent que par
+     *     {@link #moveTo}, qui tient à jour une liste d'occupation par cellule.
+     */
+    private static final class EnemyStore {
+        private static final EnemyState[] STATES = EnemyState.values();
+
+        int count;
+        int[] handle = new int[0], x = new int[0], y = new int[0], type = new int[0], stepCounter = new int[0];
+        byte[] state = new byte[0];
+        long[] stateChangeTime = new long[0];
+        /**
+         * EN: The cached path towards {@code pathTarget}: cells still to walk are path[pathIndex .. pathLength).
+         * FR: Le chemin en cache vers {@code pathTarget} : les cellules restantes sont path[pathIndex .. pathLength).
+         */
+        int[][] path = new int[0][];
+        int[] pathLength = new int[0], pathIndex = new int[0], pathTarget = new int[0], replanWaitTicks = new int[0];
+        /**
+         * EN: The target of the enemy's pending asynchronous path request, or -1.
+         * FR: La cible de la demande de chemin asynchrone en cours de l'ennemi, ou -1.
+         */
+        int[] requestedTarget = new int[0];
+
+        private int[] slotOfHandle = new int[0], spawnCell = new int[0];
+        private long[] spawnTime = new long[0];
+        private int handles, nextSpawn, types, initialPathCapacity, gridCols;
+        /**
+         * EN: Occupancy grid: the handle of the first live enemy on each cell, or -1, and doubly linked lists of the
+         *     other enemies on the same cell, by handle. Handles do not move when slots do, so the lists survive removals.
+         * FR: Grille d'occupation : l'identifiant du premier ennemi actif de chaque cellule, ou -1, et des listes
+         *     doublement chaînées des autres ennemis de la même cellule, par identifiant. Les identifiants ne bougent pas
+         *     quand les emplacements bougent, donc les listes survivent aux retraits.
+         */
+        private int[] cellHead = new int[0], nextInCell = new int[0], prevInCell = new int[0];
+
+        /**
+         * EN: Empties the store for a new level of up to {@code capacity} enemies. Path buffers are kept.
+         * FR: Vide le stockage pour un nouveau niveau d'au plus {@code capacity} ennemis. Les tampons de chemin sont conservés.
+         * @param types The number of enemy types; handle h gets type h % types.
+         * @param pathCapacity The initial length of a new path buffer.
+         * @param gridCols The width of the board.
+         * @param cells The number of cells on the board.
+         */
+        void reset(int capacity, int types, int pathCapacity, int gridCols, int cells) {
+            count = handles = nextSpawn = 0;
+            this.types = types;
+            this.initialPathCapacity = pathCapacity;
+            this.gridCols = gridCols;
+            if (cellHead.length != cells) cellHead = new int[cells];
+            Arrays.fill(cellHead, -1);
+            if (handle.length >= capacity) return;
+            handle = Arrays.copyOf(handle, capacity); x = Arrays.copyOf(x, capacity); y = Arrays.copyOf(y, capacity);
+            type = Arrays.copyOf(type, capacity); stepCounter = Arrays.copyOf(stepCounter, capacity);
+            state = Arrays.copyOf(state, capacity); stateChangeTime = Arrays.copyOf(stateChangeTime, capacity);
+            path = Arrays.copyOf(path, capacity); pathLength = Arrays.copyOf(pathLength, capacity);
+            pathIndex = Arrays.copyOf(pathIndex, capacity); pathTarget = Arrays.copyOf(pathTarget, capacity);
+            replanWaitTicks = Arrays.copyOf(replanWaitTicks, capacity); requestedTarget = Arrays.copyOf(requestedTarget, capacity);
+            slotOfHandle = Arrays.copyOf(slotOfHandle, capacity); spawnCell = Arrays.copyOf(spawnCell, capacity);
+            spawnTime = Arrays.copyOf(spawnTime, capacity);
+            nextInCell = Arrays.copyOf(nextInCell, capacity); prevInCell = Arrays.copyOf(prevInCell, capacity);
+        }
 
-        Enemy(Point position, EnemyBehavior behavior) {
-            this.position = position; this.behavior = behavior;
+        /**
+         * EN: Queues the next enemy of the level; enemies must be scheduled in spawn-time order.
+         * FR: Met en attente le prochain ennemi du niveau ; les ennemis doivent être planifiés dans l'ordre d'apparition.
+         */
+        void schedule(int cell, long time) {
+            slotOfHandle[handles] = -1;
+            spawnCell[handles] = cell;
+            spawnTime[handles] = time;
+            handles++;
         }
-        
-        void changeState(EnemyState newState) {
-            if(this.state != newState) {
-                this.state = newState;
-                this.stateChangeTime = System.currentTimeMillis();
+
+        int pending() { return handles - nextSpawn; }
+
+        /**
+         * EN: The number of enemies scheduled for the level, spawned or not.
+         * FR: Le nombre d'ennemis prévus pour le niveau, apparus ou non.
+         */
+        int scheduled() { return handles; }
+
+        int spawnCell(int enemyHandle) { return spawnCell[enemyHandle]; }
+
+        boolean spawnDue(long now) { return nextSpawn < handles && spawnTime[nextSpawn] <= now; }
+
+        /**
+         * EN: Brings the next queued enemy into the maze, patrolling.
+         * FR: Fait entrer le prochain ennemi en attente dans le labyrinthe, en patrouille.
+         * @return Its slot.
+         */
+        int spawnNext(long now) {
+            int h = nextSpawn++, slot = count++;
+            handle[slot] = h;
+            slotOfHandle[h] = slot;
+            x[slot] = spawnCell[h] % gridCols; y[slot] = spawnCell[h] / gridCols;
+            type[slot] = h % types;
+            state[slot] = (byte) EnemyState.PATROLLING.ordinal();
+            stateChangeTime[slot] = now;
+            stepCounter[slot] = 0;
+            if (path[slot] == null) path[slot] = new int[initialPathCapacity];
+            pathLength[slot] = pathIndex[slot] = replanWaitTicks[slot] = 0;
+            pathTarget[slot] = requestedTarget[slot] = -1;
+            link(h, spawnCell[h]);
+            return slot;
+        }
+
+        /**
+         * EN: Moves a live enemy to another cell.
+         * FR: Déplace un ennemi actif vers une autre cellule.
+         */
+        void moveTo(int slot, int cell) {
+            int h = handle[slot];
+            unlink(h, y[slot] * gridCols + x[slot]);
+            x[slot] = cell % gridCols; y[slot] = cell / gridCols;
+            link(h, cell);
+        }
+
+        boolean occupied(int cell) { return cellHead[cell] >= 0; }
+
+        /**
+         * EN: The first enemy on a cell; follow with {@link #nextOnCell}.
+         * FR: Le premier ennemi d'une cellule ; continuer avec {@link #nextOnCell}.
+         * @return Its handle, or -1 if the cell is empty.
+         */
+        int firstOnCell(int cell) { return cellHead[cell]; }
+
+        int nextOnCell(int enemyHandle) { return nextInCell[enemyHandle]; }
+
+        private void link(int h, int cell) {
+            int first = cellHead[cell];
+            nextInCell[h] = first;
+            prevInCell[h] = -1;
+            if (first >= 0) prevInCell[first] = h;
+            cellHead[cell] = h;
+        }
+
+        private void unlink(int h, int cell) {
+            int prev = prevInCell[h], next = nextInCell[h];
+            if (prev >= 0) nextInCell[prev] = next; else cellHead[cell] = next;
+            if (next >= 0) prevInCell[next] = prev;
+        }
+
+        /**
+         * EN: The slot of a live enemy.
+         * FR: L'emplacement d'un ennemi actif.
+         * @return The slot, or -1 if the enemy has not spawned or is gone.
+         */
+        int slotOf(int enemyHandle) {
+            return enemyHandle >= 0 && enemyHandle < handles ? slotOfHandle[enemyHandle] : -1;
+        }
+
+        /**
+         * EN: Removes a live enemy, moving the last one into its slot.
+         * FR: Retire un ennemi actif en déplaçant le dernier à sa place.
+         */
+        void remove(int slot) {
+            int last = --count;
+            unlink(handle[slot], y[slot] * gridCols + x[slot]);
+            slotOfHandle[handle[slot]] = -1;
+            if (slot == last) return;
+            int[] freed = path[slot];
+            handle[slot] = handle[last]; x[slot] = x[last]; y[slot] = y[last]; type[slot] = type[last];
+            stepCounter[slot] = stepCounter[last]; state[slot] = state[last]; stateChangeTime[slot] = stateChangeTime[last];
+            path[slot] = path[last]; pathLength[slot] = pathLength[last]; pathIndex[slot] = pathIndex[last];
+            pathTarget[slot] = pathTarget[last]; replanWaitTicks[slot] = replanWaitTicks[last]; requestedTarget[slot] = requestedTarget[last];
+            path[last] = freed;
+            slotOfHandle[handle[slot]] = slot;
+        }
+
+        /**
+         * EN: Writes the store for a saved game: the spawn queue, then every live enemy with its timers and the rest of
+         *     its cached path, then the occupancy lists. Pending asynchronous requests are not kept; enemies ask again.
+         * FR: Écrit le stockage pour une sauvegarde : la file d'apparition, puis chaque ennemi actif avec ses minuteurs et
+         *     la suite de son chemin en cache, puis les listes d'occupation. Les demandes asynchrones en cours ne sont pas
+         *     gardées ; les ennemis les refont.
+         */
+        void write(ByteBuffer out) {
+            out.putChar((char) handles).putChar((char) nextSpawn);
+            for (int h = 0; h < handles; h++) {
+                out.putChar((char) spawnCell[h]);
+                if (h >= nextSpawn) out.putLong(spawnTime[h]);
+            }
+            out.putChar((char) count);
+            for (int i = 0; i < count; i++) {
+                out.putChar((char) handle[i]).putChar((char) (y[i] * gridCols + x[i])).putInt(stepCounter[i]).put(state[i])
+                   .putLong(stateChangeTime[i]).putInt(pathTarget[i]).putInt(replanWaitTicks[i]).putChar((char) (pathLength[i] - pathIndex[i]));
+                for (int k = pathIndex[i]; k < pathLength[i]; k++) out.putChar((char) path[i][k]);
+            }
+            for (int i = 0; i < count; i++) out.putShort((short) nextInCell[handle[i]]);
+        }
+
+        /**
+         * EN: Replaces the store with one written by {@link #write}; the arguments are those of {@link #reset}.
+         * FR: Remplace le stockage par celui écrit par {@link #write} ; les arguments sont ceux de {@link #reset}.
+         */
+        void read(ByteBuffer in, int types, int pathCapacity, int gridCols, int cells) {
+            int scheduled = in.getChar();
+            reset(scheduled, types, pathCapacity, gridCols, cells);
+            handles = scheduled;
+            nextSpawn = in.getChar();
+            for (int h = 0; h < handles; h++) {
+                slotOfHandle[h] = -1;
+                spawnCell[h] = in.getChar();
+                if (h >= nextSpawn) spawnTime[h] = in.getLong();
+            }
+            count = in.getChar();
+            for (int i = 0; i < count; i++) {
+                int h = in.getChar(), cell = in.getChar();
+                handle[i] = h;
+                slotOfHandle[h] = i;
+                x[i] = cell % gridCols; y[i] = cell / gridCols;
+                type[i] = h % types;
+                stepCounter[i] = in.getInt();
+                state[i] = in.get();
+                stateChangeTime[i] = in.getLong();
+                pathTarget[i] = in.getInt();
+                replanWaitTicks[i] = in.getInt();
+                requestedTarget[i] = -1;
+                int remaining = in.getChar();
+                if (path[i] == null || path[i].length < remaining) path[i] = new int[Math.max(remaining, pathCapacity)];
+                for (int k = 0; k < remaining; k++) path[i][k] = in.getChar();
+                pathIndex[i] = 0;
+                pathLength[i] = remaining;
+            }
+            for (int i = 0; i < count; i++) prevInCell[handle[i]] = -1;
+            for (int i = 0; i < count; i++) {
+                int next = in.getShort();
+                nextInCell[handle[i]] = next;
+                if (next >= 0) prevInCell[next] = handle[i];
             }
+            for (int i = 0; i < count; i++) if (prevInCell[handle[i]] < 0) cellHead[y[i] * gridCols + x[i]] = handle[i];
+        }
+
+        EnemyState state(int slot) { return STATES[state[slot]]; }
+
+        void changeState(int slot, int newState, long now) {
+            if (state[slot] == newState) return;
+            EnemyStateEvent event = TickEvents.ENEMY_STATE.isEnabled() ? new EnemyStateEvent() : null;
+            if (event != null && event.shouldCommit()) {
+                event.enemyId = handle[slot];
+                event.enemyType = type[slot];
+                event.from = STATES[state[slot]].name();
+                event.to = STATES[newState].name();
+                event.commit();
+            }
+            state[slot] = (byte) newState;
+            stateChangeTime[slot] = now;
         }
     }
-    private List<Enemy> enemies;
-    private Set<EnemyBehavior> discoveredEnemies = new HashSet<>();
 
     /**
      * EN: Constructor for the PacManGame class. Initializes the game window and all game components.
@@ -257,8 +742,6 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
         setResizable(false);
         setLocationRelativeTo(null);
         
-        powerUps = new ArrayList<>();
-        enemies = new ArrayList<>();
         random = new Random();
         highScores = new ArrayList<>();
         
@@ -279,11 +762,21 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
         initGame();
         loadHighScores();
         loadProfile();
+        subscribeToGameEvents();
 
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent windowEvent) {
+                closeEndless();
+                closeArena();
+                if (broadcast != null) broadcast.close();
+                heatmaps.close();
+                stopCapture();
+                thumbnails.close();
+                if (isRunInProgress()) saveGame(false);
                 saveHighScores();
+                events.close();
+                if (telemetry != null) telemetry.close();
                 saveProfile();
             }
         });
@@ -311,6 +804,11 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
 
         gbc.insets = new Insets(10, 0, 10, 0);
         mainMenuPanel.add(new AnimatedButton("Nouvelle Partie", e -> transitionTo("LEVEL_SELECT")), gbc);
+        resumeButton = new AnimatedButton("Reprendre la Partie", e -> resumeSavedGame());
+        mainMenuPanel.add(resumeButton, gbc);
+        mainMenuPanel.add(new AnimatedButton("Mode Essaim", e -> startSwarmGame()), gbc);
+        mainMenuPanel.add(new AnimatedButton("Mode Infini", e -> startEndlessGame()), gbc);
+        mainMenuPanel.add(new AnimatedButton("Multijoueur (LAN)", e -> startMultiplayerGame()), gbc);
         mainMenuPanel.add(new AnimatedButton("Meilleurs Scores", e -> showHighScores()), gbc);
         mainMenuPanel.add(new AnimatedButton("Crédits", e -> showCredits()), gbc);
         mainMenuPanel.add(new AnimatedButton("Portfolio", e -> openURL("https://github.com/TechNerdSam")), gbc);
@@ -327,9 +825,16 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
             AnimatedButton levelButton = new AnimatedButton(String.valueOf(i));
             levelButton.setEnabled(i <= unlockedLevel);
             levelButton.addActionListener(e -> startPredefinedGame(levelNum));
+            levelButton.reserveThumbnail(LevelThumbnails.SIZE);
+            missionButtons[i - 1] = levelButton;
             levelGrid.add(levelButton);
         }
+        requestThumbnails();
         levelSelectPanel.add(levelGrid, gbc);
+        JCheckBox practiceCheckbox = new JCheckBox("Entraînement : retour de 10 s à chaque défaite");
+        configureCheckbox(practiceCheckbox);
+        practiceCheckbox.addActionListener(e -> practiceMode = practiceCheckbox.isSelected());
+        levelSelectPanel.add(practiceCheckbox, gbc);
         levelSelectPanel.add(new AnimatedButton("Retour", e -> transitionTo("MAIN")), gbc);
         
         creditsPanel = createTransparentPanel(new GridBagLayout());
@@ -349,6 +854,7 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
                 if(theme.name.equals(selected)) { currentTheme = theme; break; }
             }
             titleLabel.setForeground(currentTheme.accentColor);
+            requestThumbnails();
         });
         optionsPanel.add(themeSelector, gbc);
         optionsPanel.add(new AnimatedButton("Retour", e -> transitionTo("MAIN")), gbc);
@@ -459,6 +965,21 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
         cb.setForeground(Color.WHITE);
     }
 
+    /**
+     * EN: Asks for the previews of the missions in the current theme, dropping those still pending for another theme;
+     *     each button keeps its picture until the new one arrives.
+     * FR: Demande les aperçus des missions dans le thème actuel, en abandonnant ceux encore attendus pour un autre
+     *     thème ; chaque bouton garde son image jusqu'à l'arrivée de la nouvelle.
+     */
+    private void requestThumbnails() {
+        thumbnails.cancelPending();
+        for (int i = 0; i < missionButtons.length; i++) {
+            missionButtons[i].setThumbnail(thumbnails.request(i + 1, currentTheme, (level, theme, image) -> SwingUtilities.invokeLater(() -> {
+                if (theme == currentTheme) missionButtons[level - 1].setThumbnail(image);
+            })));
+        }
+    }
+
     /**
      * EN: Starts a new game at a specific level.
      * FR: Commence une nouvelle partie à un niveau spécifique.
@@ -466,9 +987,179 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      */
     private void startPredefinedGame(int level) {
         currentLevel = level;
+        worldConfig = WorldConfig.classic().withLevelPack(LevelPack.shared());
+        // Le retour en arrière rejoue les ticks : l'IA ne doit pas dépendre du temps de calcul.
+        if (practiceMode) worldConfig = worldConfig.withAIBudget(0);
+        rewind = practiceMode ? new RewindBuffer(worldConfig, maxLevel) : null;
+        startGame();
+    }
+
+    /**
+     * EN: Starts a swarm run: a large board with hundreds of enemies whose AI is planned in parallel.
+     * FR: Démarre une partie en mode essaim : un grand plateau avec des centaines d'ennemis dont l'IA est planifiée en parallèle.
+     */
+    private void startSwarmGame() {
+        currentLevel = 1;
+        worldConfig = WorldConfig.swarm();
+        rewind = null;
         startGame();
     }
 
+    /**
+     * EN: Starts an endless run in a maze that grows as the player explores, with a fresh disk cache for evicted chunks.
+     * FR: Démarre une partie infinie dans un labyrinthe qui s'étend au fil de l'exploration, avec un nouveau cache disque
+     *     pour les morceaux évincés.
+     */
+    private void startEndlessGame() {
+        soundManager.stop("menu_music");
+        closeEndless();
+        setMenuUIVisible(false);
+        currentGameState = GameState.PLAYING;
+        rewind = null;
+        endless = new EndlessWorld(System.nanoTime(), EndlessWorld.KEEP_RADIUS, ChunkCache.createTemporary());
+        gamePanel.setVisible(true);
+        gameTimer.setDelay(EndlessWorld.TICK_MS);
+        gameTimer.start();
+        this.requestFocusInWindow();
+    }
+
+    /**
+     * EN: Hosts or joins a LAN game of up to four runners. Hosting starts a server on this machine, on port
+     *     {@value ArenaServer#PORT}, which the window then joins like any other client.
+     * FR: Héberge ou rejoint une partie en réseau local de jusqu'à quatre coureurs. Héberger démarre un serveur sur
+     *     cette machine, sur le port {@value ArenaServer#PORT}, que la fenêtre rejoint ensuite comme n'importe quel client.
+     */
+    private void startMultiplayerGame() {
+        Object[] choices = {"Héberger", "Rejoindre", "Annuler"};
+        int choice = JOptionPane.showOptionDialog(this, "Jusqu'à " + ArenaWorld.MAX_RUNNERS + " coureurs dans le même labyrinthe, sur le réseau local.",
+                "Multijoueur", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, choices, choices[0]);
+        if (choice != 0 && choice != 1) return;
+        try {
+            InetSocketAddress server;
+            if (choice == 0) {
+                arenaHost = ArenaServer.startInBackground(ArenaServer.PORT, System.nanoTime());
+                server = new InetSocketAddress(InetAddress.getLoopbackAddress(), ArenaServer.PORT);
+            } else {
+                String address = JOptionPane.showInputDialog(this, "Adresse de l'hôte (hôte ou hôte:port) :", "localhost");
+                if (address == null || address.isBlank()) return;
+                server = ArenaClient.parseAddress(address.trim(), ArenaServer.PORT);
+            }
+            arena = new ArenaClient(server);
+        } catch (IOException | IllegalArgumentException ex) {
+            closeArena();
+            JOptionPane.showMessageDialog(this, "Impossible de lancer la partie en réseau : " + ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        soundManager.stop("menu_music");
+        closeEndless();
+        setMenuUIVisible(false);
+        currentGameState = GameState.PLAYING;
+        world = null;
+        rewind = null;
+        gamePanel.setVisible(true);
+        gameTimer.setDelay(ArenaClient.FRAME_MS);
+        gameTimer.start();
+        this.requestFocusInWindow();
+    }
+
+    /**
+     * EN: Resumes the run left in the save file, paused so that the player can get ready.
+     * FR: Reprend la partie laissée dans le fichier de sauvegarde, en pause pour que le joueur puisse se préparer.
+     */
+    private void resumeSavedGame() {
+        GameWorld saved;
+        try {
+            saved = WorldSnapshot.load(Paths.get(WorldSnapshot.FILE));
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Impossible de reprendre la partie : " + ex.getMessage(), "Erreur", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        soundManager.stop("menu_music");
+        closeEndless();
+        setMenuUIVisible(false);
+        world = saved;
+        world.events = events;
+        if (world.gridCols == heatmaps.gridCols && world.gridRows == heatmaps.gridRows) world.heatmap = heatmaps;
+        worldConfig = saved.config;
+        rewind = null;
+        currentLevel = saved.level;
+        targetScore = saved.dotCount * 10;
+        runSaved = true;
+        currentGameState = GameState.PAUSED;
+        gameTimer.setDelay(saved.tickDelayMs);
+        gamePanel.setVisible(true);
+        gamePanel.repaint();
+        this.requestFocusInWindow();
+    }
+
+    /**
+     * EN: Pauses the run or resumes it. Pausing a level-based run also saves it in the background.
+     * FR: Met la partie en pause ou la reprend. Mettre en pause une partie à niveaux la sauvegarde aussi en arrière-plan.
+     */
+    private void togglePause() {
+        if (currentGameState == GameState.PAUSED) {
+            currentGameState = GameState.PLAYING;
+            gameTimer.start();
+        } else {
+            currentGameState = GameState.PAUSED;
+            gameTimer.stop();
+            if (isRunInProgress()) saveGame(true);
+        }
+        gamePanel.repaint();
+    }
+
+    /**
+     * EN: Whether a level-based run is being played or paused, and so can be saved.
+     * FR: Indique si une partie à niveaux est en cours ou en pause, et peut donc être sauvegardée.
+     */
+    private boolean isRunInProgress() {
+        return world != null && endless == null && autoPlayer == null && rewind == null
+                && (currentGameState == GameState.PLAYING || currentGameState == GameState.PAUSED);
+    }
+
+    /**
+     * EN: Saves the run to the save file, in the background or, when the game is about to exit, before returning.
+     * FR: Sauvegarde la partie dans le fichier de sauvegarde, en arrière-plan ou, quand le jeu va se fermer, avant de
+     *     rendre la main.
+     */
+    private void saveGame(boolean background) {
+        ByteBuffer snapshot = snapshots.capture(world);
+        if (background) WorldSnapshot.saveInBackground(Paths.get(WorldSnapshot.FILE), snapshot);
+        else WorldSnapshot.save(Paths.get(WorldSnapshot.FILE), snapshot);
+        runSaved = true;
+    }
+
+    /**
+     * EN: Deletes the save file if it holds the run that just ended.
+     * FR: Supprime le fichier de sauvegarde s'il contient la partie qui vient de se terminer.
+     */
+    private void discardSave() {
+        if (!runSaved) return;
+        WorldSnapshot.delete(Paths.get(WorldSnapshot.FILE));
+        runSaved = false;
+    }
+
+    /**
+     * EN: Ends the endless run, if any, stopping its workers and deleting its cache.
+     * FR: Termine la partie infinie en cours, s'il y en a une, en arrêtant ses threads et en supprimant son cache.
+     */
+    private void closeEndless() {
+        if (endless == null) return;
+        endless.close();
+        endless = null;
+    }
+
+    /**
+     * EN: Leaves the LAN game, if any, and stops the server if this window hosts it.
+     * FR: Quitte la partie en réseau local, s'il y en a une, et arrête le serveur si cette fenêtre l'héberge.
+     */
+    private void closeArena() {
+        if (arena != null) arena.close();
+        if (arenaHost != null) arenaHost.close();
+        arena = null;
+        arenaHost = null;
+    }
+
     /**
      * EN: Creates a transparent JPanel with a specified layout manager.
      * FR: Crée un JPanel transparent avec un gestionnaire de layout spécifié.
@@ -540,12 +1231,7 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      */
     private void initGame() {
         currentGameState = GameState.MENU;
-        score = 0;
-        playerPosition = new Point(1, 1);
-        dots = new ArrayList<>();
-        obstacles = new HashSet<>();
-        gridCols = WIDTH / CELL_SIZE;
-        gridRows = HEIGHT / CELL_SIZE;
+        world = null;
         gameTimer = new Timer(16, this);
 
         glitchTimer = new Timer(100, e -> {
@@ -574,9 +1260,15 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     private void startGame() {
         soundManager.stop("menu_music");
         
+        closeEndless();
         setMenuUIVisible(false);
         currentGameState = GameState.PLAYING;
-        score = 0;
+        runSaved = false;
+        // Les missions d'un pack gardent sa graine, afin que leurs scores soient comparables.
+        world = new GameWorld(worldConfig, worldConfig.pack != null ? worldConfig.pack.seed : System.nanoTime());
+        world.recorder = rewind;
+        world.events = events;
+        if (world.gridCols == heatmaps.gridCols && world.gridRows == heatmaps.gridRows) world.heatmap = heatmaps;
         initGameElementsForLevel(currentLevel);
         gamePanel.setVisible(true);
         gameTimer.start();
@@ -589,125 +1281,35 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      * @param level The level to initialize.
      */
     private void initGameElementsForLevel(int level) {
-        playerPosition = new Point(1, 1);
-        createMazeAndDotsForLevel(level);
-        targetScore = dots.size() * 10;
-        
-        placeEnemies();
-        placePowerUps();
+        world.loadLevel(level);
+        if (rewind != null) rewind.clear(world);
+        targetScore = world.dotCount * 10;
+        if (flightRecording != null) flightRecording.resetClock();
 
-        int newDelay = Math.max(16, 120 - (level - 1) * 5);
-        gameTimer.setDelay(newDelay);
+        gameTimer.setDelay(world.tickDelayMs);
         gamePanel.repaint();
     }
 
-    /**
-     * EN: Creates the maze, dots, and obstacles for a given level.
-     * FR: Crée le labyrinthe, les points et les obstacles pour un niveau donné.
-     * @param level The current level, affecting the density of obstacles.
-     */
-    private void createMazeAndDotsForLevel(int level) {
-        dots.clear(); obstacles.clear();
-        for (int i = 0; i < gridCols; i++) {
-            for (int j = 0; j < gridRows; j++) {
-                if (i == 0 || j == 0 || i == gridCols - 1 || j == gridRows - 1) obstacles.add(new Point(i, j));
-                else if (random.nextInt(100) < 20 + (level % 5)) obstacles.add(new Point(i, j));
-                else dots.add(new Point(i, j));
-            }
-        }
-        obstacles.remove(new Point(1, 1));
-        dots.remove(new Point(1, 1));
-    }
-    
-    /**
-     * EN: Places enemies on the grid at random available positions.
-     * FR: Place les ennemis sur la grille à des positions disponibles aléatoires.
-     */
-    private void placeEnemies() {
-        enemies.clear();
-        List<Point> availablePositions = getAvailablePositions();
-        availablePositions.removeIf(p -> p.distance(playerPosition) < 5);
-        Collections.shuffle(availablePositions, random);
-        
-        int spawnDelay = 500;
-        int enemyCount = Math.min(4, availablePositions.size());
-        for(int i = 0; i < enemyCount; i++) {
-            final int index = i;
-            if (availablePositions.isEmpty()) break;
-            Point spawnPoint = availablePositions.remove(0);
-            Timer spawnTimer = new Timer(spawnDelay * (i + 1), (e) -> {
-                EnemyBehavior behavior = EnemyBehavior.values()[index % EnemyBehavior.values().length];
-                enemies.add(new Enemy(spawnPoint, behavior));
-                ((Timer)e.getSource()).stop();
-            });
-            spawnTimer.setRepeats(false);
-            spawnTimer.start();
-        }
-    }
-
-    /**
-     * EN: Places power-ups on the grid at random available positions.
-     * FR: Place les power-ups sur la grille à des positions disponibles aléatoires.
-     */
-    private void placePowerUps() {
-        powerUps.clear();
-        List<Point> availablePositions = getAvailablePositions();
-        Collections.shuffle(availablePositions, random);
-        if(availablePositions.size() > 0) powerUps.add(new PowerUp(availablePositions.remove(0), PowerUpType.SUPER_PELLET));
-        if(currentLevel % 2 == 0 && availablePositions.size() > 0) powerUps.add(new PowerUp(availablePositions.remove(0), PowerUpType.FREEZE));
-        if(random.nextInt(100) < 40 && availablePositions.size() > 0) powerUps.add(new PowerUp(availablePositions.remove(0), PowerUpType.SHIELD));
-    }
-    
-    /**
-     * EN: Gets a list of all available (non-obstacle, non-player) positions on the grid.
-     * FR: Obtient une liste de toutes les positions disponibles (non-obstacle, non-joueur) sur la grille.
-     * @return A list of available points.
-     */
-    private List<Point> getAvailablePositions() {
-        List<Point> available = new ArrayList<>();
-        for (int r = 1; r < gridRows - 1; r++) {
-            for (int c = 1; c < gridCols - 1; c++) {
-                Point p = new Point(c, r);
-                if (!obstacles.contains(p) && !p.equals(playerPosition)) available.add(p);
-            }
-        }
-        return available;
-    }
-
-
-    /**
-     * EN: Updates the game logic, such as power-up timers and enemy states.
-     * FR: Met à jour la logique du jeu, comme les minuteurs de power-up et les états des ennemis.
-     */
-    private void updateGameLogic() {
-        long currentTime = System.currentTimeMillis();
-        if (isShieldActive && currentTime > shieldEndTime) isShieldActive = false;
-        if (areEnemiesFrozen && currentTime > freezeEndTime) areEnemiesFrozen = false;
-        if (areEnemiesVulnerable && currentTime > vulnerableEndTime) {
-            areEnemiesVulnerable = false;
-            for(Enemy e : enemies) e.changeState(EnemyState.PATROLLING);
-        }
-        
-        for (Enemy enemy : enemies) {
-            if(enemy.state == EnemyState.AGGRO_TELEGRAPH && currentTime - enemy.stateChangeTime > 300) {
-                enemy.changeState(EnemyState.CHASING);
-            }
-        }
-    }
-    
     /**
      * EN: Handles the game over sequence.
      * FR: Gère la séquence de fin de partie.
      */
     private void gameOver() {
+        if (flightRecording != null) flightRecording.dump("defaite");
+        if (autoPlayer != null) {
+            soakStats.playerCaught();
+            startGame();
+            return;
+        }
         if (currentGameState == GameState.PLAYING) {
             currentGameState = GameState.GAME_OVER; 
             gameTimer.stop();
+            discardSave();
             endMessageLabel.setText("RAPPORT DE FIN DE MISSION");
             endMessageLabel.setForeground(new Color(255, 80, 80));
             endScreenPanel.setVisible(true);
             layeredPane.repaint();
-            askForNameAndAddHighScore(score);
+            askForNameAndAddHighScore(endless != null ? endless.score : world.score);
             this.requestFocusInWindow();
         }
     }
@@ -719,19 +1321,33 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
     private void gameWinLevel() {
         gameTimer.stop();
         currentLevel++;
-        if(currentLevel > unlockedLevel) unlockedLevel = currentLevel;
-        playerProfile.levelsCompleted++;
-        score += 1000;
+        if(currentLevel > unlockedLevel && worldConfig.campaign) unlockedLevel = currentLevel;
+        world.score += 1000;
+        if (autoPlayer != null) {
+            soakStats.levelCleared(currentLevel > maxLevel);
+            if (currentLevel > maxLevel) {
+                System.out.println(soakStats.summary());
+                currentLevel = 1;
+                startGame();
+            } else {
+                initGameElementsForLevel(currentLevel);
+                gameTimer.start();
+            }
+            return;
+        }
         
         if (currentLevel > maxLevel) {
             currentGameState = GameState.WIN;
+            discardSave();
             endMessageLabel.setText("SYSTÈME PÉNETRÉ");
             endMessageLabel.setForeground(Color.GREEN);
             endScreenPanel.setVisible(true);
-            askForNameAndAddHighScore(score);
+            // Les retours en arrière faussent le score : l'entraînement n'entre pas au classement.
+            if (rewind == null) askForNameAndAddHighScore(world.score);
         } else {
             JOptionPane.showMessageDialog(this, "Niveau " + (currentLevel - 1) + " terminé ! Préparez-vous pour le niveau " + currentLevel + " !");
             initGameElementsForLevel(currentLevel);
+            if (isRunInProgress()) saveGame(true);
             gameTimer.start();
         }
         this.requestFocusInWindow();
@@ -743,6 +1359,10 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      */
     private void showMenu() {
         currentGameState = GameState.MENU;
+        closeEndless();
+        closeArena();
+        stopCapture();
+        resumeButton.setEnabled(Files.exists(Paths.get(WorldSnapshot.FILE)));
         setMenuUIVisible(true);
         highScoresPanel.setVisible(false);
         endScreenPanel.setVisible(false);
@@ -811,318 +1431,9098 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      * FR: Le panneau de jeu principal où le jeu est rendu.
      */
     private class GamePanel extends JPanel {
-        private final Font uiFont = new Font("Orbitron", Font.BOLD, 22);
         public GamePanel() { setOpaque(true); setDoubleBuffered(true); }
 
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             setBackground(currentTheme.bgColor);
+            FrameCapture.Frame frame = capture != null ? capture.acquire() : null;
+            if (frame == null) {
+                paintFrame((Graphics2D) g);
+            } else {
+                // L'image est peinte dans le tampon de la capture, puis copiée à l'écran.
+                Graphics2D image = frame.image.createGraphics();
+                image.setColor(currentTheme.bgColor);
+                image.fillRect(0, 0, frame.image.getWidth(), frame.image.getHeight());
+                paintFrame(image);
+                image.dispose();
+                g.drawImage(frame.image, 0, 0, null);
+                capture.submit(frame);
+            }
+            if (capture != null) WorldRenderer.paintCapture((Graphics2D) g, capture);
+        }
 
-            Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-            if (currentGameState == GameState.PLAYING || currentGameState == GameState.PAUSED) {
-                for (Point obstacle : obstacles) {
-                    int x = obstacle.x * CELL_SIZE; int y = obstacle.y * CELL_SIZE;
-                    g2d.setColor(currentTheme.wallGlow);
-                    g2d.fillRect(x - 2, y - 2, CELL_SIZE + 4, CELL_SIZE + 4);
-                    g2d.setColor(currentTheme.wallColor);
-                    g2d.fillRect(x, y, CELL_SIZE, CELL_SIZE);
+        /**
+         * EN: Paints the game, its overlays and the pause or rewind banner.
+         * FR: Peint le jeu, ses overlays et le bandeau de pause ou de retour en arrière.
+         */
+        private void paintFrame(Graphics2D g) {
+            if (arena != null) {
+                long lap = PerfMetrics.start();
+                WorldRenderer.paintArena(g, arena, currentTheme);
+                PerfMetrics.lap(PerfMetrics.Section.PAINT, lap);
+                PerfMetrics.frame();
+                if (PerfMetrics.isEnabled()) perfOverlay.paint(g, getWidth());
+            } else if (endless != null) {
+                long lap = PerfMetrics.start();
+                WorldRenderer.paintEndless(g, endless, currentTheme);
+                PerfMetrics.lap(PerfMetrics.Section.PAINT, lap);
+                PerfMetrics.frame();
+                if (PerfMetrics.isEnabled()) perfOverlay.paint(g, getWidth());
+            } else if (currentGameState == GameState.PLAYING || currentGameState == GameState.PAUSED || currentGameState == GameState.REWINDING) {
+                long lap = PerfMetrics.start();
+                PaintEvent event = TickEvents.PAINT.isEnabled() ? new PaintEvent() : null;
+                if (event != null) event.begin();
+                WorldRenderer.paint(g, world, currentTheme, currentLevel);
+                int[][] heat = heatmapKind >= 0 ? heatmaps.grid(world.level) : null;
+                if (heat != null && world.gridCols == heatmaps.gridCols) {
+                    WorldRenderer.paintHeatmap(g, heat[heatmapKind], world.gridCols, WorldRenderer.cellSize(world), HeatmapAnalytics.KIND_NAMES[heatmapKind]);
                 }
-
-                g2d.setColor(new Color(0, 255, 128));
-                for (Point dot : dots) g2d.fill(new Ellipse2D.Double(dot.x * CELL_SIZE + CELL_SIZE * 0.4, dot.y * CELL_SIZE + CELL_SIZE * 0.4, CELL_SIZE * 0.2, CELL_SIZE * 0.2));
-                for (PowerUp p : powerUps) drawPowerUp(g2d, p);
-
-                int playerX = playerPosition.x * CELL_SIZE; int playerY = playerPosition.y * CELL_SIZE;
-                g2d.setColor(Color.YELLOW);
-                g2d.fill(new Ellipse2D.Double(playerX + 2, playerY + 2, CELL_SIZE - 4, CELL_SIZE - 4));
-                g2d.setColor(Color.WHITE);
-                g2d.fill(new Ellipse2D.Double(playerX + 8, playerY + 8, CELL_SIZE - 16, CELL_SIZE - 16));
-                
-                if(isShieldActive) {
-                    g2d.setColor(new Color(0, 255, 255, 100));
-                    g2d.setStroke(new BasicStroke(3));
-                    g2d.draw(new Ellipse2D.Double(playerX - 2, playerY - 2, CELL_SIZE + 4, CELL_SIZE + 4));
+                PerfMetrics.lap(PerfMetrics.Section.PAINT, lap);
+                if (event != null && event.shouldCommit()) {
+                    event.level = currentLevel;
+                    event.enemies = world.enemies.count;
+                    event.dots = world.dotCount;
+                    event.commit();
                 }
+                PerfMetrics.frame();
+                if (PerfMetrics.isEnabled()) perfOverlay.paint(g, getWidth());
+            }
+            if (achievements != null && achievements.latest != null && System.nanoTime() - achievements.latestNanos < 4_000_000_000L) {
+                WorldRenderer.paintAchievement(g, currentTheme, achievements.latest);
+            }
+            if (currentGameState == GameState.PAUSED) {
+                WorldRenderer.paintPause(g, currentTheme,
+                        isRunInProgress() ? "P : reprendre    Échap : sauvegarder et quitter" : "P : reprendre    Échap : quitter");
+                WorldRenderer.paintSessionTally(g, sessionTally);
+            } else if (currentGameState == GameState.REWINDING) {
+                WorldRenderer.paintRewinding(g, currentTheme);
+            }
+        }
+    }
+
+    /**
+     * EN: Draws a game world: walls, dots, power-ups, player, enemies and the score line. It holds no state and needs no
+     *     window, so the same code paints the game panel and offscreen images.
+     * FR: Dessine un monde de jeu : murs, points, power-ups, joueur, ennemis et la ligne de score. Il ne garde aucun état
+     *     et n'a pas besoin de fenêtre, donc le même code peint le panneau de jeu et des images hors écran.
+     */
+    private static final class WorldRenderer {
+        private static final Font UI_FONT = new Font("Orbitron", Font.BOLD, 22), PAUSE_FONT = new Font("Orbitron", Font.BOLD, 56);
+        private static final Font HUD_FONT = new Font("Consolas", Font.PLAIN, 14);
+        private static final Color[] RUNNER_COLORS = {Color.YELLOW, Color.CYAN, Color.MAGENTA, new Color(255, 140, 0)};
+
+        /**
+         * EN: Paints the world over an already cleared background.
+         * FR: Peint le monde sur un fond déjà effacé.
+         * @param g2d The Graphics2D context.
+         * @param world The world to draw.
+         * @param theme The colours of walls and text.
+         * @param level The level number shown in the score line.
+         */
+        static void paint(Graphics2D g2d, GameWorld world, UITheme theme, int level) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int cellSize = cellSize(world);
+            for (Point obstacle : world.obstacles) {
+                int x = obstacle.x * cellSize; int y = obstacle.y * cellSize;
+                g2d.setColor(theme.wallGlow);
+                g2d.fillRect(x - 2, y - 2, cellSize + 4, cellSize + 4);
+                g2d.setColor(theme.wallColor);
+                g2d.fillRect(x, y, cellSize, cellSize);
+            }
+
+            g2d.setColor(new Color(0, 255, 128));
+            for (int c = 0; c < world.dots.length; c++) {
+                if (world.dots[c]) g2d.fill(new Ellipse2D.Double(c % world.gridCols * cellSize + cellSize * 0.4, c / world.gridCols * cellSize + cellSize * 0.4, cellSize * 0.2, cellSize * 0.2));
+            }
+            for (int i = 0; i < world.powerUps.count; i++) drawPowerUp(g2d, world.powerUps, i, cellSize);
+
+            int playerX = world.playerPosition.x * cellSize; int playerY = world.playerPosition.y * cellSize;
+            g2d.setColor(Color.YELLOW);
+            g2d.fill(new Ellipse2D.Double(playerX + cellSize * 0.05, playerY + cellSize * 0.05, cellSize * 0.9, cellSize * 0.9));
+            g2d.setColor(Color.WHITE);
+            g2d.fill(new Ellipse2D.Double(playerX + cellSize * 0.2, playerY + cellSize * 0.2, cellSize * 0.6, cellSize * 0.6));
+
+            if(world.isShieldActive) {
+                g2d.setColor(new Color(0, 255, 255, 100));
+                g2d.setStroke(new BasicStroke(3));
+                g2d.draw(new Ellipse2D.Double(playerX - 2, playerY - 2, cellSize + 4, cellSize + 4));
+            }
+
+            for (int i = 0; i < world.enemies.count; i++) drawEnemy(g2d, world, i, cellSize);
+
+            g2d.setFont(UI_FONT);
+            g2d.setColor(theme.accentColor);
+            g2d.drawString("Score: " + world.score, 15, 25);
+            g2d.drawString("Niveau: " + level, WIDTH / 2 - 50, 25);
+        }
+
+        /**
+         * EN: Paints the part of an endless maze around the player, the camera keeping the player at the centre of the
+         *     window. Only chunks already in memory are drawn.
+         * FR: Peint la partie d'un labyrinthe infini autour du joueur, la caméra gardant le joueur au centre de la fenêtre.
+         *     Seuls les morceaux déjà en mémoire sont dessinés.
+         * @param g2d The Graphics2D context.
+         * @param world The endless world to draw.
+         * @param theme The colours of walls and text.
+         */
+        static void paintEndless(Graphics2D g2d, EndlessWorld world, UITheme theme) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int cellSize = CELL_SIZE, cols = WIDTH / cellSize, rows = HEIGHT / cellSize;
+            int originX = world.playerX - cols / 2, originY = world.playerY - rows / 2;
+            for (int pass = 0; pass < 2; pass++) {
+                if (pass == 1) g2d.setColor(new Color(0, 255, 128));
+                for (int row = 0; row <= rows; row++) {
+                    for (int col = 0; col <= cols; col++) {
+                        int x = originX + col, y = originY + row;
+                        MazeChunk chunk = world.loadedChunkFor(x, y);
+                        if (chunk == null) continue;
+                        int cell = Math.floorMod(y, MazeChunk.SIZE) * MazeChunk.SIZE + Math.floorMod(x, MazeChunk.SIZE);
+                        int px = col * cellSize, py = row * cellSize;
+                        if (pass == 0 && chunk.walls[cell]) {
+                            g2d.setColor(theme.wallGlow);
+                            g2d.fillRect(px - 2, py - 2, cellSize + 4, cellSize + 4);
+                            g2d.setColor(theme.wallColor);
+                            g2d.fillRect(px, py, cellSize, cellSize);
+                        } else if (pass == 1 && chunk.dots[cell]) {
+                            g2d.fill(new Ellipse2D.Double(px + cellSize * 0.4, py + cellSize * 0.4, cellSize * 0.2, cellSize * 0.2));
+                        }
+                    }
+                }
+            }
+
+            int playerX = (world.playerX - originX) * cellSize, playerY = (world.playerY - originY) * cellSize;
+            g2d.setColor(Color.YELLOW);
+            g2d.fill(new Ellipse2D.Double(playerX + cellSize * 0.05, playerY + cellSize * 0.05, cellSize * 0.9, cellSize * 0.9));
+            g2d.setColor(Color.WHITE);
+            g2d.fill(new Ellipse2D.Double(playerX + cellSize * 0.2, playerY + cellSize * 0.2, cellSize * 0.6, cellSize * 0.6));
+
+            BehaviorTable behaviors = BehaviorTable.shared();
+            for (int i = 0; i < world.enemyCount; i++) {
+                int ex = (world.enemyX[i] - originX) * cellSize, ey = (world.enemyY[i] - originY) * cellSize;
+                g2d.setColor(behaviors.colors[i % behaviors.types()]);
+                g2d.fill(new Rectangle2D.Double(ex + cellSize * 0.1, ey + cellSize * 0.1, cellSize * 0.8, cellSize * 0.8));
+            }
+
+            g2d.setFont(UI_FONT);
+            g2d.setColor(theme.accentColor);
+            g2d.drawString("Score: " + world.score, 15, 25);
+            g2d.drawString("Distance: " + world.farthest, WIDTH / 2 - 50, 25);
+        }
+
+        /**
+         * EN: Paints a LAN game as the client last received it, the player's own runner where the client predicts it,
+         *     with every runner's score on top and the connection's figures at the bottom.
+         * FR: Peint une partie en réseau local telle que le client l'a reçue en dernier, le coureur du joueur là où le
+         *     client le prédit, avec le score de chaque coureur en haut et les mesures de la connexion en bas.
+         * @param g2d The Graphics2D context.
+         * @param client The connection to the game.
+         * @param theme The colours of walls and text.
+         */
+        static void paintArena(Graphics2D g2d, ArenaClient client, UITheme theme) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setFont(UI_FONT);
+            ArenaWorld view = client.view;
+            if (view == null || client.latestTick < 0) {
+                g2d.setColor(theme.accentColor);
+                String label = "Connexion à l'hôte...";
+                g2d.drawString(label, (WIDTH - g2d.getFontMetrics().stringWidth(label)) / 2, HEIGHT / 2);
+                return;
+            }
+            int cellSize = Math.min(CELL_SIZE, Math.min(WIDTH / view.gridCols, HEIGHT / view.gridRows));
+            for (int c = 0; c < view.walls.length; c++) {
+                if (!view.walls[c]) continue;
+                int x = c % view.gridCols * cellSize, y = c / view.gridCols * cellSize;
+                g2d.setColor(theme.wallGlow);
+                g2d.fillRect(x - 2, y - 2, cellSize + 4, cellSize + 4);
+                g2d.setColor(theme.wallColor);
+                g2d.fillRect(x, y, cellSize, cellSize);
+            }
+            g2d.setColor(new Color(0, 255, 128));
+            for (int c = 0; c < view.dots.length; c++) {
+                if (view.dots[c]) g2d.fill(new Ellipse2D.Double(c % view.gridCols * cellSize + cellSize * 0.4, c / view.gridCols * cellSize + cellSize * 0.4, cellSize * 0.2, cellSize * 0.2));
+            }
+
+            for (int r = 0; r < ArenaWorld.MAX_RUNNERS; r++) {
+                if (!view.isPlaying(r)) continue;
+                int x = (r == client.slot ? client.predictedX : view.runnerX[r]) * cellSize;
+                int y = (r == client.slot ? client.predictedY : view.runnerY[r]) * cellSize;
+                g2d.setColor(RUNNER_COLORS[r]);
+                g2d.fill(new Ellipse2D.Double(x + cellSize * 0.05, y + cellSize * 0.05, cellSize * 0.9, cellSize * 0.9));
+                if (r != client.slot) continue;
+                g2d.setColor(Color.WHITE);
+                g2d.fill(new Ellipse2D.Double(x + cellSize * 0.2, y + cellSize * 0.2, cellSize * 0.6, cellSize * 0.6));
+            }
+
+            BehaviorTable behaviors = BehaviorTable.shared();
+            for (int i = 0; i < view.enemyCount; i++) {
+                int ex = view.enemyX[i] * cellSize, ey = view.enemyY[i] * cellSize;
+                g2d.setColor(behaviors.colors[i % behaviors.types()]);
+                g2d.fill(new Rectangle2D.Double(ex + cellSize * 0.1, ey + cellSize * 0.1, cellSize * 0.8, cellSize * 0.8));
+            }
+
+            int x = 15;
+            for (int r = 0; r < ArenaWorld.MAX_RUNNERS; r++) {
+                if (!view.joined[r]) continue;
+                String label = "J" + (r + 1) + (r == client.slot ? "*" : "") + " " + view.score[r];
+                g2d.setColor(RUNNER_COLORS[r]);
+                g2d.drawString(label, x, 25);
+                x += g2d.getFontMetrics().stringWidth(label) + 30;
+            }
+            g2d.setFont(HUD_FONT);
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.drawString(String.format("Niveau %d    réception %.1f ko/s    tick serveur %d µs    Échap : quitter",
+                    view.level, client.bytesPerSecond / 1000, client.serverTickMicros), 15, HEIGHT - 45);
+        }
+
+        /**
+         * EN: Paints a broadcast game as the spectator feed last decoded it, with the level and score at the bottom.
+         * FR: Peint une partie diffusée telle que le flux du spectateur l'a décodée en dernier, avec le niveau et le
+         *     score en bas.
+         * @param g2d The Graphics2D context.
+         * @param feed The broadcast being watched.
+         * @param theme The colours of walls and text.
+         */
+        static void paintSpectator(Graphics2D g2d, SpectatorFeed feed, UITheme theme) {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setFont(UI_FONT);
+            if (feed.sequence < 0 || feed.closed) {
+                g2d.setColor(theme.accentColor);
+                String label = feed.closed ? "Diffusion terminée" : "En attente de la diffusion...";
+                g2d.drawString(label, (WIDTH - g2d.getFontMetrics().stringWidth(label)) / 2, HEIGHT / 2);
+                if (feed.sequence < 0) return;
+            }
+            int cellSize = Math.min(CELL_SIZE, Math.min(WIDTH / feed.gridCols, HEIGHT / feed.gridRows));
+            for (int c = 0; c < feed.walls.length; c++) {
+                if (!feed.walls[c]) continue;
+                int x = c % feed.gridCols * cellSize, y = c / feed.gridCols * cellSize;
+                g2d.setColor(theme.wallGlow);
+                g2d.fillRect(x - 2, y - 2, cellSize + 4, cellSize + 4);
+                g2d.setColor(theme.wallColor);
+                g2d.fillRect(x, y, cellSize, cellSize);
+            }
+            g2d.setColor(new Color(0, 255, 128));
+            for (int c = 0; c < feed.dots.length; c++) {
+                if (feed.dots[c]) g2d.fill(new Ellipse2D.Double(c % feed.gridCols * cellSize + cellSize * 0.4, c / feed.gridCols * cellSize + cellSize * 0.4, cellSize * 0.2, cellSize * 0.2));
+            }
+            Color[] powerUpColors = { Color.YELLOW, new Color(0, 150, 255), Color.GREEN };
+            for (int i = 0; i < feed.powerUpCount; i++) {
+                g2d.setColor(powerUpColors[feed.powerUpType[i]]);
+                g2d.fill(new Ellipse2D.Double(feed.powerUpX[i] * cellSize + cellSize * 0.2, feed.powerUpY[i] * cellSize + cellSize * 0.2, cellSize * 0.6, cellSize * 0.6));
+            }
+
+            BehaviorTable behaviors = BehaviorTable.shared();
+            for (int h = 0; h < feed.enemyCount; h++) {
+                if (feed.enemyState[h] < 0) continue;
+                boolean fleeing = feed.enemyState[h] == EnemyState.FLEEING.ordinal();
+                g2d.setColor(fleeing ? new Color(0, 100, 255, 150) : behaviors.colors[feed.enemyType[h] % behaviors.types()]);
+                g2d.fill(new Rectangle2D.Double(feed.enemyX[h] * cellSize + cellSize * 0.1, feed.enemyY[h] * cellSize + cellSize * 0.1, cellSize * 0.8, cellSize * 0.8));
+            }
+            g2d.setColor((feed.flags & 1) != 0 ? Color.CYAN : Color.YELLOW);
+            g2d.fill(new Ellipse2D.Double(feed.playerX * cellSize + cellSize * 0.05, feed.playerY * cellSize + cellSize * 0.05, cellSize * 0.9, cellSize * 0.9));
+
+            g2d.setFont(HUD_FONT);
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.drawString(String.format("Spectateur    niveau %d    score %d    tick %d    reçu %,d octets",
+                    feed.level, feed.score, feed.sequence, feed.bytesReceived), 15, HEIGHT - 45);
+        }
 
-                for (Enemy enemy : enemies) drawEnemy(g2d, enemy);
-
-                g2d.setFont(uiFont);
-                g2d.setColor(currentTheme.accentColor);
-                g2d.drawString("Score: " + score, 15, 25);
-                g2d.drawString("Niveau: " + currentLevel, WIDTH / 2 - 50, 25);
+        /**
+         * EN: Tints each cell by its count, on a logarithmic scale up to the level's busiest cell, and names the map shown.
+         * FR: Teinte chaque cellule selon son compte, sur une échelle logarithmique jusqu'à la cellule la plus chargée du
+         *     niveau, et nomme la carte affichée.
+         * @param counts The counts per cell.
+         * @param label The name of the map.
+         */
+        static void paintHeatmap(Graphics2D g2d, int[] counts, int gridCols, int cellSize, String label) {
+            int max = 0;
+            for (int count : counts) max = Math.max(max, count);
+            if (max > 0) {
+                double scale = Math.log1p(max);
+                for (int c = 0; c < counts.length; c++) {
+                    if (counts[c] == 0) continue;
+                    float heat = (float) (Math.log1p(counts[c]) / scale);
+                    g2d.setColor(new Color(1f, 1f - heat, 0f, 0.15f + 0.45f * heat));
+                    g2d.fillRect(c % gridCols * cellSize, c / gridCols * cellSize, cellSize, cellSize);
+                }
+            }
+            g2d.setFont(HUD_FONT);
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.drawString("Carte de chaleur : " + label + " (max " + max + ")    F5 : suivante", 15, HEIGHT - 45);
+        }
+
+        /**
+         * EN: Marks the screen while frames are captured, with the frames captured and dropped so far; painted after the
+         *     capture, so it is not recorded.
+         * FR: Signale à l'écran que des images sont capturées, avec les images capturées et perdues jusqu'ici ; peint
+         *     après la capture, donc non enregistré.
+         */
+        static void paintCapture(Graphics2D g2d, FrameCapture capture) {
+            g2d.setFont(HUD_FONT);
+            g2d.setColor(Color.RED);
+            g2d.fill(new Ellipse2D.Double(WIDTH - 230, 12, 12, 12));
+            g2d.drawString(String.format("REC %d images, %d perdues", capture.captured(), capture.dropped), WIDTH - 212, 23);
+        }
+
+        /**
+         * EN: Paints a level as it starts, shrunk to a square picture: walls, dots, power-ups, where the enemies will
+         *     enter and the player. Nothing is antialiased, so the same level always gives the same pixels.
+         * FR: Peint un niveau tel qu'il commence, réduit à une image carrée : murs, points, power-ups, entrées des
+         *     ennemis et joueur. Rien n'est lissé, donc un même niveau donne toujours les mêmes pixels.
+         * @param size The side of the picture in pixels.
+         */
+        static void paintThumbnail(Graphics2D g2d, GameWorld world, UITheme theme, int size) {
+            g2d.setColor(theme.bgColor);
+            g2d.fillRect(0, 0, size, size);
+            int cellSize = Math.max(1, size / Math.max(world.gridCols, world.gridRows));
+            int originX = (size - cellSize * world.gridCols) / 2, originY = (size - cellSize * world.gridRows) / 2;
+            int dotSize = Math.max(1, cellSize / 3), dotOffset = (cellSize - dotSize) / 2;
+            for (int c = 0; c < world.walls.length; c++) {
+                int x = originX + c % world.gridCols * cellSize, y = originY + c / world.gridCols * cellSize;
+                if (world.walls[c]) {
+                    g2d.setColor(theme.wallColor);
+                    g2d.fillRect(x, y, cellSize, cellSize);
+                } else if (world.dots[c]) {
+                    g2d.setColor(new Color(0, 255, 128));
+                    g2d.fillRect(x + dotOffset, y + dotOffset, dotSize, dotSize);
+                }
+            }
+            PowerUpStore powerUps = world.powerUps;
+            for (int i = 0; i < powerUps.count; i++) {
+                switch (powerUps.type(i)) {
+                    case SUPER_PELLET: g2d.setColor(Color.YELLOW); break;
+                    case FREEZE: g2d.setColor(new Color(0, 150, 255)); break;
+                    case SHIELD: g2d.setColor(Color.GREEN); break;
+                }
+                g2d.fillRect(originX + powerUps.x[i] * cellSize, originY + powerUps.y[i] * cellSize, cellSize, cellSize);
+            }
+            BehaviorTable behaviors = BehaviorTable.shared();
+            EnemyStore enemies = world.enemies;
+            for (int h = 0; h < enemies.scheduled(); h++) {
+                int cell = enemies.spawnCell(h);
+                g2d.setColor(behaviors.colors[h % behaviors.types()]);
+                g2d.fillRect(originX + cell % world.gridCols * cellSize, originY + cell / world.gridCols * cellSize, cellSize, cellSize);
+            }
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(originX + world.playerPosition.x * cellSize, originY + world.playerPosition.y * cellSize, cellSize, cellSize);
+        }
+
+        /**
+         * EN: Marks the screen while a practice run plays backwards.
+         * FR: Signale à l'écran qu'une partie d'entraînement est rejouée à l'envers.
+         */
+        static void paintRewinding(Graphics2D g2d, UITheme theme) {
+            g2d.setFont(UI_FONT);
+            g2d.setColor(theme.accentColor);
+            String label = "<< RETOUR EN ARRIÈRE";
+            g2d.drawString(label, (WIDTH - g2d.getFontMetrics().stringWidth(label)) / 2, HEIGHT - 20);
+        }
+
+        /**
+         * EN: Announces an achievement the player just unlocked, under the score line.
+         * FR: Annonce un succès que le joueur vient de débloquer, sous la ligne de score.
+         */
+        static void paintAchievement(Graphics2D g2d, UITheme theme, Achievement achievement) {
+            g2d.setFont(HUD_FONT);
+            String label = "Succès débloqué : " + achievement.title + " (" + achievement.description + ")";
+            int width = g2d.getFontMetrics().stringWidth(label) + 24;
+            g2d.setColor(new Color(10, 5, 15, 200));
+            g2d.fillRoundRect((WIDTH - width) / 2, 38, width, 26, 12, 12);
+            g2d.setColor(theme.accentColor);
+            g2d.drawRoundRect((WIDTH - width) / 2, 38, width, 26, 12, 12);
+            g2d.drawString(label, (WIDTH - width) / 2 + 12, 56);
+        }
+
+        /**
+         * EN: Shows the session's events under the pause banner.
+         * FR: Affiche les événements de la session sous le bandeau de pause.
+         */
+        static void paintSessionTally(Graphics2D g2d, EventTally tally) {
+            g2d.setFont(HUD_FONT);
+            g2d.setColor(Color.LIGHT_GRAY);
+            String label = tally.summary();
+            g2d.drawString(label, (WIDTH - g2d.getFontMetrics().stringWidth(label)) / 2, HEIGHT / 2 + 70);
+        }
+
+        /**
+         * EN: Dims a paused game and shows how to resume or leave it.
+         * FR: Assombrit une partie en pause et indique comment la reprendre ou la quitter.
+         * @param hint The keys to resume or leave.
+         */
+        static void paintPause(Graphics2D g2d, UITheme theme, String hint) {
+            g2d.setColor(new Color(10, 5, 15, 170));
+            g2d.fillRect(0, 0, WIDTH, HEIGHT);
+            g2d.setFont(PAUSE_FONT);
+            g2d.setColor(theme.accentColor);
+            g2d.drawString("PAUSE", (WIDTH - g2d.getFontMetrics().stringWidth("PAUSE")) / 2, HEIGHT / 2 - 20);
+            g2d.setFont(UI_FONT);
+            g2d.setColor(Color.LIGHT_GRAY);
+            g2d.drawString(hint, (WIDTH - g2d.getFontMetrics().stringWidth(hint)) / 2, HEIGHT / 2 + 30);
+        }
+
+        /**
+         * EN: Gets the on-screen size of a grid cell, so that larger boards still fit the window.
+         * FR: Obtient la taille à l'écran d'une cellule, afin que les plateaux plus grands tiennent dans la fenêtre.
+         * @param world The world to draw.
+         * @return The cell size in pixels.
+         */
+        static int cellSize(GameWorld world) {
+            return Math.min(CELL_SIZE, Math.min(WIDTH / world.gridCols, HEIGHT / world.gridRows));
+        }
+        
+        /**
+         * EN: Draws a power-up on the screen.
+         * FR: Dessine un power-up à l'écran.
+         * @param g2d The Graphics2D context.
+         * @param powerUps The power-ups of the world.
+         * @param slot The slot of the power-up to draw.
+         * @param cellSize The on-screen size of a grid cell.
+         */
+        private static void drawPowerUp(Graphics2D g2d, PowerUpStore powerUps, int slot, int cellSize) {
+            int x = powerUps.x[slot] * cellSize; int y = powerUps.y[slot] * cellSize;
+            float pulse = (float) (Math.sin((System.currentTimeMillis() - powerUps.spawnTime[slot]) / 200.0) + 1.0) / 2.0f;
+            switch(powerUps.type(slot)) {
+                case SUPER_PELLET: g2d.setColor(new Color(255, 255, 0, (int)(155 + 100 * pulse))); g2d.fill(new Ellipse2D.Double(x + cellSize*0.2, y + cellSize*0.2, cellSize*0.6, cellSize*0.6)); break;
+                case FREEZE: g2d.setColor(new Color(0, 150, 255, (int)(155 + 100 * pulse))); g2d.fill(new Rectangle2D.Double(x + cellSize*0.25, y + cellSize*0.25, cellSize*0.5, cellSize*0.5)); g2d.setColor(Color.WHITE); g2d.draw(new Rectangle2D.Double(x + cellSize*0.25, y + cellSize*0.25, cellSize*0.5, cellSize*0.5)); break;
+                case SHIELD: g2d.setColor(new Color(0, 255, 0, (int)(155 + 100 * pulse))); g2d.setStroke(new BasicStroke(3)); g2d.draw(new Ellipse2D.Double(x + cellSize*0.2, y + cellSize*0.2, cellSize*0.6, cellSize*0.6)); break;
             }
         }
         
         /**
-         * EN: Draws a power-up on the screen.
-         * FR: Dessine un power-up à l'écran.
-         * @param g2d The Graphics2D context.
-         * @param powerUp The power-up to draw.
+         * EN: Draws an enemy on the screen.
+         * FR: Dessine un ennemi à l'écran.
+         * @param g2d The Graphics2D context.
+         * @param world The world the enemy belongs to, for its type's colour.
+         * @param slot The slot of the enemy to draw.
+         * @param cellSize The on-screen size of a grid cell.
+         */
+        private static void drawEnemy(Graphics2D g2d, GameWorld world, int slot, int cellSize) {
+            EnemyStore enemies = world.enemies;
+            int ex = enemies.x[slot] * cellSize; int ey = enemies.y[slot] * cellSize;
+            int type = enemies.type[slot];
+            Color bodyColor;
+
+            switch(enemies.state(slot)) {
+                case FLEEING: bodyColor = new Color(0, 100, 255, 150); break;
+                case AGGRO_TELEGRAPH:
+                    bodyColor = (System.currentTimeMillis() / 100) % 2 == 0 ? Color.WHITE : world.behaviors.colors[type];
+                    break;
+                case CHASING:
+                    bodyColor = world.behaviors.colors[type].brighter();
+                    g2d.setColor(new Color(255, 0, 0, 100));
+                    g2d.fill(new Ellipse2D.Double(ex, ey, cellSize, cellSize));
+                    break;
+                case PATROLLING: default:
+                    bodyColor = world.behaviors.colors[type];
+                    break;
+            }
+            
+            g2d.setColor(bodyColor);
+            g2d.fill(new Rectangle2D.Double(ex + cellSize * 0.1, ey + cellSize * 0.1, cellSize * 0.8, cellSize * 0.8));
+        }
+    }
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            PerfMetrics.setEnabled(!PerfMetrics.isEnabled());
+            perfOverlay.reset();
+            gamePanel.repaint();
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F4) {
+            openMirror();
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F6) {
+            if (capture != null) stopCapture();
+            else startCapture(e.isShiftDown() ? FrameCapture.Format.RAW : FrameCapture.Format.PNG);
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F5) {
+            heatmapKind = heatmapKind + 1 < HeatmapAnalytics.KINDS ? heatmapKind + 1 : -1;
+            gamePanel.repaint();
+            return;
+        }
+        if (arena != null) {
+            // Une partie partagée ne se met pas en pause : Échap la quitte.
+            if (e.getKeyCode() == KeyEvent.VK_ESCAPE) showMenu();
+            else steerPlayer(arena, e.getKeyCode());
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_P && autoPlayer == null
+                && (currentGameState == GameState.PLAYING || currentGameState == GameState.PAUSED)) {
+            togglePause();
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_ESCAPE && currentGameState == GameState.PAUSED) {
+            showMenu();
+            return;
+        }
+        if (currentGameState == GameState.PLAYING) steerPlayer(endless != null ? endless : world, e.getKeyCode());
+    }
+
+    /**
+     * EN: A world whose player can be moved by one cell: the level-based {@link GameWorld}, the {@link EndlessWorld}, or
+     *     the {@link ArenaClient} of a LAN game.
+     * FR: Un monde dont le joueur peut être déplacé d'une cellule : le {@link GameWorld} à niveaux, l'{@link EndlessWorld},
+     *     ou l'{@link ArenaClient} d'une partie en réseau local.
+     */
+    private interface Steerable {
+        void movePlayer(int dx, int dy);
+    }
+
+    /**
+     * EN: Applies a movement key to the world. The keyboard and the autoplayer both go through here.
+     * FR: Applique une touche de déplacement au monde. Le clavier et le pilote automatique passent tous deux par ici.
+     * @param world The world to steer.
+     * @param keyCode The key code, such as {@link KeyEvent#VK_UP}.
+     * @return True if the key is a movement key.
+     */
+    private static boolean steerPlayer(Steerable world, int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_UP: world.movePlayer(0, -1); return true;
+            case KeyEvent.VK_DOWN: world.movePlayer(0, 1); return true;
+            case KeyEvent.VK_LEFT: world.movePlayer(-1, 0); return true;
+            case KeyEvent.VK_RIGHT: world.movePlayer(1, 0); return true;
+            default: return false;
+        }
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (currentGameState == GameState.PLAYING && arena != null) {
+            String failure;
+            try {
+                arena.poll();
+                failure = arena.failure();
+            } catch (IOException ex) {
+                failure = ex.getMessage();
+            }
+            if (failure != null) {
+                showMenu();
+                JOptionPane.showMessageDialog(this, failure, "Multijoueur", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            gamePanel.repaint();
+        } else if (currentGameState == GameState.PLAYING && endless != null) {
+            if (endless.step() == TickOutcome.PLAYER_CAUGHT) gameOver();
+            gamePanel.repaint();
+        } else if (currentGameState == GameState.REWINDING) {
+            stepRewind();
+            if (broadcast != null) broadcast.publish(world);
+            gamePanel.repaint();
+        } else if (currentGameState == GameState.PLAYING) {
+            if (flightRecording != null) flightRecording.tickStarted(world.tickDelayMs);
+            if (autoPlayer != null) autoSteer(world, autoPlayer);
+            long start = System.nanoTime();
+            TickOutcome outcome = world.step();
+            if (rewind != null) rewind.tickEnded(world);
+            if (soakStats != null) soakStats.tick(System.nanoTime() - start, world);
+            if (broadcast != null) broadcast.publish(world);
+            if (telemetry != null) telemetry.append(world, outcome);
+            switch (outcome) {
+                case PLAYER_CAUGHT: if (!startRewind()) gameOver(); break;
+                case LEVEL_CLEARED: gameWinLevel(); break;
+                default: break;
+            }
+            gamePanel.repaint();
+        }
+    }
+
+    /**
+     * EN: Starts capturing the game panel into {@code captures/cyber-runner-<time>}, encoding on all but one core.
+     * FR: Commence à capturer le panneau de jeu dans {@code captures/cyber-runner-<heure>}, en encodant sur tous les
+     *     cœurs sauf un.
+     */
+    private void startCapture(FrameCapture.Format format) {
+        Path directory = Paths.get("captures", "cyber-runner-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        try {
+            capture = new FrameCapture(directory, format, WIDTH, HEIGHT, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Capture impossible : " + ex.getMessage(), "Capture", JOptionPane.WARNING_MESSAGE);
+        }
+        gamePanel.repaint();
+    }
+
+    /**
+     * EN: Stops capturing, once the queued frames are encoded, and prints what was recorded.
+     * FR: Arrête la capture, une fois les images en file encodées, et affiche ce qui a été enregistré.
+     */
+    private void stopCapture() {
+        if (capture == null) return;
+        capture.close();
+        System.out.println(capture.summary());
+        capture = null;
+        gamePanel.repaint();
+    }
+
+    /**
+     * EN: Opens a spectator window on the level-based game, fed over an in-process pipe by the same broadcast that serves
+     *     remote spectators; starts a broadcast without a socket if none runs.
+     * FR: Ouvre une fenêtre de spectateur sur la partie à niveaux, alimentée par un tube dans le processus par la même
+     *     diffusion que celle des spectateurs distants ; démarre une diffusion sans socket si aucune ne tourne.
+     */
+    private void openMirror() {
+        try {
+            if (broadcast == null) broadcast = new BroadcastHub(null);
+            Pipe pipe = Pipe.open();
+            pipe.sink().configureBlocking(false);
+            pipe.source().configureBlocking(false);
+            broadcast.addViewer(pipe.sink(), "miroir");
+            openSpectatorWindow(new SpectatorFeed(pipe.source()), "Cyber Runner - Miroir", currentTheme, false);
+        } catch (IOException ex) {
+            JOptionPane.showMessageDialog(this, "Miroir impossible : " + ex.getMessage(), "Diffusion", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    /**
+     * EN: How many frames the on-screen rewind lasts, at {@link #REWIND_FRAME_MS} each.
+     * FR: Le nombre d'images que dure le retour en arrière à l'écran, de {@link #REWIND_FRAME_MS} chacune.
+     */
+    private static final int REWIND_FRAMES = 60, REWIND_FRAME_MS = 16;
+
+    /**
+     * EN: Starts playing a practice run backwards after a death.
+     * FR: Commence à rejouer à l'envers une partie d'entraînement après une défaite.
+     * @return False outside practice mode or with no history to go back to; the game is then over.
+     */
+    private boolean startRewind() {
+        if (rewind == null) return false;
+        long target = rewind.rewindTarget(world);
+        if (target < 0) return false;
+        rewindTarget = target;
+        rewindTicksPerFrame = (int) Math.max(1, (rewind.lastTick() - target + REWIND_FRAMES - 1) / REWIND_FRAMES);
+        currentGameState = GameState.REWINDING;
+        gameTimer.setDelay(REWIND_FRAME_MS);
+        return true;
+    }
+
+    /**
+     * EN: Undoes a frame's worth of ticks; once at the target, restores the world exactly and pauses it.
+     * FR: Annule les ticks d'une image ; une fois la cible atteinte, restaure exactement le monde et le met en pause.
+     */
+    private void stepRewind() {
+        boolean undone = true;
+        for (int k = 0; k < rewindTicksPerFrame && undone && rewind.lastTick() > rewindTarget; k++) undone = rewind.undoTick(world);
+        if (undone && rewind.lastTick() > rewindTarget) return;
+        rewind.restore(world, rewindTarget);
+        currentGameState = GameState.PAUSED;
+        gameTimer.stop();
+        gameTimer.setDelay(world.tickDelayMs);
+    }
+
+    // =================================================================================
+    // Performance metrics
+    // =================================================================================
+
+    /**
+     * EN: A process-wide, lock-free registry of performance counters. The tick, the pathfinding workers, the paint code
+     *     and the GC notification thread all write to it without locking, and the overlay reads it. While it is
+     *     disabled, each measuring point costs one volatile read and takes no clock reading.
+     * FR: Un registre de compteurs de performance, global au processus et sans verrou. Le tick, les threads de recherche
+     *     de chemin, le code de rendu et le thread de notification du GC y écrivent tous sans verrou, et l'overlay le lit.
+     *     Tant qu'il est désactivé, chaque point de mesure coûte une lecture volatile et ne lit pas l'horloge.
+     */
+    private static final class PerfMetrics {
+        /**
+         * EN: The timed sections of the game loop. PATHFINDING counts every search, including those run by workers.
+         * FR: Les sections chronométrées de la boucle de jeu. PATHFINDING compte chaque recherche, y compris celles des threads.
+         */
+        enum Section { LOGIC, AI, PATHFINDING, COLLISION, PAINT }
+
+        /**
+         * EN: Upper bounds, in milliseconds, of the frame-time histogram buckets; a last bucket holds slower frames.
+         * FR: Bornes supérieures, en millisecondes, des classes de l'histogramme des temps d'image ; une dernière classe reçoit les images plus lentes.
+         */
+        static final int[] FRAME_BUCKETS_MS = {8, 16, 33, 50, 100, 200};
+        static final int GC_HISTORY = 8;
+
+        private static volatile boolean enabled;
+        private static final Section[] SECTIONS = Section.values();
+        private static final LongAdder[] COUNTS = new LongAdder[SECTIONS.length], NANOS = new LongAdder[SECTIONS.length];
+        private static final AtomicLongArray FRAMES = new AtomicLongArray(FRAME_BUCKETS_MS.length + 1);
+        private static final AtomicLongArray GC_PAUSE_MICROS = new AtomicLongArray(GC_HISTORY);
+        private static final AtomicLong GC_PAUSES = new AtomicLong();
+        private static final AtomicBoolean GC_LISTENING = new AtomicBoolean();
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean() instanceof ThreadMXBean
+                ? (ThreadMXBean) ManagementFactory.getThreadMXBean() : null;
+        private static long lastFrameNanos;
+
+        static {
+            for (int i = 0; i < SECTIONS.length; i++) { COUNTS[i] = new LongAdder(); NANOS[i] = new LongAdder(); }
+        }
+
+        private PerfMetrics() {}
+
+        static boolean isEnabled() { return enabled; }
+
+        /**
+         * EN: Turns measuring on or off. The GC listener is installed the first time measuring is turned on.
+         * FR: Active ou désactive les mesures. L'écouteur du GC est installé la première fois que les mesures sont activées.
+         */
+        static void setEnabled(boolean on) {
+            if (on && GC_LISTENING.compareAndSet(false, true)) listenToGc();
+            lastFrameNanos = 0;
+            enabled = on;
+        }
+
+        /**
+         * EN: Starts timing a section.
+         * FR: Démarre le chronométrage d'une section.
+         * @return The start time to pass to {@link #lap}, or 0 while measuring is off.
+         */
+        static long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        /**
+         * EN: Ends a section started at {@code startNanos} and returns the time to start the next one from.
+         * FR: Termine une section commencée à {@code startNanos} et renvoie l'instant de départ de la suivante.
+         * @return The current time, or 0 if the section was not being timed.
+         */
+        static long lap(Section section, long startNanos) {
+            if (startNanos == 0) return 0;
+            long now = System.nanoTime();
+            COUNTS[section.ordinal()].increment();
+            NANOS[section.ordinal()].add(now - startNanos);
+            return now;
+        }
+
+        /**
+         * EN: Records that a frame was painted, filing the time since the previous one in the histogram. Paint thread only.
+         * FR: Note qu'une image a été peinte et classe le temps écoulé depuis la précédente dans l'histogramme. Thread de rendu uniquement.
+         */
+        static void frame() {
+            if (!enabled) return;
+            long now = System.nanoTime();
+            if (lastFrameNanos != 0) {
+                long ms = (now - lastFrameNanos) / 1_000_000;
+                int bucket = 0;
+                while (bucket < FRAME_BUCKETS_MS.length && ms >= FRAME_BUCKETS_MS[bucket]) bucket++;
+                FRAMES.incrementAndGet(bucket);
+            }
+            lastFrameNanos = now;
+        }
+
+        static long count(Section section) { return COUNTS[section.ordinal()].sum(); }
+        static long nanos(Section section) { return NANOS[section.ordinal()].sum(); }
+        static long frames(int bucket) { return FRAMES.get(bucket); }
+        static long gcPauses() { return GC_PAUSES.get(); }
+
+        /**
+         * EN: The duration of a recorded GC pause; {@code n} is its rank in {@link #gcPauses()}, and only the last
+         *     {@link #GC_HISTORY} are kept.
+         * FR: La durée d'une pause du GC enregistrée ; {@code n} est son rang dans {@link #gcPauses()}, et seules les
+         *     {@link #GC_HISTORY} dernières sont conservées.
+         */
+        static long gcPauseMicros(long n) { return GC_PAUSE_MICROS.get((int) (n % GC_HISTORY)); }
+
+        /**
+         * EN: Bytes allocated so far by the calling thread, or -1 if the JVM cannot tell.
+         * FR: Octets alloués jusqu'ici par le thread appelant, ou -1 si la JVM ne sait pas le dire.
+         */
+        static long allocatedBytes() {
+            return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        private static void listenToGc() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (!(gc instanceof NotificationEmitter)) continue;
+                ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    long n = GC_PAUSES.getAndIncrement();
+                    GC_PAUSE_MICROS.set((int) (n % GC_HISTORY), info.getGcInfo().getDuration() * 1000);
+                }, null, null);
+            }
+        }
+    }
+
+    /**
+     * EN: The performance overlay toggled with F3. Twice a second it turns the registry's running totals into rates
+     *     and averages over the last window; in between it redraws the same figures. Allocation is that of the
+     *     Swing thread, which runs both the tick and the paint.
+     * FR: L'overlay de performance affiché avec F3. Deux fois par seconde, il convertit les totaux du registre en
+     *     cadences et moyennes sur la dernière fenêtre ; entre-temps, il redessine les mêmes chiffres. L'allocation
+     *     mesurée est celle du thread Swing, qui exécute à la fois le tick et le rendu.
+     */
+    private static final class PerfOverlay {
+        private static final long WINDOW_NANOS = 500_000_000L;
+        private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+        private static final Color BACKGROUND = new Color(0, 0, 0, 190);
+        private static final PerfMetrics.Section[] SECTIONS = PerfMetrics.Section.values();
+
+        private long windowStart, windowAllocated;
+        private final long[] lastCounts = new long[SECTIONS.length], lastNanos = new long[SECTIONS.length];
+        private final long[] lastFrames = new long[PerfMetrics.FRAME_BUCKETS_MS.length + 1];
+        private final long[] frameShare = new long[lastFrames.length];
+        private final String[] lines = new String[7];
+        private long lastGcPause;
+
+        PerfOverlay() { reset(); }
+
+        /**
+         * EN: Starts a fresh window; called when the overlay is shown.
+         * FR: Démarre une nouvelle fenêtre ; appelé quand l'overlay est affiché.
+         */
+        void reset() {
+            windowStart = 0;
+            Arrays.fill(lines, "");
+        }
+
+        /**
+         * EN: Draws the overlay in the top-right corner, first refreshing its figures if the window is over.
+         * FR: Dessine l'overlay dans le coin supérieur droit, après avoir rafraîchi ses chiffres si la fenêtre est écoulée.
+         */
+        void paint(Graphics2D g2d, int panelWidth) {
+            long now = System.nanoTime();
+            if (windowStart == 0) startWindow(now);
+            else if (now - windowStart >= WINDOW_NANOS) sample(now);
+
+            int width = 330, x = panelWidth - width - 10, y = 40, barTop = y + 12 + lines.length * 15;
+            g2d.setColor(BACKGROUND);
+            g2d.fillRect(x, y, width, lines.length * 15 + 12 + 14 * frameShare.length + 8);
+            g2d.setFont(FONT);
+            g2d.setColor(Color.WHITE);
+            for (int i = 0; i < lines.length; i++) g2d.drawString(lines[i], x + 8, y + 16 + i * 15);
+            long frames = 0;
+            for (long share : frameShare) frames += share;
+            for (int b = 0; b < frameShare.length; b++) {
+                int by = barTop + b * 14;
+                g2d.setColor(Color.LIGHT_GRAY);
+                g2d.drawString(bucketLabel(b), x + 8, by + 10);
+                int barWidth = frames == 0 ? 0 : (int) (200 * frameShare[b] / frames);
+                g2d.setColor(b < 2 ? new Color(0, 220, 120) : b < 4 ? Color.ORANGE : Color.RED);
+                g2d.fillRect(x + 90, by + 2, barWidth, 9);
+                if (frameShare[b] > 0) g2d.drawString(Long.toString(frameShare[b]), x + 95 + barWidth, by + 10);
+            }
+        }
+
+        private void startWindow(long now) {
+            windowStart = now;
+            windowAllocated = PerfMetrics.allocatedBytes();
+            for (int i = 0; i < SECTIONS.length; i++) {
+                lastCounts[i] = PerfMetrics.count(SECTIONS[i]);
+                lastNanos[i] = PerfMetrics.nanos(SECTIONS[i]);
+            }
+            for (int b = 0; b < lastFrames.length; b++) lastFrames[b] = PerfMetrics.frames(b);
+            lastGcPause = PerfMetrics.gcPauses();
+        }
+
+        private void sample(long now) {
+            double seconds = (now - windowStart) / 1e9;
+            long[] counts = new long[SECTIONS.length], nanos = new long[SECTIONS.length];
+            for (int i = 0; i < SECTIONS.length; i++) {
+                counts[i] = PerfMetrics.count(SECTIONS[i]) - lastCounts[i];
+                nanos[i] = PerfMetrics.nanos(SECTIONS[i]) - lastNanos[i];
+            }
+            long frames = 0;
+            for (int b = 0; b < lastFrames.length; b++) {
+                frameShare[b] = PerfMetrics.frames(b) - lastFrames[b];
+                frames += frameShare[b];
+            }
+            int logic = PerfMetrics.Section.LOGIC.ordinal(), ai = PerfMetrics.Section.AI.ordinal();
+            int paths = PerfMetrics.Section.PATHFINDING.ordinal(), collision = PerfMetrics.Section.COLLISION.ordinal();
+            int paint = PerfMetrics.Section.PAINT.ordinal();
+            long ticks = counts[logic];
+            long allocated = PerfMetrics.allocatedBytes();
+
+            lines[0] = String.format("IPS %5.1f    image  %7.2f ms", frames / seconds, frames == 0 ? 0.0 : seconds * 1000 / frames);
+            lines[1] = String.format("rendu      %7.3f ms", average(nanos[paint], counts[paint]));
+            lines[2] = String.format("tick       %7.3f ms  (%.0f/s)", average(nanos[logic] + nanos[ai] + nanos[collision], ticks), ticks / seconds);
+            lines[3] = String.format("  logique %.3f  IA %.3f  collisions %.3f",
+                    average(nanos[logic], ticks), average(nanos[ai], ticks), average(nanos[collision], ticks));
+            lines[4] = String.format("  chemins %.1f/tick en %.3f ms",
+                    ticks == 0 ? 0.0 : (double) counts[paths] / ticks, average(nanos[paths], ticks));
+            lines[5] = allocated < 0 || windowAllocated < 0 ? "allocation indisponible"
+                    : String.format("allocation %7.2f Mo/s", (allocated - windowAllocated) / 1e6 / seconds);
+            lines[6] = gcLine();
+            startWindow(now);
+        }
+
+        private String gcLine() {
+            long total = PerfMetrics.gcPauses();
+            StringBuilder line = new StringBuilder(String.format("GC %d pause(s)", total - lastGcPause));
+            long from = Math.max(0, total - 4);
+            if (total > from) line.append(", dernières :");
+            for (long n = total - 1; n >= from; n--) line.append(String.format(" %.1f", PerfMetrics.gcPauseMicros(n) / 1000.0));
+            if (total > from) line.append(" ms");
+            return line.toString();
+        }
+
+        private static double average(long nanos, long count) {
+            return count == 0 ? 0.0 : nanos / 1e6 / count;
+        }
+
+        private static String bucketLabel(int bucket) {
+            int[] bounds = PerfMetrics.FRAME_BUCKETS_MS;
+            return bucket < bounds.length ? String.format("< %3d ms", bounds[bucket]) : String.format(">= %3d ms", bounds[bounds.length - 1]);
+        }
+    }
+
+    // =================================================================================
+    // Flight Recorder
+    // =================================================================================
+
+    /**
+     * EN: The event types raised inside the tick and the frame's paint. They only create an event object while its type
+     *     is enabled by a running recording, so that they allocate nothing otherwise, whatever the JIT manages to inline.
+     * FR: Les types d'événements émis pendant le tick et le dessin de l'image. Ils ne créent un objet événement que si son
+     *     type est activé par un enregistrement en cours, afin de ne rien allouer sinon, quoi que le JIT parvienne à
+     *     intégrer.
+     */
+    private static final class TickEvents {
+        static final EventType TICK = EventType.getEventType(TickEvent.class);
+        static final EventType PATH_SEARCH = EventType.getEventType(PathSearchEvent.class);
+        static final EventType POWER_UP = EventType.getEventType(PowerUpEvent.class);
+        static final EventType ENEMY_STATE = EventType.getEventType(EnemyStateEvent.class);
+        static final EventType PAINT = EventType.getEventType(PaintEvent.class);
+    }
+
+    /**
+     * EN: One simulation tick, recorded by any JFR recording.
+     * FR: Un tick de simulation, enregistré par tout enregistrement JFR.
+     */
+    @Name("cyberrunner.Tick") @Label("Tick") @Category({"Cyber Runner", "Simulation"})
+    private static final class TickEvent extends Event {
+        @Label("Niveau") int level;
+        @Label("Numéro du tick") long tick;
+        @Label("Ennemis") int enemies;
+        @Label("Points restants") int dots;
+        @Label("Résultat") String outcome;
+    }
+
+    /**
+     * EN: One breadth-first path search, on the tick thread or a pathfinding worker. Only searches slower than the
+     *     threshold are kept by default, since a swarm level runs hundreds per tick.
+     * FR: Une recherche de chemin en largeur, sur le thread du tick ou un thread de recherche. Par défaut, seules les
+     *     recherches plus lentes que le seuil sont conservées, car un niveau en essaim en lance des centaines par tick.
+     */
+    @Name("cyberrunner.PathSearch") @Label("Recherche de chemin") @Category({"Cyber Runner", "IA"}) @Threshold("100 us")
+    private static final class PathSearchEvent extends Event {
+        @Label("Cellules explorées") int nodesExpanded;
+        @Label("Longueur du chemin") @Description("-1 si la cible est inaccessible") int pathLength;
+        @Label("Cellules de la grille") int cells;
+    }
+
+    @Name("cyberrunner.LevelGenerated") @Label("Génération de niveau") @Category({"Cyber Runner", "Simulation"})
+    private static final class LevelGeneratedEvent extends Event {
+        @Label("Niveau") int level;
+        @Label("Graine") long seed;
+        @Label("Colonnes") int columns;
+        @Label("Lignes") int rows;
+        @Label("Obstacles") int obstacles;
+        @Label("Points") int dots;
+        @Label("Ennemis") int enemies;
+        @Label("Power-ups") int powerUps;
+    }
+
+    @Name("cyberrunner.Paint") @Label("Rendu") @Category({"Cyber Runner", "Rendu"})
+    private static final class PaintEvent extends Event {
+        @Label("Niveau") int level;
+        @Label("Ennemis") int enemies;
+        @Label("Points") int dots;
+    }
+
+    @Name("cyberrunner.PowerUp") @Label("Activation de power-up") @Category({"Cyber Runner", "Simulation"})
+    private static final class PowerUpEvent extends Event {
+        @Label("Type") String type;
+        @Label("Niveau") int level;
+        @Label("Horloge du jeu") @Timespan(Timespan.MILLISECONDS) long clockMs;
+    }
+
+    @Name("cyberrunner.EnemyStateChange") @Label("Changement d'état d'un ennemi") @Category({"Cyber Runner", "IA"})
+    private static final class EnemyStateEvent extends Event {
+        @Label("Ennemi") int enemyId;
+        @Label("Type d'ennemi") int enemyType;
+        @Label("Ancien état") String from;
+        @Label("Nouvel état") String to;
+    }
+
+    @Name("cyberrunner.Persistence") @Label("Sauvegarde") @Category({"Cyber Runner", "Entrées-sorties"})
+    private static final class PersistenceEvent extends Event {
+        @Label("Opération") String operation;
+        @Label("Fichier") String file;
+        @Label("Taille") @DataAmount long bytes;
+        @Label("Réussie") boolean success;
+
+        /**
+         * EN: Fills in the event once the file is written and commits it.
+         * FR: Complète l'événement une fois le fichier écrit et l'enregistre.
+         */
+        void finish(String operation, String file, boolean success) {
+            if (!shouldCommit()) return;
+            this.operation = operation;
+            this.file = file;
+            this.bytes = new File(file).length();
+            this.success = success;
+            commit();
+        }
+    }
+
+    /**
+     * EN: A continuous flight recording kept in a bounded ring (by age and size) and written to a file when the
+     *     player loses or when the game hitches: when two ticks are further apart than the tick delay plus the
+     *     threshold. Dumps run on their own thread and at most one every ten seconds.
+     * FR: Un enregistrement continu conservé dans un anneau borné (en âge et en taille) et écrit dans un fichier quand le
+     *     joueur perd ou quand le jeu saccade : quand deux ticks sont plus espacés que le délai du tick plus le seuil.
+     *     Les vidages tournent sur leur propre thread, au plus un toutes les dix secondes.
+     */
+    private static final class FlightRecording {
+        private static final long MIN_DUMP_INTERVAL_NANOS = 10_000_000_000L;
+        private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+        private final Recording recording;
+        private final long hitchNanos;
+        private final AtomicBoolean dumping = new AtomicBoolean();
+        private long lastTickNanos, lastDumpNanos;
+
+        private FlightRecording(Recording recording, long hitchMillis) {
+            this.recording = recording;
+            this.hitchNanos = hitchMillis * 1_000_000;
+        }
+
+        /**
+         * EN: Starts recording with the JDK's default settings (low overhead) plus the game's events.
+         * FR: Démarre l'enregistrement avec les réglages par défaut du JDK (faible surcoût) plus les événements du jeu.
+         * @param hitchMillis How late a tick must be to count as a hitch.
+         */
+        static FlightRecording start(long hitchMillis) throws IOException, ParseException {
+            Recording recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setName("cyber-runner");
+            recording.setToDisk(true);
+            recording.setMaxAge(Duration.ofMinutes(5));
+            recording.setMaxSize(64L * 1024 * 1024);
+            recording.start();
+            return new FlightRecording(recording, hitchMillis);
+        }
+
+        /**
+         * EN: Called at the start of each tick; dumps the recording if this tick came too late.
+         * FR: Appelé au début de chaque tick ; vide l'enregistrement si ce tick arrive trop tard.
+         * @param tickDelayMs The delay the tick was scheduled with.
+         */
+        void tickStarted(int tickDelayMs) {
+            long now = System.nanoTime();
+            if (lastTickNanos != 0 && now - lastTickNanos > tickDelayMs * 1_000_000L + hitchNanos) dump("saccade");
+            lastTickNanos = now;
+        }
+
+        /**
+         * EN: Forgets the previous tick, so that a level change or a dialog does not count as a hitch.
+         * FR: Oublie le tick précédent, afin qu'un changement de niveau ou une boîte de dialogue ne compte pas comme une saccade.
+         */
+        void resetClock() { lastTickNanos = 0; }
+
+        /**
+         * EN: Writes the ring's content to {@code cyber-runner-<reason>-<time>.jfr} in the background.
+         * FR: Écrit le contenu de l'anneau dans {@code cyber-runner-<raison>-<heure>.jfr} en arrière-plan.
+         */
+        void dump(String reason) {
+            long now = System.nanoTime();
+            if (lastDumpNanos != 0 && now - lastDumpNanos < MIN_DUMP_INTERVAL_NANOS) return;
+            if (!dumping.compareAndSet(false, true)) return;
+            lastDumpNanos = now;
+            Path file = Paths.get("cyber-runner-" + reason + "-" + LocalDateTime.now().format(FILE_TIME) + ".jfr");
+            Thread writer = new Thread(() -> {
+                try {
+                    recording.dump(file);
+                    System.out.println("Enregistrement JFR écrit dans " + file.toAbsolutePath());
+                } catch (IOException e) {
+                    System.err.println("Impossible d'écrire l'enregistrement JFR : " + e.getMessage());
+                } finally {
+                    dumping.set(false);
+                }
+            }, "jfr-dump");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    // =================================================================================
+    // Simulation
+    // =================================================================================
+
+    /**
+     * EN: The outcome of a single simulation tick.
+     * FR: Le résultat d'un tick de simulation.
+     */
+    private enum TickOutcome { NONE, PLAYER_CAUGHT, LEVEL_CLEARED }
+
+    /**
+     * EN: Settings that shape a game world: board size, enemy count and spawn pacing, how the enemy AI runs, and the
+     *     difficulty of each level.
+     * FR: Paramètres qui définissent un monde de jeu : taille du plateau, nombre et rythme d'apparition des ennemis, exécution
+     *     de l'IA, et difficulté de chaque niveau.
+     */
+    private static final class WorldConfig {
+        final int gridCols, gridRows, maxEnemies;
+        final long spawnIntervalMs, aiBudgetMicros;
+        final boolean parallelAI, asyncPathfinding, resolveConflicts, campaign;
+        /**
+         * EN: The settings of levels 1, 2, ...; levels past the end (or all of them if null) use {@link LevelParams#standard}.
+         * FR: Les paramètres des niveaux 1, 2, ... ; les niveaux au-delà (ou tous si null) utilisent {@link LevelParams#standard}.
+         */
+        final LevelParams[] difficulty;
+        /**
+         * EN: The baked levels to play instead of generating them, or null; levels past its end are generated.
+         * FR: Les niveaux précalculés à jouer au lieu de les générer, ou null ; les niveaux au-delà sont générés.
+         */
+        final LevelPack pack;
+
+        WorldConfig(int gridCols, int gridRows, int maxEnemies, long spawnIntervalMs, long aiBudgetMicros, boolean parallelAI,
+                    boolean asyncPathfinding, boolean resolveConflicts, boolean campaign, LevelParams[] difficulty, LevelPack pack) {
+            this.gridCols = gridCols; this.gridRows = gridRows; this.maxEnemies = maxEnemies;
+            this.spawnIntervalMs = spawnIntervalMs; this.aiBudgetMicros = aiBudgetMicros;
+            this.parallelAI = parallelAI; this.asyncPathfinding = asyncPathfinding;
+            this.resolveConflicts = resolveConflicts; this.campaign = campaign;
+            this.difficulty = difficulty;
+            this.pack = pack;
+        }
+
+        /**
+         * EN: Gets the difficulty settings of a level, from the pack if the level is in it.
+         * FR: Obtient les paramètres de difficulté d'un niveau, depuis le pack si le niveau y figure.
+         * @param level The level, from 1.
+         * @return The level's settings.
+         */
+        LevelParams levelParams(int level) {
+            if (packed(level)) return pack.params(level);
+            if (difficulty != null && level <= difficulty.length) return difficulty[level - 1];
+            return LevelParams.standard(level, maxEnemies);
+        }
+
+        /**
+         * EN: The classic 20x20 board with four enemies entering one after another.
+         * FR: Le plateau classique 20x20 avec quatre ennemis qui entrent l'un après l'autre.
+         */
+        static WorldConfig classic() {
+            return new WorldConfig(WIDTH / CELL_SIZE, HEIGHT / CELL_SIZE, 4, 500, 2000, false, false, false, true, LevelParams.calibrated(), null);
+        }
+
+        /**
+         * EN: Swarm mode: an 80x80 board with hundreds of enemies. Enemies cannot share a cell, their AI is planned in parallel
+         *     and their paths are computed off the tick thread.
+         * FR: Mode essaim : un plateau 80x80 avec des centaines d'ennemis. Les ennemis ne partagent pas de cellule, leur IA est
+         *     planifiée en parallèle et leurs chemins sont calculés hors du thread du tick.
+         */
+        static WorldConfig swarm() {
+            return new WorldConfig(80, 80, 400, 0, 4000, true, true, true, false, null, null);
+        }
+
+        /**
+         * EN: Returns a copy of this configuration with parallel AI planning switched on or off.
+         * FR: Renvoie une copie de cette configuration avec la planification parallèle de l'IA activée ou non.
+         * @param parallel True to plan enemy moves on fork-join workers.
+         * @return The adjusted configuration.
+         */
+        WorldConfig withParallelAI(boolean parallel) {
+            return new WorldConfig(gridCols, gridRows, maxEnemies, spawnIntervalMs, aiBudgetMicros, parallel, asyncPathfinding, resolveConflicts, campaign, difficulty, pack);
+        }
+
+        /**
+         * EN: Returns a copy of this configuration with another AI time budget. A budget of 0 lets every replan run, which keeps runs reproducible.
+         * FR: Renvoie une copie de cette configuration avec un autre budget de temps pour l'IA. Un budget de 0 laisse passer tous les recalculs, ce qui rend les parties reproductibles.
+         * @param micros The budget per tick in microseconds, or 0 for no limit.
+         * @return The adjusted configuration.
+         */
+        WorldConfig withAIBudget(long micros) {
+            return new WorldConfig(gridCols, gridRows, maxEnemies, spawnIntervalMs, micros, parallelAI, asyncPathfinding, resolveConflicts, campaign, difficulty, pack);
+        }
+
+        /**
+         * EN: Returns a copy of this configuration with asynchronous pathfinding switched on or off. Asynchronous results
+         *     depend on worker timing, so reproducible runs keep it off.
+         * FR: Renvoie une copie de cette configuration avec la recherche de chemin asynchrone activée ou non. Les résultats
+         *     asynchrones dépendent du rythme des threads, donc les parties reproductibles la désactivent.
+         * @param async True to compute paths on the {@link PathfindingService} workers.
+         * @return The adjusted configuration.
+         */
+        WorldConfig withAsyncPathfinding(boolean async) {
+            return new WorldConfig(gridCols, gridRows, maxEnemies, spawnIntervalMs, aiBudgetMicros, parallelAI, async, resolveConflicts, campaign, difficulty, pack);
+        }
+
+        /**
+         * EN: Returns a copy of this configuration with other level settings.
+         * FR: Renvoie une copie de cette configuration avec d'autres paramètres de niveaux.
+         * @param levels The settings of levels 1, 2, ..., or null for the standard ones.
+         * @return The adjusted configuration.
+         */
+        WorldConfig withDifficulty(LevelParams[] levels) {
+            return new WorldConfig(gridCols, gridRows, maxEnemies, spawnIntervalMs, aiBudgetMicros, parallelAI, asyncPathfinding, resolveConflicts, campaign, levels, pack);
+        }
+
+        /**
+         * EN: Returns a copy of this configuration that plays the levels of a pack. A pack baked for another board size is ignored.
+         * FR: Renvoie une copie de cette configuration qui joue les niveaux d'un pack. Un pack précalculé pour une autre
+         *     taille de plateau est ignoré.
+         * @param levels The pack, or null to generate every level.
+         * @return The adjusted configuration.
+         */
+        WorldConfig withLevelPack(LevelPack levels) {
+            LevelPack usable = levels != null && levels.gridCols == gridCols && levels.gridRows == gridRows ? levels : null;
+            return new WorldConfig(gridCols, gridRows, maxEnemies, spawnIntervalMs, aiBudgetMicros, parallelAI, asyncPathfinding, resolveConflicts, campaign, difficulty, usable);
+        }
+
+        /**
+         * EN: Whether a level comes from the pack rather than from the generator.
+         * FR: Indique si un niveau vient du pack plutôt que du générateur.
+         */
+        boolean packed(int level) {
+            return pack != null && level <= pack.levels;
+        }
+    }
+
+    /**
+     * EN: The difficulty settings of one level: obstacle density, tick delay (enemy speed), enemy count, power-up odds and
+     *     whether enemies still hesitate. {@link #standard} gives the hand-tuned values; {@code --calibrate} measures win
+     *     rates with the bot and prints tuned values in the format of {@value #FILE}, which the classic game loads when present.
+     * FR: Les paramètres de difficulté d'un niveau : densité d'obstacles, délai du tick (vitesse des ennemis), nombre
+     *     d'ennemis, chances des power-ups et hésitation des ennemis. {@link #standard} donne les valeurs réglées à la main ;
+     *     {@code --calibrate} mesure les taux de victoire avec le robot et affiche des valeurs ajustées au format de
+     *     {@value #FILE}, que le jeu classique charge s'il existe.
+     */
+    private static final class LevelParams {
+        static final String FILE = "level_params.cfg";
+        private static LevelParams[] calibrated;
+        private static boolean calibratedLoaded;
+
+        final int obstaclePercent, tickDelayMs, enemyCount, freezePercent, shieldPercent;
+        final boolean enemiesHesitate;
+
+        LevelParams(int obstaclePercent, int tickDelayMs, int enemyCount, int freezePercent, int shieldPercent, boolean enemiesHesitate) {
+            this.obstaclePercent = obstaclePercent; this.tickDelayMs = tickDelayMs; this.enemyCount = enemyCount;
+            this.freezePercent = freezePercent; this.shieldPercent = shieldPercent; this.enemiesHesitate = enemiesHesitate;
+        }
+
+        /**
+         * EN: The hand-tuned settings the game has always used.
+         * FR: Les paramètres réglés à la main que le jeu a toujours utilisés.
+         * @param level The level, from 1.
+         * @param enemyCount The number of enemies.
+         * @return The level's settings.
+         */
+        static LevelParams standard(int level, int enemyCount) {
+            return new LevelParams(20 + (level % 5), Math.max(16, 120 - (level - 1) * 5), enemyCount, level % 2 == 0 ? 100 : 0, 40, level < 5);
+        }
+
+        LevelParams withTickDelay(int delayMs) {
+            return new LevelParams(obstaclePercent, delayMs, enemyCount, freezePercent, shieldPercent, enemiesHesitate);
+        }
+
+        LevelParams withEnemyCount(int count) {
+            return new LevelParams(obstaclePercent, tickDelayMs, count, freezePercent, shieldPercent, enemiesHesitate);
+        }
+
+        /**
+         * EN: The settings read from {@value #FILE} on first use, or null if the file does not exist or cannot be read.
+         * FR: Les paramètres lus depuis {@value #FILE} au premier usage, ou null si le fichier n'existe pas ou est illisible.
+         */
+        static synchronized LevelParams[] calibrated() {
+            if (!calibratedLoaded) {
+                calibratedLoaded = true;
+                File file = new File(FILE);
+                try {
+                    if (file.exists()) calibrated = parse(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Fichier de réglages des niveaux " + FILE + " invalide : " + e.getMessage());
+                }
+            }
+            return calibrated;
+        }
+
+        /**
+         * EN: Parses a settings table: one line per level, in order, as written by {@link #format}. Text after # is ignored.
+         * FR: Analyse une table de paramètres : une ligne par niveau, dans l'ordre, telle qu'écrite par {@link #format}. Le texte après # est ignoré.
+         * @throws IllegalArgumentException If a line does not have seven numbers (the level, then its settings).
+         */
+        static LevelParams[] parse(String text) {
+            List<LevelParams> levels = new ArrayList<>();
+            for (String line : text.split("\\R")) {
+                line = line.replaceFirst("#.*", "").trim();
+                if (line.isEmpty()) continue;
+                String[] f = line.split("\\s+");
+                if (f.length != 7) throw new IllegalArgumentException("ligne « " + line + " »");
+                levels.add(new LevelParams(Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]),
+                        Integer.parseInt(f[4]), Integer.parseInt(f[5]), Integer.parseInt(f[6]) != 0));
+            }
+            return levels.isEmpty() ? null : levels.toArray(new LevelParams[0]);
+        }
+
+        static String format(LevelParams[] levels) {
+            StringBuilder out = new StringBuilder("# niveau  obstacles%  délai(ms)  ennemis  gel%  bouclier%  hésitation\n");
+            for (int i = 0; i < levels.length; i++) {
+                LevelParams p = levels[i];
+                out.append(String.format("%8d  %10d  %9d  %7d  %4d  %9d  %10d%n", i + 1, p.obstaclePercent, p.tickDelayMs,
+                        p.enemyCount, p.freezePercent, p.shieldPercent, p.enemiesHesitate ? 1 : 0));
+            }
+            return out.toString();
+        }
+    }
+
+    /**
+     * EN: A pack of baked levels, so that a mission is the same on every play. The file is memory-mapped and read in
+     *     place: opening it only checks the header, and a level is found through the index in constant time.
+     *     <pre>
+     *     header  int magic "CRLP", short version, short columns, short rows, int levels, long seed
+     *     index   int offset of each level, from the start of the file
+     *     level   byte obstacle %, short tick delay, short enemy count, byte freeze %, byte shield %, byte hesitation,
+     *             walls then dots (one bit per cell, row by row), byte power-ups, then for each: char cell, byte type,
+     *             char enemies, then for each: char spawn cell
+     *     </pre>
+     *     All numbers are big-endian. The seed drives the enemies' random choices, so runs of the same mission compare.
+     * FR: Un pack de niveaux précalculés, afin qu'une mission soit la même à chaque partie. Le fichier est projeté en
+     *     mémoire et lu sur place : l'ouvrir ne vérifie que l'en-tête, et un niveau est trouvé par l'index en temps constant.
+     *     Le format est décrit ci-dessus ; tous les nombres sont gros-boutistes. La graine guide les choix aléatoires des
+     *     ennemis, donc les parties d'une même mission sont comparables.
+     */
+    private static final class LevelPack {
+        static final String FILE = "missions.crlp";
+        private static final int MAGIC = 0x43524C50, HEADER_BYTES = 22, PARAMS_BYTES = 8;
+        private static final short VERSION = 1;
+        private static LevelPack shared;
+        private static boolean sharedLoaded;
+
+        final int gridCols, gridRows, levels;
+        final long seed;
+        private final ByteBuffer data;
+
+        private LevelPack(ByteBuffer data) {
+            this.data = data;
+            if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) throw new IllegalArgumentException("pas un pack de niveaux");
+            if (data.getShort(4) != VERSION) throw new IllegalArgumentException("version " + data.getShort(4) + " non prise en charge");
+            gridCols = data.getShort(6);
+            gridRows = data.getShort(8);
+            levels = data.getInt(10);
+            seed = data.getLong(14);
+            if (levels < 0 || data.limit() < HEADER_BYTES + 4L * levels) throw new IllegalArgumentException("index tronqué");
+        }
+
+        /**
+         * EN: Maps a pack file.
+         * FR: Projette un fichier de pack en mémoire.
+         * @throws IOException If the file cannot be read.
+         * @throws IllegalArgumentException If it is not a pack this version understands.
+         */
+        static LevelPack open(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return new LevelPack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        /**
+         * EN: The pack read from {@value #FILE} on first use, or null if the file does not exist or cannot be read.
+         * FR: Le pack lu depuis {@value #FILE} au premier usage, ou null si le fichier n'existe pas ou est illisible.
+         */
+        static synchronized LevelPack shared() {
+            if (!sharedLoaded) {
+                sharedLoaded = true;
+                Path file = Paths.get(FILE);
+                try {
+                    if (Files.exists(file)) shared = open(file);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Pack de niveaux " + FILE + " invalide : " + e.getMessage());
+                }
+            }
+            return shared;
+        }
+
+        private int offset(int level) {
+            if (level < 1 || level > levels) throw new IllegalArgumentException("niveau " + level + " absent du pack");
+            return data.getInt(HEADER_BYTES + 4 * (level - 1));
+        }
+
+        LevelParams params(int level) {
+            ByteBuffer record = data.duplicate();
+            record.position(offset(level));
+            return getParams(record);
+        }
+
+        /**
+         * EN: A view of a level's record after its settings, positioned on the walls.
+         * FR: Une vue de l'enregistrement d'un niveau après ses paramètres, positionnée sur les murs.
+         */
+        ByteBuffer record(int level) {
+            ByteBuffer record = data.duplicate();
+            record.position(offset(level) + PARAMS_BYTES);
+            return record;
+        }
+
+        /**
+         * EN: A checksum of a level's whole record, settings included, which changes whenever the level does.
+         * FR: Une somme de contrôle de tout l'enregistrement d'un niveau, paramètres compris, qui change dès que le
+         *     niveau change.
+         */
+        long checksum(int level) {
+            ByteBuffer record = data.duplicate();
+            record.limit(level < levels ? offset(level + 1) : data.limit()).position(offset(level));
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            return crc.getValue();
+        }
+
+        /**
+         * EN: Reads a level's settings, in the {@link #PARAMS_BYTES} bytes of a level record.
+         * FR: Lit les paramètres d'un niveau, sur les {@link #PARAMS_BYTES} octets d'un enregistrement de niveau.
+         */
+        static LevelParams getParams(ByteBuffer in) {
+            return new LevelParams(in.get(), in.getShort(), in.getShort(), in.get(), in.get(), in.get() != 0);
+        }
+
+        static void putParams(ByteBuffer out, LevelParams p) {
+            out.put((byte) p.obstaclePercent).putShort((short) p.tickDelayMs).putShort((short) p.enemyCount)
+               .put((byte) p.freezePercent).put((byte) p.shieldPercent).put((byte) (p.enemiesHesitate ? 1 : 0));
+        }
+
+        /**
+         * EN: Reads one bit per cell into a grid.
+         * FR: Lit un bit par cellule dans une grille.
+         * @return The number of cells set.
+         */
+        static int getBits(ByteBuffer in, boolean[] cells) {
+            int set = 0, bits = 0;
+            for (int c = 0; c < cells.length; c++) {
+                if ((c & 7) == 0) bits = in.get();
+                cells[c] = (bits & (1 << (c & 7))) != 0;
+                if (cells[c]) set++;
+            }
+            return set;
+        }
+
+        static void putBits(ByteBuffer out, boolean[] cells) {
+            int bits = 0;
+            for (int c = 0; c < cells.length; c++) {
+                if (cells[c]) bits |= 1 << (c & 7);
+                if ((c & 7) == 7 || c == cells.length - 1) { out.put((byte) bits); bits = 0; }
+            }
+        }
+
+        /**
+         * EN: Encodes the level a world has just built, before any tick.
+         * FR: Encode le niveau qu'un monde vient de construire, avant tout tick.
+         */
+        static byte[] encode(GameWorld world) {
+            int cells = world.walls.length, bitBytes = (cells + 7) / 8;
+            EnemyStore enemies = world.enemies;
+            PowerUpStore powerUps = world.powerUps;
+            ByteBuffer out = ByteBuffer.allocate(PARAMS_BYTES + 2 * bitBytes + 1 + 3 * powerUps.count + 2 + 2 * enemies.scheduled());
+            putParams(out, world.params);
+            putBits(out, world.walls);
+            putBits(out, world.dots);
+            out.put((byte) powerUps.count);
+            for (int i = 0; i < powerUps.count; i++) out.putChar((char) (powerUps.y[i] * world.gridCols + powerUps.x[i])).put(powerUps.type[i]);
+            out.putChar((char) enemies.scheduled());
+            for (int h = 0; h < enemies.scheduled(); h++) out.putChar((char) enemies.spawnCell(h));
+            return out.array();
+        }
+
+        /**
+         * EN: Writes a pack of encoded levels.
+         * FR: Écrit un pack de niveaux encodés.
+         */
+        static void write(Path file, int gridCols, int gridRows, long seed, List<byte[]> levels) throws IOException {
+            int size = HEADER_BYTES + 4 * levels.size();
+            for (byte[] level : levels) size += level.length;
+            ByteBuffer out = ByteBuffer.allocate(size);
+            out.putInt(MAGIC).putShort(VERSION).putShort((short) gridCols).putShort((short) gridRows).putInt(levels.size()).putLong(seed);
+            int offset = HEADER_BYTES + 4 * levels.size();
+            for (byte[] level : levels) { out.putInt(offset); offset += level.length; }
+            for (byte[] level : levels) out.put(level);
+            out.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (out.hasRemaining()) channel.write(out);
+            }
+        }
+    }
+
+    /**
+     * EN: A seedable SplitMix64 generator. {@link #roll} gives stateless randomness keyed by (seed, tick, enemy),
+     *     so parallel AI workers never share a generator and draw the same numbers as a single-threaded run.
+     * FR: Un générateur SplitMix64 initialisable. {@link #roll} fournit un aléa sans état indexé par (graine, tick, ennemi),
+     *     afin que les threads de l'IA ne partagent jamais de générateur et tirent les mêmes nombres qu'une exécution séquentielle.
+     */
+    private static final class GameRandom extends Random {
+        private static final long serialVersionUID = 1L;
+        private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+        private long state;
+
+        GameRandom(long seed) { super(0); this.state = seed; }
+
+        @Override public synchronized void setSeed(long seed) { state = seed; }
+
+        /**
+         * EN: The generator's state; {@link #setSeed} with it resumes the same sequence.
+         * FR: L'état du générateur ; {@link #setSeed} avec cette valeur reprend la même suite.
+         */
+        long state() { return state; }
+
+        @Override protected int next(int bits) {
+            state += GOLDEN_GAMMA;
+            return (int) (mix(state) >>> (64 - bits));
+        }
+
+        static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+
+        /**
+         * EN: Draws a number in [0, bound) that depends only on its arguments.
+         * FR: Tire un nombre dans [0, bound) qui ne dépend que de ses arguments.
+         */
+        static int roll(long seed, long tick, int index, int bound) {
+            long h = mix(seed + GOLDEN_GAMMA * mix(tick * 31 + index));
+            return (int) ((h >>> 1) % bound);
+        }
+    }
+
+    /**
+     * EN: Spreads path recalculation over ticks under a time budget. Each tick, pending replans are sorted by urgency
+     *     (chasing enemies nearest the player first, older requests gaining priority) and run until the budget is spent;
+     *     the rest wait for a later tick while their enemies follow the path they already have. At least one replan runs
+     *     per tick so the queue always drains. The counters below describe the last tick and the run so far.
+     * FR: Répartit le recalcul des chemins sur plusieurs ticks selon un budget de temps. À chaque tick, les recalculs en
+     *     attente sont triés par urgence (ennemis en chasse les plus proches du joueur d'abord, les demandes anciennes
+     *     gagnant en priorité) et exécutés jusqu'à épuisement du budget ; les autres attendent un tick suivant pendant que
+     *     leurs ennemis suivent le chemin déjà connu. Au moins un recalcul a lieu par tick pour que la file se vide toujours.
+     *     Les compteurs ci-dessous décrivent le dernier tick et l'ensemble de la partie.
+     */
+    private static final class AIScheduler {
+        /**
+         * EN: How much a replan's priority key drops for each tick it has waited.
+         * FR: De combien la clé de priorité d'un recalcul baisse pour chaque tick d'attente.
+         */
+        static final int AGING = 8;
+        private static final int PARALLEL_BATCH = 16;
+
+        final long budgetNanos;
+        final boolean parallel;
+        private long[] order = new long[0];
+
+        int replansLastTick, deferredLastTick;
+        long ticks, replansTotal, deferredTotal, budgetOverruns, lastTickNanos, maxTickNanos;
+
+        AIScheduler(long budgetMicros, boolean parallel) {
+            this.budgetNanos = budgetMicros * 1000;
+            this.parallel = parallel;
+        }
+
+        /**
+         * EN: Runs as many pending replans as the budget allows, most urgent first, and defers the rest.
+         * FR: Exécute autant de recalculs en attente que le budget le permet, les plus urgents d'abord, et reporte les autres.
+         * @param world The world whose enemies were just planned.
+         * @param n The number of enemies planned.
+         * @param startNanos When the tick's AI work started.
+         */
+        void run(GameWorld world, int n, long startNanos) {
+            if (order.length < n) order = new long[Math.max(n, order.length * 2)];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                if (world.needsReplan(i)) order[count++] = ((long) world.replanPriority(i) << 32) | i;
+            }
+            Arrays.sort(order, 0, count);
+
+            int done = 0;
+            while (done < count) {
+                int batch = parallel ? Math.min(count - done, PARALLEL_BATCH * (ForkJoinPool.getCommonPoolParallelism() + 1)) : 1;
+                if (batch > 1) ForkJoinPool.commonPool().invoke(new ReplanTask(world, order, done, done + batch));
+                else world.replan((int) order[done]);
+                done += batch;
+                if (budgetNanos > 0 && System.nanoTime() - startNanos >= budgetNanos) break;
+            }
+            for (int k = done; k < count; k++) world.deferReplan((int) order[k]);
+
+            lastTickNanos = System.nanoTime() - startNanos;
+            maxTickNanos = Math.max(maxTickNanos, lastTickNanos);
+            if (budgetNanos > 0 && lastTickNanos > budgetNanos) budgetOverruns++;
+            replansLastTick = done;
+            deferredLastTick = count - done;
+            replansTotal += done;
+            deferredTotal += count - done;
+            ticks++;
+        }
+
+        /**
+         * EN: Runs a slice of the sorted replans on fork-join workers; each replan only writes its own enemy's path.
+         * FR: Exécute une tranche des recalculs triés sur des threads fork-join ; chaque recalcul n'écrit que le chemin de son ennemi.
+         */
+        private static final class ReplanTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final GameWorld world;
+            private final long[] order;
+            private final int from, to;
+
+            ReplanTask(GameWorld world, long[] order, int from, int to) { this.world = world; this.order = order; this.from = from; this.to = to; }
+
+            @Override
+            protected void compute() {
+                if (to - from <= PARALLEL_BATCH) {
+                    for (int k = from; k < to; k++) world.replan((int) order[k]);
+                    return;
+                }
+                int mid = (from + to) >>> 1;
+                invokeAll(new ReplanTask(world, order, from, mid), new ReplanTask(world, order, mid, to));
+            }
+        }
+
+        /**
+         * EN: Summarises the scheduler's counters in one line.
+         * FR: Résume les compteurs de l'ordonnanceur en une ligne.
+         * @return The summary.
+         */
+        String summary() {
+            return String.format("IA : %.1f recalculs/tick, %.1f reportés/tick, %d dépassements de budget, pire tick %.3f ms",
+                    ticks == 0 ? 0.0 : (double) replansTotal / ticks, ticks == 0 ? 0.0 : (double) deferredTotal / ticks,
+                    budgetOverruns, maxTickNanos / 1e6);
+        }
+    }
+
+    /**
+     * EN: Computes enemy paths on a pool of daemon worker threads so the tick never waits on a search.
+     *     Requests go through a lock-free queue; each one comes back, holding its result, on the requesting world's own
+     *     lock-free queue and is applied at the start of its next tick. Workers only see the immutable
+     *     {@link MazeSnapshot} carried by the request, never the live world. A world reuses its requests, and with them
+     *     their path buffers, once it has applied them.
+     * FR: Calcule les chemins des ennemis sur un groupe de threads démons afin que le tick n'attende jamais une recherche.
+     *     Les demandes passent par une file sans verrou ; chacune revient, avec son résultat, dans la file sans verrou du
+     *     monde demandeur et est appliquée au début de son tick suivant. Les threads ne voient que le {@link MazeSnapshot}
+     *     immuable transporté par la demande, jamais le monde en cours. Un monde réutilise ses demandes, et avec elles
+     *     leurs tampons de chemin, une fois qu'il les a appliquées.
+     */
+    private static final class PathfindingService {
+        private static volatile PathfindingService shared;
+
+        /**
+         * EN: An immutable copy of a maze, tagged with the version of the level it belongs to.
+         * FR: Une copie immuable d'un labyrinthe, marquée de la version du niveau auquel elle appartient.
+         */
+        static final class MazeSnapshot {
+            final int version, gridCols, gridRows;
+            final boolean[] walls;
+            MazeSnapshot(int version, int gridCols, int gridRows, boolean[] walls) {
+                this.version = version; this.gridCols = gridCols; this.gridRows = gridRows; this.walls = walls;
+            }
+        }
+
+        /**
+         * EN: A path request, filled in by its world, then by the worker with the computed path: the {@code length} cells
+         *     of {@code path} after {@code start}, up to {@code target}. A length of 0 means no route. Only one thread
+         *     touches it at a time, the queues handing it over.
+         * FR: Une demande de chemin, remplie par son monde, puis par le thread avec le chemin calculé : les {@code length}
+         *     cellules de {@code path} après {@code start}, jusqu'à {@code target}. Une longueur de 0 signifie aucune route.
+         *     Un seul thread la manipule à la fois, les files la passant de l'un à l'autre.
+         */
+        static final class Request {
+            final Queue<Request> replyTo;
+            MazeSnapshot maze;
+            int enemyId, start, target, mazeVersion, length;
+            int[] path = new int[0];
+            Request(Queue<Request> replyTo) {
+                this.replyTo = replyTo;
+            }
+        }
+
+        private final ConcurrentLinkedQueue<Request> requests = new ConcurrentLinkedQueue<>();
+        private final Thread[] workers;
+        private final AtomicInteger idleWorkers = new AtomicInteger();
+
+        private PathfindingService(int workerCount) {
+            workers = new Thread[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new Thread(this::work, "pathfinding-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        /**
+         * EN: The service shared by every world in the process, started on first use with one worker per spare core.
+         * FR: Le service partagé par tous les mondes du processus, démarré au premier usage avec un thread par cœur disponible.
+         * @return The shared service.
+         */
+        static PathfindingService shared() {
+            PathfindingService service = shared;
+            if (service == null) {
+                synchronized (PathfindingService.class) {
+                    if (shared == null) shared = new PathfindingService(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+                    service = shared;
+                }
+            }
+            return service;
+        }
+
+        /**
+         * EN: Queues a request without blocking and wakes a sleeping worker if there is one.
+         * FR: Met une demande en file sans bloquer et réveille un thread endormi s'il y en a un.
+         * @param request The path request.
+         */
+        void submit(Request request) {
+            requests.offer(request);
+            if (idleWorkers.get() > 0) for (Thread worker : workers) LockSupport.unpark(worker);
+        }
+
+        private void work() {
+            while (true) {
+                Request request = requests.poll();
+                if (request == null) {
+                    idleWorkers.incrementAndGet();
+                    if (requests.isEmpty()) LockSupport.park(this);
+                    idleWorkers.decrementAndGet();
+                    continue;
+                }
+                MazeSnapshot maze = request.maze;
+                GameWorld.PathScratch s = request.start == request.target ? null
+                        : GameWorld.search(maze.walls, maze.gridCols, maze.gridRows, request.start, request.target);
+                if (s != null) request.path = GameWorld.tracePath(s, request.start, request.target, request.path);
+                request.length = s == null ? 0 : s.pathLength;
+                request.mazeVersion = maze.version;
+                request.replyTo.offer(request);
+            }
+        }
+    }
+
+    /**
+     * EN: Influence maps read by the enemy behaviours, stored as flat float grids indexed by cell so every query is one array read.
+     *     <ul>
+     *     <li>playerProximity: {@code RADIUS - d} where d is the walking distance to the player, 0 beyond the radius.</li>
+     *     <li>enemyDensity: a small kernel stamped around each enemy.</li>
+     *     <li>chokepoint: 1 for cells whose loss would cut the maze in two, 0.5 for corridor cells, 0 elsewhere.</li>
+     *     <li>deadEndDepth: how many steps a cell lies inside a dead-end branch, 0 outside one.</li>
+     *     </ul>
+     *     The last two depend only on the maze and are built once per level. The first two are updated incrementally:
+     *     a player move rewrites only the cells within the radius, and an enemy move restamps only two kernels.
+     * FR: Cartes d'influence lues par les comportements ennemis, stockées comme des grilles de flottants indexées par cellule,
+     *     de sorte que chaque requête est une seule lecture de tableau.
+     *     <ul>
+     *     <li>playerProximity : {@code RADIUS - d} où d est la distance de marche jusqu'au joueur, 0 au-delà du rayon.</li>
+     *     <li>enemyDensity : un petit noyau appliqué autour de chaque ennemi.</li>
+     *     <li>chokepoint : 1 pour les cellules dont la perte couperait le labyrinthe en deux, 0,5 pour les couloirs, 0 ailleurs.</li>
+     *     <li>deadEndDepth : le nombre de pas à l'intérieur d'une impasse, 0 en dehors.</li>
+     *     </ul>
+     *     Les deux dernières ne dépendent que du labyrinthe et sont construites une fois par niveau. Les deux premières sont mises
+     *     à jour de façon incrémentale : un déplacement du joueur ne réécrit que les cellules du rayon, et celui d'un ennemi ne
+     *     réapplique que deux noyaux.
+     */
+    private static final class InfluenceMaps {
+        static final int RADIUS = 8;
+        private static final int[] DX = {0, 0, 1, -1};
+        private static final int[] DY = {1, -1, 0, 0};
+
+        final int gridCols, gridRows;
+        final float[] playerProximity, enemyDensity, chokepoint, deadEndDepth;
+        /**
+         * EN: How many cells the last update wrote, to check that updates stay proportional to what changed.
+         * FR: Le nombre de cellules écrites par la dernière mise à jour, pour vérifier qu'elle reste proportionnelle aux changements.
+         */
+        int cellsUpdatedLastTick;
+
+        private boolean[] walls;
+        private int playerCell = -1, touchedCount;
+        private final int[] touched, queue, mark;
+        private int markStamp;
+
+        InfluenceMaps(int gridCols, int gridRows) {
+            this.gridCols = gridCols; this.gridRows = gridRows;
+            int cells = gridCols * gridRows;
+            playerProximity = new float[cells]; enemyDensity = new float[cells];
+            chokepoint = new float[cells]; deadEndDepth = new float[cells];
+            touched = new int[cells]; queue = new int[cells]; mark = new int[cells];
+        }
+
+        /**
+         * EN: Rebuilds the static maps for a new maze and clears the dynamic ones.
+         * FR: Reconstruit les cartes statiques pour un nouveau labyrinthe et vide les cartes dynamiques.
+         * @param walls The new maze.
+         */
+        void rebuild(boolean[] walls) {
+            this.walls = walls;
+            Arrays.fill(playerProximity, 0f); Arrays.fill(enemyDensity, 0f);
+            Arrays.fill(chokepoint, 0f); Arrays.fill(deadEndDepth, 0f);
+            playerCell = -1; touchedCount = 0;
+            computeChokepoints();
+            computeDeadEnds();
+        }
+
+        private boolean open(int x, int y) {
+            return x >= 0 && y >= 0 && x < gridCols && y < gridRows && !walls[y * gridCols + x];
+        }
+
+        private int degree(int cell) {
+            int x = cell % gridCols, y = cell / gridCols, d = 0;
+            for (int i = 0; i < 4; i++) if (open(x + DX[i], y + DY[i])) d++;
+            return d;
+        }
+
+        /**
+         * EN: Marks corridor cells, then finds articulation points with an iterative Tarjan search.
+         * FR: Marque les couloirs, puis trouve les points d'articulation avec une recherche de Tarjan itérative.
+         */
+        private void computeChokepoints() {
+            int cells = walls.length;
+            int[] disc = new int[cells], low = new int[cells], parent = new int[cells], next = new int[cells], children = new int[cells];
+            int time = 0;
+            for (int c = 0; c < cells; c++) if (!walls[c] && degree(c) == 2) chokepoint[c] = 0.5f;
+            for (int root = 0; root < cells; root++) {
+                if (walls[root] || disc[root] != 0) continue;
+                int top = 0;
+                queue[top++] = root; disc[root] = low[root] = ++time; parent[root] = -1;
+                while (top > 0) {
+                    int cell = queue[top - 1];
+                    if (next[cell] < 4) {
+                        int i = next[cell]++;
+                        int nx = cell % gridCols + DX[i], ny = cell / gridCols + DY[i];
+                        if (!open(nx, ny)) continue;
+                        int n = ny * gridCols + nx;
+                        if (disc[n] == 0) {
+                            parent[n] = cell; children[cell]++;
+                            disc[n] = low[n] = ++time;
+                            queue[top++] = n;
+                        } else if (n != parent[cell]) {
+                            low[cell] = Math.min(low[cell], disc[n]);
+                        }
+                    } else {
+                        top--;
+                        int p = parent[cell];
+                        if (p >= 0) {
+                            low[p] = Math.min(low[p], low[cell]);
+                            if (parent[p] >= 0 && low[cell] >= disc[p]) chokepoint[p] = 1f;
+                        }
+                    }
+                }
+                if (children[root] > 1) chokepoint[root] = 1f;
+            }
+        }
+
+        /**
+         * EN: Peels dead ends from their tips inwards, then measures each peeled cell's distance from the part of the maze that has loops.
+         * FR: Épluche les impasses depuis leur extrémité, puis mesure la distance de chaque cellule épluchée à la partie du labyrinthe qui forme des boucles.
+         */
+        private void computeDeadEnds() {
+            int cells = walls.length;
+            int[] degree = new int[cells], round = new int[cells];
+            int head = 0, tail = 0;
+            for (int c = 0; c < cells; c++) {
+                if (walls[c]) continue;
+                degree[c] = degree(c);
+                if (degree[c] <= 1) { queue[tail++] = c; round[c] = 1; }
+            }
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell % gridCols, y = cell / gridCols;
+                for (int i = 0; i < 4; i++) {
+                    if (!open(x + DX[i], y + DY[i])) continue;
+                    int n = (y + DY[i]) * gridCols + x + DX[i];
+                    if (round[n] == 0 && --degree[n] == 1) { round[n] = round[cell] + 1; queue[tail++] = n; }
+                }
+            }
+            head = tail = 0;
+            for (int c = 0; c < cells; c++) if (!walls[c] && round[c] == 0) queue[tail++] = c;
+            while (head < tail) {
+                int cell = queue[head++];
+                int x = cell % gridCols, y = cell / gridCols;
+                for (int i = 0; i < 4; i++) {
+                    if (!open(x + DX[i], y + DY[i])) continue;
+                    int n = (y + DY[i]) * gridCols + x + DX[i];
+                    if (round[n] != 0 && deadEndDepth[n] == 0f) { deadEndDepth[n] = deadEndDepth[cell] + 1f; queue[tail++] = n; }
+                }
+            }
+            // Une composante sans boucle n'a pas de cœur : on garde l'ordre d'épluchage inversé.
+            for (int c = 0; c < cells; c++) if (round[c] != 0 && deadEndDepth[c] == 0f) deadEndDepth[c] = round[c];
+        }
+
+        /**
+         * EN: Rewrites the proximity field if the player changed cell: clears the cells written last time, then runs a BFS bounded by the radius.
+         * FR: Réécrit le champ de proximité si le joueur a changé de cellule : efface les cellules écrites la dernière fois, puis lance un BFS limité au rayon.
+         * @param cell The player's cell.
+         */
+        void updatePlayer(int cell) {
+            if (cell == playerCell) { cellsUpdatedLastTick = 0; return; }
+            playerCell = cell;
+            for (int k = 0; k < touchedCount; k++) playerProximity[touched[k]] = 0f;
+            int cleared = touchedCount;
+            if (++markStamp == 0) { Arrays.fill(mark, 0); markStamp = 1; }
+            int head = 0, tail = 0;
+            queue[tail++] = cell; mark[cell] = markStamp; playerProximity[cell] = RADIUS;
+            while (head < tail) {
+                int c = queue[head++];
+                float value = playerProximity[c] - 1f;
+                if (value <= 0f) continue;
+                int x = c % gridCols, y = c / gridCols;
+                for (int i = 0; i < 4; i++) {
+                    if (!open(x + DX[i], y + DY[i])) continue;
+                    int n = (y + DY[i]) * gridCols + x + DX[i];
+                    if (mark[n] == markStamp) continue;
+                    mark[n] = markStamp; playerProximity[n] = value;
+                    queue[tail++] = n;
+                }
+            }
+            System.arraycopy(queue, 0, touched, 0, tail);
+            touchedCount = tail;
+            cellsUpdatedLastTick = cleared + tail;
+        }
+
+        /**
+         * EN: Adds (weight 1) or removes (weight -1) an enemy's density kernel: 1 on its cell, 0.5 and 0.25 at distances 1 and 2.
+         *     These weights are exact in float, so stamping and unstamping never drifts.
+         * FR: Ajoute (poids 1) ou retire (poids -1) le noyau de densité d'un ennemi : 1 sur sa cellule, 0,5 et 0,25 aux distances 1 et 2.
+         *     Ces poids sont exacts en flottant, donc ajouter puis retirer ne dérive jamais.
+         */
+        void stampEnemy(int cell, float weight) {
+            int x = cell % gridCols, y = cell / gridCols;
+            for (int dy = -2; dy <= 2; dy++) {
+                for (int dx = -2; dx <= 2; dx++) {
+                    int d = Math.abs(dx) + Math.abs(dy);
+                    if (d > 2 || !open(x + dx, y + dy)) continue;
+                    enemyDensity[(y + dy) * gridCols + x + dx] += weight / (1 << d);
+                }
+            }
+            cellsUpdatedLastTick += 13;
+        }
+
+        /**
+         * EN: Moves an enemy's density kernel from one cell to another.
+         * FR: Déplace le noyau de densité d'un ennemi d'une cellule à une autre.
+         */
+        void moveEnemy(int from, int to) {
+            if (from == to) return;
+            stampEnemy(from, -1f);
+            stampEnemy(to, 1f);
+        }
+
+        /**
+         * EN: The cell where an ambusher should wait: the strongest chokepoint up to six steps ahead of the player's heading.
+         * FR: La cellule où un embusqué doit attendre : le goulet le plus marqué jusqu'à six pas devant le joueur.
+         * @return The cell index, or the player's cell if the player is not moving or faces a wall.
+         */
+        int ambushCell(int px, int py, int headingX, int headingY) {
+            int best = py * gridCols + px;
+            float bestScore = -1f;
+            for (int k = 1; k <= 6 && (headingX != 0 || headingY != 0); k++) {
+                int x = px + headingX * k, y = py + headingY * k;
+                if (!open(x, y)) break;
+                int c = y * gridCols + x;
+                float score = chokepoint[c] * 2f + k * 0.1f - enemyDensity[c];
+                if (score > bestScore) { bestScore = score; best = c; }
+            }
+            return best;
+        }
+
+        /**
+         * EN: The cell a flanker should head for: of the four cells three steps from the player, the walkable one with the fewest enemies around.
+         * FR: La cellule visée par un flanqueur : parmi les quatre cellules à trois pas du joueur, la cellule praticable la moins entourée d'ennemis.
+         * @return The cell index, or the player's cell if none is walkable.
+         */
+        int flankCell(int px, int py) {
+            int best = py * gridCols + px;
+            float bestDensity = Float.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int x = px + DX[i] * 3, y = py + DY[i] * 3;
+                if (!open(x, y)) continue;
+                int c = y * gridCols + x;
+                if (enemyDensity[c] < bestDensity) { bestDensity = enemyDensity[c]; best = c; }
+            }
+            return best;
+        }
+
+        /**
+         * EN: The cell a roamer guards when it is near the player: the chokepoint around the player least covered by other enemies.
+         * FR: La cellule gardée par un rôdeur proche du joueur : le goulet autour du joueur le moins couvert par les autres ennemis.
+         * @return The cell index, or the player's cell if none is walkable.
+         */
+        int guardCell(int px, int py) {
+            int best = py * gridCols + px;
+            float bestScore = -Float.MAX_VALUE;
+            for (int i = 0; i < 8; i++) {
+                int x = px + (i < 4 ? DX[i] * 4 : (i & 1) == 0 ? 2 : -2), y = py + (i < 4 ? DY[i] * 4 : (i & 2) == 0 ? 2 : -2);
+                if (!open(x, y)) continue;
+                int c = y * gridCols + x;
+                float score = chokepoint[c] - enemyDensity[c];
+                if (score > bestScore) { bestScore = score; best = c; }
+            }
+            return best;
+        }
+
+        /**
+         * EN: How dangerous a cell is for a fleeing enemy: close to the player, deep in a dead end, or crowded.
+         * FR: Le danger d'une cellule pour un ennemi en fuite : proche du joueur, au fond d'une impasse ou encombrée.
+         */
+        float fleeDanger(int cell) {
+            return playerProximity[cell] * 4f + deadEndDepth[cell] * 2f + enemyDensity[cell] * 0.5f;
+        }
+    }
+
+    /**
+     * EN: Enemy types compiled from {@value #FILE}. Each section of the file defines one type (colour, distance thresholds,
+     *     state timeouts, targeting rules, movement per state and state transitions); a {@code [default]} section supplies
+     *     values shared by all types. At load time everything is flattened into arrays indexed by type and state ordinal,
+     *     so evaluating an enemy is a couple of array lookups. If the file is missing or invalid, the built-in defaults,
+     *     which reproduce the original four enemies, are used instead.
+     * FR: Types d'ennemis compilés à partir de {@value #FILE}. Chaque section du fichier définit un type (couleur, seuils de
+     *     distance, délais par état, règles de ciblage, déplacement par état et transitions) ; une section {@code [default]}
+     *     fournit les valeurs communes à tous les types. Au chargement, tout est aplati en tableaux indexés par type et par
+     *     ordinal d'état, de sorte qu'évaluer un ennemi se résume à quelques lectures de tableau. Si le fichier est absent ou
+     *     invalide, les valeurs intégrées, qui reproduisent les quatre ennemis d'origine, sont utilisées.
+     */
+    private static final class BehaviorTable {
+        static final String FILE = "enemy_behaviors.cfg";
+        static final int STATE_COUNT = EnemyState.values().length, EVENT_COUNT = EnemyEvent.values().length;
+        private static final String DEFAULTS = String.join("\n",
+                "[default]", "aggroDistance = 6", "loseDistance = 10", "nearDistance = 2", "target = PLAYER", "target.near = PLAYER",
+                "timeout.AGGRO_TELEGRAPH = 300", "move.CHASING = PURSUE", "move.FLEEING = FLEE",
+                "on.PATROLLING.PLAYER_NEAR = AGGRO_TELEGRAPH", "on.AGGRO_TELEGRAPH.TIMEOUT = CHASING",
+                "on.CHASING.PLAYER_FAR = PATROLLING", "on.*.POWERUP = FLEEING", "on.*.POWERUP_END = PATROLLING",
+                "[HUNTER]", "color = 255, 0, 0",
+                "[AMBUSHER]", "color = 255, 105, 180", "target = AMBUSH",
+                "[FLANKER]", "color = 255, 165, 0", "target = FLANK",
+                "[ROAMER]", "color = 128, 0, 128", "nearDistance = 8", "target.near = GUARD", "target.far = PLAYER");
+        private static BehaviorTable shared;
+
+        final String[] names;
+        final Color[] colors;
+        final float[] aggroDistanceSq, loseDistanceSq, nearDistanceSq;
+        final byte[] targetNear, targetFar;
+        /**
+         * EN: Indexed by {@code type * STATE_COUNT + state}.
+         * FR: Indexés par {@code type * STATE_COUNT + état}.
+         */
+        final long[] timeoutMs;
+        final byte[] moveMode;
+        /**
+         * EN: The next state, indexed by {@code (type * STATE_COUNT + state) * EVENT_COUNT + event}.
+         * FR: L'état suivant, indexé par {@code (type * STATE_COUNT + état) * EVENT_COUNT + événement}.
+         */
+        final byte[] transitions;
+
+        private BehaviorTable(int types) {
+            names = new String[types]; colors = new Color[types];
+            aggroDistanceSq = new float[types]; loseDistanceSq = new float[types]; nearDistanceSq = new float[types];
+            targetNear = new byte[types]; targetFar = new byte[types];
+            timeoutMs = new long[types * STATE_COUNT]; moveMode = new byte[types * STATE_COUNT];
+            transitions = new byte[types * STATE_COUNT * EVENT_COUNT];
+        }
+
+        int types() { return names.length; }
+
+        /**
+         * EN: Looks up the state an enemy moves to when an event occurs. {@link EnemyEvent#NONE} always keeps the state.
+         * FR: Donne l'état atteint par un ennemi lorsqu'un événement survient. {@link EnemyEvent#NONE} conserve toujours l'état.
+         */
+        int next(int type, int state, int event) {
+            return transitions[(type * STATE_COUNT + state) * EVENT_COUNT + event];
+        }
+
+        /**
+         * EN: The table loaded from {@value #FILE} on first use, or the built-in defaults.
+         * FR: La table chargée depuis {@value #FILE} au premier usage, ou les valeurs intégrées.
+         * @return The shared table.
+         */
+        static synchronized BehaviorTable shared() {
+            if (shared == null) {
+                File file = new File(FILE);
+                try {
+                    shared = file.exists() ? compile(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)) : compile(DEFAULTS);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Fichier de comportements ennemis " + FILE + " invalide : " + e.getMessage());
+                    shared = compile(DEFAULTS);
+                }
+            }
+            return shared;
+        }
+
+        /**
+         * EN: Parses a behaviour file and compiles it into flat tables.
+         * FR: Analyse un fichier de comportements et le compile en tables plates.
+         * @param text The file contents.
+         * @return The compiled table.
+         * @throws IllegalArgumentException If a line cannot be understood.
+         */
+        static BehaviorTable compile(String text) {
+            Map<String, String> defaults = new LinkedHashMap<>();
+            Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+            Map<String, String> current = null;
+            String[] lines = text.split("\\R");
+            for (int n = 0; n < lines.length; n++) {
+                String line = lines[n].replaceFirst("#.*", "").trim();
+                if (line.isEmpty()) continue;
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    String name = line.substring(1, line.length() - 1).trim();
+                    current = name.equals("default") ? defaults : sections.computeIfAbsent(name, k -> new LinkedHashMap<>());
+                    continue;
+                }
+                int eq = line.indexOf('=');
+                if (eq < 0 || current == null) throw new IllegalArgumentException("ligne " + (n + 1) + " : « " + line + " »");
+                current.put(line.substring(0, eq).trim(), line.substring(eq + 1).trim());
+            }
+            if (sections.isEmpty()) throw new IllegalArgumentException("aucun type d'ennemi défini");
+
+            BehaviorTable table = new BehaviorTable(sections.size());
+            int type = 0;
+            for (Map.Entry<String, Map<String, String>> section : sections.entrySet()) {
+                Map<String, String> values = new LinkedHashMap<>(defaults);
+                values.putAll(section.getValue());
+                table.compileType(type++, section.getKey(), values);
+            }
+            return table;
+        }
+
+        private void compileType(int type, String name, Map<String, String> values) {
+            names[type] = name;
+            String[] rgb = values.getOrDefault("color", "128, 128, 128").split(",");
+            if (rgb.length != 3) throw new IllegalArgumentException(name + " : couleur « " + values.get("color") + " »");
+            colors[type] = new Color(Integer.parseInt(rgb[0].trim()), Integer.parseInt(rgb[1].trim()), Integer.parseInt(rgb[2].trim()));
+            aggroDistanceSq[type] = squared(values.getOrDefault("aggroDistance", "0"));
+            loseDistanceSq[type] = squared(values.getOrDefault("loseDistance", "Infinity"));
+            nearDistanceSq[type] = squared(values.getOrDefault("nearDistance", "0"));
+            String target = values.getOrDefault("target", "PLAYER");
+            targetNear[type] = (byte) TargetRule.valueOf(values.getOrDefault("target.near", target)).ordinal();
+            targetFar[type] = (byte) TargetRule.valueOf(values.getOrDefault("target.far", target)).ordinal();
+
+            for (int state = 0; state < STATE_COUNT; state++) {
+                int slot = type * STATE_COUNT + state;
+                timeoutMs[slot] = Long.MAX_VALUE;
+                for (int event = 0; event < EVENT_COUNT; event++) transitions[slot * EVENT_COUNT + event] = (byte) state;
+            }
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String[] key = entry.getKey().split("\\.");
+                if (key[0].equals("timeout") && key.length == 2) {
+                    timeoutMs[type * STATE_COUNT + EnemyState.valueOf(key[1]).ordinal()] = Long.parseLong(entry.getValue());
+                } else if (key[0].equals("move") && key.length == 2) {
+                    moveMode[type * STATE_COUNT + EnemyState.valueOf(key[1]).ordinal()] = (byte) MoveMode.valueOf(entry.getValue()).ordinal();
+                } else if (key[0].equals("on") && key.length == 3) {
+                    int event = EnemyEvent.valueOf(key[2]).ordinal();
+                    int to = EnemyState.valueOf(entry.getValue()).ordinal();
+                    for (int state = 0; state < STATE_COUNT; state++) {
+                        if (key[1].equals("*") || EnemyState.valueOf(key[1]).ordinal() == state) {
+                            transitions[(type * STATE_COUNT + state) * EVENT_COUNT + event] = (byte) to;
+                        }
+                    }
+                }
+            }
+        }
+
+        private static float squared(String distance) {
+            float d = Float.parseFloat(distance);
+            return d * d;
+        }
+    }
+
+    /**
+     * EN: The game simulation, independent of Swing: maze, player, enemies, power-ups, score and timers.
+     *     Time is counted in simulated milliseconds (one tick advances the clock by the tick delay), so a run
+     *     depends only on its seed and inputs and can be replayed headless at any speed.
+     *     Enemies are updated in three steps: a read-only planning phase that may run on fork-join workers
+     *     against a snapshot of the player, path recalculation under the {@link AIScheduler} budget, then a
+     *     sequential commit in list order that applies state changes and resolves cell conflicts. With no budget
+     *     limit the result is the same however many threads are used.
+     * FR: La simulation du jeu, indépendante de Swing : labyrinthe, joueur, ennemis, power-ups, score et minuteurs.
+     *     Le temps est compté en millisecondes simulées (chaque tick avance l'horloge du délai du tick), donc une partie
+     *     ne dépend que de sa graine et de ses entrées et peut être rejouée sans affichage à n'importe quelle vitesse.
+     *     Les ennemis sont mis à jour en trois étapes : une planification en lecture seule, éventuellement répartie sur des
+     *     threads fork-join à partir d'un instantané du joueur, le recalcul des chemins dans le budget de l'{@link AIScheduler},
+     *     puis une validation séquentielle dans l'ordre de la liste qui applique les changements d'état et résout les conflits
+     *     de cellule. Sans limite de budget, le résultat ne dépend pas du nombre de threads.
+     */
+    private static final class GameWorld implements Steerable {
+        private static final int[] DX = {0, 0, 1, -1};
+        private static final int[] DY = {1, -1, 0, 0};
+        /**
+         * EN: Below this many enemies, forking workers costs more than it saves.
+         * FR: En dessous de ce nombre d'ennemis, répartir le travail coûte plus qu'il ne rapporte.
+         */
+        private static final int PARALLEL_THRESHOLD = 64;
+        private static final ThreadLocal<PathScratch> PATH_SCRATCH = ThreadLocal.withInitial(PathScratch::new);
+
+        final WorldConfig config;
+        final long seed;
+        final GameRandom random;
+        final int gridCols, gridRows;
+        /**
+         * EN: Walls indexed by cell (y * gridCols + x); never written while enemies are being planned.
+         * FR: Murs indexés par cellule (y * gridCols + x) ; jamais modifiés pendant la planification des ennemis.
+         */
+        final boolean[] walls;
+        final Set<Point> obstacles = new HashSet<>();
+        /**
+         * EN: Dots indexed by cell like {@code walls}; {@code dotCount} of them are left.
+         * FR: Points indexés par cellule comme {@code walls} ; il en reste {@code dotCount}.
+         */
+        final boolean[] dots;
+        int dotCount;
+        final PowerUpStore powerUps = new PowerUpStore();
+        final EnemyStore enemies = new EnemyStore();
+        final BehaviorTable behaviors = BehaviorTable.shared();
+        final boolean[] discoveredTypes = new boolean[behaviors.types()];
+        final Point playerPosition = new Point(1, 1);
+
+        int level, score, tickDelayMs;
+        LevelParams params;
+        long tick, clockMs;
+        boolean isShieldActive = false, areEnemiesFrozen = false, areEnemiesVulnerable = false;
+        long shieldEndTime = 0, freezeEndTime = 0, vulnerableEndTime = 0;
+
+        private final ConcurrentLinkedQueue<PathfindingService.Request> pathResults = new ConcurrentLinkedQueue<>();
+        /**
+         * EN: Path requests this world has applied and may send again; only its tick thread touches them.
+         * FR: Les demandes de chemin que ce monde a appliquées et peut renvoyer ; seul son thread de tick y touche.
+         */
+        private final ArrayDeque<PathfindingService.Request> idleRequests = new ArrayDeque<>();
+        /**
+         * EN: The current maze as handed to pathfinding workers; replaced, never modified, when a level is built.
+         * FR: Le labyrinthe actuel tel que transmis aux threads de recherche ; remplacé, jamais modifié, à chaque niveau.
+         */
+        PathfindingService.MazeSnapshot maze;
+        long pathsRequested, pathsApplied, pathsDiscarded;
+        private static final int FLAG_REPLAN = 1, FLAG_HESITATE = 2;
+        private static final int MOVE_PURSUE = MoveMode.PURSUE.ordinal(), MOVE_FLEE = MoveMode.FLEE.ordinal();
+        private static final int TARGET_AMBUSH = TargetRule.AMBUSH.ordinal(), TARGET_FLANK = TargetRule.FLANK.ordinal(), TARGET_GUARD = TargetRule.GUARD.ordinal();
+        private int[] intentCell = new int[0], intentTarget = new int[0];
+        private byte[] intentState = new byte[0], intentFlags = new byte[0];
+        final AIScheduler scheduler;
+        /**
+         * EN: Handles of the enemies that swapped cells with the player during the current tick.
+         * FR: Identifiants des ennemis qui ont échangé leur cellule avec celle du joueur pendant le tick courant.
+         */
+        private int[] crossers = new int[0];
+        private int crosserCount;
+        /**
+         * EN: The player's cell when the previous tick ended, to detect enemies passing through the player.
+         * FR: La cellule du joueur à la fin du tick précédent, pour détecter les ennemis qui le traversent.
+         */
+        private int lastPlayerCell;
+        private int planPlayerX, planPlayerY, planHeadingX, planHeadingY;
+        private int headingX, headingY;
+        /**
+         * EN: Records the moves of practice runs, or null.
+         * FR: Enregistre les déplacements des parties d'entraînement, ou null.
+         */
+        RewindBuffer recorder;
+        /**
+         * EN: Receives where the player stands, is caught and picks up power-ups, or null.
+         * FR: Reçoit où le joueur se tient, est attrapé et ramasse des power-ups, ou null.
+         */
+        HeatmapAnalytics heatmap;
+        /**
+         * EN: Receives the dots eaten, power-ups picked up, enemies defeated, deaths and cleared levels, or null.
+         * FR: Reçoit les points mangés, power-ups ramassés, ennemis vaincus, défaites et niveaux terminés, ou null.
+         */
+        GameEventBus events;
+        /**
+         * EN: Influence maps for the current level; written only between planning phases.
+         * FR: Cartes d'influence du niveau courant ; écrites uniquement entre deux phases de planification.
+         */
+        final InfluenceMaps influence;
+
+        /**
+         * EN: Creates an empty world; call {@link #loadLevel} before stepping it.
+         * FR: Crée un monde vide ; appeler {@link #loadLevel} avant de le faire avancer.
+         * @param config The board and AI settings.
+         * @param seed The seed for maze generation, spawns and enemy randomness.
+         */
+        GameWorld(WorldConfig config, long seed) {
+            this.config = config;
+            this.seed = seed;
+            this.random = new GameRandom(seed);
+            this.gridCols = config.gridCols;
+            this.gridRows = config.gridRows;
+            this.walls = new boolean[gridCols * gridRows];
+            this.dots = new boolean[gridCols * gridRows];
+            this.scheduler = new AIScheduler(config.aiBudgetMicros, config.parallelAI);
+            this.influence = new InfluenceMaps(gridCols, gridRows);
+        }
+
+        /**
+         * EN: Builds a new level, keeping the score of the run.
+         * FR: Construit un nouveau niveau en conservant le score de la partie.
+         * @param level The level to build.
+         */
+        void loadLevel(int level) {
+            LevelGeneratedEvent event = new LevelGeneratedEvent();
+            event.begin();
+            this.level = level;
+            this.params = config.levelParams(level);
+            playerPosition.setLocation(1, 1);
+            lastPlayerCell = cellOf(playerPosition);
+            crosserCount = 0;
+            isShieldActive = areEnemiesFrozen = areEnemiesVulnerable = false;
+            headingX = headingY = 0;
+            if (config.packed(level)) {
+                loadPackedLevel(level);
+            } else {
+                createMazeAndDotsForLevel(level);
+                placeEnemies();
+                placePowerUps();
+            }
+            tickDelayMs = params.tickDelayMs;
+            if (event.shouldCommit()) {
+                event.level = level;
+                event.seed = seed;
+                event.columns = gridCols;
+                event.rows = gridRows;
+                event.obstacles = obstacles.size();
+                event.dots = dotCount;
+                event.enemies = enemies.count + enemies.pending();
+                event.powerUps = powerUps.count;
+                event.commit();
+            }
+        }
+
+        /**
+         * EN: Advances the simulation by one tick.
+         * FR: Fait avancer la simulation d'un tick.
+         * @return Whether the player was caught, cleared the level, or neither.
+         */
+        TickOutcome step() {
+            TickEvent event = TickEvents.TICK.isEnabled() ? new TickEvent() : null;
+            if (event != null) event.begin();
+            tick++;
+            clockMs += tickDelayMs;
+            long lap = PerfMetrics.start();
+            updateGameLogic();
+            lap = PerfMetrics.lap(PerfMetrics.Section.LOGIC, lap);
+            if (!areEnemiesFrozen) moveEnemies();
+            lap = PerfMetrics.lap(PerfMetrics.Section.AI, lap);
+            boolean caught = checkEnemyCollision();
+            lastPlayerCell = cellOf(playerPosition);
+            if (heatmap != null) {
+                heatmap.record(HeatmapAnalytics.VISIT, level, lastPlayerCell);
+                if (caught) heatmap.record(HeatmapAnalytics.DEATH, level, lastPlayerCell);
+            }
+            PerfMetrics.lap(PerfMetrics.Section.COLLISION, lap);
+            TickOutcome outcome = caught ? TickOutcome.PLAYER_CAUGHT : dotCount == 0 ? TickOutcome.LEVEL_CLEARED : TickOutcome.NONE;
+            if (events != null && outcome != TickOutcome.NONE) events.publish(caught ? GameEvent.DEATH : GameEvent.LEVEL_COMPLETE, tick, level, lastPlayerCell, 0);
+            if (event != null && event.shouldCommit()) {
+                event.level = level;
+                event.tick = tick;
+                event.enemies = enemies.count;
+                event.dots = dotCount;
+                event.outcome = outcome.name();
+                event.commit();
+            }
+            return outcome;
+        }
+
+        /**
+         * EN: Creates the maze, dots, and obstacles for a given level. The two cells next to the start are always open and
+         *     dots the player cannot reach are not placed, so that every generated level can be cleared, by a player as by
+         *     the bot.
+         * FR: Crée le labyrinthe, les points et les obstacles pour un niveau donné. Les deux cases voisines du départ sont
+         *     toujours libres et les points que le joueur ne peut pas atteindre ne sont pas placés, afin que chaque niveau
+         *     généré puisse être terminé, par un joueur comme par le robot.
+         * @param level The current level, affecting the density of obstacles.
+         */
+        private void createMazeAndDotsForLevel(int level) {
+            Arrays.fill(dots, false); obstacles.clear();
+            for (int i = 0; i < gridCols; i++) {
+                for (int j = 0; j < gridRows; j++) {
+                    if (i == 0 || j == 0 || i == gridCols - 1 || j == gridRows - 1) obstacles.add(new Point(i, j));
+                    else if (random.nextInt(100) < params.obstaclePercent) obstacles.add(new Point(i, j));
+                    else dots[j * gridCols + i] = true;
+                }
+            }
+            obstacles.remove(new Point(1, 1));
+            obstacles.remove(new Point(2, 1));
+            obstacles.remove(new Point(1, 2));
+            dots[gridCols + 1] = false;
+            Arrays.fill(walls, false);
+            for (Point p : obstacles) walls[p.y * gridCols + p.x] = true;
+            removeUnreachableDots();
+            wallsChanged();
+        }
+
+        /**
+         * EN: Hands a new maze to the pathfinding workers and rebuilds the influence maps for it.
+         * FR: Transmet un nouveau labyrinthe aux threads de recherche et reconstruit les cartes d'influence.
+         */
+        private void wallsChanged() {
+            maze = new PathfindingService.MazeSnapshot(maze == null ? 1 : maze.version + 1, gridCols, gridRows, walls.clone());
+            influence.rebuild(maze.walls);
+        }
+
+        /**
+         * EN: Removes the dots walled off from the player's start, which could never be collected and would make the level unwinnable.
+         * FR: Retire les points isolés du départ du joueur par des murs, qui ne pourraient jamais être ramassés et rendraient le niveau impossible.
+         */
+        private void removeUnreachableDots() {
+            boolean[] reached = reachableFrom(cellOf(playerPosition));
+            dotCount = 0;
+            for (int c = 0; c < dots.length; c++) {
+                dots[c] &= reached[c];
+                if (dots[c]) dotCount++;
+            }
+        }
+
+        /**
+         * EN: Finds every cell that can be walked to from a cell.
+         * FR: Trouve toutes les cellules accessibles à pied depuis une cellule.
+         * @return The reached cells, indexed like {@code walls}.
+         */
+        boolean[] reachableFrom(int start) {
+            boolean[] reached = new boolean[walls.length];
+            int[] queue = new int[walls.length];
+            int head = 0, tail = 0;
+            reached[start] = true;
+            queue[tail++] = start;
+            while (head < tail) {
+                int c = queue[head++], x = c % gridCols, y = c / gridCols;
+                for (int d = 0; d < 4; d++) {
+                    if (!isWalkable(x + DX[d], y + DY[d])) continue;
+                    int n = c + DY[d] * gridCols + DX[d];
+                    if (!reached[n]) { reached[n] = true; queue[tail++] = n; }
+                }
+            }
+            return reached;
+        }
+
+        /**
+         * EN: Builds a level from the pack: walls, dots, power-ups and enemy spawns are read straight from the mapped file.
+         * FR: Construit un niveau depuis le pack : murs, points, power-ups et apparitions d'ennemis sont lus directement
+         *     dans le fichier projeté en mémoire.
+         */
+        private void loadPackedLevel(int level) {
+            ByteBuffer record = config.pack.record(level);
+            LevelPack.getBits(record, walls);
+            dotCount = LevelPack.getBits(record, dots);
+            obstaclesFromWalls();
+
+            powerUps.clear();
+            for (int i = record.get(); i > 0; i--) {
+                int cell = record.getChar();
+                powerUps.add(new Point(cell % gridCols, cell / gridCols), PowerUpType.values()[record.get()]);
+            }
+            int enemyCount = record.getChar();
+            enemies.reset(enemyCount, behaviors.types(), gridCols + gridRows, gridCols, walls.length);
+            if (crossers.length < enemyCount) crossers = new int[enemyCount];
+            for (int i = 0; i < enemyCount; i++) enemies.schedule(record.getChar(), clockMs + config.spawnIntervalMs * (i + 1));
+        }
+
+        private void obstaclesFromWalls() {
+            obstacles.clear();
+            for (int c = 0; c < walls.length; c++) if (walls[c]) obstacles.add(new Point(c % gridCols, c / gridCols));
+            wallsChanged();
+        }
+
+        /**
+         * EN: Places enemies at random available positions. They enter the maze one after another, at the configured interval.
+         * FR: Place les ennemis à des positions disponibles aléatoires. Ils entrent dans le labyrinthe l'un après l'autre, à l'intervalle configuré.
+         */
+        private void placeEnemies() {
+            List<Point> availablePositions = getAvailablePositions();
+            availablePositions.removeIf(p -> p.distance(playerPosition) < 5);
+            Collections.shuffle(availablePositions, random);
+
+            int enemyCount = Math.min(params.enemyCount, availablePositions.size());
+            enemies.reset(enemyCount, behaviors.types(), gridCols + gridRows, gridCols, walls.length);
+            if (crossers.length < enemyCount) crossers = new int[enemyCount];
+            for (int i = 0; i < enemyCount; i++) {
+                enemies.schedule(cellOf(availablePositions.get(i)), clockMs + config.spawnIntervalMs * (i + 1));
+            }
+        }
+
+        /**
+         * EN: Places power-ups on the grid at random available positions.
+         * FR: Place les power-ups sur la grille à des positions disponibles aléatoires.
+         */
+        private void placePowerUps() {
+            powerUps.clear();
+            List<Point> availablePositions = getAvailablePositions();
+            Collections.shuffle(availablePositions, random);
+            if(availablePositions.size() > 0) powerUps.add(availablePositions.remove(0), PowerUpType.SUPER_PELLET);
+            if(chance(params.freezePercent) && availablePositions.size() > 0) powerUps.add(availablePositions.remove(0), PowerUpType.FREEZE);
+            if(chance(params.shieldPercent) && availablePositions.size() > 0) powerUps.add(availablePositions.remove(0), PowerUpType.SHIELD);
+        }
+
+        /**
+         * EN: Draws a percentage chance; 0 and 100 are certain and draw nothing.
+         * FR: Tire une chance en pourcentage ; 0 et 100 sont certains et ne tirent rien.
+         */
+        private boolean chance(int percent) {
+            return percent >= 100 || (percent > 0 && random.nextInt(100) < percent);
+        }
+
+        /**
+         * EN: Gets a list of all available (non-obstacle, non-player) positions on the grid.
+         * FR: Obtient une liste de toutes les positions disponibles (non-obstacle, non-joueur) sur la grille.
+         * @return A list of available points.
+         */
+        List<Point> getAvailablePositions() {
+            List<Point> available = new ArrayList<>();
+            for (int r = 1; r < gridRows - 1; r++) {
+                for (int c = 1; c < gridCols - 1; c++) {
+                    if (!walls[r * gridCols + c] && (c != playerPosition.x || r != playerPosition.y)) available.add(new Point(c, r));
+                }
+            }
+            return available;
+        }
+
+        /**
+         * EN: Updates the game logic, such as spawns, power-up timers and enemy states.
+         * FR: Met à jour la logique du jeu, comme les apparitions, les minuteurs de power-up et les états des ennemis.
+         */
+        private void updateGameLogic() {
+            EnemyStore e = enemies;
+            while (e.spawnDue(clockMs)) {
+                int slot = e.spawnNext(clockMs);
+                influence.stampEnemy(e.y[slot] * gridCols + e.x[slot], 1f);
+            }
+            if (isShieldActive && clockMs > shieldEndTime) isShieldActive = false;
+            if (areEnemiesFrozen && clockMs > freezeEndTime) areEnemiesFrozen = false;
+            if (areEnemiesVulnerable && clockMs > vulnerableEndTime) {
+                areEnemiesVulnerable = false;
+                signalAll(EnemyEvent.POWERUP_END);
+            }
+
+            int timeout = EnemyEvent.TIMEOUT.ordinal();
+            for (int i = 0; i < e.count; i++) {
+                int type = e.type[i], state = e.state[i];
+                if (clockMs - e.stateChangeTime[i] > behaviors.timeoutMs[type * BehaviorTable.STATE_COUNT + state]) {
+                    e.changeState(i, behaviors.next(type, state, timeout), clockMs);
+                }
+            }
+        }
+
+        /**
+         * EN: Sends the same event to every enemy, each reacting as its type defines.
+         * FR: Envoie le même événement à tous les ennemis, chacun réagissant selon son type.
+         */
+        private void signalAll(EnemyEvent event) {
+            EnemyStore e = enemies;
+            for (int i = 0; i < e.count; i++) e.changeState(i, behaviors.next(e.type[i], e.state[i], event.ordinal()), clockMs);
+        }
+
+        /**
+         * EN: Moves the player by one cell if the destination is walkable, collecting any dot or power-up there.
+         * FR: Déplace le joueur d'une cellule si la destination est praticable, en ramassant le point ou le power-up qui s'y trouve.
+         * @param dx The horizontal step.
+         * @param dy The vertical step.
+         */
+        @Override
+        public void movePlayer(int dx, int dy) {
+            int x = playerPosition.x + dx, y = playerPosition.y + dy;
+            if (!isWalkable(x, y)) return;
+            playerPosition.setLocation(x, y);
+            headingX = dx; headingY = dy;
+            int cell = y * gridCols + x;
+            boolean ateDot = dots[cell];
+            if (ateDot) {
+                dots[cell] = false; dotCount--; score += 10;
+                if (events != null) events.publish(GameEvent.DOT_EATEN, tick, level, cell, 10);
+            }
+            if (recorder != null) recorder.playerMoved(dx != 0 ? (dx > 0 ? 2 : 3) : (dy > 0 ? 0 : 1), ateDot);
+            int slot = powerUps.find(x, y);
+            if (slot >= 0) {
+                PowerUpType type = powerUps.type(slot);
+                powerUps.remove(slot);
+                activatePowerUp(type);
+            }
+        }
+
+        /**
+         * EN: Activates a power-up when the player collects it.
+         * FR: Active un power-up lorsque le joueur le récupère.
+         * @param type The type of power-up to activate.
+         */
+        private void activatePowerUp(PowerUpType type) {
+            PowerUpEvent event = TickEvents.POWER_UP.isEnabled() ? new PowerUpEvent() : null;
+            if (event != null && event.shouldCommit()) {
+                event.type = type.name();
+                event.level = level;
+                event.clockMs = clockMs;
+                event.commit();
+            }
+            if (events != null) events.publish(GameEvent.POWERUP, tick, level, cellOf(playerPosition), type.ordinal());
+            if (heatmap != null) heatmap.record(HeatmapAnalytics.PICKUP, level, cellOf(playerPosition));
+            switch(type) {
+                case SHIELD: isShieldActive = true; shieldEndTime = clockMs + 5000; break;
+                case FREEZE: areEnemiesFrozen = true; freezeEndTime = clockMs + 3000; break;
+                case SUPER_PELLET:
+                    areEnemiesVulnerable = true;
+                    vulnerableEndTime = clockMs + 8000;
+                    signalAll(EnemyEvent.POWERUP);
+                    score += 50;
+                    break;
+            }
+        }
+
+        /**
+         * EN: Checks if a given cell on the grid is walkable.
+         * FR: Vérifie si une cellule donnée sur la grille est praticable.
+         * @param x The column of the cell.
+         * @param y The row of the cell.
+         * @return True if the cell is walkable, false otherwise.
+         */
+        boolean isWalkable(int x, int y) {
+            return x >= 0 && y >= 0 && x < gridCols && y < gridRows && !walls[y * gridCols + x];
+        }
+
+        /**
+         * EN: Checks if a given point on the grid is walkable.
+         * FR: Vérifie si un point donné sur la grille est praticable.
+         * @param p The point to check.
+         * @return True if the point is walkable, false otherwise.
+         */
+        boolean isWalkable(Point p) {
+            return isWalkable(p.x, p.y);
+        }
+
+        /**
+         * EN: Moves the enemies based on their behavior and state. Enemies are planned against a snapshot, the
+         *     scheduler then spends the tick's AI budget on the most urgent path recalculations, and the moves
+         *     are committed in order. Enemies whose replan was deferred keep following their cached path.
+         * FR: Déplace les ennemis en fonction de leur comportement et de leur état. Les ennemis sont planifiés sur un
+         *     instantané, puis l'ordonnanceur consacre le budget IA du tick aux recalculs de chemin les plus urgents, et
+         *     les mouvements sont validés dans l'ordre. Les ennemis dont le recalcul est reporté suivent leur chemin en cache.
+         */
+        void moveEnemies() {
+            long startNanos = System.nanoTime();
+            int n = enemies.count;
+            if (intentCell.length < n) {
+                int capacity = Math.max(n, intentCell.length * 2);
+                intentCell = new int[capacity];
+                intentTarget = new int[capacity];
+                intentState = new byte[capacity];
+                intentFlags = new byte[capacity];
+            }
+            if (config.asyncPathfinding) applyPathResults();
+            planPlayerX = playerPosition.x;
+            planPlayerY = playerPosition.y;
+            planHeadingX = headingX;
+            planHeadingY = headingY;
+            influence.updatePlayer(cellOf(playerPosition));
+            if (config.parallelAI && n >= PARALLEL_THRESHOLD) {
+                ForkJoinPool.commonPool().invoke(new PlanTask(0, n, parallelChunk(n)));
+            } else {
+                planEnemies(0, n);
+            }
+            scheduler.run(this, n, startNanos);
+            commitEnemyMoves(n);
+        }
+
+        private static int parallelChunk(int n) {
+            return Math.max(8, n / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        }
+
+        /**
+         * EN: Splits the planning phase into ranges of enemies for fork-join workers.
+         * FR: Découpe la phase de planification en plages d'ennemis pour les threads fork-join.
+         */
+        private final class PlanTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int from, to, chunk;
+
+            PlanTask(int from, int to, int chunk) { this.from = from; this.to = to; this.chunk = chunk; }
+
+            @Override
+            protected void compute() {
+                if (to - from <= chunk) { planEnemies(from, to); return; }
+                int mid = (from + to) >>> 1;
+                invokeAll(new PlanTask(from, mid, chunk), new PlanTask(mid, to, chunk));
+            }
+        }
+
+        /**
+         * EN: Plans the next state of enemies in [from, to), their target, and whether their cached path needs recalculating.
+         *     Reads the world but writes only to the intent arrays.
+         * FR: Planifie le prochain état des ennemis de [from, to), leur cible, et s'il faut recalculer leur chemin en cache.
+         *     Lit le monde mais n'écrit que dans les tableaux d'intention.
+         */
+        private void planEnemies(int from, int to) {
+            EnemyStore e = enemies;
+            for (int i = from; i < to; i++) {
+                int ex = e.x[i], ey = e.y[i], type = e.type[i];
+                int distanceSq = (ex - planPlayerX) * (ex - planPlayerX) + (ey - planPlayerY) * (ey - planPlayerY);
+                // 0 = aucun événement, 1 = PLAYER_NEAR, 2 = PLAYER_FAR (même ordre que EnemyEvent).
+                int event = distanceSq < behaviors.aggroDistanceSq[type] ? 1 : distanceSq > behaviors.loseDistanceSq[type] ? 2 : 0;
+                int state = behaviors.next(type, e.state[i], event);
+                int mode = behaviors.moveMode[type * BehaviorTable.STATE_COUNT + state];
+
+                int next = ey * gridCols + ex, target = -1, flags = 0;
+                if (mode == MOVE_FLEE) {
+                    next = fleeStep(ex, ey);
+                } else if (mode == MOVE_PURSUE) {
+                    target = getTargetForEnemy(type, distanceSq);
+                    boolean pathStale = target != e.pathTarget[i] || (e.pathIndex[i] < e.pathLength[i] && !isNextStepValid(i));
+                    if (pathStale && target != e.requestedTarget[i]) flags |= FLAG_REPLAN;
+                    // Les premiers niveaux laissent les ennemis hésiter pour ralentir la poursuite.
+                    if (params.enemiesHesitate && (e.stepCounter[i] + 1) % (GameRandom.roll(seed, tick, i, 3) + 1) != 0) flags |= FLAG_HESITATE;
+                }
+                intentCell[i] = next;
+                intentTarget[i] = target;
+                intentState[i] = (byte) state;
+                intentFlags[i] = (byte) flags;
+            }
+        }
+
+        /**
+         * EN: Tells whether the planning phase asked for the enemy's path to be recalculated this tick.
+         * FR: Indique si la phase de planification a demandé le recalcul du chemin de l'ennemi à ce tick.
+         */
+        boolean needsReplan(int index) {
+            return (intentFlags[index] & FLAG_REPLAN) != 0;
+        }
+
+        /**
+         * EN: The scheduling priority of a pending replan: chasing enemies close to the player come first, and waiting raises priority.
+         * FR: La priorité d'un recalcul en attente : les ennemis en chasse proches du joueur passent d'abord, et l'attente augmente la priorité.
+         * @return The priority key; lower runs first.
+         */
+        int replanPriority(int index) {
+            int dx = enemies.x[index] - planPlayerX, dy = enemies.y[index] - planPlayerY;
+            return Math.max(0, dx * dx + dy * dy - AIScheduler.AGING * enemies.replanWaitTicks[index]);
+        }
+
+        /**
+         * EN: Recalculates and caches the enemy's path to the target chosen in the planning phase. Only touches that enemy.
+         * FR: Recalcule et met en cache le chemin de l'ennemi vers la cible choisie lors de la planification. Ne modifie que cet ennemi.
+         */
+        void replan(int index) {
+            EnemyStore e = enemies;
+            int start = e.y[index] * gridCols + e.x[index], target = intentTarget[index];
+            e.replanWaitTicks[index] = 0;
+            if (config.asyncPathfinding) {
+                e.requestedTarget[index] = target;
+                pathsRequested++;
+                PathfindingService.Request request = idleRequests.poll();
+                if (request == null) request = new PathfindingService.Request(pathResults);
+                request.maze = maze;
+                request.enemyId = e.handle[index];
+                request.start = start;
+                request.target = target;
+                PathfindingService.shared().submit(request);
+                return;
+            }
+            e.pathTarget[index] = target;
+            e.pathIndex[index] = e.pathLength[index] = 0;
+            PathScratch s = start == target ? null : search(start, target);
+            if (s == null) return;
+            e.path[index] = tracePath(s, start, target, e.path[index]);
+            e.pathLength[index] = s.pathLength;
+        }
+
+        /**
+         * EN: Applies the paths computed by the workers since the last tick, copying each into its enemy's path buffer,
+         *     and keeps the requests for reuse. A result is discarded when the maze has changed, when its enemy has since
+         *     asked for another target or is gone, or when the enemy has left the returned path.
+         * FR: Applique les chemins calculés par les threads depuis le dernier tick, en copiant chacun dans le tampon de
+         *     chemin de son ennemi, et garde les demandes pour les réutiliser. Un résultat est ignoré si le labyrinthe a
+         *     changé, si son ennemi a depuis demandé une autre cible ou a disparu, ou si l'ennemi a quitté le chemin renvoyé.
+         */
+        private void applyPathResults() {
+            PathfindingService.Request result;
+            while ((result = pathResults.poll()) != null) {
+                applyPathResult(result);
+                result.maze = null;
+                idleRequests.push(result);
+            }
+        }
+
+        private void applyPathResult(PathfindingService.Request result) {
+            EnemyStore e = enemies;
+            int slot = result.mazeVersion == maze.version ? e.slotOf(result.enemyId) : -1;
+            if (slot < 0 || result.target != e.requestedTarget[slot]) {
+                pathsDiscarded++;
+                return;
+            }
+            e.requestedTarget[slot] = -1;
+            int current = e.y[slot] * gridCols + e.x[slot], index = current == result.start ? 0 : -1;
+            for (int k = 0; index < 0 && k < result.length; k++) if (result.path[k] == current) index = k + 1;
+            if (index < 0) { pathsDiscarded++; return; }
+            int[] path = e.path[slot];
+            if (path.length < result.length) e.path[slot] = path = new int[Math.max(result.length, path.length * 2)];
+            System.arraycopy(result.path, 0, path, 0, result.length);
+            e.pathLength[slot] = result.length;
+            e.pathIndex[slot] = index;
+            e.pathTarget[slot] = result.target;
+            pathsApplied++;
+        }
+
+        /**
+         * EN: Records that the enemy's replan did not fit in this tick's budget.
+         * FR: Note que le recalcul de l'ennemi n'a pas tenu dans le budget de ce tick.
+         */
+        void deferReplan(int index) {
+            enemies.replanWaitTicks[index]++;
+        }
+
+        private boolean isNextStepValid(int slot) {
+            EnemyStore e = enemies;
+            int next = e.path[slot][e.pathIndex[slot]];
+            int dx = Math.abs(next % gridCols - e.x[slot]), dy = Math.abs(next / gridCols - e.y[slot]);
+            return dx + dy == 1 && !walls[next];
+        }
+
+        /**
+         * EN: Applies the planned moves in slot order. Chasing enemies advance along their cached path. When enemies
+         *     may not share a cell, a move into an occupied cell is cancelled. An enemy stepping onto the cell the player
+         *     just left, from the cell the player entered, is noted for the collision check.
+         * FR: Applique les mouvements planifiés dans l'ordre des emplacements. Les ennemis en chasse avancent sur leur
+         *     chemin en cache. Si les ennemis ne peuvent pas partager une cellule, un mouvement vers une cellule occupée
+         *     est annulé. Un ennemi qui passe de la cellule où le joueur vient d'entrer à celle qu'il vient de quitter est
+         *     noté pour la détection des collisions.
+         */
+        private void commitEnemyMoves(int n) {
+            EnemyStore e = enemies;
+            boolean resolve = config.resolveConflicts;
+            int playerCell = cellOf(playerPosition), playerFrom = lastPlayerCell;
+            for (int i = 0; i < n; i++) {
+                int type = e.type[i];
+                discoveredTypes[type] = true;
+                e.changeState(i, intentState[i], clockMs);
+
+                int from = e.y[i] * gridCols + e.x[i], to = intentCell[i];
+                boolean followsPath = false;
+                if (behaviors.moveMode[type * BehaviorTable.STATE_COUNT + intentState[i]] == MOVE_PURSUE) {
+                    e.stepCounter[i]++;
+                    if ((intentFlags[i] & FLAG_HESITATE) == 0 && e.pathIndex[i] < e.pathLength[i] && isNextStepValid(i)) {
+                        to = e.path[i][e.pathIndex[i]];
+                        followsPath = true;
+                    }
+                }
+                if (to == from) continue;
+                if (resolve && e.occupied(to)) continue;
+                e.moveTo(i, to);
+                influence.moveEnemy(from, to);
+                if (recorder != null) recorder.enemyMoved(from, to);
+                if (followsPath) e.pathIndex[i]++;
+                if (from == playerCell && to == playerFrom) crossers[crosserCount++] = e.handle[i];
+            }
+        }
+
+        private int cellOf(Point p) { return p.y * gridCols + p.x; }
+
+        /**
+         * EN: Picks the neighbouring cell (or the current one) for a fleeing enemy: away from the player, while staying out of dead ends and crowds.
+         * FR: Choisit la cellule voisine (ou l'actuelle) pour un ennemi en fuite : loin du joueur, en évitant les impasses et la foule.
+         * @return The chosen cell index.
+         */
+        private int fleeStep(int ex, int ey) {
+            float bestScore = -Float.MAX_VALUE;
+            int bestMove = ey * gridCols + ex;
+            for (int i = 0; i <= 4; i++) {
+                int nx = i < 4 ? ex + DX[i] : ex, ny = i < 4 ? ey + DY[i] : ey;
+                if (isWalkable(nx, ny)) {
+                    int cell = ny * gridCols + nx;
+                    int dist = (nx - planPlayerX) * (nx - planPlayerX) + (ny - planPlayerY) * (ny - planPlayerY);
+                    float score = dist * 0.01f - influence.fleeDanger(cell);
+                    if (score > bestScore) { bestScore = score; bestMove = cell; }
+                }
+            }
+            return bestMove;
+        }
+
+        /**
+         * EN: Determines the target cell for an enemy from its type's targeting rule (one rule when near the player, another when far).
+         * FR: Détermine la cellule cible d'un ennemi selon la règle de ciblage de son type (une règle près du joueur, une autre loin).
+         * @param type The type of the enemy to determine the target for.
+         * @param distanceSq The squared distance between the enemy and the player.
+         * @return The target cell index.
+         */
+        private int getTargetForEnemy(int type, int distanceSq) {
+            int px = planPlayerX, py = planPlayerY;
+            int rule = distanceSq <= behaviors.nearDistanceSq[type] ? behaviors.targetNear[type] : behaviors.targetFar[type];
+            if (rule == TARGET_AMBUSH) return influence.ambushCell(px, py, planHeadingX, planHeadingY);
+            if (rule == TARGET_FLANK) return influence.flankCell(px, py);
+            if (rule == TARGET_GUARD) return influence.guardCell(px, py);
+            return py * gridCols + px;
+        }
+
+        /**
+         * EN: Per-thread buffers for breadth-first search, so concurrent planners never share state.
+         * FR: Tampons par thread pour le parcours en largeur, afin que les planificateurs concurrents ne partagent aucun état.
+         */
+        private static final class PathScratch {
+            int[] visited = new int[0], parent = new int[0], queue = new int[0];
+            int stamp, pathLength, expanded;
+
+            void ensure(int cells) {
+                if (visited.length < cells) {
+                    visited = new int[cells]; parent = new int[cells]; queue = new int[cells];
+                    stamp = 0;
+                }
+                if (++stamp == 0) { Arrays.fill(visited, 0); stamp = 1; }
+            }
+        }
+
+        /**
+         * EN: Runs a breadth-first search over cells, filling the thread's parent links.
+         *     Neighbours are expanded in the same order as always, so the path found is unchanged.
+         * FR: Effectue un parcours en largeur sur les cellules et remplit les liens de parenté du thread.
+         *     Les voisins sont explorés dans le même ordre qu'avant, donc le chemin trouvé est inchangé.
+         * @return The scratch holding the parent links, or null if the target is unreachable.
+         */
+        private PathScratch search(int start, int target) {
+            return search(walls, gridCols, gridRows, start, target);
+        }
+
+        /**
+         * EN: Breadth-first search over any wall grid; used by the tick thread and by pathfinding workers alike, and
+         *     counted in the performance metrics.
+         * FR: Parcours en largeur sur une grille de murs quelconque ; utilisé aussi bien par le thread du tick que par les
+         *     threads de recherche, et compté dans les mesures de performance.
+         */
+        static PathScratch search(boolean[] walls, int gridCols, int gridRows, int start, int target) {
+            long lap = PerfMetrics.start();
+            PathSearchEvent event = TickEvents.PATH_SEARCH.isEnabled() ? new PathSearchEvent() : null;
+            if (event != null) event.begin();
+            PathScratch s = breadthFirst(walls, gridCols, gridRows, start, target);
+            PerfMetrics.lap(PerfMetrics.Section.PATHFINDING, lap);
+            if (event != null && event.shouldCommit()) {
+                event.nodesExpanded = target < 0 || walls[target] ? 0 : PATH_SCRATCH.get().expanded;
+                event.pathLength = -1;
+                if (s != null) {
+                    event.pathLength = 0;
+                    for (int cell = target; cell != start; cell = s.parent[cell]) event.pathLength++;
+                }
+                event.cells = walls.length;
+                event.commit();
+            }
+            return s;
+        }
+
+        private static PathScratch breadthFirst(boolean[] walls, int gridCols, int gridRows, int start, int target) {
+            if (target < 0 || walls[target]) return null;
+            PathScratch s = PATH_SCRATCH.get();
+            s.ensure(walls.length);
+            int head = 0, tail = 0;
+            s.queue[tail++] = start; s.visited[start] = s.stamp; s.parent[start] = -1;
+            while (head < tail) {
+                int current = s.queue[head++];
+                if (current == target) { s.expanded = head; return s; }
+                int cx = current % gridCols, cy = current / gridCols;
+                for (int i = 0; i < 4; i++) {
+                    int nx = cx + DX[i], ny = cy + DY[i];
+                    if (nx < 0 || ny < 0 || nx >= gridCols || ny >= gridRows) continue;
+                    int next = ny * gridCols + nx;
+                    if (walls[next]) continue;
+                    if (s.visited[next] == s.stamp) continue;
+                    s.visited[next] = s.stamp; s.parent[next] = current;
+                    s.queue[tail++] = next;
+                }
+            }
+            s.expanded = head;
+            return null;
+        }
+
+        /**
+         * EN: Copies the path found by the last search, excluding the start cell, into a buffer (grown if needed).
+         * FR: Copie le chemin trouvé par la dernière recherche, sans la cellule de départ, dans un tampon (agrandi si besoin).
+         * @return The buffer holding the path; its length is {@code s.pathLength}.
+         */
+        static int[] tracePath(PathScratch s, int start, int target, int[] into) {
+            int length = 0;
+            for (int cell = target; cell != start; cell = s.parent[cell]) length++;
+            if (into.length < length) into = new int[Math.max(length, into.length * 2)];
+            for (int cell = target, k = length - 1; cell != start; cell = s.parent[cell], k--) into[k] = cell;
+            s.pathLength = length;
+            return into;
+        }
+
+        /**
+         * EN: Finds a path from a start point to a target point using Breadth-First Search (BFS).
+         * FR: Trouve un chemin d'un point de départ à un point cible en utilisant une recherche en largeur (BFS).
+         * @param start The starting point.
+         * @param target The target point.
+         * @return A list of points representing the path, or null if no path is found.
+         */
+        List<Point> findPath(Point start, Point target) {
+            if (!isWalkable(target)) return null;
+            int startCell = cellOf(start), targetCell = cellOf(target);
+            PathScratch s = search(startCell, targetCell);
+            if (s == null) return null;
+            List<Point> path = new ArrayList<>();
+            for (int cell = targetCell; cell != -1; cell = s.parent[cell]) path.add(new Point(cell % gridCols, cell / gridCols));
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * EN: Checks for collisions between the player and enemies: those on the player's cell, found through the
+         *     occupancy grid, and those that swapped cells with the player during this tick.
+         * FR: Vérifie les collisions entre le joueur et les ennemis : ceux de la cellule du joueur, trouvés par la grille
+         *     d'occupation, et ceux qui ont échangé leur cellule avec le joueur pendant ce tick.
+         * @return True if an enemy caught the player.
+         */
+        private boolean checkEnemyCollision() {
+            EnemyStore e = enemies;
+            int cell = cellOf(playerPosition), crossed = crosserCount;
+            crosserCount = 0;
+            for (int h = e.firstOnCell(cell); h >= 0; ) {
+                int next = e.nextOnCell(h);
+                if (collide(e.slotOf(h))) return true;
+                h = next;
+            }
+            for (int k = 0; k < crossed; k++) {
+                int slot = e.slotOf(crossers[k]);
+                if (slot >= 0 && collide(slot)) return true;
+            }
+            return false;
+        }
+
+        /**
+         * EN: Resolves the player's contact with an enemy: a fleeing enemy is eaten, the shield sends the enemy back to
+         *     the bottom-left corner, and otherwise the player is caught.
+         * FR: Résout le contact du joueur avec un ennemi : un ennemi en fuite est mangé, le bouclier renvoie l'ennemi dans
+         *     le coin inférieur gauche, et sinon le joueur est attrapé.
+         * @return True if the player was caught.
+         */
+        private boolean collide(int slot) {
+            EnemyStore e = enemies;
+            int from = e.y[slot] * gridCols + e.x[slot];
+            if (e.state[slot] == EnemyState.FLEEING.ordinal()) {
+                score += 200;
+                if (events != null) events.publish(GameEvent.ENEMY_DEFEATED, tick, level, from, 200);
+                influence.stampEnemy(from, -1f);
+                e.remove(slot);
+            } else if (isShieldActive) {
+                isShieldActive = false;
+                int to = (gridRows - 2) * gridCols + 1;
+                e.moveTo(slot, to);
+                influence.moveEnemy(from, to);
+                if (recorder != null) recorder.enemyMoved(from, to);
+                e.pathTarget[slot] = -1;
+            } else {
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * EN: Writes everything the simulation needs to carry on exactly as it would have: clock, score and timers, the
+         *     generator's state (the next levels depend on it), the player, walls, dots, power-ups and enemies. What is
+         *     derived from those, such as the influence maps, is rebuilt on reading. Call between two ticks.
+         * FR: Écrit tout ce dont la simulation a besoin pour continuer exactement comme elle l'aurait fait : horloge, score
+         *     et minuteurs, l'état du générateur (les niveaux suivants en dépendent), le joueur, les murs, les points, les
+         *     power-ups et les ennemis. Ce qui s'en déduit, comme les cartes d'influence, est reconstruit à la lecture.
+         *     À appeler entre deux ticks.
+         */
+        void writeState(ByteBuffer out) {
+            out.putLong(random.state()).putInt(level).putInt(score).putLong(tick).putLong(clockMs).putShort((short) tickDelayMs);
+            LevelPack.putParams(out, params);
+            out.put((byte) ((isShieldActive ? 1 : 0) | (areEnemiesFrozen ? 2 : 0) | (areEnemiesVulnerable ? 4 : 0)));
+            out.putLong(shieldEndTime).putLong(freezeEndTime).putLong(vulnerableEndTime);
+            out.putChar((char) playerPosition.x).putChar((char) playerPosition.y).put((byte) headingX).put((byte) headingY);
+            out.putChar((char) lastPlayerCell).put((byte) discoveredTypes.length);
+            LevelPack.putBits(out, discoveredTypes);
+            LevelPack.putBits(out, walls);
+            LevelPack.putBits(out, dots);
+            powerUps.write(out);
+            enemies.write(out);
+        }
+
+        /**
+         * EN: An upper bound on what {@link #writeState} writes on a board, whatever the level.
+         * FR: Un majorant de ce qu'écrit {@link #writeState} sur un plateau, quel que soit le niveau.
+         * @param cells The number of cells on the board.
+         * @param types The number of enemy types.
+         * @param enemies The most enemies a level schedules.
+         */
+        static int stateBytesBound(int cells, int types, int enemies) {
+            int bits = (cells + 7) / 8;
+            int fixed = 8 + 4 + 4 + 8 + 8 + 2 + LevelPack.PARAMS_BYTES + 1 + 3 * 8 + 2 + 2 + 1 + 1 + 2 + 1 + (types + 7) / 8 + 2 * bits;
+            int powerUps = 1 + 5 * PowerUpType.values().length;
+            // Par ennemi : file d'apparition, champs fixes, un chemin d'au plus tout le plateau et le lien d'occupation.
+            int perEnemy = 2 + 8 + 2 + 2 + 4 + 1 + 8 + 4 + 4 + 2 + 2 * cells + 2;
+            return fixed + powerUps + 6 + enemies * perEnemy;
+        }
+
+        /**
+         * EN: Replaces the state of this world with one written by {@link #writeState} on a world of the same board and seed.
+         * FR: Remplace l'état de ce monde par celui écrit par {@link #writeState} sur un monde de même plateau et même graine.
+         * @throws IllegalArgumentException If the state was written with other enemy types.
+         */
+        void readState(ByteBuffer in) {
+            random.setSeed(in.getLong());
+            level = in.getInt();
+            score = in.getInt();
+            tick = in.getLong();
+            clockMs = in.getLong();
+            tickDelayMs = in.getShort();
+            params = LevelPack.getParams(in);
+            int flags = in.get();
+            isShieldActive = (flags & 1) != 0;
+            areEnemiesFrozen = (flags & 2) != 0;
+            areEnemiesVulnerable = (flags & 4) != 0;
+            shieldEndTime = in.getLong();
+            freezeEndTime = in.getLong();
+            vulnerableEndTime = in.getLong();
+            playerPosition.setLocation(in.getChar(), in.getChar());
+            headingX = in.get();
+            headingY = in.get();
+            lastPlayerCell = in.getChar();
+            if (in.get() != discoveredTypes.length) throw new IllegalArgumentException("types d'ennemis différents");
+            LevelPack.getBits(in, discoveredTypes);
+            LevelPack.getBits(in, walls);
+            dotCount = LevelPack.getBits(in, dots);
+            obstaclesFromWalls();
+            powerUps.read(in);
+            enemies.read(in, behaviors.types(), gridCols + gridRows, gridCols, walls.length);
+            if (crossers.length < enemies.scheduled()) crossers = new int[enemies.scheduled()];
+            crosserCount = 0;
+            for (int i = 0; i < enemies.count; i++) influence.stampEnemy(enemies.y[i] * gridCols + enemies.x[i], 1f);
+        }
+
+        /**
+         * EN: The size of the image {@link #writeView} writes for the current level.
+         * FR: La taille de l'image qu'écrit {@link #writeView} pour le niveau courant.
+         */
+        int viewBytes() {
+            return 4 + 1 + 4 + 1 + 2 + 2 + 4 * enemies.scheduled() + 1 + 3 * PowerUpType.values().length + 2 * ((walls.length + 7) / 8);
+        }
+
+        /**
+         * EN: Writes what a spectator sees as a fixed-layout image: one level's images line up byte for byte, so a delta
+         *     between two ticks holds little more than what moved. Enemies are listed by handle, spawned or not, so that
+         *     they keep their place in the image.
+         *     <pre>
+         *     int tick, byte level, int score, byte flags (1 shield, 2 frozen, 4 vulnerable), byte player x, byte player y
+         *     short enemies, per enemy   byte state + 1 (0 while absent), byte x, byte y, byte type
+         *     byte power-ups, then one slot per power-up type   byte type, byte x, byte y
+         *     bits walls, bits dots
+         *     </pre>
+         * FR: Écrit ce que voit un spectateur sous la forme d'une image de disposition fixe : les images d'un même niveau
+         *     s'alignent octet par octet, donc un delta entre deux ticks ne contient guère plus que ce qui a bougé. Les
+         *     ennemis sont listés par identifiant, apparus ou non, pour garder leur place dans l'image. Le format est
+         *     décrit ci-dessus.
+         */
+        void writeView(ByteBuffer out) {
+            out.putInt((int) tick).put((byte) level).putInt(score);
+            out.put((byte) ((isShieldActive ? 1 : 0) | (areEnemiesFrozen ? 2 : 0) | (areEnemiesVulnerable ? 4 : 0)));
+            out.put((byte) playerPosition.x).put((byte) playerPosition.y);
+            EnemyStore e = enemies;
+            out.putChar((char) e.scheduled());
+            for (int h = 0; h < e.scheduled(); h++) {
+                int slot = e.slotOf(h);
+                if (slot < 0) out.putInt(0);
+                else out.put((byte) (e.state[slot] + 1)).put((byte) e.x[slot]).put((byte) e.y[slot]).put((byte) e.type[slot]);
+            }
+            out.put((byte) powerUps.count);
+            for (int i = 0; i < PowerUpType.values().length; i++) {
+                if (i < powerUps.count) out.put(powerUps.type[i]).put((byte) powerUps.x[i]).put((byte) powerUps.y[i]);
+                else out.put((byte) 0).put((byte) 0).put((byte) 0);
+            }
+            LevelPack.putBits(out, walls);
+            LevelPack.putBits(out, dots);
+        }
+
+        /**
+         * EN: Hashes the state that the enemy AI reads and writes, to compare two runs tick by tick.
+         * FR: Calcule une empreinte de l'état lu et écrit par l'IA ennemie, pour comparer deux parties tick par tick.
+         * @return The state hash.
+         */
+        long stateHash() {
+            long h = GameRandom.mix(tick) ^ cellOf(playerPosition) ^ ((long) score << 32);
+            EnemyStore e = enemies;
+            for (int i = 0; i < e.count; i++) {
+                h = GameRandom.mix(h + e.y[i] * gridCols + e.x[i]) + e.state[i] * 31L + e.stepCounter[i];
+            }
+            return h;
+        }
+    }
+
+    /**
+     * EN: Runs the swarm board twice from the same seed and no AI budget, once with single-threaded and once with parallel AI planning,
+     *     checks that both runs stay identical tick by tick, and reports the time spent per tick. A third run with
+     *     asynchronous pathfinding reports its tick time and how many results were applied or discarded.
+     * FR: Exécute deux fois le plateau essaim avec la même graine et sans budget IA, une fois avec une planification séquentielle et une fois en parallèle,
+     *     vérifie que les deux parties restent identiques à chaque tick et affiche le temps passé par tick. Une troisième partie
+     *     avec recherche de chemin asynchrone affiche son temps par tick et le nombre de résultats appliqués ou ignorés.
+     * @param seed The world seed.
+     * @param ticks The number of ticks to simulate.
+     * @return True if both runs matched.
+     */
+    private static boolean runSwarmCheck(long seed, int ticks) {
+        WorldConfig reproducible = WorldConfig.swarm().withAIBudget(0).withAsyncPathfinding(false);
+        GameWorld serial = new GameWorld(reproducible.withParallelAI(false), seed);
+        GameWorld parallel = new GameWorld(reproducible.withParallelAI(true), seed);
+        GameWorld async = new GameWorld(WorldConfig.swarm(), seed);
+        serial.loadLevel(1);
+        parallel.loadLevel(1);
+        async.loadLevel(1);
+        GameRandom pilot = new GameRandom(~seed);
+        long serialNanos = 0, parallelNanos = 0, asyncNanos = 0, asyncBytes = 0;
+        for (int t = 0; t < ticks; t++) {
+            int dir = pilot.nextInt(4);
+            serial.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+            parallel.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+            async.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+            long start = System.nanoTime();
+            serial.step();
+            long mid = System.nanoTime();
+            parallel.step();
+            long end = System.nanoTime();
+            long bytesBefore = PerfMetrics.allocatedBytes();
+            async.step();
+            asyncNanos += System.nanoTime() - end;
+            if (t >= ticks / 2) asyncBytes += PerfMetrics.allocatedBytes() - bytesBefore;
+            parallelNanos += end - mid;
+            serialNanos += mid - start;
+            if (serial.stateHash() != parallel.stateHash()) {
+                System.out.println("Divergence au tick " + (t + 1));
+                return false;
+            }
+        }
+        System.out.printf("%d ticks, %d ennemis, %d threads%n", ticks, serial.enemies.count, ForkJoinPool.getCommonPoolParallelism() + 1);
+        System.out.printf("séquentiel : %.3f ms/tick, parallèle : %.3f ms/tick, résultats identiques%n",
+                serialNanos / 1e6 / ticks, parallelNanos / 1e6 / ticks);
+        System.out.println(parallel.scheduler.summary());
+        System.out.printf("chemins asynchrones : %.3f ms/tick, %d demandés, %d appliqués, %d ignorés (labyrinthe ou cible périmés), %.0f octets alloués par tick sur la seconde moitié%n",
+                asyncNanos / 1e6 / ticks, async.pathsRequested, async.pathsApplied, async.pathsDiscarded, (double) asyncBytes / (ticks - ticks / 2));
+        return true;
+    }
+
+    /**
+     * EN: Allocation budget of the steady-state check: bytes a whole level's measured ticks may allocate in total. It
+     *     leaves room for an enemy path buffer doubling when a maze first asks for a longer path.
+     * FR: Budget d'allocation de la vérification en régime établi : octets que tous les ticks mesurés d'un niveau peuvent
+     *     allouer au total. Il laisse la place au doublement d'un tampon de chemin quand un labyrinthe demande pour la
+     *     première fois un chemin plus long.
+     */
+    private static final long ALLOCATION_BUDGET_BYTES = 1024;
+
+    /**
+     * EN: Checks that the classic game's tick allocates nothing once warmed up. The bot plays every level headless;
+     *     after a warm-up, each tick (bot input included) is bracketed by the thread's allocation counter. Ticks that
+     *     end the level and the level reloads that follow are left out, since building a level allocates by design.
+     * FR: Vérifie que le tick du jeu classique n'alloue rien une fois chaud. Le robot joue chaque niveau sans fenêtre ;
+     *     après une mise en température, chaque tick (commandes du robot comprises) est encadré par le compteur
+     *     d'allocation du thread. Les ticks qui terminent le niveau et les rechargements qui suivent sont exclus, puisque
+     *     construire un niveau alloue par nature.
+     * @param seed The seed of the worlds.
+     * @param ticks The number of ticks measured on each level.
+     * @return True if every level stayed within {@link #ALLOCATION_BUDGET_BYTES}.
+     */
+    private static boolean runAllocationCheck(long seed, int ticks) {
+        if (PerfMetrics.allocatedBytes() < 0) {
+            System.out.println("Cette JVM ne mesure pas les allocations par thread.");
+            return false;
+        }
+        AutoPlayer bot = new GreedyBot();
+        GameWorld world = new GameWorld(WorldConfig.classic(), seed);
+        for (int level = 1; level <= CAMPAIGN_LEVELS; level++) measureTickAllocations(world, bot, level, 10_000);
+        boolean ok = true;
+        for (int level = 1; level <= CAMPAIGN_LEVELS; level++) {
+            long[] measured = measureTickAllocations(world, bot, level, ticks);
+            boolean levelOk = measured[1] <= ALLOCATION_BUDGET_BYTES;
+            ok &= levelOk;
+            System.out.printf("niveau %2d : %,7d ticks mesurés, %,9d octets alloués%s%n", level, measured[0], measured[1], levelOk ? "" : "  <- ÉCHEC");
+        }
+        System.out.println(ok ? "Aucune allocation en régime établi." : "Le tick alloue : budget de " + ALLOCATION_BUDGET_BYTES + " octets par niveau dépassé.");
+        return ok;
+    }
+
+    /**
+     * EN: Plays a level for a number of ticks and adds up what the steady-state ticks allocated. The warm-up runs
+     *     through here too, so that the measuring loop itself is compiled before it counts.
+     * FR: Joue un niveau pendant un nombre de ticks et additionne ce qu'ont alloué les ticks en régime établi. La mise en
+     *     température passe aussi par ici, afin que la boucle de mesure soit elle-même compilée avant de compter.
+     * @return The number of ticks measured and the bytes they allocated.
+     */
+    private static long[] measureTickAllocations(GameWorld world, AutoPlayer bot, int level, int ticks) {
+        world.loadLevel(level);
+        long overhead = PerfMetrics.allocatedBytes();
+        overhead = PerfMetrics.allocatedBytes() - overhead;
+        long bytes = 0, measured = 0;
+        for (int t = 0; t < ticks; t++) {
+            long before = PerfMetrics.allocatedBytes();
+            boolean steady = playAllocationTick(world, bot, level);
+            long after = PerfMetrics.allocatedBytes();
+            if (steady) { bytes += after - before - overhead; measured++; }
+        }
+        return new long[] {measured, bytes};
+    }
+
+    /**
+     * EN: Plays one tick of the allocation check, reloading the level if it ended.
+     * FR: Joue un tick de la vérification d'allocation, en rechargeant le niveau s'il s'est terminé.
+     * @return True if the level went on, so the tick counts as steady state.
+     */
+    private static boolean playAllocationTick(GameWorld world, AutoPlayer bot, int level) {
+        autoSteer(world, bot);
+        if (world.step() == TickOutcome.NONE) return true;
+        world.loadLevel(level);
+        return false;
+    }
+
+    // =================================================================================
+    // Endless mode
+    // =================================================================================
+
+    /**
+     * EN: A square piece of the endless maze, in world cells [cx * SIZE, (cx + 1) * SIZE) x [cy * SIZE, (cy + 1) * SIZE).
+     *     Its walls depend only on the world seed and its coordinates, so a chunk can always be rebuilt; only its eaten
+     *     dots need to be kept when it leaves memory.
+     * FR: Un morceau carré du labyrinthe infini, couvrant les cellules [cx * SIZE, (cx + 1) * SIZE) x [cy * SIZE, (cy + 1) * SIZE).
+     *     Ses murs ne dépendent que de la graine du monde et de ses coordonnées, donc un morceau peut toujours être
+     *     reconstruit ; seuls ses points mangés doivent être conservés quand il quitte la mémoire.
+     */
+    private static final class MazeChunk {
+        static final int SIZE = 16, CELLS = SIZE * SIZE;
+        /**
+         * EN: The chance, in percent, that a wall between two crossings is opened once the chunk is connected, making loops.
+         * FR: La probabilité, en pourcentage, qu'un mur entre deux croisements soit ouvert une fois le morceau relié, créant des boucles.
+         */
+        private static final int LOOP_PERCENT = 30;
+
+        final int cx, cy;
+        final boolean[] walls = new boolean[CELLS], dots = new boolean[CELLS];
+        int dotCount;
+        /**
+         * EN: Whether a dot was eaten since the chunk was generated, so that it must be written out when evicted.
+         * FR: Indique si un point a été mangé depuis la génération du morceau, qui doit alors être écrit lors de son éviction.
+         */
+        boolean modified;
+        /**
+         * EN: The load request this chunk answers; see {@link EndlessWorld#drainLoadedChunks}.
+         * FR: La demande de chargement à laquelle ce morceau répond ; voir {@link EndlessWorld#drainLoadedChunks}.
+         */
+        int ticket;
+
+        private MazeChunk(int cx, int cy) { this.cx = cx; this.cy = cy; }
+
+        static long key(int cx, int cy) { return ((long) cx << 32) | (cy & 0xFFFFFFFFL); }
+
+        static int keyX(long key) { return (int) (key >> 32); }
+
+        static int keyY(long key) { return (int) key; }
+
+        /**
+         * EN: Generates a chunk. Its first row and column are open streets, so neighbouring chunks always connect; inside,
+         *     the crossings (even local coordinates) are joined by a random spanning tree plus a few loops, and every
+         *     open cell holds a dot.
+         * FR: Génère un morceau. Sa première ligne et sa première colonne sont des rues ouvertes, donc les morceaux voisins
+         *     sont toujours reliés ; à l'intérieur, les croisements (coordonnées locales paires) sont reliés par un arbre
+         *     couvrant aléatoire et quelques boucles, et chaque cellule ouverte porte un point.
+         */
+        static MazeChunk generate(long seed, int cx, int cy) {
+            MazeChunk chunk = new MazeChunk(cx, cy);
+            GameRandom random = new GameRandom(GameRandom.mix(seed + GameRandom.mix(key(cx, cy))));
+            boolean[] walls = chunk.walls;
+            Arrays.fill(walls, true);
+            for (int i = 0; i < SIZE; i++) walls[i] = walls[i * SIZE] = false;
+            int nodes = SIZE / 2;
+            boolean[] joined = new boolean[nodes * nodes];
+            int[] stack = new int[nodes * nodes], order = {0, 1, 2, 3};
+            int top = 0;
+            stack[top++] = 0;
+            joined[0] = true;
+            walls[0] = false;
+            while (top > 0) {
+                int node = stack[top - 1], nx = node % nodes, ny = node / nodes;
+                for (int k = 3; k > 0; k--) { int j = random.nextInt(k + 1), t = order[k]; order[k] = order[j]; order[j] = t; }
+                boolean advanced = false;
+                for (int k = 0; k < 4 && !advanced; k++) {
+                    int d = order[k], tx = nx + GameWorld.DX[d], ty = ny + GameWorld.DY[d];
+                    if (tx < 0 || ty < 0 || tx >= nodes || ty >= nodes || joined[ty * nodes + tx]) continue;
+                    joined[ty * nodes + tx] = true;
+                    walls[(ny * 2 + GameWorld.DY[d]) * SIZE + nx * 2 + GameWorld.DX[d]] = false;
+                    walls[ty * 2 * SIZE + tx * 2] = false;
+                    stack[top++] = ty * nodes + tx;
+                    advanced = true;
+                }
+                if (!advanced) top--;
+            }
+            for (int y = 0; y < SIZE; y++) {
+                for (int x = 0; x < SIZE; x++) {
+                    boolean between = (x + y) % 2 == 1;
+                    if (between && walls[y * SIZE + x] && random.nextInt(100) < LOOP_PERCENT) walls[y * SIZE + x] = false;
+                }
+            }
+            for (int c = 0; c < CELLS; c++) {
+                chunk.dots[c] = !walls[c];
+                if (chunk.dots[c]) chunk.dotCount++;
+            }
+            return chunk;
+        }
+
+        MazeChunk copy() {
+            MazeChunk copy = new MazeChunk(cx, cy);
+            System.arraycopy(walls, 0, copy.walls, 0, CELLS);
+            System.arraycopy(dots, 0, copy.dots, 0, CELLS);
+            copy.dotCount = dotCount;
+            copy.modified = modified;
+            return copy;
+        }
+    }
+
+    /**
+     * EN: The on-disk store of evicted chunks. Chunks are grouped into region files of REGION x REGION chunks, each a
+     *     fixed table of records (a presence byte and one bit per cell for the remaining dots), so a chunk is found by
+     *     its position alone and no index is kept in memory. Walls are not stored: they are regenerated from the seed.
+     *     File access is serialised on the cache.
+     * FR: Le stockage sur disque des morceaux évincés. Les morceaux sont groupés en fichiers de région de REGION x REGION
+     *     morceaux, chacun une table fixe d'enregistrements (un octet de présence et un bit par cellule pour les points
+     *     restants), donc un morceau se retrouve par sa seule position et aucun index n'est gardé en mémoire. Les murs ne
+     *     sont pas stockés : ils sont régénérés à partir de la graine. Les accès aux fichiers sont sérialisés sur le cache.
+     */
+    private static final class ChunkCache {
+        private static final int REGION = 32, RECORD = 1 + MazeChunk.CELLS / 8;
+        private final Path directory;
+        private final byte[] record = new byte[RECORD];
+        long reads, writes;
+
+        ChunkCache(Path directory) { this.directory = directory; }
+
+        /**
+         * EN: Creates a cache in a new temporary directory.
+         * FR: Crée un cache dans un nouveau dossier temporaire.
+         * @return The cache, or null if no directory could be created; evicted chunks then lose their eaten dots.
+         */
+        static ChunkCache createTemporary() {
+            try {
+                return new ChunkCache(Files.createTempDirectory("cyber-runner-infini"));
+            } catch (IOException e) {
+                System.err.println("Cache du mode infini indisponible : " + e.getMessage());
+                return null;
+            }
+        }
+
+        private Path regionFile(int cx, int cy) {
+            return directory.resolve("r." + Math.floorDiv(cx, REGION) + "." + Math.floorDiv(cy, REGION) + ".bin");
+        }
+
+        private static long offset(int cx, int cy) {
+            return (long) (Math.floorMod(cy, REGION) * REGION + Math.floorMod(cx, REGION)) * RECORD;
+        }
+
+        synchronized void write(MazeChunk chunk) throws IOException {
+            Arrays.fill(record, (byte) 0);
+            record[0] = 1;
+            for (int c = 0; c < MazeChunk.CELLS; c++) if (chunk.dots[c]) record[1 + (c >> 3)] |= (byte) (1 << (c & 7));
+            try (RandomAccessFile file = new RandomAccessFile(regionFile(chunk.cx, chunk.cy).toFile(), "rw")) {
+                file.seek(offset(chunk.cx, chunk.cy));
+                file.write(record);
+            }
+            writes++;
+        }
+
+        /**
+         * EN: Restores the dots of a chunk from disk.
+         * FR: Restaure les points d'un morceau depuis le disque.
+         * @return True if the chunk had been stored, false if it is still as generated.
+         */
+        synchronized boolean read(MazeChunk chunk) throws IOException {
+            File region = regionFile(chunk.cx, chunk.cy).toFile();
+            long offset = offset(chunk.cx, chunk.cy);
+            if (!region.exists() || region.length() < offset + RECORD) return false;
+            try (RandomAccessFile file = new RandomAccessFile(region, "r")) {
+                file.seek(offset);
+                file.readFully(record);
+            }
+            if (record[0] == 0) return false;
+            chunk.dotCount = 0;
+            for (int c = 0; c < MazeChunk.CELLS; c++) {
+                chunk.dots[c] = (record[1 + (c >> 3)] & (1 << (c & 7))) != 0;
+                if (chunk.dots[c]) chunk.dotCount++;
+            }
+            chunk.modified = true;
+            reads++;
+            return true;
+        }
+
+        /**
+         * EN: Deletes the region files and the directory.
+         * FR: Supprime les fichiers de région et le dossier.
+         */
+        synchronized void delete() {
+            File[] files = directory.toFile().listFiles();
+            if (files != null) for (File file : files) file.delete();
+            directory.toFile().delete();
+        }
+    }
+
+    /**
+     * EN: Loads and evicts chunks on daemon worker threads, in the manner of {@link PathfindingService}: jobs go through
+     *     a lock-free queue and loaded chunks come back on another, drained by the tick. An evicted chunk stays readable
+     *     in {@code writing} until it is on disk, and only the latest eviction of a chunk is written, so a chunk reloaded
+     *     while its eviction is pending never comes back stale.
+     * FR: Charge et évince les morceaux sur des threads démons, à la manière de {@link PathfindingService} : les tâches
+     *     passent par une file sans verrou et les morceaux chargés reviennent par une autre, vidée par le tick. Un morceau
+     *     évincé reste lisible dans {@code writing} jusqu'à ce qu'il soit sur disque, et seule la dernière éviction d'un
+     *     morceau est écrite, donc un morceau rechargé pendant une éviction en cours ne revient jamais périmé.
+     */
+    private static final class ChunkStreamer {
+        private static final class Job {
+            final long key; final int ticket; final MazeChunk evicted;
+            Job(long key, int ticket, MazeChunk evicted) { this.key = key; this.ticket = ticket; this.evicted = evicted; }
+        }
+
+        private final long seed;
+        private final ChunkCache cache;
+        private final ConcurrentLinkedQueue<Job> jobs = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<MazeChunk> loaded = new ConcurrentLinkedQueue<>();
+        private final ConcurrentHashMap<Long, MazeChunk> writing = new ConcurrentHashMap<>();
+        private final Thread[] workers;
+        private final AtomicInteger idleWorkers = new AtomicInteger();
+        private volatile boolean closed;
+
+        ChunkStreamer(long seed, ChunkCache cache, int workerCount) {
+            this.seed = seed;
+            this.cache = cache;
+            workers = new Thread[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new Thread(this::work, "chunks-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        void requestLoad(long key, int ticket) { submit(new Job(key, ticket, null)); }
+
+        /**
+         * EN: Hands an evicted chunk over for writing; chunks that were never changed are simply dropped.
+         * FR: Confie un morceau évincé à l'écriture ; les morceaux jamais modifiés sont simplement abandonnés.
+         */
+        void evict(MazeChunk chunk) {
+            if (!chunk.modified || cache == null) return;
+            long key = MazeChunk.key(chunk.cx, chunk.cy);
+            writing.put(key, chunk);
+            submit(new Job(key, 0, chunk));
+        }
+
+        private void submit(Job job) {
+            jobs.offer(job);
+            if (idleWorkers.get() > 0) for (Thread worker : workers) LockSupport.unpark(worker);
+        }
+
+        /**
+         * EN: Loads a chunk on the calling thread: from a pending eviction, from disk, or freshly generated.
+         * FR: Charge un morceau sur le thread appelant : depuis une éviction en cours, depuis le disque, ou fraîchement généré.
+         */
+        MazeChunk load(long key) {
+            MazeChunk pending = writing.get(key);
+            if (pending != null) return pending.copy();
+            MazeChunk chunk = MazeChunk.generate(seed, MazeChunk.keyX(key), MazeChunk.keyY(key));
+            if (cache != null) {
+                try {
+                    cache.read(chunk);
+                } catch (IOException e) {
+                    System.err.println("Lecture du cache impossible : " + e.getMessage());
+                }
+            }
+            return chunk;
+        }
+
+        private void write(Job job) {
+            synchronized (cache) {
+                if (writing.get(job.key) != job.evicted) return;
+                PersistenceEvent event = new PersistenceEvent();
+                event.begin();
+                boolean saved = false;
+                try {
+                    cache.write(job.evicted);
+                    saved = true;
+                } catch (IOException e) {
+                    System.err.println("Écriture du cache impossible : " + e.getMessage());
+                }
+                writing.remove(job.key, job.evicted);
+                event.finish("evictChunk", cache.regionFile(job.evicted.cx, job.evicted.cy).toString(), saved);
+            }
+        }
+
+        private void work() {
+            while (!closed) {
+                Job job = jobs.poll();
+                if (job == null) {
+                    idleWorkers.incrementAndGet();
+                    if (jobs.isEmpty() && !closed) LockSupport.park(this);
+                    idleWorkers.decrementAndGet();
+                    continue;
+                }
+                if (job.evicted != null) {
+                    write(job);
+                } else {
+                    MazeChunk chunk = load(job.key);
+                    chunk.ticket = job.ticket;
+                    loaded.offer(chunk);
+                }
+            }
+        }
+
+        /**
+         * EN: Stops the workers; pending jobs are dropped.
+         * FR: Arrête les threads ; les tâches en attente sont abandonnées.
+         */
+        void close() {
+            closed = true;
+            for (Thread worker : workers) LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * EN: The endless mode simulation: the player roams a maze that extends in every direction, eating dots while
+     *     enemies close in. The maze is held as chunks around the player: those within LOAD_RADIUS chunks, and one more
+     *     ring ahead of the player's heading, are requested from background workers; those further than keepRadius are
+     *     evicted to the {@link ChunkCache}. A chunk needed before its worker delivered it is loaded on the spot. Memory
+     *     therefore stays at (2 keepRadius + 1)² chunks however far the player goes.
+     *     Each tick, a breadth-first search from the player over a WINDOW-wide square of cells guides the enemies, which
+     *     spawn around the player and vanish when left behind.
+     * FR: La simulation du mode infini : le joueur parcourt un labyrinthe qui s'étend dans toutes les directions et mange
+     *     des points tandis que les ennemis se rapprochent. Le labyrinthe est gardé sous forme de morceaux autour du
+     *     joueur : ceux à moins de LOAD_RADIUS morceaux, plus un anneau devant le joueur dans sa direction, sont demandés
+     *     aux threads de fond ; ceux au-delà de keepRadius sont évincés vers le {@link ChunkCache}. Un morceau nécessaire
+     *     avant que son thread l'ait livré est chargé sur-le-champ. La mémoire reste donc de (2 keepRadius + 1)² morceaux,
+     *     aussi loin que le joueur aille.
+     *     À chaque tick, un parcours en largeur depuis le joueur sur un carré de WINDOW cellules de côté guide les
+     *     ennemis, qui apparaissent autour du joueur et disparaissent quand il les distance.
+     */
+    private static final class EndlessWorld implements Steerable {
+        static final int TICK_MS = 110;
+        static final int LOAD_RADIUS = 2, KEEP_RADIUS = LOAD_RADIUS + 1;
+        private static final int RADIUS = 20, WINDOW = 2 * RADIUS + 1;
+        private static final int MAX_ENEMIES = 12, SPAWN_EVERY_TICKS = 15, MIN_SPAWN_DISTANCE = 10, MAX_SPAWN_DISTANCE = 18;
+        /**
+         * EN: The chance, in percent, that an enemy steps to a random neighbour rather than towards the player.
+         * FR: La probabilité, en pourcentage, qu'un ennemi aille sur une cellule voisine au hasard plutôt que vers le joueur.
+         */
+        private static final int WANDER_PERCENT = 20;
+        private static final int UNREACHED = Integer.MAX_VALUE;
+
+        final long seed;
+        final int keepRadius;
+        private final ChunkStreamer streamer;
+        private final ChunkCache cache;
+        private final HashMap<Long, MazeChunk> chunks = new HashMap<>();
+        /**
+         * EN: Chunks requested from the workers, with the ticket their answer must carry. Loading a chunk on the spot
+         *     withdraws its ticket, so a late answer is ignored.
+         * FR: Les morceaux demandés aux threads, avec le ticket que leur réponse doit porter. Charger un morceau sur-le-champ
+         *     retire son ticket, donc une réponse tardive est ignorée.
+         */
+        private final HashMap<Long, Integer> requested = new HashMap<>();
+        private int nextTicket, centreX = Integer.MIN_VALUE, centreY, centreHeadingX, centreHeadingY;
+
+        int playerX, playerY, headingX, headingY, score;
+        long tick;
+        /**
+         * EN: The farthest the player has been from the start, in cells along either axis; it sets the number of enemies.
+         * FR: La plus grande distance du joueur au départ, en cellules selon l'un ou l'autre axe ; elle fixe le nombre d'ennemis.
+         */
+        int farthest;
+        long chunksGenerated, chunksEvicted, chunksLoadedOnTheSpot;
+        int maxChunksInMemory;
+
+        final int[] enemyX = new int[MAX_ENEMIES], enemyY = new int[MAX_ENEMIES];
+        int enemyCount;
+
+        private final boolean[] windowWalls = new boolean[WINDOW * WINDOW];
+        private final int[] distance = new int[WINDOW * WINDOW], queue = new int[WINDOW * WINDOW];
+        private int windowX, windowY;
+
+        /**
+         * EN: Creates an endless world centred on the start; call {@link #close} when done with it.
+         * FR: Crée un monde infini centré sur le départ ; appeler {@link #close} quand il ne sert plus.
+         * @param seed The seed of the maze and of the enemies.
+         * @param keepRadius How many chunks around the player stay in memory; at least KEEP_RADIUS.
+         * @param cache Where evicted chunks go, or null to keep no record of eaten dots.
+         */
+        EndlessWorld(long seed, int keepRadius, ChunkCache cache) {
+            this.seed = seed;
+            this.keepRadius = Math.max(KEEP_RADIUS, keepRadius);
+            this.cache = cache;
+            this.streamer = new ChunkStreamer(seed, cache, Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+            updateChunks();
+            MazeChunk start = chunkAt(0, 0);
+            if (start.dots[0]) { start.dots[0] = false; start.dotCount--; }
+            fillWindow();
+        }
+
+        /**
+         * EN: Advances the simulation by one tick.
+         * FR: Fait avancer la simulation d'un tick.
+         * @return Whether the player was caught; an endless level is never cleared.
+         */
+        TickOutcome step() {
+            tick++;
+            drainLoadedChunks();
+            updateChunks();
+            fillWindow();
+            boolean caught = moveEnemies();
+            return caught ? TickOutcome.PLAYER_CAUGHT : TickOutcome.NONE;
+        }
+
+        @Override
+        public void movePlayer(int dx, int dy) {
+            int x = playerX + dx, y = playerY + dy;
+            if (isWall(x, y)) return;
+            playerX = x; playerY = y;
+            headingX = dx; headingY = dy;
+            farthest = Math.max(farthest, Math.max(Math.abs(x), Math.abs(y)));
+            MazeChunk chunk = chunkAt(Math.floorDiv(x, MazeChunk.SIZE), Math.floorDiv(y, MazeChunk.SIZE));
+            int cell = Math.floorMod(y, MazeChunk.SIZE) * MazeChunk.SIZE + Math.floorMod(x, MazeChunk.SIZE);
+            if (chunk.dots[cell]) {
+                chunk.dots[cell] = false;
+                chunk.dotCount--;
+                chunk.modified = true;
+                score += 10;
+            }
+        }
+
+        boolean isWall(int x, int y) {
+            MazeChunk chunk = chunkAt(Math.floorDiv(x, MazeChunk.SIZE), Math.floorDiv(y, MazeChunk.SIZE));
+            return chunk.walls[Math.floorMod(y, MazeChunk.SIZE) * MazeChunk.SIZE + Math.floorMod(x, MazeChunk.SIZE)];
+        }
+
+        /**
+         * EN: The chunk holding a cell if it is in memory, for drawing; never loads anything.
+         * FR: Le morceau contenant une cellule s'il est en mémoire, pour le dessin ; ne charge jamais rien.
+         * @return The chunk, or null.
+         */
+        MazeChunk loadedChunkFor(int x, int y) {
+            return chunks.get(MazeChunk.key(Math.floorDiv(x, MazeChunk.SIZE), Math.floorDiv(y, MazeChunk.SIZE)));
+        }
+
+        int chunksInMemory() { return chunks.size(); }
+
+        /**
+         * EN: Gets a chunk, loading it on the spot if the workers have not delivered it yet.
+         * FR: Obtient un morceau en le chargeant sur-le-champ si les threads ne l'ont pas encore livré.
+         */
+        private MazeChunk chunkAt(int cx, int cy) {
+            long key = MazeChunk.key(cx, cy);
+            MazeChunk chunk = chunks.get(key);
+            if (chunk == null) {
+                requested.remove(key);
+                chunk = streamer.load(key);
+                chunks.put(key, chunk);
+                chunksGenerated++;
+                chunksLoadedOnTheSpot++;
+                maxChunksInMemory = Math.max(maxChunksInMemory, chunks.size());
+            }
+            return chunk;
+        }
+
+        /**
+         * EN: Takes in the chunks delivered by the workers, unless they were loaded meanwhile or are no longer wanted.
+         * FR: Intègre les morceaux livrés par les threads, sauf s'ils ont été chargés entre-temps ou ne sont plus voulus.
+         */
+        private void drainLoadedChunks() {
+            MazeChunk chunk;
+            while ((chunk = streamer.loaded.poll()) != null) {
+                long key = MazeChunk.key(chunk.cx, chunk.cy);
+                Integer ticket = requested.get(key);
+                if (ticket == null || ticket != chunk.ticket) continue;
+                requested.remove(key);
+                chunks.put(key, chunk);
+                chunksGenerated++;
+                maxChunksInMemory = Math.max(maxChunksInMemory, chunks.size());
+            }
+        }
+
+        /**
+         * EN: When the player enters another chunk or turns, evicts the chunks now out of range and requests those
+         *     coming into range, nearest first.
+         * FR: Quand le joueur entre dans un autre morceau ou change de direction, évince les morceaux désormais hors de
+         *     portée et demande ceux qui arrivent à portée, les plus proches d'abord.
+         */
+        private void updateChunks() {
+            int cx = Math.floorDiv(playerX, MazeChunk.SIZE), cy = Math.floorDiv(playerY, MazeChunk.SIZE);
+            if (cx == centreX && cy == centreY && headingX == centreHeadingX && headingY == centreHeadingY) return;
+            centreX = cx; centreY = cy; centreHeadingX = headingX; centreHeadingY = headingY;
+            for (Iterator<Map.Entry<Long, MazeChunk>> it = chunks.entrySet().iterator(); it.hasNext(); ) {
+                MazeChunk chunk = it.next().getValue();
+                if (Math.max(Math.abs(chunk.cx - cx), Math.abs(chunk.cy - cy)) <= keepRadius) continue;
+                it.remove();
+                streamer.evict(chunk);
+                chunksEvicted++;
+            }
+            requested.keySet().removeIf(key -> Math.max(Math.abs(MazeChunk.keyX(key) - cx), Math.abs(MazeChunk.keyY(key) - cy)) > keepRadius);
+            for (int ring = 0; ring <= LOAD_RADIUS; ring++) {
+                for (int dy = -ring; dy <= ring; dy++) {
+                    for (int dx = -ring; dx <= ring; dx++) {
+                        if (Math.max(Math.abs(dx), Math.abs(dy)) == ring) request(cx + dx, cy + dy);
+                    }
+                }
+            }
+            // Un anneau de plus devant le joueur, dans sa direction.
+            int aheadX = cx + headingX * (LOAD_RADIUS + 1), aheadY = cy + headingY * (LOAD_RADIUS + 1);
+            for (int side = -LOAD_RADIUS; side <= LOAD_RADIUS; side++) {
+                if (headingX != 0) request(aheadX, cy + side);
+                else if (headingY != 0) request(cx + side, aheadY);
+            }
+        }
+
+        private void request(int cx, int cy) {
+            long key = MazeChunk.key(cx, cy);
+            if (chunks.containsKey(key) || requested.containsKey(key)) return;
+            int ticket = ++nextTicket;
+            requested.put(key, ticket);
+            streamer.requestLoad(key, ticket);
+        }
+
+        /**
+         * EN: Copies the walls around the player into the window and fills in each cell's walking distance to the player.
+         * FR: Copie les murs autour du joueur dans la fenêtre et calcule la distance de marche de chaque cellule au joueur.
+         */
+        private void fillWindow() {
+            windowX = playerX - RADIUS;
+            windowY = playerY - RADIUS;
+            for (int row = 0; row < WINDOW; row++) {
+                int y = windowY + row, ly = Math.floorMod(y, MazeChunk.SIZE);
+                for (int col = 0; col < WINDOW; ) {
+                    int x = windowX + col, lx = Math.floorMod(x, MazeChunk.SIZE);
+                    MazeChunk chunk = chunkAt(Math.floorDiv(x, MazeChunk.SIZE), Math.floorDiv(y, MazeChunk.SIZE));
+                    int run = Math.min(MazeChunk.SIZE - lx, WINDOW - col);
+                    System.arraycopy(chunk.walls, ly * MazeChunk.SIZE + lx, windowWalls, row * WINDOW + col, run);
+                    col += run;
+                }
+            }
+            Arrays.fill(distance, UNREACHED);
+            int start = RADIUS * WINDOW + RADIUS, head = 0, tail = 0;
+            distance[start] = 0;
+            queue[tail++] = start;
+            while (head < tail) {
+                int c = queue[head++], x = c % WINDOW, y = c / WINDOW;
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + GameWorld.DX[d], ny = y + GameWorld.DY[d];
+                    if (nx < 0 || ny < 0 || nx >= WINDOW || ny >= WINDOW) continue;
+                    int n = ny * WINDOW + nx;
+                    if (windowWalls[n] || distance[n] != UNREACHED) continue;
+                    distance[n] = distance[c] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+
+        /**
+         * EN: The walking distance from a cell to the player, as of this tick's search.
+         * FR: La distance de marche d'une cellule au joueur, selon la recherche de ce tick.
+         * @return The distance, or -1 if the cell is outside the window or out of reach.
+         */
+        int distanceToPlayer(int x, int y) {
+            int col = x - windowX, row = y - windowY;
+            if (col < 0 || row < 0 || col >= WINDOW || row >= WINDOW) return -1;
+            int d = distance[row * WINDOW + col];
+            return d == UNREACHED ? -1 : d;
+        }
+
+        /**
+         * EN: Spawns, moves and retires the enemies. The player is caught by an enemy standing on their cell before or
+         *     after its move, so the two never pass through each other.
+         * FR: Fait apparaître, déplace et retire les ennemis. Le joueur est attrapé par un ennemi qui se trouve sur sa
+         *     cellule avant ou après son déplacement, donc les deux ne se traversent jamais.
+         * @return True if the player was caught.
+         */
+        private boolean moveEnemies() {
+            int wanted = Math.min(MAX_ENEMIES, 3 + farthest / 48);
+            if (enemyCount < wanted && tick % SPAWN_EVERY_TICKS == 0) spawnEnemy();
+            boolean caught = false;
+            // Les ennemis avancent deux ticks sur trois.
+            boolean moving = tick % 3 != 2;
+            for (int i = 0; i < enemyCount; i++) {
+                int x = enemyX[i], y = enemyY[i], d = distanceToPlayer(x, y);
+                if (d < 0) {
+                    enemyCount--;
+                    enemyX[i] = enemyX[enemyCount]; enemyY[i] = enemyY[enemyCount];
+                    i--;
+                    continue;
+                }
+                if (x == playerX && y == playerY) caught = true;
+                if (moving) {
+                    int bestX = x, bestY = y, best = d;
+                    boolean wander = GameRandom.roll(seed, tick, i, 100) < WANDER_PERCENT;
+                    int first = GameRandom.roll(seed, tick, i + MAX_ENEMIES, 4);
+                    for (int k = 0; k < 4; k++) {
+                        int dir = (first + k) & 3, nx = x + GameWorld.DX[dir], ny = y + GameWorld.DY[dir], nd = distanceToPlayer(nx, ny);
+                        if (nd < 0) continue;
+                        if (wander) { bestX = nx; bestY = ny; break; }
+                        if (nd < best) { best = nd; bestX = nx; bestY = ny; }
+                    }
+                    enemyX[i] = bestX; enemyY[i] = bestY;
+                }
+                if (enemyX[i] == playerX && enemyY[i] == playerY) caught = true;
+            }
+            return caught;
+        }
+
+        /**
+         * EN: Places an enemy on a reachable cell at a fair walking distance from the player.
+         * FR: Place un ennemi sur une cellule accessible à une distance de marche raisonnable du joueur.
+         */
+        private void spawnEnemy() {
+            int cells = WINDOW * WINDOW, first = GameRandom.roll(seed, tick, -1, cells);
+            for (int k = 0; k < cells; k++) {
+                int c = (first + k) % cells, d = distance[c];
+                if (d == UNREACHED || d < MIN_SPAWN_DISTANCE || d > MAX_SPAWN_DISTANCE) continue;
+                enemyX[enemyCount] = windowX + c % WINDOW;
+                enemyY[enemyCount] = windowY + c / WINDOW;
+                enemyCount++;
+                return;
+            }
+        }
+
+        /**
+         * EN: Hashes the player, score and enemies, to compare two runs tick by tick.
+         * FR: Calcule une empreinte du joueur, du score et des ennemis, pour comparer deux parties tick par tick.
+         */
+        long stateHash() {
+            long h = GameRandom.mix(tick) ^ ((long) score << 32) ^ MazeChunk.key(playerX, playerY);
+            for (int i = 0; i < enemyCount; i++) h = GameRandom.mix(h + MazeChunk.key(enemyX[i], enemyY[i]));
+            return h;
+        }
+
+        /**
+         * EN: Stops the workers and deletes the disk cache.
+         * FR: Arrête les threads et supprime le cache sur disque.
+         */
+        void close() {
+            streamer.close();
+            if (cache != null) cache.delete();
+        }
+    }
+
+    /**
+     * EN: Walks a player from the start around a square of waypoints in two endless worlds with the same seed: one that
+     *     keeps only the chunks near the player and evicts the rest to disk, one that keeps every chunk. Checks that
+     *     both runs stay identical tick by tick (so chunks reloaded from disk or regenerated are exactly as they were
+     *     left) and that the streaming world stays within its memory bound.
+     * FR: Fait parcourir à un joueur un carré de points de passage dans deux mondes infinis de même graine : l'un ne garde
+     *     que les morceaux proches du joueur et évince les autres sur disque, l'autre les garde tous. Vérifie que les deux
+     *     parties restent identiques à chaque tick (donc que les morceaux relus du disque ou régénérés sont exactement
+     *     tels qu'ils ont été laissés) et que le monde en flux reste dans sa limite de mémoire.
+     * @param seed The world seed.
+     * @param ticks The number of ticks to simulate.
+     * @return True if both runs matched and memory stayed bounded.
+     */
+    private static boolean runEndlessCheck(long seed, int ticks) {
+        ChunkCache cache = ChunkCache.createTemporary();
+        if (cache == null) return false;
+        EndlessWorld streamed = new EndlessWorld(seed, EndlessWorld.KEEP_RADIUS, cache);
+        EndlessWorld resident = new EndlessWorld(seed, Integer.MAX_VALUE, null);
+        int side = 10 * MazeChunk.SIZE;
+        int[][] waypoints = {{side, 0}, {side, side}, {0, side}, {0, 0}};
+        int waypoint = 0, catches = 0, mismatch = -1;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks && mismatch < 0; t++) {
+            int[] target = waypoints[waypoint];
+            if (streamed.playerX == target[0] && streamed.playerY == target[1]) {
+                waypoint = (waypoint + 1) % waypoints.length;
+                target = waypoints[waypoint];
+            }
+            int d = travelDirection(streamed, target[0], target[1]);
+            if (d >= 0) {
+                streamed.movePlayer(GameWorld.DX[d], GameWorld.DY[d]);
+                resident.movePlayer(GameWorld.DX[d], GameWorld.DY[d]);
+            }
+            if (streamed.step() == TickOutcome.PLAYER_CAUGHT) catches++;
+            resident.step();
+            if (streamed.stateHash() != resident.stateHash()) mismatch = t + 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        int bound = (2 * EndlessWorld.KEEP_RADIUS + 1) * (2 * EndlessWorld.KEEP_RADIUS + 1);
+        System.out.printf("%d ticks, score %d, %d contacts ennemis, %.3f ms/tick pour les deux mondes%n",
+                ticks, streamed.score, catches, elapsed / 1e6 / Math.max(1, ticks));
+        System.out.printf("morceaux : %d chargés (%d sur-le-champ), %d évincés, %d écrits et %d relus sur disque%n",
+                streamed.chunksGenerated, streamed.chunksLoadedOnTheSpot, streamed.chunksEvicted, cache.writes, cache.reads);
+        System.out.printf("mémoire : au plus %d morceaux (limite %d), contre %d sans éviction%n",
+                streamed.maxChunksInMemory, bound, resident.chunksInMemory());
+        System.out.println(mismatch < 0 ? "résultats identiques" : "divergence au tick " + mismatch);
+        streamed.close();
+        resident.close();
+        return mismatch < 0 && streamed.maxChunksInMemory <= bound;
+    }
+
+    /**
+     * EN: Chooses the player's next step towards a cell, which may lie outside the search window: the walk heads for
+     *     the reachable window cell nearest the target, following the distances of the last search back to the player.
+     * FR: Choisit le prochain pas du joueur vers une cellule, éventuellement hors de la fenêtre de recherche : la marche
+     *     vise la cellule accessible de la fenêtre la plus proche de la cible, en remontant les distances de la dernière
+     *     recherche jusqu'au joueur.
+     * @return The direction index into {@code GameWorld.DX}/{@code DY}, or -1 to stay.
+     */
+    private static int travelDirection(EndlessWorld world, int targetX, int targetY) {
+        int bestX = world.playerX, bestY = world.playerY, bestGap = Math.abs(targetX - bestX) + Math.abs(targetY - bestY);
+        for (int y = world.playerY - EndlessWorld.RADIUS; y <= world.playerY + EndlessWorld.RADIUS; y++) {
+            for (int x = world.playerX - EndlessWorld.RADIUS; x <= world.playerX + EndlessWorld.RADIUS; x++) {
+                int gap = Math.abs(targetX - x) + Math.abs(targetY - y);
+                if (gap < bestGap && world.distanceToPlayer(x, y) >= 0) { bestGap = gap; bestX = x; bestY = y; }
+            }
+        }
+        for (int d = world.distanceToPlayer(bestX, bestY); d > 1; d--) {
+            for (int k = 0; k < 4; k++) {
+                int nx = bestX + GameWorld.DX[k], ny = bestY + GameWorld.DY[k];
+                if (world.distanceToPlayer(nx, ny) == d - 1) { bestX = nx; bestY = ny; break; }
+            }
+        }
+        for (int k = 0; k < 4; k++) {
+            if (world.playerX + GameWorld.DX[k] == bestX && world.playerY + GameWorld.DY[k] == bestY) return k;
+        }
+        return -1;
+    }
+
+    // =================================================================================
+    // Autoplayer
+    // =================================================================================
+
+    /**
+     * EN: Something that can play the game in place of the keyboard. It is asked for keys ({@link #autoSteer}), which go
+     *     through the same path as a real key press ({@link #steerPlayer}).
+     * FR: Ce qui peut jouer à la place du clavier. On lui demande des touches ({@link #autoSteer}), qui suivent le même
+     *     chemin qu'un véritable appui ({@link #steerPlayer}).
+     */
+    private interface AutoPlayer {
+        /**
+         * EN: Chooses the next key to press.
+         * FR: Choisit la prochaine touche à presser.
+         * @param world The world, read only.
+         * @return A movement key code, or {@link KeyEvent#VK_UNDEFINED} to stay still.
+         */
+        int nextKey(GameWorld world);
+    }
+
+    /**
+     * EN: How often a held arrow key repeats, in milliseconds. A player holding a key moves several cells per tick on
+     *     the slower levels, so the autoplayer is given as many presses.
+     * FR: La fréquence de répétition d'une flèche maintenue, en millisecondes. Un joueur qui garde une touche enfoncée
+     *     avance de plusieurs cellules par tick dans les niveaux lents, donc le pilote automatique dispose d'autant d'appuis.
+     */
+    private static final int KEY_REPEAT_MS = 30;
+
+    /**
+     * EN: Lets a bot press keys for one tick, as many times as a held key would repeat.
+     * FR: Laisse un robot presser des touches pendant un tick, autant de fois qu'une touche maintenue se répéterait.
+     * @param world The world to steer.
+     * @param bot The bot choosing the keys.
+     */
+    private static void autoSteer(GameWorld world, AutoPlayer bot) {
+        for (int presses = Math.max(1, world.tickDelayMs / KEY_REPEAT_MS); presses > 0; presses--) {
+            steerPlayer(world, bot.nextKey(world));
+        }
+    }
+
+    /**
+     * EN: A bot that walks the grid to the nearest power-up or dot by a safe route. A first search spreads out from every
+     *     dangerous enemy (any that is not fleeing, unless the shield is up) to find how soon each cell can be reached by
+     *     one; the route then only uses cells the player reaches well before any enemy. With no safe route it steps to the
+     *     neighbouring cell farthest from the enemies. Its search buffers are kept between ticks so that it allocates
+     *     nothing while playing.
+     * FR: Un robot qui parcourt la grille jusqu'au power-up ou au point le plus proche par une route sûre. Une première
+     *     recherche part de chaque ennemi dangereux (ceux qui ne fuient pas, sauf si le bouclier est actif) pour savoir
+     *     en combien de pas un ennemi peut atteindre chaque cellule ; la route n'emprunte ensuite que des cellules que le
+     *     joueur atteint bien avant tout ennemi. Sans route sûre, il va sur la cellule voisine la plus éloignée des
+     *     ennemis. Ses tampons de recherche sont conservés d'un tick à l'autre afin qu'il n'alloue rien pendant la partie.
+     */
+    private static final class GreedyBot implements AutoPlayer {
+        private static final int[] KEYS = {KeyEvent.VK_DOWN, KeyEvent.VK_UP, KeyEvent.VK_RIGHT, KeyEvent.VK_LEFT};
+        private static final byte GOAL_DOT = 1, GOAL_POWER_UP = 2;
+        /**
+         * EN: How many extra steps the bot will walk to reach a power-up rather than the nearest dot.
+         * FR: Le nombre de pas supplémentaires que le robot accepte pour atteindre un power-up plutôt que le point le plus proche.
+         */
+        private static final int POWER_UP_DETOUR = 10;
+        /**
+         * EN: How many steps ahead of the nearest enemy the player must be on every cell of a careful route.
+         * FR: Le nombre de pas d'avance sur l'ennemi le plus proche que le joueur doit avoir sur chaque cellule d'une route prudente.
+         */
+        private static final int SAFETY_MARGIN = 2;
+        /**
+         * EN: Risk levels. When no dot has been collected for a while (an enemy guarding the only way out), the bot takes
+         *     more risk until it collects its next dot: first it only avoids the enemies' own cells, then it ignores them,
+         *     so that a run never stalls.
+         * FR: Niveaux de risque. Quand aucun point n'a été ramassé depuis un moment (un ennemi gardant la seule sortie), le
+         *     robot prend plus de risques jusqu'au prochain point ramassé : d'abord il n'évite plus que les cellules des
+         *     ennemis, puis il les ignore, afin qu'une partie ne se bloque jamais.
+         */
+        private static final int CAREFUL = 0, BOLD = 1, RECKLESS = 2;
+
+        private int[] visited = new int[0], depth = new int[0], firstMove = new int[0], queue = new int[0];
+        private int[] threatSeen = new int[0], threat = new int[0];
+        private byte[] goal = new byte[0];
+        private int stamp, threatStamp, stalledTicks, risk = CAREFUL, dotCount = -1;
+
+        @Override
+        public int nextKey(GameWorld world) {
+            int cols = world.gridCols, cells = cols * world.gridRows;
+            if (visited.length != cells) {
+                visited = new int[cells]; depth = new int[cells]; firstMove = new int[cells]; queue = new int[cells];
+                threatSeen = new int[cells]; threat = new int[cells]; goal = new byte[cells];
+            }
+            if (dotCount != world.dotCount) { dotCount = world.dotCount; risk = CAREFUL; stalledTicks = 0; }
+            if (++stalledTicks > 2 * (world.gridCols + world.gridRows)) { stalledTicks = 0; risk = Math.min(RECKLESS, risk + 1); }
+            markGoals(world, cols);
+            measureThreat(world, cols);
+
+            int start = world.playerPosition.y * cols + world.playerPosition.x;
+            if (++stamp == 0) { Arrays.fill(visited, 0); stamp = 1; }
+            int head = 0, tail = 0, nearestDot = -1, nearestPowerUp = -1;
+            visited[start] = stamp; depth[start] = 0; queue[tail++] = start;
+            while (head < tail) {
+                int c = queue[head++];
+                if (c != start) {
+                    if (goal[c] == GOAL_POWER_UP) { nearestPowerUp = c; break; }
+                    if (goal[c] == GOAL_DOT && nearestDot < 0) nearestDot = c;
+                    if (nearestDot >= 0 && depth[c] > depth[nearestDot] + POWER_UP_DETOUR) break;
+                }
+                int x = c % cols, y = c / cols;
+                for (int d = 0; d < 4; d++) {
+                    int n = (y + GameWorld.DY[d]) * cols + x + GameWorld.DX[d];
+                    if (world.walls[n] || visited[n] == stamp || !isSafe(world, n, depth[c] + 1)) continue;
+                    visited[n] = stamp;
+                    depth[n] = depth[c] + 1;
+                    firstMove[n] = c == start ? d : firstMove[c];
+                    queue[tail++] = n;
+                }
+            }
+            int target = nearestPowerUp >= 0 ? nearestPowerUp : nearestDot;
+            return target >= 0 ? KEYS[firstMove[target]] : escapeKey(world, start);
+        }
+
+        private void markGoals(GameWorld world, int cols) {
+            for (int c = 0; c < goal.length; c++) goal[c] = world.dots[c] ? GOAL_DOT : 0;
+            PowerUpStore p = world.powerUps;
+            for (int i = 0; i < p.count; i++) goal[p.y[i] * cols + p.x[i]] = GOAL_POWER_UP;
+        }
+
+        /**
+         * EN: Fills {@code threat} with each cell's distance to the nearest dangerous enemy, by a search from all of them at once.
+         * FR: Remplit {@code threat} avec la distance de chaque cellule à l'ennemi dangereux le plus proche, par une recherche partant de tous à la fois.
+         */
+        private void measureThreat(GameWorld world, int cols) {
+            if (++threatStamp == 0) { Arrays.fill(threatSeen, 0); threatStamp = 1; }
+            if (world.isShieldActive || risk == RECKLESS) return;
+            int head = 0, tail = 0;
+            EnemyStore e = world.enemies;
+            int fleeing = EnemyState.FLEEING.ordinal();
+            for (int i = 0; i < e.count; i++) {
+                int c = e.y[i] * cols + e.x[i];
+                if (e.state[i] == fleeing || threatSeen[c] == threatStamp) continue;
+                threatSeen[c] = threatStamp; threat[c] = 0; queue[tail++] = c;
+            }
+            while (head < tail) {
+                int c = queue[head++], x = c % cols, y = c / cols;
+                for (int d = 0; d < 4; d++) {
+                    int n = (y + GameWorld.DY[d]) * cols + x + GameWorld.DX[d];
+                    if (world.walls[n] || threatSeen[n] == threatStamp) continue;
+                    threatSeen[n] = threatStamp; threat[n] = threat[c] + 1; queue[tail++] = n;
+                }
+            }
+        }
+
+        private int threatAt(int cell) {
+            return threatSeen[cell] == threatStamp ? threat[cell] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * EN: Whether the player may walk through a cell it reaches after {@code arrival} steps, at the current risk level.
+         *     Carefully, a cell inside a dead end also needs time to walk back out before an enemy closes it.
+         * FR: Indique si le joueur peut passer par une cellule atteinte après {@code arrival} pas, au niveau de risque actuel.
+         *     Prudemment, une cellule au fond d'une impasse exige aussi le temps d'en ressortir avant qu'un ennemi ne la ferme.
+         */
+        private boolean isSafe(GameWorld world, int cell, int arrival) {
+            int enemySteps = threatAt(cell);
+            if (risk != CAREFUL) return enemySteps > 0;
+            return enemySteps > arrival + SAFETY_MARGIN + 2 * (int) world.influence.deadEndDepth[cell];
+        }
+
+        /**
+         * EN: Picks the move (or staying still) that ends farthest from the enemies.
+         * FR: Choisit le déplacement (ou l'immobilité) qui éloigne le plus des ennemis.
+         */
+        private int escapeKey(GameWorld world, int start) {
+            int bestKey = KeyEvent.VK_UNDEFINED, bestThreat = threatAt(start);
+            for (int d = 0; d < 4; d++) {
+                int n = start + GameWorld.DY[d] * world.gridCols + GameWorld.DX[d];
+                if (!world.walls[n] && threatAt(n) > bestThreat) { bestThreat = threatAt(n); bestKey = KEYS[d]; }
+            }
+            return bestKey;
+        }
+    }
+
+    /**
+     * EN: Measurements for a long unattended run: tick rate and tick cost, progress through the levels, heap growth
+     *     and garbage collection. The heap is measured after a full collection, and the collections this class triggers
+     *     for that purpose are left out of the GC figures.
+     * FR: Mesures d'une longue partie sans surveillance : cadence et coût des ticks, progression dans les niveaux,
+     *     croissance du tas et ramasse-miettes. Le tas est mesuré après une collecte complète, et les collectes que cette
+     *     classe déclenche à cet effet sont exclues des chiffres du GC.
+     */
+    private static final class SoakStats {
+        private final long startNanos = System.nanoTime();
+        private final long startHeap, startGcCount, startGcMillis;
+        private long excludedGcCount, excludedGcMillis;
+        private long ticks, tickNanos, maxTickNanos, levelsCleared, runsWon, deaths;
+        private int level, bestLevel;
+        private long windowStartNanos = startNanos, windowStartTicks;
+
+        SoakStats() {
+            startHeap = settledHeap();
+            long[] gc = gcTotals();
+            startGcCount = gc[0];
+            startGcMillis = gc[1];
+        }
+
+        void tick(long nanos, GameWorld world) {
+            ticks++;
+            tickNanos += nanos;
+            maxTickNanos = Math.max(maxTickNanos, nanos);
+            level = world.level;
+            bestLevel = Math.max(bestLevel, level);
+        }
+
+        void levelCleared(boolean runWon) {
+            levelsCleared++;
+            if (runWon) runsWon++;
+        }
+
+        void playerCaught() { deaths++; }
+
+        /**
+         * EN: A one-line progress report covering the time since the previous one, so that late-run slowdowns stand out.
+         * FR: Un point d'étape d'une ligne couvrant le temps écoulé depuis le précédent, pour repérer les ralentissements en fin de partie.
+         */
+        String progress() {
+            long now = System.nanoTime();
+            double windowSeconds = (now - windowStartNanos) / 1e9;
+            String line = String.format("%6.0f s  niveau %2d  %,9.0f ticks/s  tas %7.1f Mo",
+                    (now - startNanos) / 1e9, level, (ticks - windowStartTicks) / windowSeconds,
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1e6);
+            windowStartNanos = now;
+            windowStartTicks = ticks;
+            return line;
+        }
+
+        String summary() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            long[] before = gcTotals();
+            long heap = settledHeap();
+            long[] after = gcTotals();
+            long gcCount = before[0] - startGcCount - excludedGcCount, gcMillis = before[1] - startGcMillis - excludedGcMillis;
+            excludedGcCount += after[0] - before[0];
+            excludedGcMillis += after[1] - before[1];
+            return String.format("%.0f s, %d ticks : %,.0f ticks/s, %.3f ms/tick en moyenne, pire tick %.3f ms%n"
+                            + "%d niveaux réussis, %d parties gagnées, %d défaites, meilleur niveau %d%n"
+                            + "tas : %.1f Mo -> %.1f Mo (%+.1f Mo), GC : %d collectes, %d ms de pause",
+                    seconds, ticks, ticks / seconds, ticks == 0 ? 0 : tickNanos / 1e6 / ticks, maxTickNanos / 1e6,
+                    levelsCleared, runsWon, deaths, bestLevel,
+                    startHeap / 1e6, heap / 1e6, (heap - startHeap) / 1e6, gcCount, gcMillis);
+        }
+
+        private static long settledHeap() {
+            System.gc();
+            return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        }
+
+        private static long[] gcTotals() {
+            long count = 0, millis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, gc.getCollectionCount());
+                millis += Math.max(0, gc.getCollectionTime());
+            }
+            return new long[] {count, millis};
+        }
+    }
+
+    /**
+     * EN: Lets the bot play classic runs headless at full speed for a given time. After a defeat the bot retries the same
+     *     level (with the next seed) so that the late levels get played too; after the last level a new run starts.
+     *     Prints a progress line every ten seconds and a summary at the end.
+     * FR: Laisse le robot jouer des parties classiques sans fenêtre et à pleine vitesse pendant une durée donnée. Après une
+     *     défaite, le robot recommence le même niveau (avec la graine suivante) afin que les derniers niveaux soient joués
+     *     eux aussi ; après le dernier niveau, une nouvelle partie commence. Affiche un point d'étape toutes les dix
+     *     secondes et un bilan à la fin.
+     * @param seed The seed of the first run.
+     * @param seconds How long to play.
+     */
+    private static void runSoak(long seed, long seconds) {
+        AutoPlayer bot = new GreedyBot();
+        SoakStats stats = new SoakStats();
+        long retries = 0;
+        GameWorld world = new GameWorld(WorldConfig.classic(), seed);
+        world.loadLevel(1);
+        long now = System.nanoTime(), end = now + seconds * 1_000_000_000L, nextReport = now + 10_000_000_000L;
+        while (now < end) {
+            autoSteer(world, bot);
+            TickOutcome outcome = world.step();
+            long after = System.nanoTime();
+            stats.tick(after - now, world);
+            now = after;
+            if (outcome == TickOutcome.LEVEL_CLEARED) {
+                world.score += 1000;
+                boolean runWon = world.level == CAMPAIGN_LEVELS;
+                stats.levelCleared(runWon);
+                if (runWon) {
+                    world = new GameWorld(WorldConfig.classic(), seed + ++retries);
+                    world.loadLevel(1);
+                } else {
+                    world.loadLevel(world.level + 1);
+                }
+            } else if (outcome == TickOutcome.PLAYER_CAUGHT) {
+                stats.playerCaught();
+                int level = world.level;
+                world = new GameWorld(WorldConfig.classic(), seed + ++retries);
+                world.loadLevel(level);
+            }
+            if (now >= nextReport) {
+                System.out.println(stats.progress());
+                nextReport += 10_000_000_000L;
+            }
+        }
+        System.out.println(stats.summary());
+    }
+
+    // =================================================================================
+    // Difficulty calibration
+    // =================================================================================
+
+    /**
+     * EN: Plays a batch of bot games on one level with consecutive seeds, split across fork-join workers. Each game ends
+     *     when the level is cleared, the player is caught, or after {@code MAX_TICKS} ticks. Results are stored per game
+     *     so that every worker writes only its own slots.
+     * FR: Joue une série de parties du robot sur un niveau avec des graines consécutives, réparties entre threads
+     *     fork-join. Chaque partie se termine quand le niveau est réussi, quand le joueur est attrapé, ou après
+     *     {@code MAX_TICKS} ticks. Les résultats sont rangés par partie afin que chaque thread n'écrive que ses propres cases.
+     */
+    private static final class CalibrationBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int MAX_TICKS = 20_000;
+        private static final byte LOST = 0, WON = 1, TIMED_OUT = 2;
+
+        private final WorldConfig config;
+        private final int level, from, to;
+        private final long seed;
+        private final byte[] outcomes;
+        private final long[] durationMs;
+        private final int[] scores;
+        long nanos;
+
+        CalibrationBatch(WorldConfig config, int level, long seed, int games) {
+            this(config, level, seed, new byte[games], new long[games], new int[games], 0, games);
+        }
+
+        private CalibrationBatch(WorldConfig config, int level, long seed, byte[] outcomes, long[] durationMs, int[] scores, int from, int to) {
+            this.config = config; this.level = level; this.seed = seed;
+            this.outcomes = outcomes; this.durationMs = durationMs; this.scores = scores;
+            this.from = from; this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                for (int g = from; g < to; g++) play(g);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CalibrationBatch(config, level, seed, outcomes, durationMs, scores, from, mid),
+                      new CalibrationBatch(config, level, seed, outcomes, durationMs, scores, mid, to));
+        }
+
+        private void play(int game) {
+            GameWorld world = new GameWorld(config, seed + game);
+            world.loadLevel(level);
+            AutoPlayer bot = new GreedyBot();
+            TickOutcome outcome = TickOutcome.NONE;
+            for (int t = 0; t < MAX_TICKS && outcome == TickOutcome.NONE; t++) {
+                autoSteer(world, bot);
+                outcome = world.step();
+            }
+            outcomes[game] = outcome == TickOutcome.LEVEL_CLEARED ? WON : outcome == TickOutcome.PLAYER_CAUGHT ? LOST : TIMED_OUT;
+            durationMs[game] = world.clockMs;
+            scores[game] = world.score;
+        }
+
+        /**
+         * EN: Plays the batch on a pool and records how long it took.
+         * FR: Joue la série sur un pool et mesure sa durée.
+         */
+        CalibrationBatch runOn(ForkJoinPool pool) {
+            long start = System.nanoTime();
+            pool.invoke(this);
+            nanos = System.nanoTime() - start;
+            return this;
+        }
+
+        double winRate() {
+            int wins = 0;
+            for (byte o : outcomes) if (o == WON) wins++;
+            return (double) wins / outcomes.length;
+        }
+
+        /**
+         * EN: Completion rate, mean survival of lost games, mean length of won games, score percentiles and throughput.
+         * FR: Taux de réussite, survie moyenne des défaites, durée moyenne des victoires, quantiles du score et débit.
+         */
+        String summary() {
+            long lostMs = 0, wonMs = 0;
+            int lost = 0, won = 0, timedOut = 0;
+            for (int g = 0; g < outcomes.length; g++) {
+                if (outcomes[g] == WON) { won++; wonMs += durationMs[g]; }
+                else if (outcomes[g] == LOST) { lost++; lostMs += durationMs[g]; }
+                else timedOut++;
+            }
+            int[] sorted = scores.clone();
+            Arrays.sort(sorted);
+            return String.format("victoires %5.1f %%, survie %5.1f s, victoire en %5.1f s, score p10/p50/p90 %d/%d/%d, %d hors délai, %,.0f parties/s",
+                    100.0 * won / outcomes.length, lost == 0 ? 0 : lostMs / 1000.0 / lost, won == 0 ? 0 : wonMs / 1000.0 / won,
+                    sorted[sorted.length / 10], sorted[sorted.length / 2], sorted[sorted.length * 9 / 10], timedOut,
+                    outcomes.length / (nanos / 1e9));
+        }
+    }
+
+    /**
+     * EN: Measures each level's win rate with the bot, then searches for settings that bring it close to a target curve
+     *     running linearly from the first level's target to the last one's. The tick delay is bisected first (a longer
+     *     delay makes enemies slower and the level easier); when the delay alone cannot reach the target, the enemy count
+     *     changes by one and the search starts again. Every candidate is played with the same seeds, so that the
+     *     comparison is not blurred by different mazes. Prints the tuned table in the format of {@value LevelParams#FILE}.
+     * FR: Mesure le taux de victoire de chaque niveau avec le robot, puis cherche des paramètres qui l'amènent près d'une
+     *     courbe cible allant linéairement de la cible du premier niveau à celle du dernier. Le délai du tick est d'abord
+     *     cherché par dichotomie (un délai plus long ralentit les ennemis et facilite le niveau) ; quand le délai seul ne
+     *     suffit pas, le nombre d'ennemis change d'une unité et la recherche reprend. Chaque candidat est joué avec les
+     *     mêmes graines, pour que la comparaison ne soit pas brouillée par des labyrinthes différents. Affiche la table
+     *     ajustée au format de {@value LevelParams#FILE}.
+     * @param games The number of games per measurement.
+     * @param seed The seed of the first game.
+     * @param firstTarget The target win rate of level 1, between 0 and 1.
+     * @param lastTarget The target win rate of the last level, between 0 and 1.
+     */
+    private static void runCalibration(int games, long seed, double firstTarget, double lastTarget) {
+        final int minDelay = 16, maxDelay = 240, maxEnemies = 8, maxSteps = 12;
+        final double tolerance = 0.05;
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        WorldConfig base = WorldConfig.classic().withAIBudget(0).withDifficulty(null);
+        LevelParams[] tuned = new LevelParams[CAMPAIGN_LEVELS];
+        long totalGames = 0, start = System.nanoTime();
+        System.out.printf("%d parties par mesure, %d threads%n", games, pool.getParallelism());
+        for (int level = 1; level <= CAMPAIGN_LEVELS; level++) {
+            double target = firstTarget + (lastTarget - firstTarget) * (level - 1) / (CAMPAIGN_LEVELS - 1);
+            long levelSeed = seed + level * 1_000_003L;
+            LevelParams params = LevelParams.standard(level, base.maxEnemies);
+            CalibrationBatch batch = new CalibrationBatch(base, level, levelSeed, games).runOn(pool);
+            totalGames += games;
+            System.out.printf("niveau %2d (cible %.0f %%) standard  %3d ms, %d ennemis : %s%n", level, target * 100, params.tickDelayMs, params.enemyCount, batch.summary());
+
+            LevelParams best = params;
+            double bestError = Math.abs(batch.winRate() - target), winRate = batch.winRate();
+            int lo = minDelay, hi = maxDelay;
+            for (int step = 0; step < maxSteps && bestError > tolerance; step++) {
+                boolean tooEasy = winRate > target;
+                if (tooEasy) hi = params.tickDelayMs; else lo = params.tickDelayMs;
+                if (hi - lo <= 2) {
+                    int enemies = params.enemyCount + (tooEasy ? 1 : -1);
+                    if (enemies < 1 || enemies > maxEnemies) break;
+                    params = params.withEnemyCount(enemies);
+                    lo = minDelay; hi = maxDelay;
+                }
+                params = params.withTickDelay((lo + hi) / 2);
+                batch = new CalibrationBatch(base.withDifficulty(levelsWith(level, params)), level, levelSeed, games).runOn(pool);
+                totalGames += games;
+                winRate = batch.winRate();
+                System.out.printf("          essai     %3d ms, %d ennemis : %s%n", params.tickDelayMs, params.enemyCount, batch.summary());
+                if (Math.abs(winRate - target) < bestError) { best = params; bestError = Math.abs(winRate - target); }
+            }
+            tuned[level - 1] = best;
+        }
+        pool.shutdown();
+        System.out.printf("%d parties en %.1f s (%,.0f parties/s)%n", totalGames, (System.nanoTime() - start) / 1e9, totalGames / ((System.nanoTime() - start) / 1e9));
+        System.out.println("Paramètres ajustés (à enregistrer dans " + LevelParams.FILE + " pour les appliquer) :");
+        System.out.print(LevelParams.format(tuned));
+    }
+
+    /**
+     * EN: A difficulty table where one level uses the given settings and the levels before it the standard ones.
+     * FR: Une table de difficulté où un niveau utilise les paramètres donnés et les niveaux précédents les paramètres standard.
+     */
+    private static LevelParams[] levelsWith(int level, LevelParams params) {
+        LevelParams[] levels = new LevelParams[level];
+        for (int l = 1; l < level; l++) levels[l - 1] = LevelParams.standard(l, params.enemyCount);
+        levels[level - 1] = params;
+        return levels;
+    }
+
+    // =================================================================================
+    // Level packs
+    // =================================================================================
+
+    /**
+     * EN: How many mazes the baker tries per level before giving up, and the share of open cells, in percent, that must
+     *     be reachable from the start for a maze to be kept.
+     * FR: Le nombre de labyrinthes que l'outil essaie par niveau avant d'abandonner, et la part des cellules ouvertes, en
+     *     pourcentage, qui doit être accessible depuis le départ pour qu'un labyrinthe soit gardé.
+     */
+    private static final int BAKE_ATTEMPTS = 100, MIN_REACHABLE_PERCENT = 85;
+
+    /**
+     * EN: Bakes a pack of levels from the seeded generator of the classic board. A maze is kept only if most of it is
+     *     reachable from the start and every power-up and enemy spawn is; otherwise the level is generated again from
+     *     the next seed. The pack is then mapped back and each level compared with a freshly generated one.
+     * FR: Précalcule un pack de niveaux avec le générateur initialisé du plateau classique. Un labyrinthe n'est gardé que
+     *     si l'essentiel est accessible depuis le départ, ainsi que chaque power-up et chaque apparition d'ennemi ; sinon
+     *     le niveau est généré à nouveau avec la graine suivante. Le pack est ensuite relu en mémoire et chaque niveau
+     *     comparé à un niveau fraîchement généré.
+     * @param file The pack to write.
+     * @param seed The seed of the pack; it also drives the enemies' random choices in play.
+     * @param levels The number of levels.
+     * @return True if the pack was written and reads back identically.
+     */
+    private static boolean runBakePack(Path file, long seed, int levels) {
+        WorldConfig config = WorldConfig.classic();
+        if (config.gridCols * config.gridRows > Character.MAX_VALUE + 1) throw new IllegalStateException("plateau trop grand pour un pack");
+        List<byte[]> records = new ArrayList<>(levels);
+        long[] levelSeeds = new long[levels];
+        int rejected = 0;
+        for (int level = 1; level <= levels; level++) {
+            GameWorld kept = null;
+            for (int attempt = 0; attempt < BAKE_ATTEMPTS && kept == null; attempt++) {
+                long levelSeed = GameRandom.mix(seed + GameRandom.mix(level * (long) BAKE_ATTEMPTS + attempt));
+                GameWorld candidate = new GameWorld(config, levelSeed);
+                candidate.loadLevel(level);
+                if (isWellConnected(candidate)) { kept = candidate; levelSeeds[level - 1] = levelSeed; } else rejected++;
+            }
+            if (kept == null) {
+                System.err.printf("niveau %d : aucun labyrinthe assez connexe en %d essais%n", level, BAKE_ATTEMPTS);
+                return false;
+            }
+            records.add(LevelPack.encode(kept));
+        }
+        try {
+            LevelPack.write(file, config.gridCols, config.gridRows, seed, records);
+            long start = System.nanoTime();
+            LevelPack pack = LevelPack.open(file);
+            long openMicros = (System.nanoTime() - start) / 1000;
+            WorldConfig packed = config.withLevelPack(pack);
+            int mismatch = 0;
+            for (int level = 1; level <= levels; level++) {
+                GameWorld generated = new GameWorld(config, levelSeeds[level - 1]);
+                generated.loadLevel(level);
+                GameWorld read = new GameWorld(packed, pack.seed);
+                read.loadLevel(level);
+                if (layoutHash(generated) != layoutHash(read)) {
+                    System.err.println("niveau " + level + " : relu différent de l'original");
+                    mismatch++;
+                }
+            }
+            System.out.printf("%d niveaux écrits dans %s (%d octets, %d labyrinthes rejetés), ouverture en %d µs%n",
+                    levels, file, Files.size(file), rejected, openMicros);
+            System.out.println(mismatch == 0 ? "niveaux relus identiques" : mismatch + " niveaux relus différents");
+            return mismatch == 0;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Écriture du pack impossible : " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * EN: The baker's connectivity check on a freshly built level.
+     * FR: La vérification de connexité de l'outil sur un niveau fraîchement construit.
+     */
+    private static boolean isWellConnected(GameWorld world) {
+        boolean[] reached = world.reachableFrom(world.playerPosition.y * world.gridCols + world.playerPosition.x);
+        int open = 0, reachable = 0;
+        for (int c = 0; c < reached.length; c++) {
+            if (world.walls[c]) continue;
+            open++;
+            if (reached[c]) reachable++;
+        }
+        if (reachable * 100 < open * MIN_REACHABLE_PERCENT) return false;
+        for (int i = 0; i < world.powerUps.count; i++) {
+            if (!reached[world.powerUps.y[i] * world.gridCols + world.powerUps.x[i]]) return false;
+        }
+        for (int h = 0; h < world.enemies.scheduled(); h++) {
+            if (!reached[world.enemies.spawnCell(h)]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * EN: Hashes what a level is made of: settings, walls, dots, power-ups and enemy spawns.
+     * FR: Calcule une empreinte de ce qui compose un niveau : paramètres, murs, points, power-ups et apparitions d'ennemis.
+     */
+    private static long layoutHash(GameWorld world) {
+        LevelParams p = world.params;
+        long h = GameRandom.mix(p.obstaclePercent + 31L * (p.tickDelayMs + 31L * (p.enemyCount + 31L * (p.freezePercent
+                + 31L * (p.shieldPercent + 31L * (p.enemiesHesitate ? 1 : 0))))));
+        for (int c = 0; c < world.walls.length; c++) h = GameRandom.mix(h + (world.walls[c] ? 1 : 0) + (world.dots[c] ? 2 : 0));
+        for (int i = 0; i < world.powerUps.count; i++) h = GameRandom.mix(h + world.powerUps.x[i] + 64L * world.powerUps.y[i] + 4096L * world.powerUps.type[i]);
+        for (int e = 0; e < world.enemies.scheduled(); e++) h = GameRandom.mix(h + world.enemies.spawnCell(e));
+        return h;
+    }
+
+    // =================================================================================
+    // Saved games
+    // =================================================================================
+
+    /**
+     * EN: Saved games: the full state of a level-based world in a compact binary form, taken between two ticks in a few
+     *     microseconds and restored exactly.
+     *     <pre>
+     *     header  int magic "CRSV", short version, byte board (0 classic, 1 swarm), byte packed levels, short columns,
+     *             short rows, long seed
+     *     world   see {@link GameWorld#writeState}
+     *     </pre>
+     *     Files are written atomically, into a temporary file that then replaces the save, so a crash mid-write leaves
+     *     the previous save intact. Background writes overtaken by a later save are dropped.
+     * FR: Les sauvegardes : l'état complet d'un monde à niveaux sous une forme binaire compacte, pris entre deux ticks en
+     *     quelques microsecondes et restauré à l'identique. Le format est décrit ci-dessus. Les fichiers sont écrits de
+     *     façon atomique, dans un fichier temporaire qui remplace ensuite la sauvegarde, donc un arrêt en cours
+     *     d'écriture laisse la sauvegarde précédente intacte. Les écritures en arrière-plan dépassées par une sauvegarde
+     *     plus récente sont abandonnées.
+     */
+    private static final class WorldSnapshot {
+        static final String FILE = "partie_en_cours.dat";
+        private static final int MAGIC = 0x43525356, HEADER_BYTES = 20;
+        private static final short VERSION = 1;
+        private static final AtomicLong latestWrite = new AtomicLong();
+
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        /**
+         * EN: Encodes a world into this snapshot's buffer, which grows as needed and is reused from one capture to the next.
+         * FR: Encode un monde dans le tampon de cet instantané, qui grandit au besoin et sert d'une capture à l'autre.
+         * @return A read-only view of the encoded state, valid until the next capture.
+         */
+        ByteBuffer capture(GameWorld world) {
+            while (true) {
+                buffer.clear();
+                try {
+                    buffer.putInt(MAGIC).putShort(VERSION).put((byte) (world.config.campaign ? 0 : 1)).put((byte) (world.config.pack != null ? 1 : 0))
+                          .putShort((short) world.gridCols).putShort((short) world.gridRows).putLong(world.seed);
+                    world.writeState(buffer);
+                    buffer.flip();
+                    return buffer.asReadOnlyBuffer();
+                } catch (BufferOverflowException e) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+                }
+            }
+        }
+
+        /**
+         * EN: The board a snapshot was taken on.
+         * FR: Le plateau sur lequel un instantané a été pris.
+         * @throws IllegalArgumentException If it is not a snapshot this version understands.
+         */
+        static WorldConfig boardOf(ByteBuffer snapshot) {
+            if (snapshot.remaining() < HEADER_BYTES || snapshot.getInt(snapshot.position()) != MAGIC) throw new IllegalArgumentException("pas une sauvegarde");
+            short version = snapshot.getShort(snapshot.position() + 4);
+            if (version != VERSION) throw new IllegalArgumentException("version " + version + " non prise en charge");
+            WorldConfig board = snapshot.get(snapshot.position() + 6) == 0 ? WorldConfig.classic() : WorldConfig.swarm();
+            return snapshot.get(snapshot.position() + 7) != 0 ? board.withLevelPack(LevelPack.shared()) : board;
+        }
+
+        /**
+         * EN: Rebuilds the world a snapshot was taken from.
+         * FR: Reconstruit le monde dont un instantané a été pris.
+         * @param config The board to play on, of the snapshot's size; see {@link #boardOf}.
+         * @throws IllegalArgumentException If the snapshot is damaged or was taken on another board.
+         */
+        static GameWorld restore(ByteBuffer snapshot, WorldConfig config) {
+            ByteBuffer in = snapshot.duplicate();
+            boardOf(in);
+            in.position(in.position() + 8);
+            try {
+                if (in.getShort() != config.gridCols || in.getShort() != config.gridRows) throw new IllegalArgumentException("taille de plateau différente");
+                GameWorld world = new GameWorld(config, in.getLong());
+                world.readState(in);
+                return world;
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("sauvegarde tronquée ou corrompue", e);
+            }
+        }
+
+        /**
+         * EN: Reads a saved game.
+         * FR: Lit une partie sauvegardée.
+         * @throws IOException If the file cannot be read.
+         * @throws IllegalArgumentException If it is not a save this version can restore.
+         */
+        static GameWorld load(Path file) throws IOException {
+            ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(file));
+            return restore(snapshot, boardOf(snapshot));
+        }
+
+        /**
+         * EN: Writes a snapshot to a file on a thread of its own. The snapshot is copied first, so capturing may go on.
+         * FR: Écrit un instantané dans un fichier sur un thread dédié. L'instantané est d'abord copié, donc les captures
+         *     peuvent continuer.
+         */
+        static void saveInBackground(Path file, ByteBuffer snapshot) {
+            byte[] data = copy(snapshot);
+            long sequence = latestWrite.incrementAndGet();
+            Thread writer = new Thread(() -> write(file, data, sequence), "sauvegarde-partie");
+            writer.setDaemon(true);
+            writer.start();
+        }
+
+        /**
+         * EN: Writes a snapshot to a file before returning, for when the game is about to exit.
+         * FR: Écrit un instantané dans un fichier avant de rendre la main, pour quand le jeu va se fermer.
+         * @return True if the file was written.
+         */
+        static boolean save(Path file, ByteBuffer snapshot) {
+            return write(file, copy(snapshot), latestWrite.incrementAndGet());
+        }
+
+        /**
+         * EN: Deletes a saved game, dropping any background write still waiting.
+         * FR: Supprime une partie sauvegardée, en abandonnant toute écriture en arrière-plan encore en attente.
+         */
+        static synchronized void delete(Path file) {
+            latestWrite.incrementAndGet();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Suppression de la sauvegarde impossible : " + e.getMessage());
+            }
+        }
+
+        private static byte[] copy(ByteBuffer snapshot) {
+            byte[] data = new byte[snapshot.remaining()];
+            snapshot.duplicate().get(data);
+            return data;
+        }
+
+        private static synchronized boolean write(Path file, byte[] data, long sequence) {
+            if (sequence != latestWrite.get()) return false;
+            PersistenceEvent event = new PersistenceEvent();
+            event.begin();
+            boolean saved = false;
+            try {
+                Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "partie", ".tmp");
+                try {
+                    Files.write(temp, data);
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    saved = true;
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                System.err.println("Sauvegarde de la partie impossible : " + e.getMessage());
+            }
+            event.finish("saveGame", file.toString(), saved);
+            return saved;
+        }
+    }
+
+    /**
+     * EN: The recent history of a practice run, so that a death can be undone. Every {@link #KEYFRAME_INTERVAL} ticks
+     *     the whole world is written as a keyframe (see {@link GameWorld#writeState}); in between, each tick records
+     *     small deltas: the player's moves, with the dots they ate, and the enemies' moves. Everything lives in arrays
+     *     sized up front for {@link #HISTORY_MS} of play at the board's fastest tick and used as rings, so recording never
+     *     allocates and memory never grows; a burst of player moves can only shorten the history.
+     *     Rewinding first undoes the deltas tick by tick on screen, then restores the last keyframe before the target and
+     *     replays the recorded moves up to it, which leaves the world exactly as it was. This needs a reproducible world
+     *     (no AI time budget, synchronous pathfinding).
+     * FR: L'historique récent d'une partie d'entraînement, pour pouvoir annuler une défaite. Tous les
+     *     {@link #KEYFRAME_INTERVAL} ticks, le monde entier est écrit comme image clé (voir {@link GameWorld#writeState}) ;
+     *     entre deux, chaque tick enregistre de petits deltas : les déplacements du joueur, avec les points mangés, et ceux
+     *     des ennemis. Tout tient dans des tableaux dimensionnés d'avance pour {@link #HISTORY_MS} de jeu au tick le plus
+     *     rapide du plateau et utilisés en anneau, donc l'enregistrement n'alloue jamais et la mémoire ne grandit pas ;
+     *     une rafale de déplacements du joueur ne peut que raccourcir l'historique.
+     *     Revenir en arrière annule d'abord les deltas tick par tick à l'écran, puis restaure la dernière image clé avant
+     *     la cible et rejoue les déplacements enregistrés jusqu'à elle, ce qui remet le monde exactement dans son état
+     *     d'alors. Il faut pour cela un monde reproductible (sans budget de temps pour l'IA, chemins synchrones).
+     */
+    private static final class RewindBuffer {
+        static final int HISTORY_MS = 10_000, KEYFRAME_INTERVAL = 32;
+        /**
+         * EN: The player moves a tick holds on average before older history is overwritten.
+         * FR: Le nombre moyen de déplacements du joueur par tick avant que l'historique ancien soit écrasé.
+         */
+        private static final int MOVES_PER_TICK = 8;
+        private static final int ATE_DOT = 4;
+
+        /**
+         * EN: How many ticks of history the buffer keeps at the board's fastest tick.
+         * FR: Le nombre de ticks d'historique que le tampon garde au tick le plus rapide du plateau.
+         */
+        final int historyTicks;
+        private final int tickSlots, keyframeSlots, keyframeBytes;
+        private final ByteBuffer keyframes;
+        private final long[] keyframeTick;
+        /**
+         * EN: Per tick, by tick modulo {@code tickSlots}: the running totals of moves written when the tick ended.
+         * FR: Par tick, selon le tick modulo {@code tickSlots} : les totaux cumulés de déplacements écrits à la fin du tick.
+         */
+        private final long[] enemyEnd, playerEnd;
+        /**
+         * EN: Enemy moves as (from << 16 | to), and player moves as a direction of {@code GameWorld.DX} plus {@link #ATE_DOT}.
+         * FR: Les déplacements des ennemis en (départ << 16 | arrivée), et ceux du joueur en direction de {@code GameWorld.DX}
+         *     plus {@link #ATE_DOT}.
+         */
+        private final int[] enemyMoves;
+        private final byte[] playerMoves;
+        private long enemyWritten, playerWritten, startTick, lastTick;
+        private int nextKeyframe;
+
+        /**
+         * EN: Sizes a buffer for the levels of a board.
+         * FR: Dimensionne un tampon pour les niveaux d'un plateau.
+         * @param levels The number of levels that will be played.
+         */
+        RewindBuffer(WorldConfig config, int levels) {
+            int fastestTick = Integer.MAX_VALUE, mostEnemies = config.maxEnemies;
+            for (int level = 1; level <= levels; level++) {
+                LevelParams params = config.levelParams(level);
+                fastestTick = Math.min(fastestTick, params.tickDelayMs);
+                mostEnemies = Math.max(mostEnemies, params.enemyCount);
+            }
+            historyTicks = (HISTORY_MS + fastestTick - 1) / fastestTick;
+            tickSlots = historyTicks + KEYFRAME_INTERVAL + 1;
+            keyframeSlots = tickSlots / KEYFRAME_INTERVAL + 2;
+            keyframeBytes = GameWorld.stateBytesBound(config.gridCols * config.gridRows, BehaviorTable.shared().types(), mostEnemies);
+            keyframes = ByteBuffer.allocate(keyframeSlots * keyframeBytes);
+            keyframeTick = new long[keyframeSlots];
+            enemyEnd = new long[tickSlots];
+            playerEnd = new long[tickSlots];
+            // Chaque ennemi bouge au plus une fois par tick, plus un renvoi par le bouclier.
+            enemyMoves = new int[tickSlots * (mostEnemies + 1)];
+            playerMoves = new byte[tickSlots * MOVES_PER_TICK];
+        }
+
+        /**
+         * EN: The memory the buffer holds, all of it allocated by the constructor.
+         * FR: La mémoire que tient le tampon, entièrement allouée par le constructeur.
+         * @return The size in bytes.
+         */
+        long bytes() {
+            return keyframes.capacity() + 8L * (keyframeTick.length + enemyEnd.length + playerEnd.length) + 4L * enemyMoves.length + playerMoves.length;
+        }
+
+        /**
+         * EN: Forgets the history and starts a new one from the world's current state, such as a level just built.
+         * FR: Oublie l'historique et en commence un nouveau à partir de l'état actuel du monde, comme un niveau qui vient
+         *     d'être construit.
+         */
+        void clear(GameWorld world) {
+            Arrays.fill(keyframeTick, -1);
+            nextKeyframe = 0;
+            startTick = lastTick = world.tick;
+            enemyEnd[slot(lastTick)] = enemyWritten;
+            playerEnd[slot(lastTick)] = playerWritten;
+            writeKeyframe(world);
+        }
+
+        void playerMoved(int direction, boolean ateDot) {
+            playerMoves[(int) (playerWritten++ % playerMoves.length)] = (byte) (direction | (ateDot ? ATE_DOT : 0));
+        }
+
+        void enemyMoved(int from, int to) {
+            enemyMoves[(int) (enemyWritten++ % enemyMoves.length)] = from << 16 | to;
+        }
+
+        /**
+         * EN: Closes the deltas of the tick the world has just played, and writes a keyframe when one is due.
+         * FR: Clôt les deltas du tick que le monde vient de jouer, et écrit une image clé quand il en faut une.
+         */
+        void tickEnded(GameWorld world) {
+            lastTick = world.tick;
+            enemyEnd[slot(lastTick)] = enemyWritten;
+            playerEnd[slot(lastTick)] = playerWritten;
+            if ((lastTick - startTick) % KEYFRAME_INTERVAL == 0) writeKeyframe(world);
+        }
+
+        private void writeKeyframe(GameWorld world) {
+            int at = nextKeyframe * keyframeBytes;
+            keyframes.limit(at + keyframeBytes).position(at);
+            world.writeState(keyframes);
+            keyframeTick[nextKeyframe] = world.tick;
+            nextKeyframe = (nextKeyframe + 1) % keyframeSlots;
+        }
+
+        private int slot(long tick) { return (int) (tick % tickSlots); }
+
+        /**
+         * EN: Whether the deltas of a tick are still in the rings.
+         * FR: Indique si les deltas d'un tick sont encore dans les anneaux.
+         */
+        private boolean hasDeltas(long tick) {
+            return tick > startTick && tick <= lastTick && lastTick - tick < tickSlots - 1
+                    && enemyWritten - enemyEnd[slot(tick - 1)] <= enemyMoves.length
+                    && playerWritten - playerEnd[slot(tick - 1)] <= playerMoves.length;
+        }
+
+        /**
+         * EN: The keyframe to restore to reach a tick: the latest one at or before it from which every delta is kept.
+         * FR: L'image clé à restaurer pour atteindre un tick : la plus récente, au plus tard à ce tick, depuis laquelle
+         *     tous les deltas sont gardés.
+         * @return Its slot, or -1 if there is none.
+         */
+        private int keyframeFor(long tick) {
+            int best = -1;
+            for (int k = 0; k < keyframeSlots; k++) {
+                long at = keyframeTick[k];
+                if (at < 0 || at > tick || (best >= 0 && at <= keyframeTick[best])) continue;
+                if (at == tick || hasDeltas(at + 1)) best = k;
+            }
+            return best;
+        }
+
+        /**
+         * EN: The tick a rewind goes back to: {@link #HISTORY_MS} before the last tick at the world's current speed, or
+         *     the oldest tick still restorable.
+         * FR: Le tick auquel un retour en arrière ramène : {@link #HISTORY_MS} avant le dernier tick à la vitesse actuelle
+         *     du monde, ou le plus ancien tick encore restaurable.
+         * @return The tick, or -1 if the history is empty.
+         */
+        long rewindTarget(GameWorld world) {
+            long target = Math.max(startTick, lastTick - (HISTORY_MS + world.tickDelayMs - 1) / world.tickDelayMs);
+            while (target < lastTick && keyframeFor(target) < 0) target++;
+            return target < lastTick ? target : -1;
+        }
+
+        long lastTick() { return lastTick; }
+
+        /**
+         * EN: Undoes the last recorded tick on screen: enemies and the player step back and eaten dots reappear. Only
+         *     positions and dots are undone; {@link #restore} then rebuilds the rest.
+         * FR: Annule à l'écran le dernier tick enregistré : les ennemis et le joueur reculent et les points mangés
+         *     réapparaissent. Seuls les positions et les points sont annulés ; {@link #restore} reconstruit ensuite le reste.
+         * @return False if the tick's deltas are no longer kept.
+         */
+        boolean undoTick(GameWorld world) {
+            if (!hasDeltas(lastTick)) return false;
+            EnemyStore e = world.enemies;
+            for (long k = enemyEnd[slot(lastTick)] - 1; k >= enemyEnd[slot(lastTick - 1)]; k--) {
+                int move = enemyMoves[(int) (k % enemyMoves.length)], from = move >>> 16, to = move & 0xFFFF;
+                int h = e.firstOnCell(to);
+                if (h < 0) continue;
+                e.moveTo(e.slotOf(h), from);
+                world.influence.moveEnemy(to, from);
+            }
+            for (long k = playerEnd[slot(lastTick)] - 1; k >= playerEnd[slot(lastTick - 1)]; k--) {
+                int move = playerMoves[(int) (k % playerMoves.length)], direction = move & 3;
+                Point p = world.playerPosition;
+                if ((move & ATE_DOT) != 0) { world.dots[p.y * world.gridCols + p.x] = true; world.dotCount++; }
+                p.translate(-GameWorld.DX[direction], -GameWorld.DY[direction]);
+            }
+            enemyWritten = enemyEnd[slot(lastTick - 1)];
+            playerWritten = playerEnd[slot(lastTick - 1)];
+            lastTick--;
+            return true;
+        }
+
+        /**
+         * EN: Puts the world back exactly as it was at the end of a tick, and drops the history after it. The replayed
+         *     ticks already happened once, so they publish no game events and record no heatmap samples.
+         * FR: Remet le monde exactement dans son état de la fin d'un tick, et abandonne l'historique qui suit. Les ticks
+         *     rejoués ont déjà eu lieu une fois, ils ne publient donc aucun événement de jeu et n'enregistrent aucun
+         *     échantillon de carte de chaleur.
+         * @param tick A tick from {@link #rewindTarget}.
+         */
+        void restore(GameWorld world, long tick) {
+            int k = keyframeFor(tick);
+            if (k < 0) throw new IllegalStateException("tick " + tick + " hors de l'historique");
+            ByteBuffer keyframe = keyframes.duplicate();
+            keyframe.limit(k * keyframeBytes + keyframeBytes).position(k * keyframeBytes);
+            RewindBuffer recorder = world.recorder;
+            GameEventBus events = world.events;
+            HeatmapAnalytics heatmap = world.heatmap;
+            world.recorder = null;
+            world.events = null;
+            world.heatmap = null;
+            world.readState(keyframe);
+            for (long t = keyframeTick[k] + 1; t <= tick; t++) {
+                for (long m = playerEnd[slot(t - 1)]; m < playerEnd[slot(t)]; m++) {
+                    int direction = playerMoves[(int) (m % playerMoves.length)] & 3;
+                    world.movePlayer(GameWorld.DX[direction], GameWorld.DY[direction]);
+                }
+                world.step();
+            }
+            world.recorder = recorder;
+            world.events = events;
+            world.heatmap = heatmap;
+            lastTick = tick;
+            enemyWritten = enemyEnd[slot(tick)];
+            playerWritten = playerEnd[slot(tick)];
+            for (int j = 0; j < keyframeSlots; j++) if (keyframeTick[j] > tick) keyframeTick[j] = -1;
+            nextKeyframe = (k + 1) % keyframeSlots;
+        }
+    }
+
+    /**
+     * EN: How many ticks apart the snapshot check takes its snapshots.
+     * FR: L'écart en ticks entre deux instantanés de la vérification.
+     */
+    private static final int SNAPSHOT_CHECK_INTERVAL = 250;
+    /**
+     * EN: How many times each capture is repeated, so that its time is measured on compiled code.
+     * FR: Le nombre de répétitions de chaque capture, afin que son temps soit mesuré sur du code compilé.
+     */
+    private static final int SNAPSHOT_CHECK_REPEAT = 100;
+
+    /**
+     * EN: Checks that saved games restore exactly, on reproducible classic and swarm boards. A world is
+     *     played with random moves; every {@link #SNAPSHOT_CHECK_INTERVAL} ticks it is captured and a copy restored from
+     *     the capture, and both are then played with the same moves. The copy must match the original tick by tick, its
+     *     own capture must equal the original's at the next snapshot, and levels that follow must be built identically.
+     *     A save file is then written, read back and compared.
+     * FR: Vérifie que les sauvegardes se restaurent à l'identique, sur des plateaux classique et essaim reproductibles.
+     *     Un monde est joué avec des déplacements aléatoires ; tous les {@link #SNAPSHOT_CHECK_INTERVAL} ticks, il est capturé et une copie restaurée depuis la capture, puis les deux sont joués avec les mêmes
+     *     déplacements. La copie doit rester identique à l'original à chaque tick, sa propre capture doit égaler celle de
+     *     l'original à l'instantané suivant, et les niveaux suivants doivent être construits à l'identique. Un fichier de
+     *     sauvegarde est ensuite écrit, relu et comparé.
+     * @param seed The seed of the worlds.
+     * @param ticks The number of ticks played on each board.
+     * @return True if every restored copy matched its original.
+     */
+    private static boolean runSnapshotCheck(long seed, int ticks) {
+        return checkSnapshots("classique", WorldConfig.classic().withAIBudget(0), seed, ticks)
+                & checkSnapshots("essaim", WorldConfig.swarm().withAIBudget(0).withAsyncPathfinding(false), seed, ticks);
+    }
+
+    private static boolean checkSnapshots(String name, WorldConfig config, long seed, int ticks) {
+        GameWorld world = new GameWorld(config, seed), copy = null;
+        world.loadLevel(1);
+        WorldSnapshot snapshots = new WorldSnapshot(), copySnapshots = new WorldSnapshot();
+        GameRandom pilot = new GameRandom(~seed);
+        long[] captureNanos = new long[ticks / SNAPSHOT_CHECK_INTERVAL + 1], restoreNanos = new long[captureNanos.length];
+        int captures = 0, largest = 0;
+        for (int t = 0; t < ticks; t++) {
+            if (t % SNAPSHOT_CHECK_INTERVAL == 0) {
+                long start = System.nanoTime();
+                for (int k = 1; k < SNAPSHOT_CHECK_REPEAT; k++) snapshots.capture(world);
+                ByteBuffer snapshot = snapshots.capture(world);
+                long mid = System.nanoTime();
+                if (copy != null && !snapshot.equals(copySnapshots.capture(copy))) {
+                    System.out.println(name + " : état complet différent au tick " + t);
+                    return false;
+                }
+                long restoreStart = System.nanoTime();
+                copy = WorldSnapshot.restore(snapshot, config);
+                restoreNanos[captures] = System.nanoTime() - restoreStart;
+                captureNanos[captures++] = (mid - start) / SNAPSHOT_CHECK_REPEAT;
+                largest = Math.max(largest, snapshot.remaining());
+            }
+            int dir = pilot.nextInt(4);
+            for (GameWorld w : new GameWorld[] {world, copy}) {
+                w.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+                TickOutcome outcome = w.step();
+                if (outcome != TickOutcome.NONE) w.loadLevel(outcome == TickOutcome.LEVEL_CLEARED ? w.level % CAMPAIGN_LEVELS + 1 : w.level);
+            }
+            if (world.stateHash() != copy.stateHash()) {
+                System.out.println(name + " : la copie restaurée diverge au tick " + (t + 1));
+                return false;
+            }
+        }
+        boolean fileOk;
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("cyber-runner-sauvegarde");
+            Path file = dir.resolve(WorldSnapshot.FILE);
+            ByteBuffer snapshot = snapshots.capture(world);
+            fileOk = WorldSnapshot.save(file, snapshot)
+                    && snapshot.equals(copySnapshots.capture(WorldSnapshot.restore(ByteBuffer.wrap(Files.readAllBytes(file)), config)));
+        } catch (IOException e) {
+            System.out.println(name + " : fichier de sauvegarde illisible : " + e.getMessage());
+            fileOk = false;
+        } finally {
+            if (dir != null) {
+                WorldSnapshot.delete(dir.resolve(WorldSnapshot.FILE));
+                dir.toFile().delete();
+            }
+        }
+        Arrays.sort(captureNanos, 0, captures);
+        Arrays.sort(restoreNanos, 0, captures);
+        System.out.printf("%s : %d instantanés de %,d octets au plus, capture %.1f µs, restauration %.1f µs (médianes), %s%n", name, captures,
+                largest, captureNanos[captures / 2] / 1e3, restoreNanos[captures / 2] / 1e3, fileOk ? "parties identiques" : "fichier relu différent");
+        return fileOk;
+    }
+
+    /**
+     * EN: Checks practice rewinds on a reproducible classic board. The bot plays, with a random move added one tick in
+     *     four; each death is rewound as in the game, deltas undone and then the keyframe restored and moves replayed,
+     *     and the world must then hash exactly as it did at the target tick, without a game event published again for
+     *     the replayed ticks nor a heatmap sample recorded again. The game is played twice: the first time lets the JIT
+     *     settle, and the second time each tick from the second level on, recording included, is bracketed by the
+     *     thread's allocation counter; the first level is left out as its first enemies size the world's buffers. All
+     *     those ticks together must stay within {@link #ALLOCATION_BUDGET_BYTES}.
+     * FR: Vérifie les retours en arrière de l'entraînement sur un plateau classique reproductible. Le robot joue, avec un
+     *     déplacement aléatoire en plus un tick sur quatre ; chaque défaite est annulée comme en jeu, deltas défaits puis
+     *     image clé restaurée et déplacements rejoués, et le monde doit alors avoir exactement l'empreinte qu'il avait au
+     *     tick visé, sans qu'aucun événement de jeu ni échantillon de carte de chaleur soit à nouveau produit pour les
+     *     ticks rejoués. La partie est jouée deux fois : la première laisse le JIT se stabiliser, et la seconde encadre
+     *     chaque tick à partir du deuxième niveau, enregistrement compris, par le compteur d'allocation du thread ; le
+     *     premier niveau est laissé de côté car ses premiers ennemis dimensionnent les tampons du monde. Tous ces ticks
+     *     ensemble doivent tenir dans {@link #ALLOCATION_BUDGET_BYTES}.
+     * @param seed The world seed.
+     * @param ticks The number of ticks to play.
+     * @return True if every rewind matched and recording stayed within the allocation budget.
+     */
+    private static boolean runRewindCheck(long seed, int ticks) {
+        if (PerfMetrics.allocatedBytes() < 0) {
+            System.out.println("Cette JVM ne mesure pas les allocations par thread.");
+            return false;
+        }
+        WorldConfig config = WorldConfig.classic().withAIBudget(0);
+        RewindBuffer rewind = new RewindBuffer(config, CAMPAIGN_LEVELS);
+        GameEventBus events = new GameEventBus();
+        EventTally tally = new EventTally();
+        events.subscribe("evenements-verification", tally);
+        Path file;
+        try {
+            file = Files.createTempFile("heatmaps", ".dat");
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Vérification des retours en arrière impossible : " + e.getMessage());
+            return false;
+        }
+        HeatmapAnalytics heatmaps = new HeatmapAnalytics(file, config.gridCols, config.gridRows);
+        try {
+            for (int run = 0; run < 2; run++) {
+                GameWorld world = new GameWorld(config, seed);
+                world.recorder = rewind;
+                world.events = events;
+                world.heatmap = heatmaps;
+                long allocated = playRewinds(world, rewind, events, tally, heatmaps, seed, ticks, run == 1);
+                if (allocated < 0) return false;
+                if (run == 1) return allocated <= ALLOCATION_BUDGET_BYTES;
+            }
+            return false;
+        } finally {
+            events.close();
+            heatmaps.close();
+            file.toFile().delete();
+        }
+    }
+
+    /**
+     * EN: Plays one game of the rewind check.
+     * FR: Joue une partie de la vérification des retours en arrière.
+     * @param report Whether to print what the game measured.
+     * @return The bytes the measured ticks allocated, or -1 if a rewind did not give the original state back.
+     */
+    private static long playRewinds(GameWorld world, RewindBuffer rewind, GameEventBus events, EventTally tally, HeatmapAnalytics heatmaps,
+            long seed, int ticks, boolean report) {
+        world.loadLevel(1);
+        rewind.clear(world);
+        long[] hashAt = new long[ticks + 1];
+        hashAt[(int) world.tick] = world.stateHash();
+        GameRandom pilot = new GameRandom(~seed);
+        AutoPlayer bot = new GreedyBot();
+        long overhead = PerfMetrics.allocatedBytes();
+        overhead = PerfMetrics.allocatedBytes() - overhead;
+        long allocated = 0, slowestNanos = 0;
+        int measured = 0, rewinds = 0, levels = 1;
+        for (int t = 0; t < ticks; t++) {
+            long before = PerfMetrics.allocatedBytes();
+            autoSteer(world, bot);
+            if (pilot.nextInt(4) == 0) {
+                int dir = pilot.nextInt(4);
+                world.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+            }
+            TickOutcome outcome = world.step();
+            rewind.tickEnded(world);
+            long after = PerfMetrics.allocatedBytes();
+            if (outcome == TickOutcome.NONE) {
+                hashAt[(int) world.tick] = world.stateHash();
+                if (levels > 1) { allocated += after - before - overhead; measured++; }
+            } else if (outcome == TickOutcome.LEVEL_CLEARED) {
+                world.loadLevel(world.level % CAMPAIGN_LEVELS + 1);
+                rewind.clear(world);
+                hashAt[(int) world.tick] = world.stateHash();
+                levels++;
+            } else {
+                long start = System.nanoTime();
+                long target = rewind.rewindTarget(world);
+                if (target < 0) {
+                    System.out.println("Aucun historique à restaurer au tick " + world.tick);
+                    return -1;
+                }
+                while (rewind.lastTick() > target && rewind.undoTick(world)) { }
+                long published = events.published(), recorded = heatmaps.recorded();
+                rewind.restore(world, target);
+                slowestNanos = Math.max(slowestNanos, System.nanoTime() - start);
+                rewinds++;
+                if (world.tick != target || world.stateHash() != hashAt[(int) target]) {
+                    System.out.println("Le retour au tick " + target + " ne redonne pas l'état d'origine");
+                    return -1;
+                }
+                if (!events.awaitConsumed(10_000) || events.published() != published || !Arrays.equals(tally.counts, events.counts)) {
+                    System.out.println("Le retour au tick " + target + " republie des événements déjà comptés");
+                    return -1;
+                }
+                if (heatmaps.recorded() != recorded) {
+                    System.out.println("Le retour au tick " + target + " enregistre à nouveau des échantillons de carte de chaleur");
+                    return -1;
+                }
+            }
+        }
+        if (!report) return allocated;
+        boolean allocationOk = allocated <= ALLOCATION_BUDGET_BYTES;
+        System.out.printf("%,d ticks, %d niveaux, %d retours en arrière identiques à l'original, le plus lent en %.2f ms%n",
+                ticks, levels, rewinds, slowestNanos / 1e6);
+        System.out.printf("enregistrement : %,d octets alloués sur %,d ticks mesurés%s%n", allocated, measured, allocationOk ? "" : "  <- ÉCHEC");
+        System.out.printf("mémoire : %,d octets pour %d s d'historique (%d ticks au tick le plus rapide), soit %,d octets par seconde%n",
+                rewind.bytes(), RewindBuffer.HISTORY_MS / 1000, rewind.historyTicks, rewind.bytes() * 1000 / RewindBuffer.HISTORY_MS);
+        return allocated;
+    }
+
+    // =================================================================================
+    // LAN multiplayer
+    // =================================================================================
+
+    /**
+     * EN: A maze shared by up to four runners, simulated by the server alone. The level is built by a {@link GameWorld}
+     *     (the same walls and dots as the mission), runners start in the corners, and the level's enemies step towards
+     *     the nearest runner along a distance field spread from every runner at once. A caught runner loses
+     *     {@value #CAUGHT_PENALTY} points and comes back to its corner after {@value #RESPAWN_TICKS} ticks. When the last
+     *     dot is eaten the next level starts, scores carrying over. Clients hold a mirror of the world, filled from the
+     *     state images that the server sends (see {@link #writeImage}).
+     * FR: Un labyrinthe partagé par jusqu'à quatre coureurs, simulé par le serveur seul. Le niveau est construit par un
+     *     {@link GameWorld} (les mêmes murs et points que la mission), les coureurs partent des coins, et les ennemis du
+     *     niveau avancent vers le coureur le plus proche en suivant un champ de distances propagé depuis tous les
+     *     coureurs à la fois. Un coureur attrapé perd {@value #CAUGHT_PENALTY} points et revient dans son coin après
+     *     {@value #RESPAWN_TICKS} ticks. Quand le dernier point est mangé, le niveau suivant commence et les scores sont
+     *     conservés. Les clients tiennent un miroir du monde, rempli à partir des images d'état que le serveur envoie
+     *     (voir {@link #writeImage}).
+     */
+    private static final class ArenaWorld {
+        static final int MAX_RUNNERS = 4, MAX_ENEMIES = 16;
+        static final int RESPAWN_TICKS = 20, CAUGHT_PENALTY = 100;
+        private static final int WANDER_PERCENT = 20, SAFE_SPAWN_DISTANCE = 5;
+        private static final int UNREACHED = Integer.MAX_VALUE;
+        private static final int FLAG_JOINED = 1, FLAG_RESPAWNING = 2;
+        private static final WorldConfig BOARD = WorldConfig.classic();
+
+        final long seed;
+        final int gridCols, gridRows;
+        final boolean[] walls, dots;
+        int level, dotCount;
+        long tick;
+        final boolean[] joined = new boolean[MAX_RUNNERS];
+        final int[] runnerX = new int[MAX_RUNNERS], runnerY = new int[MAX_RUNNERS], score = new int[MAX_RUNNERS];
+        final int[] respawnTicks = new int[MAX_RUNNERS];
+        /**
+         * EN: How many inputs of each runner the server has applied; a client predicts its own runner from the others.
+         * FR: Le nombre de commandes de chaque coureur appliquées par le serveur ; un client prédit son coureur à partir
+         *     des suivantes.
+         */
+        final int[] inputsApplied = new int[MAX_RUNNERS];
+        final int[] enemyX = new int[MAX_ENEMIES], enemyY = new int[MAX_ENEMIES];
+        int enemyCount;
+        private final int[] spawnCell = new int[MAX_RUNNERS], lastRunnerCell = new int[MAX_RUNNERS];
+        private final int[] distance, queue;
+
+        /**
+         * EN: Creates the server's world at a level.
+         * FR: Crée le monde du serveur à un niveau donné.
+         */
+        ArenaWorld(long seed, int level) {
+            this(seed, BOARD.gridCols, BOARD.gridRows);
+            loadLevel(level);
+        }
+
+        /**
+         * EN: Creates an empty mirror, to be filled by {@link #readImage}.
+         * FR: Crée un miroir vide, à remplir par {@link #readImage}.
+         */
+        ArenaWorld(int gridCols, int gridRows) {
+            this(0, gridCols, gridRows);
+        }
+
+        private ArenaWorld(long seed, int gridCols, int gridRows) {
+            this.seed = seed;
+            this.gridCols = gridCols;
+            this.gridRows = gridRows;
+            this.walls = new boolean[gridCols * gridRows];
+            this.dots = new boolean[gridCols * gridRows];
+            this.distance = new int[gridCols * gridRows];
+            this.queue = new int[gridCols * gridRows];
+        }
+
+        /**
+         * EN: Builds a level: maze and dots from the generator, a start cell near each corner, and the level's enemies
+         *     except those that would appear next to a start. Runners in the game go back to their start.
+         * FR: Construit un niveau : labyrinthe et points issus du générateur, une cellule de départ près de chaque coin,
+         *     et les ennemis du niveau sauf ceux qui apparaîtraient à côté d'un départ. Les coureurs en jeu retournent à
+         *     leur départ.
+         */
+        void loadLevel(int level) {
+            this.level = level;
+            GameWorld builder = new GameWorld(BOARD, seed + level);
+            builder.loadLevel(level);
+            System.arraycopy(builder.walls, 0, walls, 0, walls.length);
+            System.arraycopy(builder.dots, 0, dots, 0, dots.length);
+            dotCount = builder.dotCount;
+            boolean[] reached = builder.reachableFrom(gridCols + 1);
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                spawnCell[r] = nearestReached(reached, (r & 1) == 0 ? 1 : gridCols - 2, r < 2 ? 1 : gridRows - 2);
+                if (dots[spawnCell[r]]) { dots[spawnCell[r]] = false; dotCount--; }
+                if (joined[r]) placeAtSpawn(r);
+            }
+            enemyCount = 0;
+            EnemyStore planned = builder.enemies;
+            for (int h = 0; h < planned.scheduled() && enemyCount < MAX_ENEMIES; h++) {
+                int cell = planned.spawnCell(h), x = cell % gridCols, y = cell / gridCols;
+                if (!reached[cell] || nearSpawn(x, y)) continue;
+                enemyX[enemyCount] = x;
+                enemyY[enemyCount] = y;
+                enemyCount++;
+            }
+        }
+
+        private int nearestReached(boolean[] reached, int x, int y) {
+            int best = -1, bestDistance = Integer.MAX_VALUE;
+            for (int c = 0; c < reached.length; c++) {
+                int d = Math.abs(c % gridCols - x) + Math.abs(c / gridCols - y);
+                if (reached[c] && d < bestDistance) { best = c; bestDistance = d; }
+            }
+            return best;
+        }
+
+        private boolean nearSpawn(int x, int y) {
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                if (Math.abs(spawnCell[r] % gridCols - x) + Math.abs(spawnCell[r] / gridCols - y) < SAFE_SPAWN_DISTANCE) return true;
+            }
+            return false;
+        }
+
+        private void placeAtSpawn(int runner) {
+            runnerX[runner] = spawnCell[runner] % gridCols;
+            runnerY[runner] = spawnCell[runner] / gridCols;
+            lastRunnerCell[runner] = spawnCell[runner];
+        }
+
+        /**
+         * EN: Adds a runner at the first free start.
+         * FR: Ajoute un coureur au premier départ libre.
+         * @return The runner's slot, or -1 if the game is full.
+         */
+        int join() {
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                if (joined[r]) continue;
+                joined[r] = true;
+                score[r] = respawnTicks[r] = inputsApplied[r] = 0;
+                placeAtSpawn(r);
+                return r;
+            }
+            return -1;
+        }
+
+        void leave(int runner) {
+            joined[runner] = false;
+        }
+
+        /**
+         * EN: Applies a runner's next input: one step in a direction of {@link GameWorld#DX}, eating the dot there. The
+         *     input counts as applied even when the runner is waiting to come back or walks into a wall.
+         * FR: Applique la commande suivante d'un coureur : un pas dans une direction de {@link GameWorld#DX}, en mangeant
+         *     le point qui s'y trouve. La commande compte comme appliquée même si le coureur attend de revenir ou marche
+         *     dans un mur.
+         */
+        void applyInput(int runner, int dir) {
+            inputsApplied[runner]++;
+            if (!joined[runner] || respawnTicks[runner] > 0) return;
+            int x = runnerX[runner] + GameWorld.DX[dir], y = runnerY[runner] + GameWorld.DY[dir];
+            if (!isWalkable(x, y)) return;
+            runnerX[runner] = x;
+            runnerY[runner] = y;
+            int cell = y * gridCols + x;
+            if (dots[cell]) { dots[cell] = false; dotCount--; score[runner] += 10; }
+        }
+
+        boolean isWalkable(int x, int y) {
+            return x >= 0 && y >= 0 && x < gridCols && y < gridRows && !walls[y * gridCols + x];
+        }
+
+        boolean isPlaying(int runner) {
+            return joined[runner] && respawnTicks[runner] == 0;
+        }
+
+        /**
+         * EN: Advances the world by one tick, after the tick's inputs: runners come back, enemies move two ticks in three
+         *     and catch the runners they reach or swap cells with, and a cleared level gives way to the next.
+         * FR: Fait avancer le monde d'un tick, après les commandes du tick : les coureurs reviennent, les ennemis avancent
+         *     deux ticks sur trois et attrapent les coureurs qu'ils atteignent ou avec qui ils échangent leur cellule, et
+         *     un niveau terminé laisse place au suivant.
+         */
+        void step() {
+            tick++;
+            for (int r = 0; r < MAX_RUNNERS; r++) if (respawnTicks[r] > 0) respawnTicks[r]--;
+            spreadDistances();
+            boolean moving = tick % 3 != 2;
+            for (int i = 0; i < enemyCount; i++) {
+                int x = enemyX[i], y = enemyY[i], from = y * gridCols + x;
+                if (moving && distance[from] != UNREACHED) {
+                    int best = distance[from];
+                    boolean wander = GameRandom.roll(seed, tick, i, 100) < WANDER_PERCENT;
+                    int first = GameRandom.roll(seed, tick, i + MAX_ENEMIES, 4);
+                    for (int k = 0; k < 4; k++) {
+                        int dir = (first + k) & 3, nx = x + GameWorld.DX[dir], ny = y + GameWorld.DY[dir];
+                        if (!isWalkable(nx, ny)) continue;
+                        int nd = distance[ny * gridCols + nx];
+                        if (wander) { enemyX[i] = nx; enemyY[i] = ny; break; }
+                        if (nd < best) { best = nd; enemyX[i] = nx; enemyY[i] = ny; }
+                    }
+                }
+                int to = enemyY[i] * gridCols + enemyX[i];
+                for (int r = 0; r < MAX_RUNNERS; r++) {
+                    if (!isPlaying(r)) continue;
+                    int cell = runnerY[r] * gridCols + runnerX[r];
+                    if (cell == to || (cell == from && lastRunnerCell[r] == to)) caught(r);
+                }
+            }
+            for (int r = 0; r < MAX_RUNNERS; r++) lastRunnerCell[r] = runnerY[r] * gridCols + runnerX[r];
+            if (dotCount == 0) loadLevel(level % CAMPAIGN_LEVELS + 1);
+        }
+
+        private void caught(int runner) {
+            score[runner] = Math.max(0, score[runner] - CAUGHT_PENALTY);
+            respawnTicks[runner] = RESPAWN_TICKS;
+            placeAtSpawn(runner);
+        }
+
+        /**
+         * EN: Fills {@code distance} with the walking distance from each cell to the nearest runner in play.
+         * FR: Remplit {@code distance} avec la distance de marche entre chaque cellule et le coureur en jeu le plus proche.
+         */
+        private void spreadDistances() {
+            Arrays.fill(distance, UNREACHED);
+            int head = 0, tail = 0;
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                int cell = runnerY[r] * gridCols + runnerX[r];
+                if (!isPlaying(r) || distance[cell] == 0) continue;
+                distance[cell] = 0;
+                queue[tail++] = cell;
+            }
+            while (head < tail) {
+                int c = queue[head++], x = c % gridCols, y = c / gridCols;
+                for (int d = 0; d < 4; d++) {
+                    int nx = x + GameWorld.DX[d], ny = y + GameWorld.DY[d];
+                    if (!isWalkable(nx, ny)) continue;
+                    int n = ny * gridCols + nx;
+                    if (distance[n] != UNREACHED) continue;
+                    distance[n] = distance[c] + 1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+
+        /**
+         * EN: The size of a state image, the same for every tick of a board.
+         * FR: La taille d'une image d'état, la même à chaque tick d'un plateau.
+         */
+        static int imageBytes(int gridCols, int gridRows) {
+            return 4 + 1 + 2 + MAX_RUNNERS * (1 + 1 + 1 + 4 + 4) + 1 + 2 * MAX_ENEMIES + 2 * ((gridCols * gridRows + 7) / 8);
+        }
+
+        /**
+         * EN: Writes the state clients see as a fixed-layout image, so that consecutive images line up byte for byte and
+         *     mostly cancel out in a delta. Walls only change with the level and cost nothing in between.
+         *     <pre>
+         *     int tick, byte level, short dots left
+         *     per runner   byte flags (1 joined, 2 coming back), byte x, byte y, int score, int inputs applied
+         *     byte enemy count, then MAX_ENEMIES times byte x, byte y (zeros past the count)
+         *     bits walls, bits dots
+         *     </pre>
+         * FR: Écrit l'état visible des clients sous la forme d'une image de disposition fixe, pour que des images
+         *     successives s'alignent octet par octet et s'annulent presque entièrement dans un delta. Les murs ne changent
+         *     qu'avec le niveau et ne coûtent rien entre-temps. Le format est décrit ci-dessus.
+         */
+        void writeImage(ByteBuffer out) {
+            out.putInt((int) tick).put((byte) level).putChar((char) dotCount);
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                int flags = (joined[r] ? FLAG_JOINED : 0) | (respawnTicks[r] > 0 ? FLAG_RESPAWNING : 0);
+                out.put((byte) flags).put((byte) runnerX[r]).put((byte) runnerY[r]).putInt(score[r]).putInt(inputsApplied[r]);
+            }
+            out.put((byte) enemyCount);
+            for (int i = 0; i < MAX_ENEMIES; i++) {
+                out.put((byte) (i < enemyCount ? enemyX[i] : 0)).put((byte) (i < enemyCount ? enemyY[i] : 0));
+            }
+            LevelPack.putBits(out, walls);
+            LevelPack.putBits(out, dots);
+        }
+
+        /**
+         * EN: Replaces the mirror's state with an image written by {@link #writeImage}.
+         * FR: Remplace l'état du miroir par une image écrite par {@link #writeImage}.
+         */
+        void readImage(ByteBuffer in) {
+            tick = in.getInt();
+            level = in.get();
+            in.getChar();
+            for (int r = 0; r < MAX_RUNNERS; r++) {
+                int flags = in.get();
+                joined[r] = (flags & FLAG_JOINED) != 0;
+                respawnTicks[r] = (flags & FLAG_RESPAWNING) != 0 ? 1 : 0;
+                runnerX[r] = in.get() & 0xFF;
+                runnerY[r] = in.get() & 0xFF;
+                score[r] = in.getInt();
+                inputsApplied[r] = in.getInt();
+            }
+            enemyCount = in.get();
+            for (int i = 0; i < MAX_ENEMIES; i++) {
+                enemyX[i] = in.get() & 0xFF;
+                enemyY[i] = in.get() & 0xFF;
+            }
+            LevelPack.getBits(in, walls);
+            dotCount = LevelPack.getBits(in, dots);
+        }
+    }
+
+    /**
+     * EN: Delta compression of fixed-size images against a baseline the receiver already holds. The delta is a series of
+     *     runs: a varint count of unchanged bytes to skip, a varint count of new bytes, then those bytes. Unchanged
+     *     bytes at the end are left out, so an unchanged image encodes to nothing. Without a baseline the image is
+     *     compared with zeros, which gives a compact full image.
+     * FR: Compression par différence d'images de taille fixe, par rapport à une image de référence que le destinataire
+     *     possède déjà. Le delta est une suite de plages : un varint du nombre d'octets inchangés à sauter, un varint du
+     *     nombre d'octets nouveaux, puis ces octets. Les octets inchangés de la fin sont omis, donc une image inchangée
+     *     ne s'encode en rien. Sans référence, l'image est comparée à des zéros, ce qui donne une image complète compacte.
+     */
+    private static final class SnapshotDelta {
+        /**
+         * EN: Unchanged gaps shorter than this are sent as new bytes, which costs less than starting another run.
+         * FR: Les écarts inchangés plus courts que ceci sont envoyés comme octets nouveaux, ce qui coûte moins cher que
+         *     de commencer une autre plage.
+         */
+        private static final int MIN_GAP = 3;
+
+        private SnapshotDelta() {}
+
+        /**
+         * EN: Writes the delta from a baseline to an image.
+         * FR: Écrit le delta d'une image de référence vers une image.
+         * @param base The baseline, or null for zeros.
+         */
+        static void encode(byte[] base, byte[] image, int length, ByteBuffer out) {
+            int i = 0;
+            while (i < length) {
+                int start = i;
+                while (i < length && image[i] == at(base, i)) i++;
+                if (i == length) return;
+                int end = i;
+                for (int j = i; j < length; j++) {
+                    if (image[j] != at(base, j)) end = j + 1;
+                    else if (j - end + 1 >= MIN_GAP) break;
+                }
+                putVarint(out, i - start);
+                putVarint(out, end - i);
+                out.put(image, i, end - i);
+                i = end;
+            }
+        }
+
+        /**
+         * EN: Rebuilds an image from its baseline and the rest of a packet, which must hold one delta.
+         * FR: Reconstruit une image à partir de sa référence et du reste d'un paquet, qui doit contenir un delta.
+         * @param base The baseline, or null for zeros.
+         * @throws IllegalArgumentException If the delta reaches past the image.
+         */
+        static void decode(byte[] base, ByteBuffer in, byte[] image, int length) {
+            if (base == null) Arrays.fill(image, 0, length, (byte) 0);
+            else System.arraycopy(base, 0, image, 0, length);
+            int i = 0;
+            while (in.hasRemaining()) {
+                i += getVarint(in);
+                int n = getVarint(in);
+                if (i + n > length) throw new IllegalArgumentException("delta hors de l'image");
+                in.get(image, i, n);
+                i += n;
+            }
+        }
+
+        private static byte at(byte[] base, int i) {
+            return base == null ? 0 : base[i];
+        }
+
+        static void putVarint(ByteBuffer out, int value) {
+            while (value >= 0x80) { out.put((byte) (value | 0x80)); value >>>= 7; }
+            out.put((byte) value);
+        }
+
+        static int getVarint(ByteBuffer in) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+    /**
+     * EN: The authoritative server of a LAN game. One thread runs a non-blocking {@link Selector} loop over a UDP
+     *     channel: it reads client packets as they come and steps the {@link ArenaWorld} at a fixed rate. After each
+     *     tick, every client gets the new state image as a delta against the last image it acknowledged, or a full
+     *     image if it has acknowledged none of the last {@value #HISTORY} ticks. A lost packet costs nothing more than
+     *     a bigger delta on the next tick, and a client that cannot keep up simply drops datagrams.
+     *     <pre>
+     *     client  'J' byte protocol                    join, repeated until welcomed
+     *             'I' int acked tick, int first input, byte count, count x byte direction
+     *                                                  every input not yet applied, sent again until it is
+     *             'L'                                  leave
+     *     server  'W' byte slot, short columns, short rows
+     *             'R'                                  game full
+     *             'S' int tick, int baseline tick (-1 for none), short last tick time in µs, delta (see {@link SnapshotDelta})
+     *     </pre>
+     *     A runner's inputs are applied in order, at most {@value #MOVES_PER_TICK} per tick. Clients silent for
+     *     {@value #TIMEOUT_MS} ms are dropped.
+     * FR: Le serveur qui fait autorité dans une partie en réseau local. Un thread fait tourner une boucle non bloquante
+     *     sur un {@link Selector} et un canal UDP : il lit les paquets des clients à leur arrivée et fait avancer
+     *     l'{@link ArenaWorld} à cadence fixe. Après chaque tick, chaque client reçoit la nouvelle image d'état sous la
+     *     forme d'un delta par rapport à la dernière image qu'il a acquittée, ou une image complète s'il n'a acquitté
+     *     aucun des {@value #HISTORY} derniers ticks. Un paquet perdu ne coûte qu'un delta plus gros au tick suivant, et
+     *     un client qui ne suit pas perd simplement des datagrammes. Le protocole est décrit ci-dessus. Les commandes
+     *     d'un coureur sont appliquées dans l'ordre, au plus {@value #MOVES_PER_TICK} par tick. Les clients muets pendant
+     *     {@value #TIMEOUT_MS} ms sont retirés.
+     */
+    private static final class ArenaServer implements Closeable {
+        static final int PORT = 4777, PROTOCOL = 1, TICK_MS = 110;
+        static final int HISTORY = 64, MAX_INPUTS = 32, MOVES_PER_TICK = 2, MAX_PACKET = 1400;
+        static final long TIMEOUT_MS = 5000;
+        static final byte JOIN = 'J', INPUT = 'I', LEAVE = 'L', WELCOME = 'W', REFUSED = 'R', SNAPSHOT = 'S';
+
+        /**
+         * EN: A connected client: its runner, the last tick it acknowledged, the inputs it sent, and what it was sent.
+         * FR: Un client connecté : son coureur, le dernier tick qu'il a acquitté, les commandes qu'il a envoyées, et ce
+         *     qui lui a été envoyé.
+         */
+        private static final class Peer {
+            final SocketAddress address;
+            final int slot;
+            final long joinedNanos = System.nanoTime();
+            long lastHeardNanos = joinedNanos;
+            int ackedTick = -1;
+            final byte[] inputs = new byte[MAX_INPUTS];
+            int inputsReceived;
+            long bytesSent, snapshots, fullSnapshots;
+
+            Peer(SocketAddress address, int slot) { this.address = address; this.slot = slot; }
+        }
+
+        final ArenaWorld world;
+        final int tickMs;
+        private final DatagramChannel channel;
+        private final Selector selector;
+        private final Peer[] peers = new Peer[ArenaWorld.MAX_RUNNERS];
+        private final HashMap<SocketAddress, Peer> byAddress = new HashMap<>();
+        private final int imageBytes;
+        private final byte[][] history;
+        private final ByteBuffer[] historyBuffers;
+        private final ByteBuffer in = ByteBuffer.allocate(MAX_PACKET), out = ByteBuffer.allocate(MAX_PACKET);
+        private volatile boolean open = true, serving;
+        /**
+         * EN: Prints {@link #summary} this often while serving, or never if 0.
+         * FR: Affiche {@link #summary} à cette fréquence pendant le service, ou jamais si 0.
+         */
+        long reportEveryMs;
+        long ticks, tickNanos, maxTickNanos, badPackets;
+        private int lastTickMicros;
+
+        /**
+         * EN: Opens the server's channel; {@link #serve} then runs it.
+         * FR: Ouvre le canal du serveur ; {@link #serve} le fait ensuite tourner.
+         * @param bind The address to listen on.
+         * @param seed The seed of the mazes.
+         * @param tickMs The tick length in milliseconds.
+         */
+        ArenaServer(InetSocketAddress bind, long seed, int tickMs) throws IOException {
+            this.world = new ArenaWorld(seed, 1);
+            this.tickMs = tickMs;
+            this.imageBytes = ArenaWorld.imageBytes(world.gridCols, world.gridRows);
+            // Pire cas d'un delta : une plage par octet sur deux, plus l'en-tête.
+            if (imageBytes * 2 + 16 > MAX_PACKET) throw new IllegalArgumentException("plateau trop grand pour un datagramme");
+            this.history = new byte[HISTORY][imageBytes];
+            this.historyBuffers = new ByteBuffer[HISTORY];
+            for (int k = 0; k < HISTORY; k++) historyBuffers[k] = ByteBuffer.wrap(history[k]);
+            this.channel = DatagramChannel.open();
+            this.selector = Selector.open();
+            try {
+                channel.bind(bind);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ);
+            } catch (IOException e) {
+                closeChannel();
+                throw e;
+            }
+        }
+
+        /**
+         * EN: Starts a server on all interfaces, on a daemon thread.
+         * FR: Démarre un serveur sur toutes les interfaces, dans un thread démon.
+         */
+        static ArenaServer startInBackground(int port, long seed) throws IOException {
+            ArenaServer server = new ArenaServer(new InetSocketAddress(port), seed, TICK_MS);
+            Thread thread = new Thread(server::serve, "serveur-arene");
+            thread.setDaemon(true);
+            thread.start();
+            return server;
+        }
+
+        int port() throws IOException {
+            return ((InetSocketAddress) channel.getLocalAddress()).getPort();
+        }
+
+        /**
+         * EN: Runs the server until {@link #close}: waits on the selector until a packet arrives or the next tick is due.
+         *     After a hitch, the server starts counting ticks again from now rather than running the missed ones in a burst.
+         * FR: Fait tourner le serveur jusqu'à {@link #close} : attend sur le sélecteur l'arrivée d'un paquet ou l'heure du
+         *     tick suivant. Après une saccade, le serveur recommence à compter les ticks à partir de maintenant plutôt que
+         *     de rattraper d'un coup ceux qu'il a manqués.
+         */
+        void serve() {
+            serving = true;
+            long period = tickMs * 1_000_000L, next = System.nanoTime() + period, nextReport = System.nanoTime() + reportEveryMs * 1_000_000L;
+            try {
+                while (open) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) selector.select(Math.max(1, wait / 1_000_000));
+                    else selector.selectNow();
+                    selector.selectedKeys().clear();
+                    receive();
+                    long now = System.nanoTime();
+                    if (now - next < 0) continue;
+                    tick();
+                    next = now - next > period ? now + period : next + period;
+                    if (reportEveryMs > 0 && now - nextReport >= 0) {
+                        System.out.println(summary());
+                        nextReport = now + reportEveryMs * 1_000_000L;
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (open) System.err.println("Serveur arrêté : " + e.getMessage());
+            } finally {
+                closeChannel();
+            }
+        }
+
+        /**
+         * EN: Handles every packet waiting on the channel, without blocking.
+         * FR: Traite tous les paquets en attente sur le canal, sans bloquer.
+         */
+        void receive() throws IOException {
+            SocketAddress from;
+            while ((from = channel.receive(in.clear())) != null) {
+                in.flip();
+                try {
+                    if (in.hasRemaining()) handle(from, in);
+                } catch (BufferUnderflowException e) {
+                    badPackets++;
+                }
+            }
+        }
+
+        private void handle(SocketAddress from, ByteBuffer packet) throws IOException {
+            byte type = packet.get();
+            Peer peer = byAddress.get(from);
+            if (type == JOIN) {
+                if (peer == null) {
+                    int slot = packet.get() == PROTOCOL ? world.join() : -1;
+                    if (slot < 0) { sendControl(from, REFUSED); return; }
+                    peer = new Peer(from, slot);
+                    peers[slot] = peer;
+                    byAddress.put(from, peer);
+                }
+                peer.lastHeardNanos = System.nanoTime();
+                out.clear();
+                out.put(WELCOME).put((byte) peer.slot).putChar((char) world.gridCols).putChar((char) world.gridRows);
+                channel.send(out.flip(), from);
+                return;
+            }
+            if (peer == null) return;
+            peer.lastHeardNanos = System.nanoTime();
+            if (type == LEAVE) { drop(peer); return; }
+            if (type != INPUT) { badPackets++; return; }
+            int acked = packet.getInt();
+            if (acked > peer.ackedTick && acked <= world.tick) peer.ackedTick = acked;
+            int first = packet.getInt(), count = packet.get() & 0xFF;
+            for (int k = 0; k < count; k++) {
+                int seq = first + k, dir = packet.get() & 3;
+                if (seq != peer.inputsReceived || seq - world.inputsApplied[peer.slot] >= MAX_INPUTS) continue;
+                peer.inputs[seq % MAX_INPUTS] = (byte) dir;
+                peer.inputsReceived++;
+            }
+        }
+
+        private void sendControl(SocketAddress to, byte type) throws IOException {
+            out.clear();
+            channel.send(out.put(type).flip(), to);
+        }
+
+        private void drop(Peer peer) {
+            world.leave(peer.slot);
+            peers[peer.slot] = null;
+            byAddress.remove(peer.address);
+        }
+
+        /**
+         * EN: Runs one tick: drops silent clients, applies the inputs received, steps the world, records its image and
+         *     sends each client its delta. The time spent, sends included, is the server's tick time.
+         * FR: Exécute un tick : retire les clients muets, applique les commandes reçues, fait avancer le monde, enregistre
+         *     son image et envoie à chaque client son delta. Le temps passé, envois compris, est le temps de tick du serveur.
+         */
+        void tick() throws IOException {
+            long start = System.nanoTime();
+            for (Peer peer : peers) {
+                if (peer != null && start - peer.lastHeardNanos > TIMEOUT_MS * 1_000_000L) drop(peer);
+            }
+            for (Peer peer : peers) {
+                if (peer == null) continue;
+                for (int moves = 0; moves < MOVES_PER_TICK && world.inputsApplied[peer.slot] < peer.inputsReceived; moves++) {
+                    world.applyInput(peer.slot, peer.inputs[world.inputsApplied[peer.slot] % MAX_INPUTS]);
+                }
+            }
+            world.step();
+            int index = (int) (world.tick % HISTORY);
+            world.writeImage(historyBuffers[index].clear());
+            for (Peer peer : peers) if (peer != null) sendSnapshot(peer, history[index]);
+            long spent = System.nanoTime() - start;
+            ticks++;
+            tickNanos += spent;
+            maxTickNanos = Math.max(maxTickNanos, spent);
+            lastTickMicros = (int) Math.min(Character.MAX_VALUE, spent / 1000);
+        }
+
+        private void sendSnapshot(Peer peer, byte[] image) throws IOException {
+            int base = peer.ackedTick;
+            byte[] baseline = base >= 0 && world.tick - base < HISTORY ? history[base % HISTORY] : null;
+            out.clear();
+            out.put(SNAPSHOT).putInt((int) world.tick).putInt(baseline == null ? -1 : base).putChar((char) lastTickMicros);
+            SnapshotDelta.encode(baseline, image, imageBytes, out);
+            int bytes = out.flip().remaining();
+            // Un tampon d'envoi plein rend 0 : l'instantané est perdu comme un paquet, le suivant le rattrape.
+            if (channel.send(out, peer.address) == 0) return;
+            peer.bytesSent += bytes;
+            peer.snapshots++;
+            if (baseline == null) peer.fullSnapshots++;
+        }
+
+        /**
+         * EN: The server's tick time and, for each client, the bandwidth it uses and how its snapshots were sent.
+         * FR: Le temps de tick du serveur et, pour chaque client, la bande passante qu'il utilise et la façon dont ses
+         *     instantanés ont été envoyés.
+         */
+        String summary() {
+            StringBuilder text = new StringBuilder(String.format("tick serveur : %.1f µs en moyenne, %.1f µs au plus (%,d ticks, image de %d octets)",
+                    ticks == 0 ? 0.0 : tickNanos / 1e3 / ticks, maxTickNanos / 1e3, ticks, imageBytes));
+            long now = System.nanoTime();
+            for (Peer peer : peers) {
+                if (peer == null) continue;
+                double seconds = Math.max(1e-3, (now - peer.joinedNanos) / 1e9);
+                text.append(String.format("%n  J%d %s : %,.0f o/s, %,d instantanés dont %d complets, %.1f octets en moyenne",
+                        peer.slot + 1, peer.address, peer.bytesSent / seconds, peer.snapshots, peer.fullSnapshots,
+                        peer.snapshots == 0 ? 0.0 : (double) peer.bytesSent / peer.snapshots));
+            }
+            return text.toString();
+        }
+
+        @Override
+        public void close() {
+            open = false;
+            if (serving) selector.wakeup();
+            else closeChannel();
+        }
+
+        private void closeChannel() {
+            try {
+                selector.close();
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Impossible de fermer le serveur : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * EN: A player's connection to an {@link ArenaServer}. It is polled from the game loop and never blocks: it decodes
+     *     the snapshots that arrived into {@link #view}, acknowledges the newest, and sends again every input the server
+     *     has not applied yet. The player's own runner is predicted: each input moves it at once, and every snapshot
+     *     replays the inputs the server has not applied on top of the server's position. Other runners and enemies are
+     *     shown as the server last sent them.
+     * FR: La connexion d'un joueur à un {@link ArenaServer}. Elle est interrogée depuis la boucle de jeu et ne bloque
+     *     jamais : elle décode dans {@link #view} les instantanés arrivés, acquitte le plus récent, et renvoie chaque
+     *     commande que le serveur n'a pas encore appliquée. Le coureur du joueur est prédit : chaque commande le déplace
+     *     aussitôt, et chaque instantané rejoue les commandes non encore appliquées par le serveur à partir de la
+     *     position du serveur. Les autres coureurs et les ennemis sont affichés tels que le serveur les a envoyés.
+     */
+    private static final class ArenaClient implements Steerable, Closeable {
+        static final int FRAME_MS = 16;
+        private static final long JOIN_RETRY_MS = 500, CONNECT_TIMEOUT_MS = 5000;
+        private static final int HISTORY = ArenaServer.HISTORY, MAX_INPUTS = ArenaServer.MAX_INPUTS;
+
+        private final DatagramChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(ArenaServer.MAX_PACKET), out = ByteBuffer.allocate(ArenaServer.MAX_PACKET);
+        private final long startedMs = System.currentTimeMillis();
+        private long lastJoinMs = Long.MIN_VALUE / 2, lastSnapshotMs;
+        /**
+         * EN: The world as of the newest snapshot, or null until the server answers.
+         * FR: Le monde selon l'instantané le plus récent, ou null tant que le serveur n'a pas répondu.
+         */
+        ArenaWorld view;
+        int slot = -1, latestTick = -1;
+        boolean refused;
+        private int imageBytes;
+        private byte[][] received;
+        private ByteBuffer[] receivedBuffers;
+        private int[] receivedTick;
+        private final byte[] pending = new byte[MAX_INPUTS];
+        private int inputsSent;
+        int predictedX, predictedY;
+        /**
+         * EN: Snapshots that moved the runner away from where the client had predicted it, such as when it was caught.
+         * FR: Instantanés qui ont déplacé le coureur loin de là où le client l'avait prédit, par exemple quand il a été attrapé.
+         */
+        long corrections;
+        long snapshots, fullSnapshots, unusable, bytesReceived;
+        int serverTickMicros;
+        double bytesPerSecond;
+        private long rateWindowStartMs = startedMs, rateWindowBytes;
+        /**
+         * EN: The share of packets, in percent, dropped on purpose in each direction to test recovery; 0 in play.
+         * FR: La part des paquets, en pourcentage, perdus exprès dans chaque sens pour tester la reprise ; 0 en jeu.
+         */
+        int lossPercent;
+        private final GameRandom loss = new GameRandom(System.nanoTime());
+
+        /**
+         * EN: Opens a connection to a server; the join request goes out on the first {@link #poll}.
+         * FR: Ouvre une connexion vers un serveur ; la demande d'entrée part au premier {@link #poll}.
+         */
+        ArenaClient(InetSocketAddress server) throws IOException {
+            if (server.isUnresolved()) throw new IOException("hôte inconnu : " + server.getHostString());
+            channel = DatagramChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.connect(server);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * EN: Parses "host" or "host:port".
+         * FR: Analyse « hôte » ou « hôte:port ».
+         * @param defaultPort The port when none is given.
+         * @throws IllegalArgumentException If the port is not a number.
+         */
+        static InetSocketAddress parseAddress(String address, int defaultPort) {
+            int colon = address.lastIndexOf(':');
+            if (colon < 0) return new InetSocketAddress(address, defaultPort);
+            return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        }
+
+        /**
+         * EN: Handles what arrived since the last call, then acknowledges it and sends the pending inputs again.
+         * FR: Traite ce qui est arrivé depuis le dernier appel, puis l'acquitte et renvoie les commandes en attente.
+         */
+        void poll() throws IOException {
+            long now = System.currentTimeMillis();
+            if (slot < 0 && now - lastJoinMs >= JOIN_RETRY_MS) {
+                lastJoinMs = now;
+                out.clear();
+                send(out.put(ArenaServer.JOIN).put((byte) ArenaServer.PROTOCOL).flip());
+            }
+            boolean fresh = false;
+            try {
+                while (channel.read(in.clear()) > 0) {
+                    in.flip();
+                    bytesReceived += in.remaining();
+                    rateWindowBytes += in.remaining();
+                    if (dropped()) continue;
+                    try {
+                        fresh |= handle(in, now);
+                    } catch (BufferUnderflowException | IllegalArgumentException e) {
+                        unusable++;
+                    }
+                }
+            } catch (PortUnreachableException e) {
+                // L'hôte n'écoute pas encore, ou plus : la demande d'entrée est répétée, puis la connexion expire.
+            }
+            if (fresh) sendInputs();
+            if (now - rateWindowStartMs >= 1000) {
+                bytesPerSecond = rateWindowBytes * 1000.0 / (now - rateWindowStartMs);
+                rateWindowStartMs = now;
+                rateWindowBytes = 0;
+            }
+        }
+
+        private boolean handle(ByteBuffer packet, long now) {
+            switch (packet.get()) {
+                case ArenaServer.WELCOME:
+                    if (slot >= 0) return false;
+                    slot = packet.get();
+                    view = new ArenaWorld(packet.getChar(), packet.getChar());
+                    imageBytes = ArenaWorld.imageBytes(view.gridCols, view.gridRows);
+                    received = new byte[HISTORY][imageBytes];
+                    receivedBuffers = new ByteBuffer[HISTORY];
+                    for (int k = 0; k < HISTORY; k++) receivedBuffers[k] = ByteBuffer.wrap(received[k]);
+                    receivedTick = new int[HISTORY];
+                    Arrays.fill(receivedTick, -1);
+                    lastSnapshotMs = now;
+                    return false;
+                case ArenaServer.REFUSED:
+                    refused = slot < 0;
+                    return false;
+                case ArenaServer.SNAPSHOT:
+                    if (view == null) return false;
+                    int tick = packet.getInt(), base = packet.getInt(), micros = packet.getChar();
+                    // Les datagrammes peuvent arriver dans le désordre : un instantané plus ancien n'apporte rien.
+                    if (tick <= latestTick) return false;
+                    byte[] baseline = null;
+                    if (base >= 0) {
+                        if (receivedTick[base % HISTORY] != base) { unusable++; return false; }
+                        baseline = received[base % HISTORY];
+                    }
+                    int index = tick % HISTORY;
+                    SnapshotDelta.decode(baseline, packet, received[index], imageBytes);
+                    receivedTick[index] = tick;
+                    latestTick = tick;
+                    serverTickMicros = micros;
+                    lastSnapshotMs = now;
+                    snapshots++;
+                    if (baseline == null) fullSnapshots++;
+                    view.readImage(receivedBuffers[index].clear());
+                    int wasX = predictedX, wasY = predictedY;
+                    predict();
+                    if (snapshots > 1 && (predictedX != wasX || predictedY != wasY)) corrections++;
+                    return true;
+                default:
+                    unusable++;
+                    return false;
+            }
+        }
+
+        /**
+         * EN: The image of the newest snapshot, as decoded.
+         * FR: L'image de l'instantané le plus récent, telle que décodée.
+         */
+        byte[] latestImage() {
+            return received[latestTick % HISTORY];
+        }
+
+        /**
+         * EN: Places the player's runner where the server has it, then replays the inputs the server has not applied yet.
+         * FR: Place le coureur du joueur là où le serveur l'a mis, puis rejoue les commandes que le serveur n'a pas encore
+         *     appliquées.
+         */
+        private void predict() {
+            predictedX = view.runnerX[slot];
+            predictedY = view.runnerY[slot];
+            if (!view.isPlaying(slot)) return;
+            for (int seq = view.inputsApplied[slot]; seq < inputsSent; seq++) {
+                int dir = pending[seq % MAX_INPUTS], x = predictedX + GameWorld.DX[dir], y = predictedY + GameWorld.DY[dir];
+                if (view.isWalkable(x, y)) { predictedX = x; predictedY = y; }
+            }
+        }
+
+        /**
+         * EN: Moves the player's runner at once and sends the input. Inputs are dropped while {@value ArenaServer#MAX_INPUTS}
+         *     are already waiting for the server.
+         * FR: Déplace aussitôt le coureur du joueur et envoie la commande. Les commandes sont ignorées tant que
+         *     {@value ArenaServer#MAX_INPUTS} attendent déjà le serveur.
+         */
+        @Override
+        public void movePlayer(int dx, int dy) {
+            if (view == null || latestTick < 0 || inputsSent - view.inputsApplied[slot] >= MAX_INPUTS) return;
+            int dir = dx != 0 ? (dx > 0 ? 2 : 3) : (dy > 0 ? 0 : 1);
+            pending[inputsSent % MAX_INPUTS] = (byte) dir;
+            inputsSent++;
+            if (view.isPlaying(slot) && view.isWalkable(predictedX + dx, predictedY + dy)) {
+                predictedX += dx;
+                predictedY += dy;
+            }
+            try {
+                sendInputs();
+            } catch (IOException e) {
+                // Le paquet est perdu ; la commande repart avec le prochain acquittement.
+            }
+        }
+
+        private void sendInputs() throws IOException {
+            int first = view.inputsApplied[slot];
+            out.clear();
+            out.put(ArenaServer.INPUT).putInt(latestTick).putInt(first).put((byte) (inputsSent - first));
+            for (int seq = first; seq < inputsSent; seq++) out.put(pending[seq % MAX_INPUTS]);
+            send(out.flip());
+        }
+
+        private void send(ByteBuffer packet) throws IOException {
+            if (dropped()) return;
+            try {
+                channel.write(packet);
+            } catch (PortUnreachableException e) {
+                // Voir poll.
+            }
+        }
+
+        private boolean dropped() {
+            return lossPercent > 0 && loss.nextInt(100) < lossPercent;
+        }
+
+        /**
+         * EN: Why the game cannot go on, or null while it can.
+         * FR: La raison pour laquelle la partie ne peut pas continuer, ou null tant qu'elle le peut.
+         */
+        String failure() {
+            long now = System.currentTimeMillis();
+            if (refused) return "La partie est complète (" + ArenaWorld.MAX_RUNNERS + " joueurs).";
+            if (slot < 0 && now - startedMs > CONNECT_TIMEOUT_MS) return "L'hôte ne répond pas.";
+            if (slot >= 0 && now - lastSnapshotMs > ArenaServer.TIMEOUT_MS) return "La connexion avec l'hôte est perdue.";
+            return null;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (slot >= 0) {
+                    out.clear();
+                    channel.write(out.put(ArenaServer.LEAVE).flip());
+                }
+            } catch (IOException e) {
+                // L'hôte retirera le joueur à l'expiration du délai.
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Impossible de fermer la connexion : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * EN: Picks a direction for a test runner: towards the nearest dot of the client's view, or at random one tick in five.
+     * FR: Choisit une direction pour un coureur de test : vers le point le plus proche selon la vue du client, ou au hasard
+     *     un tick sur cinq.
+     * @return A direction of {@link GameWorld#DX}.
+     */
+    private static int arenaBotDirection(ArenaClient client, GameRandom random, int[] parent, int[] queue) {
+        ArenaWorld view = client.view;
+        if (random.nextInt(5) == 0) return random.nextInt(4);
+        int cols = view.gridCols, start = client.predictedY * cols + client.predictedX;
+        Arrays.fill(parent, -1);
+        parent[start] = start;
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int c = queue[head++];
+            if (view.dots[c] && c != start) {
+                while (parent[c] != start) c = parent[c];
+                int dx = c % cols - client.predictedX;
+                return dx != 0 ? (dx > 0 ? 2 : 3) : (c / cols > client.predictedY ? 0 : 1);
+            }
+            for (int d = 0; d < 4; d++) {
+                int nx = c % cols + GameWorld.DX[d], ny = c / cols + GameWorld.DY[d];
+                if (!view.isWalkable(nx, ny) || parent[ny * cols + nx] >= 0) continue;
+                parent[ny * cols + nx] = c;
+                queue[tail++] = ny * cols + nx;
+            }
+        }
+        return random.nextInt(4);
+    }
+
+    /**
+     * EN: Plays a LAN game over loopback in one thread: a server and four bot clients, two of which lose a share of their
+     *     packets in both directions. After every tick, each snapshot a client decoded must equal, byte for byte, the
+     *     image the server recorded for that tick. Reports the server's tick time and, per client, the bytes per
+     *     snapshot and per second at the game's tick rate, against full images.
+     * FR: Joue une partie en réseau local sur la boucle locale dans un seul thread : un serveur et quatre clients robots,
+     *     dont deux perdent une part de leurs paquets dans les deux sens. Après chaque tick, chaque instantané décodé par
+     *     un client doit être égal, octet par octet, à l'image enregistrée par le serveur pour ce tick. Affiche le temps
+     *     de tick du serveur et, pour chaque client, les octets par instantané et par seconde au rythme du jeu, comparés
+     *     aux images complètes.
+     * @param seed The seed of the mazes and of the bots.
+     * @param ticks The number of ticks to play.
+     * @param lossPercent The share of packets the lossy clients drop.
+     * @return True if every decoded snapshot matched and every client got snapshots.
+     */
+    private static boolean runNetCheck(long seed, int ticks, int lossPercent) {
+        ArenaClient[] clients = new ArenaClient[ArenaWorld.MAX_RUNNERS];
+        try (ArenaServer server = new ArenaServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), seed, ArenaServer.TICK_MS)) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+            for (int c = 0; c < clients.length; c++) clients[c] = new ArenaClient(address);
+            long deadline = System.currentTimeMillis() + ArenaServer.TIMEOUT_MS;
+            while (Arrays.stream(clients).anyMatch(client -> client.slot < 0)) {
+                if (System.currentTimeMillis() > deadline) { System.out.println("Les clients n'ont pas pu rejoindre le serveur."); return false; }
+                for (ArenaClient client : clients) client.poll();
+                server.receive();
+                Thread.sleep(1);
+            }
+            clients[2].lossPercent = clients[3].lossPercent = lossPercent;
+
+            GameRandom random = new GameRandom(seed);
+            int cells = server.world.gridCols * server.world.gridRows;
+            int[] parent = new int[cells], queue = new int[cells], lastChecked = new int[clients.length];
+            long mismatches = 0, checked = 0;
+            int levels = 1;
+            for (int t = 0; t < ticks; t++) {
+                for (ArenaClient client : clients) {
+                    if (client.latestTick < 0) continue;
+                    int dir = arenaBotDirection(client, random, parent, queue);
+                    client.movePlayer(GameWorld.DX[dir], GameWorld.DY[dir]);
+                }
+                server.receive();
+                int level = server.world.level;
+                server.tick();
+                if (server.world.level != level) levels++;
+                byte[] image = server.history[(int) (server.world.tick % ArenaServer.HISTORY)];
+                for (int c = 0; c < clients.length; c++) {
+                    clients[c].poll();
+                    if (clients[c].latestTick == lastChecked[c] || clients[c].latestTick < 0) continue;
+                    lastChecked[c] = clients[c].latestTick;
+                    checked++;
+                    byte[] expected = clients[c].latestTick == server.world.tick ? image : server.history[clients[c].latestTick % ArenaServer.HISTORY];
+                    if (!Arrays.equals(clients[c].latestImage(), expected)) mismatches++;
+                }
+            }
+
+            int imageBytes = ArenaWorld.imageBytes(server.world.gridCols, server.world.gridRows);
+            double ticksPerSecond = 1000.0 / ArenaServer.TICK_MS;
+            System.out.printf("%,d ticks, %d niveaux, %d clients, perte simulée de %d %% pour J3 et J4%n", ticks, levels, clients.length, lossPercent);
+            System.out.printf("tick serveur : %.1f µs en moyenne, %.1f µs au plus, envois compris%n",
+                    server.tickNanos / 1e3 / server.ticks, server.maxTickNanos / 1e3);
+            boolean ok = mismatches == 0;
+            for (int c = 0; c < clients.length; c++) {
+                ArenaServer.Peer peer = server.peers[clients[c].slot];
+                double perSnapshot = (double) peer.bytesSent / peer.snapshots;
+                System.out.printf("J%d : %,d instantanés reçus (%d complets, %d inutilisables), %.1f octets par instantané, %,.0f o/s à %d ms par tick (images complètes : %,.0f o/s), %d corrections de prédiction%n",
+                        clients[c].slot + 1, clients[c].snapshots, clients[c].fullSnapshots, clients[c].unusable, perSnapshot,
+                        perSnapshot * ticksPerSecond, ArenaServer.TICK_MS, (imageBytes + 11) * ticksPerSecond, clients[c].corrections);
+                ok &= clients[c].snapshots > 0;
+            }
+            System.out.printf("%,d instantanés vérifiés, %s%n", checked, mismatches == 0 ? "tous identiques à l'image du serveur" : mismatches + " différents  <- ÉCHEC");
+
+            for (int c = 0; c < clients.length; c++) { clients[c].close(); clients[c] = null; }
+            Thread.sleep(20);
+            server.receive();
+            boolean emptied = Arrays.stream(server.peers).allMatch(peer -> peer == null);
+            if (!emptied) System.out.println("Les départs des clients n'ont pas été pris en compte  <- ÉCHEC");
+            return ok && emptied;
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Vérification réseau impossible : " + e.getMessage());
+            return false;
+        } finally {
+            for (ArenaClient client : clients) if (client != null) client.close();
+        }
+    }
+
+    // =================================================================================
+    // Spectators
+    // =================================================================================
+
+    /**
+     * EN: Broadcasts a level-based game to any number of spectators, over loopback or LAN sockets or over an in-process
+     *     {@link Pipe}. Each publish encodes the world's view image (see {@link GameWorld#writeView}) once, as a delta
+     *     against the previous publish, into a ring of direct memory. Frames are never modified once written, so every
+     *     viewer's channel writes the same bytes straight from the ring, with no copy per viewer. A viewer that joins,
+     *     or that falls {@value #MAX_BACKLOG_BYTES} bytes behind, has its unsent frames dropped and gets a keyframe of
+     *     the current tick instead. The keyframe is encoded at most once per publish, whoever asks for it. Writes are
+     *     non-blocking: what a socket does not take waits in the viewer's queue, so a slow viewer never holds up the game.
+     *     <pre>
+     *     frame     int length of what follows, byte kind ('K' keyframe, 'D' delta), int sequence
+     *     keyframe  short columns, short rows, int image size, delta against zeros
+     *     delta     delta against the image of the previous sequence (see {@link SnapshotDelta})
+     *     </pre>
+     * FR: Diffuse une partie à niveaux vers un nombre quelconque de spectateurs, par des sockets locales ou du réseau
+     *     local, ou par un {@link Pipe} dans le même processus. Chaque publication encode une seule fois l'image de la
+     *     vue du monde (voir {@link GameWorld#writeView}), en delta par rapport à la publication précédente, dans un
+     *     anneau de mémoire directe. Les trames ne sont jamais modifiées une fois écrites, donc le canal de chaque
+     *     spectateur écrit les mêmes octets directement depuis l'anneau, sans copie par spectateur. Un spectateur qui
+     *     arrive, ou qui prend {@value #MAX_BACKLOG_BYTES} octets de retard, voit ses trames non envoyées abandonnées et
+     *     reçoit à la place une image clé du tick courant. L'image clé est encodée au plus une fois par publication,
+     *     quel que soit le nombre de demandeurs. Les écritures ne bloquent pas : ce qu'une socket n'accepte pas attend
+     *     dans la file du spectateur, donc un spectateur lent ne ralentit jamais la partie. Le format est décrit
+     *     ci-dessus.
+     */
+    private static final class BroadcastHub implements Closeable {
+        static final int PORT = 4778;
+        static final int RING_BYTES = 1 << 20, MAX_BACKLOG_BYTES = 64 * 1024, MAX_QUEUED_FRAMES = 1024;
+        /**
+         * EN: A fixed socket send buffer, so that a stalled spectator's backlog shows in its queue instead of in the kernel.
+         * FR: Un tampon d'envoi fixe, pour que le retard d'un spectateur bloqué se voie dans sa file plutôt que dans le noyau.
+         */
+        static final int SEND_BUFFER_BYTES = 32 * 1024;
+        static final byte KEYFRAME = 'K', DELTA = 'D';
+        private static final int HEADER_BYTES = 4 + 1 + 4, KEYFRAME_HEADER_BYTES = 2 + 2 + 4;
+
+        /**
+         * EN: A spectator's channel and the frames queued for it, as [start, end) positions counted from the ring's
+         *     first byte ever written. {@code sent} is how far the oldest frame has gone out.
+         * FR: Le canal d'un spectateur et les trames en attente pour lui, en positions [début, fin) comptées depuis le
+         *     premier octet jamais écrit dans l'anneau. {@code sent} indique jusqu'où la trame la plus ancienne est partie.
+         */
+        private static final class Viewer {
+            final WritableByteChannel channel;
+            final String name;
+            final ByteBuffer cursor;
+            final long[] start = new long[MAX_QUEUED_FRAMES], end = new long[MAX_QUEUED_FRAMES];
+            int head, size;
+            long sent, queuedBytes;
+            boolean needsKeyframe = true, broken;
+            long frames, keyframes, resyncs, bytesSent;
+
+            Viewer(WritableByteChannel channel, String name, ByteBuffer ring) {
+                this.channel = channel;
+                this.name = name;
+                this.cursor = ring.duplicate();
+            }
+
+            void enqueue(long from, long to) {
+                int tail = (head + size) % MAX_QUEUED_FRAMES;
+                start[tail] = from;
+                end[tail] = to;
+                size++;
+                queuedBytes += to - from;
+            }
+
+            void pop() {
+                queuedBytes -= end[head] - start[head];
+                head = (head + 1) % MAX_QUEUED_FRAMES;
+                size--;
+            }
+
+            /**
+             * EN: Drops the queued frames, except one already partly sent, which must go out whole to keep the stream framed.
+             * FR: Abandonne les trames en attente, sauf une déjà partiellement envoyée, qui doit partir entière pour que
+             *     le flux reste découpé en trames.
+             */
+            void dropUnsent() {
+                boolean started = size > 0 && sent > start[head];
+                while (size > (started ? 1 : 0)) {
+                    int last = (head + size - 1) % MAX_QUEUED_FRAMES;
+                    queuedBytes -= end[last] - start[last];
+                    size--;
+                }
+            }
+
+            /**
+             * EN: The position of the oldest byte still to send, or Long.MAX_VALUE if nothing is queued.
+             * FR: La position du plus ancien octet restant à envoyer, ou Long.MAX_VALUE si rien n'attend.
+             */
+            long oldestUnsent() {
+                return size == 0 ? Long.MAX_VALUE : Math.max(sent, start[head]);
+            }
+        }
+
+        private final ServerSocketChannel listener;
+        private final ByteBuffer ring = ByteBuffer.allocateDirect(RING_BYTES);
+        private long written;
+        private final List<Viewer> viewers = new ArrayList<>();
+        private byte[] image = new byte[0], previous = new byte[0];
+        private int imageBytes = -1, gridCols, gridRows;
+        int sequence;
+        private int keyframeSequence = -1;
+        private long keyframeStart, keyframeEnd;
+        long publishes, publishNanos, maxPublishNanos, disconnected;
+
+        /**
+         * EN: Creates a hub that accepts spectators on a socket address, or only in-process ones if null.
+         * FR: Crée un diffuseur qui accepte des spectateurs sur une adresse de socket, ou seulement dans le processus si null.
+         */
+        BroadcastHub(InetSocketAddress bind) throws IOException {
+            if (bind == null) {
+                listener = null;
+                return;
+            }
+            listener = ServerSocketChannel.open();
+            try {
+                listener.bind(bind);
+                listener.configureBlocking(false);
+            } catch (IOException e) {
+                listener.close();
+                throw e;
+            }
+        }
+
+        int port() throws IOException {
+            return ((InetSocketAddress) listener.getLocalAddress()).getPort();
+        }
+
+        /**
+         * EN: Adds a spectator; its channel must be non-blocking. It gets a keyframe on the next publish.
+         * FR: Ajoute un spectateur ; son canal doit être non bloquant. Il reçoit une image clé à la prochaine publication.
+         */
+        void addViewer(WritableByteChannel channel, String name) {
+            viewers.add(new Viewer(channel, name, ring));
+        }
+
+        int viewerCount() {
+            return viewers.size();
+        }
+
+        /**
+         * EN: Publishes the world as it is now: accepts waiting spectators, encodes the tick's delta once, queues it (or a
+         *     keyframe) for each spectator and writes what each channel accepts without waiting. Call once per tick, or
+         *     whenever the world changed.
+         * FR: Publie le monde tel qu'il est : accepte les spectateurs en attente, encode une seule fois le delta du tick,
+         *     le met en file (ou une image clé) pour chaque spectateur et écrit ce que chaque canal accepte sans attendre.
+         *     À appeler une fois par tick, ou chaque fois que le monde a changé.
+         */
+        void publish(GameWorld world) {
+            long begin = System.nanoTime();
+            acceptViewers();
+            if (viewers.isEmpty()) {
+                // Sans spectateur, rien n'est encodé ; le prochain arrivant partira d'une image clé.
+                imageBytes = -1;
+                return;
+            }
+            int bytes = world.viewBytes();
+            boolean sameLayout = bytes == imageBytes && world.gridCols == gridCols && world.gridRows == gridRows;
+            byte[] swap = previous;
+            previous = image;
+            image = swap.length >= bytes ? swap : new byte[bytes];
+            world.writeView(ByteBuffer.wrap(image, 0, bytes));
+            imageBytes = bytes;
+            gridCols = world.gridCols;
+            gridRows = world.gridRows;
+            sequence++;
+
+            long deltaStart = -1, deltaEnd = -1;
+            if (sameLayout) {
+                deltaStart = append(DELTA, previous);
+                deltaEnd = written;
+            }
+            for (Viewer viewer : viewers) {
+                if (viewer.broken) continue;
+                if (deltaStart < 0) {
+                    viewer.needsKeyframe = true;
+                } else if (!viewer.needsKeyframe && (viewer.queuedBytes + deltaEnd - deltaStart > MAX_BACKLOG_BYTES || viewer.size == MAX_QUEUED_FRAMES)) {
+                    viewer.needsKeyframe = true;
+                    viewer.resyncs++;
+                }
+                if (viewer.needsKeyframe) {
+                    ensureKeyframe();
+                    if (viewer.broken) continue;
+                    viewer.dropUnsent();
+                    viewer.enqueue(keyframeStart, keyframeEnd);
+                    viewer.needsKeyframe = false;
+                    viewer.keyframes++;
+                } else {
+                    viewer.enqueue(deltaStart, deltaEnd);
+                }
+                flush(viewer);
+            }
+            for (int i = viewers.size() - 1; i >= 0; i--) if (viewers.get(i).broken) viewers.remove(i);
+            long spent = System.nanoTime() - begin;
+            publishes++;
+            publishNanos += spent;
+            maxPublishNanos = Math.max(maxPublishNanos, spent);
+        }
+
+        private void acceptViewers() {
+            if (listener == null) return;
+            try {
+                SocketChannel socket;
+                while ((socket = listener.accept()) != null) {
+                    socket.configureBlocking(false);
+                    socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    socket.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER_BYTES);
+                    addViewer(socket, socket.getRemoteAddress().toString());
+                }
+            } catch (IOException e) {
+                System.err.println("Spectateur refusé : " + e.getMessage());
+            }
+        }
+
+        private void ensureKeyframe() {
+            if (keyframeSequence == sequence) return;
+            keyframeStart = append(KEYFRAME, null);
+            keyframeEnd = written;
+            keyframeSequence = sequence;
+        }
+
+        /**
+         * EN: Encodes a frame at the end of the ring.
+         * FR: Encode une trame à la fin de l'anneau.
+         * @param base The image to encode against, or null for a keyframe.
+         * @return The frame's start position.
+         */
+        private long append(byte kind, byte[] base) {
+            int bound = HEADER_BYTES + KEYFRAME_HEADER_BYTES + 2 * imageBytes + 16;
+            long start = reserve(bound);
+            int at = (int) (start % RING_BYTES);
+            ring.clear().position(at + 4);
+            ring.put(kind).putInt(sequence);
+            if (kind == KEYFRAME) ring.putChar((char) gridCols).putChar((char) gridRows).putInt(imageBytes);
+            SnapshotDelta.encode(base, image, imageBytes, ring);
+            int length = ring.position() - at - 4;
+            ring.putInt(at, length);
+            written = start + 4 + length;
+            return start;
+        }
+
+        /**
+         * EN: Makes room for a frame of at most {@code bound} bytes; a frame never wraps around the ring's end. Spectators
+         *     whose unsent frames would be overwritten lose them and get a keyframe, unless they are halfway through
+         *     one, which can only mean they have read nothing for a whole ring: they are disconnected.
+         * FR: Fait de la place pour une trame d'au plus {@code bound} octets ; une trame ne passe jamais la fin de
+         *     l'anneau. Les spectateurs dont les trames non envoyées seraient écrasées les perdent et reçoivent une image
+         *     clé, sauf s'ils sont au milieu de l'une d'elles, ce qui signifie qu'ils n'ont rien lu pendant tout un
+         *     anneau : ils sont déconnectés.
+         * @return The frame's start position.
+         */
+        private long reserve(int bound) {
+            if (bound > RING_BYTES / 4) throw new IllegalStateException("image trop grande pour l'anneau de diffusion");
+            long start = written;
+            if (start % RING_BYTES + bound > RING_BYTES) start += RING_BYTES - start % RING_BYTES;
+            long overwritten = start + bound - RING_BYTES;
+            for (Viewer viewer : viewers) {
+                if (viewer.broken || viewer.oldestUnsent() >= overwritten) continue;
+                if (viewer.sent > viewer.start[viewer.head]) {
+                    disconnect(viewer);
+                } else {
+                    viewer.dropUnsent();
+                    viewer.needsKeyframe = true;
+                    viewer.resyncs++;
+                }
+            }
+            return start;
+        }
+
+        /**
+         * EN: Writes as much of the spectator's queue as its channel takes right now.
+         * FR: Écrit autant de la file du spectateur que son canal en accepte maintenant.
+         */
+        private void flush(Viewer viewer) {
+            try {
+                while (viewer.size > 0) {
+                    long from = viewer.oldestUnsent(), to = viewer.end[viewer.head];
+                    int at = (int) (from % RING_BYTES);
+                    viewer.cursor.clear().position(at).limit(at + (int) (to - from));
+                    int n = viewer.channel.write(viewer.cursor);
+                    viewer.bytesSent += n;
+                    viewer.sent = from + n;
+                    if (viewer.sent < to) return;
+                    viewer.pop();
+                    viewer.frames++;
+                }
+            } catch (IOException e) {
+                disconnect(viewer);
+            }
+        }
+
+        private void disconnect(Viewer viewer) {
+            viewer.broken = true;
+            disconnected++;
+            try {
+                viewer.channel.close();
+            } catch (IOException e) {
+                // Le spectateur est déjà parti.
+            }
+        }
+
+        /**
+         * EN: The publish time and, for each spectator, what it was sent and how often it had to catch up.
+         * FR: Le temps de publication et, pour chaque spectateur, ce qui lui a été envoyé et combien de fois il a dû
+         *     rattraper son retard.
+         */
+        String summary() {
+            StringBuilder text = new StringBuilder(String.format("publication : %.1f µs en moyenne, %.1f µs au plus (%,d publications, %d spectateurs, %d déconnectés)",
+                    publishes == 0 ? 0.0 : publishNanos / 1e3 / publishes, maxPublishNanos / 1e3, publishes, viewers.size(), disconnected));
+            for (Viewer viewer : viewers) {
+                text.append(String.format("%n  %s : %,d trames dont %d images clés, %d rattrapages, %,d octets envoyés, %,d en attente",
+                        viewer.name, viewer.frames, viewer.keyframes, viewer.resyncs, viewer.bytesSent, viewer.queuedBytes));
+            }
+            return text.toString();
+        }
+
+        @Override
+        public void close() {
+            for (Viewer viewer : viewers) if (!viewer.broken) disconnect(viewer);
+            viewers.clear();
+            try {
+                if (listener != null) listener.close();
+            } catch (IOException e) {
+                System.err.println("Impossible de fermer la diffusion : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * EN: The receiving end of a broadcast: reads frames from a non-blocking channel as they come, rebuilds the view
+     *     image and unpacks it into the fields below for painting. Deltas that do not follow the image held are skipped
+     *     until the next keyframe.
+     * FR: L'extrémité réceptrice d'une diffusion : lit les trames d'un canal non bloquant à leur arrivée, reconstruit
+     *     l'image de la vue et la décompose dans les champs ci-dessous pour l'affichage. Les deltas qui ne font pas suite
+     *     à l'image détenue sont ignorés jusqu'à la prochaine image clé.
+     */
+    private static final class SpectatorFeed implements Closeable {
+        private final ReadableByteChannel channel;
+        private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        byte[] image = new byte[0];
+        int imageBytes = -1, sequence = -1;
+        boolean closed;
+        long frames, keyframes, skipped, bytesReceived;
+
+        int gridCols, gridRows, level, score, flags, playerX, playerY, enemyCount, powerUpCount;
+        int[] enemyState = new int[0], enemyX = new int[0], enemyY = new int[0], enemyType = new int[0];
+        final int[] powerUpType = new int[PowerUpType.values().length], powerUpX = new int[powerUpType.length], powerUpY = new int[powerUpType.length];
+        boolean[] walls = new boolean[0], dots = new boolean[0];
+
+        /**
+         * EN: Reads a broadcast from a channel, which must be non-blocking.
+         * FR: Lit une diffusion depuis un canal, qui doit être non bloquant.
+         */
+        SpectatorFeed(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * EN: Connects to a broadcasting game.
+         * FR: Se connecte à une partie diffusée.
+         */
+        static SpectatorFeed connect(InetSocketAddress address) throws IOException {
+            SocketChannel socket = SocketChannel.open(address);
+            socket.configureBlocking(false);
+            return new SpectatorFeed(socket);
+        }
+
+        /**
+         * EN: Handles what arrived since the last call.
+         * FR: Traite ce qui est arrivé depuis le dernier appel.
+         * @return True if the view changed.
+         */
+        boolean poll() throws IOException {
+            if (closed) return false;
+            int n;
+            while ((n = channel.read(in)) > 0) {
+                bytesReceived += n;
+                if (!in.hasRemaining()) break;
+            }
+            if (n < 0) closed = true;
+            in.flip();
+            boolean changed = false;
+            while (in.remaining() >= 4) {
+                int length = in.getInt(in.position());
+                if (in.remaining() < 4 + length) break;
+                int end = in.position() + 4 + length, limit = in.limit();
+                in.position(in.position() + 4).limit(end);
+                changed |= readFrame(in);
+                in.limit(limit).position(end);
+            }
+            if (in.remaining() >= 4 && 4 + in.getInt(in.position()) > in.capacity()) {
+                ByteBuffer bigger = ByteBuffer.allocate(4 + in.getInt(in.position()));
+                in = bigger.put(in);
+            } else {
+                in.compact();
+            }
+            if (changed) readView();
+            return changed;
+        }
+
+        private boolean readFrame(ByteBuffer frame) {
+            byte kind = frame.get();
+            int seq = frame.getInt();
+            if (kind == BroadcastHub.KEYFRAME) {
+                gridCols = frame.getChar();
+                gridRows = frame.getChar();
+                imageBytes = frame.getInt();
+                if (image.length < imageBytes) image = new byte[imageBytes];
+                SnapshotDelta.decode(null, frame, image, imageBytes);
+                keyframes++;
+            } else if (imageBytes >= 0 && seq == sequence + 1) {
+                SnapshotDelta.decode(image, frame, image, imageBytes);
+            } else {
+                skipped++;
+                return false;
+            }
+            sequence = seq;
+            frames++;
+            return true;
+        }
+
+        /**
+         * EN: Unpacks the image written by {@link GameWorld#writeView}.
+         * FR: Décompose l'image écrite par {@link GameWorld#writeView}.
+         */
+        private void readView() {
+            ByteBuffer view = ByteBuffer.wrap(image, 0, imageBytes);
+            view.getInt();
+            level = view.get();
+            score = view.getInt();
+            flags = view.get();
+            playerX = view.get() & 0xFF;
+            playerY = view.get() & 0xFF;
+            enemyCount = view.getChar();
+            if (enemyX.length < enemyCount) {
+                enemyState = new int[enemyCount]; enemyX = new int[enemyCount]; enemyY = new int[enemyCount]; enemyType = new int[enemyCount];
+            }
+            for (int h = 0; h < enemyCount; h++) {
+                enemyState[h] = view.get() - 1;
+                enemyX[h] = view.get() & 0xFF;
+                enemyY[h] = view.get() & 0xFF;
+                enemyType[h] = view.get();
+            }
+            powerUpCount = view.get();
+            for (int i = 0; i < powerUpType.length; i++) {
+                powerUpType[i] = view.get();
+                powerUpX[i] = view.get() & 0xFF;
+                powerUpY[i] = view.get() & 0xFF;
+            }
+            if (walls.length != gridCols * gridRows) {
+                walls = new boolean[gridCols * gridRows];
+                dots = new boolean[gridCols * gridRows];
+            }
+            LevelPack.getBits(view, walls);
+            LevelPack.getBits(view, dots);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Impossible de fermer la diffusion : " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * EN: Opens a window that shows a broadcast as it arrives; closing the window closes the feed.
+     * FR: Ouvre une fenêtre qui affiche une diffusion à mesure qu'elle arrive ; fermer la fenêtre ferme le flux.
+     * @param exitOnClose True if closing the window ends the program.
+     */
+    private static void openSpectatorWindow(SpectatorFeed feed, String title, UITheme theme, boolean exitOnClose) {
+        JFrame frame = new JFrame(title);
+        JPanel panel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                WorldRenderer.paintSpectator((Graphics2D) g, feed, theme);
+            }
+        };
+        panel.setBackground(theme.bgColor);
+        panel.setPreferredSize(new Dimension(WIDTH, HEIGHT));
+        frame.add(panel);
+        frame.pack();
+        frame.setResizable(false);
+        frame.setDefaultCloseOperation(exitOnClose ? JFrame.EXIT_ON_CLOSE : JFrame.DISPOSE_ON_CLOSE);
+        Timer timer = new Timer(16, e -> {
+            try {
+                if (feed.poll()) panel.repaint();
+            } catch (IOException ex) {
+                feed.close();
+                panel.repaint();
+            }
+        });
+        frame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent event) {
+                timer.stop();
+                feed.close();
+            }
+        });
+        timer.start();
+        frame.setVisible(true);
+    }
+
+    /**
+     * EN: Broadcasts a bot game of the swarm board to spectators in one thread: fast ones over loopback sockets and a
+     *     pipe, which must hold the publisher's exact image after every publish; one that joins halfway and must catch
+     *     up from a keyframe; and a slow one that reads only now and then, which must be caught up with keyframes and
+     *     end on the same image. Reports the publish time, which must stay small however far behind the slow one falls.
+     * FR: Diffuse une partie du robot sur le plateau essaim vers des spectateurs dans un seul thread : des rapides par
+     *     sockets locales et par un tube, qui doivent détenir l'image exacte du diffuseur après chaque publication ; un
+     *     qui arrive à mi-parcours et doit rattraper à partir d'une image clé ; et un lent qui ne lit que de temps en
+     *     temps, qui doit être rattrapé par des images clés et finir sur la même image. Affiche le temps de publication,
+     *     qui doit rester faible quel que soit le retard du lent.
+     * @param seed The seed of the world.
+     * @param ticks The number of ticks to broadcast.
+     * @param viewers The number of fast socket spectators.
+     * @return True if every spectator decoded the publisher's images exactly.
+     */
+    private static boolean runBroadcastCheck(long seed, int ticks, int viewers) {
+        List<SpectatorFeed> fast = new ArrayList<>();
+        SpectatorFeed slow = null, late = null;
+        try (BroadcastHub hub = new BroadcastHub(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), hub.port());
+            for (int v = 0; v < viewers; v++) fast.add(SpectatorFeed.connect(address));
+            Pipe pipe = Pipe.open();
+            pipe.sink().configureBlocking(false);
+            pipe.source().configureBlocking(false);
+            hub.addViewer(pipe.sink(), "tube");
+            fast.add(new SpectatorFeed(pipe.source()));
+            SocketChannel slowSocket = SocketChannel.open();
+            slowSocket.setOption(StandardSocketOptions.SO_RCVBUF, 4096);
+            slowSocket.connect(address);
+            slowSocket.configureBlocking(false);
+            slow = new SpectatorFeed(slowSocket);
+
+            GameWorld world = new GameWorld(WorldConfig.swarm().withAIBudget(0).withAsyncPathfinding(false), seed);
+            world.loadLevel(1);
+            AutoPlayer bot = new GreedyBot();
+            long mismatches = 0, checked = 0, deltaBytes = 0;
+            int level = 1;
+            for (int t = 0; t < ticks; t++) {
+                if (t == ticks / 2) { late = SpectatorFeed.connect(address); fast.add(late); }
+                autoSteer(world, bot);
+                TickOutcome outcome = world.step();
+                if (outcome == TickOutcome.LEVEL_CLEARED) level = level % CAMPAIGN_LEVELS + 1;
+                if (outcome != TickOutcome.NONE) world.loadLevel(level);
+                long before = hub.written;
+                hub.publish(world);
+                deltaBytes += hub.written - before;
+                for (SpectatorFeed feed : fast) {
+                    for (int spin = 0; spin < 1000 && feed.sequence != hub.sequence; spin++) {
+                        if (!feed.poll() && spin > 10) Thread.sleep(0, 100_000);
+                    }
+                    checked++;
+                    if (feed.sequence != hub.sequence || !Arrays.equals(feed.image, 0, feed.imageBytes, hub.image, 0, hub.imageBytes)) mismatches++;
+                }
+                // Le spectateur lent ne lit qu'un tick sur dix, et pas du tout pendant la moitié centrale.
+                if (t % 10 == 0 && (t < ticks / 4 || t >= ticks * 3 / 4)) slow.poll();
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (slow.sequence != hub.sequence && System.currentTimeMillis() < deadline) {
+                hub.publish(world);
+                slow.poll();
+                for (SpectatorFeed feed : fast) feed.poll();
+            }
+            boolean slowOk = slow.sequence == hub.sequence && Arrays.equals(slow.image, 0, slow.imageBytes, hub.image, 0, hub.imageBytes);
+
+            System.out.println(hub.summary());
+            System.out.printf("%,d ticks sur le plateau essaim, image de %,d octets, %.0f octets par publication en moyenne (images clés comprises)%n",
+                    ticks, hub.imageBytes, (double) deltaBytes / ticks);
+            System.out.printf("%,d images vérifiées chez %d spectateurs rapides, %s%n", checked, fast.size(),
+                    mismatches == 0 ? "toutes identiques" : mismatches + " différentes  <- ÉCHEC");
+            System.out.printf("arrivé en cours de route : %d image(s) clé(s), %d trames ignorées%n", late.keyframes, late.skipped);
+            System.out.printf("spectateur lent : %d images clés, %d trames ignorées, %s%n", slow.keyframes, slow.skipped,
+                    slowOk ? "rattrapé et identique" : "jamais rattrapé  <- ÉCHEC");
+            return mismatches == 0 && slowOk;
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Vérification de la diffusion impossible : " + e.getMessage());
+            return false;
+        } finally {
+            for (SpectatorFeed feed : fast) feed.close();
+            if (slow != null) slow.close();
+        }
+    }
+
+    // =================================================================================
+    // Training environments
+    // =================================================================================
+
+    /**
+     * EN: The game as a reinforcement-learning environment, in the manner of Gym: {@link #reset} starts an episode,
+     *     {@link #step} plays one action for one tick and returns its reward. An episode runs through the campaign's
+     *     levels; it ends when the player is caught or the last level is cleared, and is cut short after
+     *     {@code maxTicks} ticks. The reward is the score gained during the tick, plus {@value #LEVEL_BONUS} for a
+     *     cleared level, minus {@value #CAUGHT_PENALTY} when caught. Enemy AI runs without a time budget, so an
+     *     episode depends only on its seed and actions.
+     *     The observation is {@value #CHANNELS} planes of {@code gridRows x gridCols} floats, one plane after another,
+     *     set to 1 where: a wall stands; a dot lies; a power-up of each type lies; an enemy in each {@link EnemyState}
+     *     stands; the player stands.
+     * FR: Le jeu comme environnement d'apprentissage par renforcement, à la manière de Gym : {@link #reset} commence un
+     *     épisode, {@link #step} joue une action pendant un tick et renvoie sa récompense. Un épisode parcourt les
+     *     niveaux de la campagne ; il se termine quand le joueur est attrapé ou que le dernier niveau est réussi, et il
+     *     est interrompu après {@code maxTicks} ticks. La récompense est le score gagné pendant le tick, plus
+     *     {@value #LEVEL_BONUS} pour un niveau réussi, moins {@value #CAUGHT_PENALTY} en cas de capture. L'IA des
+     *     ennemis tourne sans budget de temps, donc un épisode ne dépend que de sa graine et de ses actions.
+     *     L'observation est faite de {@value #CHANNELS} plans de {@code gridRows x gridCols} flottants, l'un après
+     *     l'autre, valant 1 là où : se dresse un mur ; se trouve un point ; se trouve un power-up de chaque type ; se
+     *     tient un ennemi dans chaque {@link EnemyState} ; se tient le joueur.
+     */
+    private static final class RunnerEnv {
+        /**
+         * EN: Actions 0 to 3 move along {@link GameWorld#DX}/{@link GameWorld#DY} (down, up, right, left); 4 stays.
+         * FR: Les actions 0 à 3 déplacent selon {@link GameWorld#DX}/{@link GameWorld#DY} (bas, haut, droite, gauche) ; 4 reste sur place.
+         */
+        static final int ACTIONS = 5, STAY = 4;
+        static final int WALLS = 0, DOTS = 1, POWER_UPS = 2, ENEMIES = POWER_UPS + PowerUpType.values().length,
+                PLAYER = ENEMIES + EnemyState.values().length, CHANNELS = PLAYER + 1;
+        static final int LEVEL_BONUS = 1000, CAUGHT_PENALTY = 500;
+
+        final WorldConfig config;
+        final int maxTicks, cells;
+        GameWorld world;
+        int episodeTicks;
+        boolean terminated, truncated;
+
+        RunnerEnv(WorldConfig config, int maxTicks) {
+            this.config = config.withAIBudget(0).withAsyncPathfinding(false);
+            this.maxTicks = maxTicks;
+            this.cells = config.gridCols * config.gridRows;
+        }
+
+        int observationSize() {
+            return CHANNELS * cells;
+        }
+
+        /**
+         * EN: Starts an episode on level 1 of the maze that the seed generates.
+         * FR: Commence un épisode au niveau 1 du labyrinthe que génère la graine.
+         */
+        void reset(long seed) {
+            world = new GameWorld(config, seed);
+            world.loadLevel(1);
+            episodeTicks = 0;
+            terminated = truncated = false;
+        }
+
+        /**
+         * EN: Plays an action for one tick; once the episode has ended, call {@link #reset} before stepping again.
+         * FR: Joue une action pendant un tick ; une fois l'épisode terminé, appeler {@link #reset} avant de continuer.
+         * @param action From 0 to {@link #ACTIONS} - 1.
+         * @return The reward of the tick.
+         */
+        float step(int action) {
+            if (action != STAY) world.movePlayer(GameWorld.DX[action], GameWorld.DY[action]);
+            int score = world.score;
+            TickOutcome outcome = world.step();
+            float reward = world.score - score;
+            episodeTicks++;
+            if (outcome == TickOutcome.PLAYER_CAUGHT) {
+                reward -= CAUGHT_PENALTY;
+                terminated = true;
+            } else if (outcome == TickOutcome.LEVEL_CLEARED) {
+                reward += LEVEL_BONUS;
+                world.score += LEVEL_BONUS;
+                if (world.level == CAMPAIGN_LEVELS) terminated = true;
+                else world.loadLevel(world.level + 1);
+            }
+            truncated = !terminated && episodeTicks >= maxTicks;
+            return reward;
+        }
+
+        /**
+         * EN: Writes the observation into {@code out} from {@code offset} on.
+         * FR: Écrit l'observation dans {@code out} à partir de {@code offset}.
+         */
+        void observe(float[] out, int offset) {
+            Arrays.fill(out, offset, offset + CHANNELS * cells, 0f);
+            GameWorld w = world;
+            for (int c = 0; c < cells; c++) {
+                if (w.walls[c]) out[offset + WALLS * cells + c] = 1f;
+                if (w.dots[c]) out[offset + DOTS * cells + c] = 1f;
+            }
+            PowerUpStore powerUps = w.powerUps;
+            for (int i = 0; i < powerUps.count; i++) {
+                out[offset + (POWER_UPS + powerUps.type[i]) * cells + powerUps.y[i] * w.gridCols + powerUps.x[i]] = 1f;
+            }
+            EnemyStore enemies = w.enemies;
+            for (int slot = 0; slot < enemies.count; slot++) {
+                out[offset + (ENEMIES + enemies.state[slot]) * cells + enemies.y[slot] * w.gridCols + enemies.x[slot]] = 1f;
+            }
+            out[offset + PLAYER * cells + w.playerPosition.y * w.gridCols + w.playerPosition.x] = 1f;
+        }
+    }
+
+    /**
+     * EN: Steps a number of {@link RunnerEnv}s in lock-step, split across the workers of a fork-join pool, each worker
+     *     writing only its own environments' slots of the shared arrays. An environment whose episode ends is reset at
+     *     once with its next seed, and the observation it returns is that of the new episode, as in Gym's vector
+     *     environments. The observation, reward and flag arrays are allocated once and rewritten by every step; so are
+     *     the pool's tasks.
+     * FR: Fait avancer plusieurs {@link RunnerEnv} au même pas, répartis entre les threads d'un pool fork-join, chaque
+     *     thread n'écrivant que les cases de ses propres environnements dans les tableaux partagés. Un environnement
+     *     dont l'épisode se termine est aussitôt réinitialisé avec sa graine suivante, et l'observation qu'il renvoie
+     *     est celle du nouvel épisode, comme dans les environnements vectorisés de Gym. Les tableaux d'observations, de
+     *     récompenses et d'indicateurs sont alloués une fois et réécrits à chaque pas ; les tâches du pool aussi.
+     */
+    private static final class VectorRunnerEnv {
+        final RunnerEnv[] envs;
+        /**
+         * EN: Environment {@code i}'s observation starts at {@code i * observationSize}.
+         * FR: L'observation de l'environnement {@code i} commence à {@code i * observationSize}.
+         */
+        final float[] observations, rewards;
+        final boolean[] terminated, truncated;
+        final int observationSize;
+        private final long[] nextSeed;
+        private final ForkJoinPool pool;
+        private final StepTask[] tasks;
+        private final RecursiveAction root;
+        private int[] actions;
+        long steps, stepNanos, episodes;
+
+        /**
+         * EN: Creates the environments, episodes of environment {@code i} using seeds {@code seed + i}, {@code seed + i + count}, ...
+         * FR: Crée les environnements ; les épisodes de l'environnement {@code i} utilisent les graines {@code seed + i},
+         *     {@code seed + i + count}, ...
+         * @param pool The pool to step on, or null to step in the calling thread.
+         */
+        VectorRunnerEnv(WorldConfig config, int count, int maxTicks, ForkJoinPool pool) {
+            envs = new RunnerEnv[count];
+            for (int i = 0; i < count; i++) envs[i] = new RunnerEnv(config, maxTicks);
+            observationSize = envs[0].observationSize();
+            observations = new float[count * observationSize];
+            rewards = new float[count];
+            terminated = new boolean[count];
+            truncated = new boolean[count];
+            nextSeed = new long[count];
+            this.pool = pool;
+            int chunks = pool == null ? 1 : Math.min(count, pool.getParallelism() * 4);
+            tasks = new StepTask[chunks];
+            for (int k = 0; k < chunks; k++) tasks[k] = new StepTask(k * count / chunks, (k + 1) * count / chunks);
+            root = new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            };
+        }
+
+        /**
+         * EN: Resets every environment and writes their first observations.
+         * FR: Réinitialise tous les environnements et écrit leurs premières observations.
+         */
+        void reset(long seed) {
+            for (int i = 0; i < envs.length; i++) {
+                nextSeed[i] = seed + i + envs.length;
+                envs[i].reset(seed + i);
+                envs[i].observe(observations, i * observationSize);
+                rewards[i] = 0;
+                terminated[i] = truncated[i] = false;
+            }
+        }
+
+        /**
+         * EN: Plays one action in each environment, then fills the observations, rewards and end-of-episode flags.
+         * FR: Joue une action dans chaque environnement, puis remplit les observations, récompenses et indicateurs de fin
+         *     d'épisode.
+         * @param actions One action per environment.
+         */
+        void step(int[] actions) {
+            long start = System.nanoTime();
+            this.actions = actions;
+            if (pool == null) {
+                tasks[0].stepRange();
+            } else {
+                root.reinitialize();
+                for (StepTask task : tasks) task.reinitialize();
+                pool.invoke(root);
+            }
+            steps += envs.length;
+            stepNanos += System.nanoTime() - start;
+        }
+
+        private void stepEnv(int i) {
+            RunnerEnv env = envs[i];
+            rewards[i] = env.step(actions[i]);
+            terminated[i] = env.terminated;
+            truncated[i] = env.truncated;
+            if (env.terminated || env.truncated) {
+                env.reset(nextSeed[i]);
+                nextSeed[i] += envs.length;
+                episodes++;
+            }
+            env.observe(observations, i * observationSize);
+        }
+
+        double stepsPerSecond() {
+            return stepNanos == 0 ? 0 : steps / (stepNanos / 1e9);
+        }
+
+        private final class StepTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+            private final int from, to;
+
+            StepTask(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                stepRange();
+            }
+
+            void stepRange() {
+                for (int i = from; i < to; i++) stepEnv(i);
+            }
+        }
+    }
+
+    /**
+     * EN: Plays random actions in vectorized environments, in the calling thread and then on every core, and checks
+     *     that both give the same observations, rewards and episode ends, as they must since environments share
+     *     nothing; reports environment steps per second. Then lets the bot play one environment and checks that its
+     *     steps and observations allocate nothing once a level has been played for {@value #GYM_WARM_UP_TICKS} ticks,
+     *     by which time a new world has sized its buffers.
+     * FR: Joue des actions aléatoires dans des environnements vectorisés, dans le thread appelant puis sur tous les
+     *     cœurs, et vérifie que les deux donnent les mêmes observations, récompenses et fins d'épisode, comme il se doit
+     *     puisque les environnements ne partagent rien ; affiche le nombre de pas d'environnement par seconde. Laisse
+     *     ensuite le robot jouer un environnement et vérifie que ses pas et ses observations n'allouent rien une fois
+     *     un niveau joué depuis {@value #GYM_WARM_UP_TICKS} ticks, quand un nouveau monde a dimensionné ses tampons.
+     * @param seed The seed of the first environment.
+     * @param envs The number of environments.
+     * @param steps The number of lock-steps.
+     * @return True if both runs agree and steady steps stay within {@link #ALLOCATION_BUDGET_BYTES} per level.
+     */
+    private static boolean runGymCheck(long seed, int envs, int steps) {
+        if (PerfMetrics.allocatedBytes() < 0) {
+            System.out.println("Cette JVM ne mesure pas les allocations par thread.");
+            return false;
+        }
+        WorldConfig config = WorldConfig.classic();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        VectorRunnerEnv serial = new VectorRunnerEnv(config, envs, 2000, null);
+        VectorRunnerEnv parallel = new VectorRunnerEnv(config, envs, 2000, pool);
+        int[] actions = new int[envs];
+        long mismatches = 0;
+        double reward = 0;
+        serial.reset(seed);
+        parallel.reset(seed);
+        for (int t = 0; t < steps; t++) {
+            for (int i = 0; i < envs; i++) actions[i] = GameRandom.roll(seed, t, i, RunnerEnv.ACTIONS);
+            serial.step(actions);
+            parallel.step(actions);
+            if (!Arrays.equals(serial.observations, parallel.observations) || !Arrays.equals(serial.rewards, parallel.rewards)
+                    || !Arrays.equals(serial.terminated, parallel.terminated) || !Arrays.equals(serial.truncated, parallel.truncated)) {
+                mismatches++;
+            }
+            for (float r : serial.rewards) reward += r;
+        }
+        pool.shutdown();
+        System.out.printf("%d environnements %dx%d, observation de %,d flottants, %,d pas, %,d épisodes terminés, récompense moyenne %.2f par pas%n",
+                envs, config.gridCols, config.gridRows, serial.observationSize, steps, serial.episodes, reward / ((double) steps * envs));
+        System.out.printf("un thread : %,.0f pas/s ; %d threads : %,.0f pas/s%n",
+                serial.stepsPerSecond(), pool.getParallelism(), parallel.stepsPerSecond());
+        System.out.println(mismatches == 0 ? "Exécutions séquentielle et parallèle identiques." : mismatches + " pas différents  <- ÉCHEC");
+
+        RunnerEnv env = new RunnerEnv(config, Integer.MAX_VALUE);
+        float[] observation = new float[env.observationSize()];
+        AutoPlayer bot = new GreedyBot();
+        long allocated = 0, measured = 0, overhead = PerfMetrics.allocatedBytes();
+        overhead = PerfMetrics.allocatedBytes() - overhead;
+        int levels = 1, levelTicks = 0;
+        env.reset(seed);
+        for (int t = 0; t < steps * 4; t++) {
+            int level = env.world.level;
+            long before = PerfMetrics.allocatedBytes();
+            autoSteer(env.world, bot);
+            env.step(RunnerEnv.STAY);
+            env.observe(observation, 0);
+            long after = PerfMetrics.allocatedBytes();
+            if (env.terminated) {
+                env.reset(seed + t);
+            } else if (env.world.level == level && ++levelTicks > GYM_WARM_UP_TICKS) {
+                allocated += after - before - overhead;
+                measured++;
+                continue;
+            } else if (env.world.level == level) {
+                continue;
+            }
+            levels++;
+            levelTicks = 0;
+        }
+        boolean allocationOk = allocated <= ALLOCATION_BUDGET_BYTES * levels;
+        System.out.printf("robot : %,d pas mesurés sur %d niveaux, %,d octets alloués%s%n", measured, levels, allocated, allocationOk ? "" : "  <- ÉCHEC");
+        return mismatches == 0 && allocationOk;
+    }
+
+    /**
+     * EN: The ticks a level is played before the allocation check of the training environment starts counting.
+     * FR: Les ticks pendant lesquels un niveau est joué avant que la vérification d'allocation de l'environnement
+     *     d'entraînement ne commence à compter.
+     */
+    private static final int GYM_WARM_UP_TICKS = 100;
+
+    // =================================================================================
+    // Heatmaps
+    // =================================================================================
+
+    /**
+     * EN: Counts, per level and per cell, where the player stands each tick, where they are caught and where they pick up
+     *     power-ups, over every run played on this machine. The game thread only stores each sample into a ring and
+     *     publishes it with an ordered write; when the ring is full the sample is dropped and counted rather than waited
+     *     on. A daemon thread folds the samples into count grids, saves them every {@value #SAVE_EVERY_MS} ms and on
+     *     close, and the next session adds to what was saved. One game thread may record at a time.
+     *     <pre>
+     *     file   int magic, byte version, short columns, short rows, short levels, then per level:
+     *     level  short level, then per kind: varint cells counted, then per such cell: varint gap from the
+     *            previous one, varint count
+     *     </pre>
+     * FR: Compte, par niveau et par cellule, où se tient le joueur à chaque tick, où il est attrapé et où il ramasse des
+     *     power-ups, sur toutes les parties jouées sur cette machine. Le thread de jeu se contente de ranger chaque
+     *     échantillon dans un anneau et de le publier par une écriture ordonnée ; quand l'anneau est plein, l'échantillon
+     *     est abandonné et compté plutôt qu'attendu. Un thread démon agrège les échantillons dans des grilles de
+     *     comptes, les sauvegarde toutes les {@value #SAVE_EVERY_MS} ms et à la fermeture, et la session suivante
+     *     ajoute à ce qui a été sauvegardé. Un seul thread de jeu peut enregistrer à la fois. Le format est décrit
+     *     ci-dessus.
+     */
+    private static final class HeatmapAnalytics implements Closeable {
+        static final String FILE = "heatmaps.dat";
+        static final int VISIT = 0, DEATH = 1, PICKUP = 2, KINDS = 3;
+        static final String[] KIND_NAMES = {"présence", "défaites", "power-ups"};
+        static final int CAPACITY = 1 << 16;
+        static final long SAVE_EVERY_MS = 30_000;
+        private static final int MAGIC = 0x4352484D, VERSION = 1, MASK = CAPACITY - 1;
+
+        final int gridCols, gridRows;
+        private final Path file;
+        private final long[] ring = new long[CAPACITY];
+        /**
+         * EN: Samples published by the game thread, and samples folded by the aggregator.
+         * FR: Les échantillons publiés par le thread de jeu, et ceux agrégés par l'agrégateur.
+         */
+        private final AtomicLong published = new AtomicLong(), folded = new AtomicLong();
+        private long produced, foldedSeen;
+        volatile long dropped;
+        /**
+         * EN: Level to {@code [kind][cell]} counts; only the aggregator writes them, the overlay reads them as they are.
+         * FR: Niveau vers les comptes {@code [type][cellule]} ; seul l'agrégateur les écrit, l'overlay les lit tels quels.
+         */
+        private final Map<Integer, int[][]> grids = new ConcurrentHashMap<>();
+        private final Thread aggregator;
+        private volatile boolean closing;
+
+        /**
+         * EN: Loads the counts saved in {@code file}, if it exists and was made on this board, and starts the aggregator.
+         * FR: Charge les comptes sauvegardés dans {@code file}, s'il existe et concerne ce plateau, et démarre l'agrégateur.
+         */
+        HeatmapAnalytics(Path file, int gridCols, int gridRows) {
+            this.file = file;
+            this.gridCols = gridCols;
+            this.gridRows = gridRows;
+            if (Files.exists(file)) {
+                try {
+                    read(ByteBuffer.wrap(Files.readAllBytes(file)));
+                } catch (IOException | RuntimeException e) {
+                    grids.clear();
+                    System.err.println("Cartes de chaleur illisibles, reprise à zéro : " + e.getMessage());
+                }
+            }
+            aggregator = new Thread(this::aggregate, "heatmaps");
+            aggregator.setDaemon(true);
+            aggregator.start();
+        }
+
+        /**
+         * EN: Records a sample; game thread only. Costs a few stores and never blocks.
+         * FR: Enregistre un échantillon ; thread de jeu uniquement. Coûte quelques écritures et ne bloque jamais.
+         * @param kind {@link #VISIT}, {@link #DEATH} or {@link #PICKUP}.
+         */
+        void record(int kind, int level, int cell) {
+            long next = produced;
+            if (next - foldedSeen >= CAPACITY) {
+                foldedSeen = folded.get();
+                if (next - foldedSeen >= CAPACITY) {
+                    dropped++;
+                    return;
+                }
+            }
+            ring[(int) next & MASK] = (long) level << 40 | (long) kind << 32 | cell;
+            produced = next + 1;
+            published.lazySet(next + 1);
+        }
+
+        /**
+         * EN: The counts of a level, indexed {@code [kind][cell]}, or null if it was never played.
+         * FR: Les comptes d'un niveau, indexés {@code [type][cellule]}, ou null s'il n'a jamais été joué.
+         */
+        int[][] grid(int level) {
+            return grids.get(level);
+        }
+
+        long samples() {
+            return folded.get();
+        }
+
+        /**
+         * EN: Samples recorded so far, dropped ones included; game thread only.
+         * FR: Les échantillons enregistrés jusqu'ici, abandonnés compris ; thread de jeu uniquement.
+         */
+        long recorded() {
+            return produced + dropped;
+        }
+
+        private void aggregate() {
+            long nextSave = System.currentTimeMillis() + SAVE_EVERY_MS;
+            while (true) {
+                long from = folded.get(), to = published.get();
+                if (from == to) {
+                    if (closing) break;
+                    if (System.currentTimeMillis() >= nextSave) {
+                        save();
+                        nextSave = System.currentTimeMillis() + SAVE_EVERY_MS;
+                    }
+                    LockSupport.parkNanos(1_000_000);
+                    continue;
+                }
+                for (long i = from; i < to; i++) fold(ring[(int) i & MASK]);
+                folded.lazySet(to);
+            }
+            save();
+        }
+
+        private void fold(long sample) {
+            int level = (int) (sample >>> 40), kind = (int) (sample >>> 32) & 0xFF, cell = (int) sample;
+            int[][] grid = grids.get(level);
+            if (grid == null) {
+                grid = new int[KINDS][gridCols * gridRows];
+                grids.put(level, grid);
+            }
+            grid[kind][cell]++;
+        }
+
+        /**
+         * EN: Writes the counts to the file, through a temporary file so that a crash never leaves half of it.
+         * FR: Écrit les comptes dans le fichier, en passant par un fichier temporaire pour qu'un plantage n'en laisse
+         *     jamais la moitié.
+         */
+        private void save() {
+            ByteBuffer out = ByteBuffer.allocate(4 + 1 + 2 + 2 + 2 + grids.size() * (2 + KINDS * 5 * (1 + 2 * gridCols * gridRows)));
+            write(out);
+            try {
+                Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "heatmaps", ".tmp");
+                try {
+                    Files.write(temp, Arrays.copyOf(out.array(), out.position()));
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                System.err.println("Sauvegarde des cartes de chaleur impossible : " + e.getMessage());
+            }
+        }
+
+        private void write(ByteBuffer out) {
+            List<Integer> levels = new ArrayList<>(grids.keySet());
+            Collections.sort(levels);
+            out.putInt(MAGIC).put((byte) VERSION).putShort((short) gridCols).putShort((short) gridRows).putShort((short) levels.size());
+            for (int level : levels) {
+                out.putShort((short) level);
+                for (int[] counts : grids.get(level)) {
+                    int cells = 0;
+                    for (int count : counts) if (count != 0) cells++;
+                    SnapshotDelta.putVarint(out, cells);
+                    for (int c = 0, previous = 0; c < counts.length; c++) {
+                        if (counts[c] == 0) continue;
+                        SnapshotDelta.putVarint(out, c - previous);
+                        SnapshotDelta.putVarint(out, counts[c]);
+                        previous = c;
+                    }
+                }
+            }
+        }
+
+        private void read(ByteBuffer in) {
+            if (in.getInt() != MAGIC || in.get() != VERSION) throw new IllegalArgumentException("format inconnu");
+            if (in.getShort() != gridCols || in.getShort() != gridRows) throw new IllegalArgumentException("autre plateau");
+            for (int levels = in.getShort(); levels > 0; levels--) {
+                int[][] grid = new int[KINDS][gridCols * gridRows];
+                grids.put((int) in.getShort(), grid);
+                for (int[] counts : grid) {
+                    for (int cells = SnapshotDelta.getVarint(in), c = 0; cells > 0; cells--) {
+                        c += SnapshotDelta.getVarint(in);
+                        counts[c] = SnapshotDelta.getVarint(in);
+                    }
+                }
+            }
+        }
+
+        /**
+         * EN: Folds the samples still in the ring, saves, and stops the aggregator.
+         * FR: Agrège les échantillons restés dans l'anneau, sauvegarde, et arrête l'agrégateur.
+         */
+        @Override
+        public void close() {
+            closing = true;
+            try {
+                aggregator.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * EN: Lets the bot play the campaign with heatmaps on while the check counts the same samples itself, then checks
+     *     that the aggregated grids match those counts once the ring is drained, that they read back identical from
+     *     the file, and that recording allocates nothing on the game thread: after a warm-up, each {@code step()} is
+     *     bracketed by the thread's allocation counter, the bot's moves left out, and each level must stay within
+     *     {@link #ALLOCATION_BUDGET_BYTES}, as in the steady-state check.
+     * FR: Laisse le robot jouer la campagne avec les cartes de chaleur actives pendant que la vérification compte
+     *     elle-même les mêmes échantillons, puis vérifie que les grilles agrégées correspondent à ces comptes une fois
+     *     l'anneau vidé, qu'elles se relisent à l'identique depuis le fichier, et que l'enregistrement n'alloue rien sur
+     *     le thread de jeu : après une mise en température, chaque {@code step()} est encadré par le compteur d'allocation
+     *     du thread, sans les déplacements du robot, et chaque niveau doit tenir dans {@link #ALLOCATION_BUDGET_BYTES},
+     *     comme dans la vérification en régime établi.
+     * @param seed The seed of the first run.
+     * @param ticks The number of ticks to play.
+     * @return True if the grids match, survive a save and load, and recording does not allocate.
+     */
+    private static boolean runHeatmapCheck(long seed, int ticks) {
+        if (PerfMetrics.allocatedBytes() < 0) {
+            System.out.println("Cette JVM ne mesure pas les allocations par thread.");
+            return false;
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("heatmaps", ".dat");
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Vérification des cartes de chaleur impossible : " + e.getMessage());
+            return false;
+        }
+        WorldConfig config = WorldConfig.classic().withAIBudget(0);
+        int cells = config.gridCols * config.gridRows;
+        Map<Integer, int[][]> expected = new HashMap<>();
+        // Par niveau : ticks mesurés et octets alloués par world.step().
+        Map<Integer, long[]> allocations = new TreeMap<>();
+        int[] powerUpCells = new int[PowerUpType.values().length];
+        AutoPlayer bot = new GreedyBot();
+        GameWorld world = new GameWorld(config, seed);
+        long runs = 0, overhead = PerfMetrics.allocatedBytes();
+        overhead = PerfMetrics.allocatedBytes() - overhead;
+        long start = System.nanoTime(), recordNanos;
+        HeatmapAnalytics heatmaps = new HeatmapAnalytics(file, config.gridCols, config.gridRows);
+        try {
+            world.heatmap = heatmaps;
+            world.loadLevel(1);
+            for (int t = 0; t < ticks; t++) {
+                int[][] counts = expected.computeIfAbsent(world.level, level -> new int[HeatmapAnalytics.KINDS][cells]);
+                // Le robot peut faire plusieurs pas par tick : un power-up ramassé se repère à sa disparition.
+                PowerUpStore powerUps = world.powerUps;
+                int lying = powerUps.count;
+                for (int i = 0; i < lying; i++) powerUpCells[i] = powerUps.y[i] * world.gridCols + powerUps.x[i];
+                autoSteer(world, bot);
+                long before = PerfMetrics.allocatedBytes();
+                TickOutcome outcome = world.step();
+                long after = PerfMetrics.allocatedBytes();
+                int cell = world.playerPosition.y * world.gridCols + world.playerPosition.x;
+                counts[HeatmapAnalytics.VISIT][cell]++;
+                if (outcome == TickOutcome.PLAYER_CAUGHT) counts[HeatmapAnalytics.DEATH][cell]++;
+                for (int i = 0; i < lying; i++) {
+                    if (powerUps.find(powerUpCells[i] % world.gridCols, powerUpCells[i] / world.gridCols) < 0) counts[HeatmapAnalytics.PICKUP][powerUpCells[i]]++;
+                }
+                if (outcome == TickOutcome.NONE) {
+                    if (t >= ticks / 4) {
+                        long[] level = allocations.computeIfAbsent(world.level, l -> new long[2]);
+                        level[0]++;
+                        level[1] += after - before - overhead;
+                    }
+                } else {
+                    // Un niveau perdu est rejoué, un niveau réussi mène au suivant, et le dernier ramène au premier.
+                    world.loadLevel(outcome == TickOutcome.PLAYER_CAUGHT ? world.level : world.level % CAMPAIGN_LEVELS + 1);
+                    runs++;
+                }
+            }
+            recordNanos = System.nanoTime() - start;
+        } finally {
+            heatmaps.close();
+        }
+        boolean same = heatmaps.dropped == 0;
+        long samples = 0;
+        for (Map.Entry<Integer, int[][]> entry : expected.entrySet()) {
+            int[][] grid = heatmaps.grid(entry.getKey());
+            for (int kind = 0; kind < HeatmapAnalytics.KINDS; kind++) {
+                for (int count : entry.getValue()[kind]) samples += count;
+                same &= grid != null && Arrays.equals(grid[kind], entry.getValue()[kind]);
+            }
+        }
+        boolean reread = true;
+        long size;
+        try (HeatmapAnalytics copy = new HeatmapAnalytics(file, config.gridCols, config.gridRows)) {
+            for (int level : expected.keySet()) reread &= Arrays.deepEquals(copy.grid(level), heatmaps.grid(level));
+            size = Files.size(file);
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Vérification des cartes de chaleur impossible : " + e.getMessage());
+            return false;
+        }
+        System.out.printf("%,d ticks et %d fins de niveau, %,d échantillons agrégés, %,d abandonnés, %.0f ticks/s avec enregistrement%n",
+                ticks, runs, heatmaps.samples(), heatmaps.dropped, ticks / (recordNanos / 1e9));
+        System.out.printf("grilles de %d niveaux (%,d échantillons attendus) : %s%n", expected.size(), samples,
+                same ? "identiques aux comptes" : "différentes  <- ÉCHEC");
+        System.out.printf("fichier de %,d octets : %s%n", size, reread ? "relu à l'identique" : "relu différemment  <- ÉCHEC");
+        boolean allocationOk = true;
+        for (Map.Entry<Integer, long[]> entry : allocations.entrySet()) {
+            long[] level = entry.getValue();
+            boolean levelOk = level[1] <= ALLOCATION_BUDGET_BYTES;
+            allocationOk &= levelOk;
+            System.out.printf("niveau %2d : %,7d ticks mesurés, %,9d octets alloués par le tick%s%n", entry.getKey(), level[0], level[1], levelOk ? "" : "  <- ÉCHEC");
+        }
+        return same && reread && allocationOk;
+    }
+
+    // =================================================================================
+    // Gameplay capture
+    // =================================================================================
+
+    /**
+     * EN: Records the game panel's frames to a directory, as a PNG per frame or as raw RGB frames in one file. The panel
+     *     paints each frame into an image taken from a small pool and then copies it to the screen, so a captured frame
+     *     costs one blit; the image goes to a bounded queue that worker threads encode to disk before returning it to
+     *     the pool. When every image is waiting to be encoded the frame is simply not captured and counted as dropped:
+     *     the game never waits for the disk. Captured frames are numbered without gaps, and {@value #INDEX} gives the
+     *     time of each.
+     *     <pre>
+     *     frames.idx   int magic, byte format (0 PNG, 1 raw), short width, short height, int frames, then per frame
+     *                  a long: nanoseconds since the capture started
+     *     frames.raw   per frame, width x height pixels of 3 bytes (R, G, B), row by row
+     *     frame_NNNNNN.png  one per frame otherwise
+     *     </pre>
+     * FR: Enregistre les images du panneau de jeu dans un répertoire, en un PNG par image ou en images RGB brutes dans un
+     *     seul fichier. Le panneau peint chaque image dans une image prise dans un petit pool puis la copie à l'écran,
+     *     donc une image capturée coûte une copie ; l'image part dans une file bornée que des threads encodent sur
+     *     disque avant de la rendre au pool. Quand toutes les images attendent d'être encodées, l'image n'est tout
+     *     simplement pas capturée et compte comme perdue : le jeu n'attend jamais le disque. Les images capturées sont
+     *     numérotées sans trou, et {@value #INDEX} donne l'instant de chacune. Le format est décrit ci-dessus.
+     */
+    private static final class FrameCapture implements Closeable {
+        enum Format { PNG, RAW }
+        static final int POOL = 6;
+        static final String INDEX = "frames.idx", RAW_FILE = "frames.raw";
+        private static final int INDEX_MAGIC = 0x43524658, INDEX_HEADER = 4 + 1 + 2 + 2 + 4;
+
+        /**
+         * EN: A pooled image, with the number and time of the frame it holds.
+         * FR: Une image du pool, avec le numéro et l'instant de l'image qu'elle contient.
+         */
+        static final class Frame {
+            final BufferedImage image;
+            int sequence;
+            long nanos;
+
+            Frame(BufferedImage image) {
+                this.image = image;
+            }
+        }
+
+        private static final Frame END = new Frame(null);
+
+        final Path directory;
+        final Format format;
+        final int width, height;
+        private final ArrayBlockingQueue<Frame> free = new ArrayBlockingQueue<>(POOL), filled;
+        private final FileChannel index, raw;
+        private final Thread[] workers;
+        private final long startNanos = System.nanoTime();
+        private int nextSequence;
+        volatile long dropped;
+        final AtomicLong encoded = new AtomicLong(), encodeNanos = new AtomicLong(), bytesWritten = new AtomicLong(), failed = new AtomicLong();
+        private volatile String failure;
+        private boolean closed;
+
+        /**
+         * EN: Creates the directory and starts the encoding workers.
+         * FR: Crée le répertoire et démarre les threads d'encodage.
+         * @param threads The number of encoding workers.
+         */
+        FrameCapture(Path directory, Format format, int width, int height, int threads) throws IOException {
+            this.directory = Files.createDirectories(directory);
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            for (int i = 0; i < POOL; i++) free.add(new Frame(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)));
+            filled = new ArrayBlockingQueue<>(POOL + threads);
+            index = FileChannel.open(directory.resolve(INDEX), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                raw = format == Format.RAW
+                        ? FileChannel.open(directory.resolve(RAW_FILE), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)
+                        : null;
+            } catch (IOException e) {
+                index.close();
+                throw e;
+            }
+            workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(this::encodeFrames, "capture-" + i);
+                workers[i].setDaemon(true);
+                workers[i].start();
+            }
+        }
+
+        /**
+         * EN: Takes an image to paint the next frame into, or returns null and counts the frame as dropped if all are busy.
+         * FR: Prend une image où peindre la prochaine image, ou renvoie null et compte l'image comme perdue si toutes sont
+         *     occupées.
+         */
+        Frame acquire() {
+            Frame frame = free.poll();
+            if (frame == null) dropped++;
+            return frame;
+        }
+
+        /**
+         * EN: Hands a painted frame to the encoders; never blocks, since the queue has room for the whole pool.
+         * FR: Confie une image peinte aux encodeurs ; ne bloque jamais, la file ayant de la place pour tout le pool.
+         * @return The frame's number.
+         */
+        int submit(Frame frame) {
+            frame.sequence = nextSequence++;
+            frame.nanos = System.nanoTime() - startNanos;
+            filled.add(frame);
+            return frame.sequence;
+        }
+
+        int captured() {
+            return nextSequence;
+        }
+
+        private void encodeFrames() {
+            int[] pixels = format == Format.RAW ? new int[width * height] : null;
+            ByteBuffer rgb = format == Format.RAW ? ByteBuffer.allocateDirect(width * height * 3) : null;
+            ByteBuffer time = ByteBuffer.allocate(8);
+            while (true) {
+                Frame frame;
+                try {
+                    frame = filled.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (frame == END) return;
+                long start = System.nanoTime();
+                try {
+                    if (format == Format.RAW) {
+                        frame.image.getRaster().getDataElements(0, 0, width, height, pixels);
+                        rgb.clear();
+                        for (int p : pixels) rgb.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p);
+                        rgb.flip();
+                        long at = (long) frame.sequence * rgb.limit();
+                        while (rgb.hasRemaining()) at += raw.write(rgb, at);
+                        bytesWritten.addAndGet(rgb.limit());
+                    } else {
+                        Path file = directory.resolve(String.format("frame_%06d.png", frame.sequence));
+                        ImageIO.write(frame.image, "png", file.toFile());
+                        bytesWritten.addAndGet(Files.size(file));
+                    }
+                    time.clear();
+                    index.write(time.putLong(frame.nanos).flip(), INDEX_HEADER + 8L * frame.sequence);
+                    encoded.incrementAndGet();
+                } catch (IOException e) {
+                    failed.incrementAndGet();
+                    failure = e.getMessage();
+                }
+                encodeNanos.addAndGet(System.nanoTime() - start);
+                free.add(frame);
+            }
+        }
+
+        /**
+         * EN: Reads a captured frame back as RGB pixels; for checks and tools.
+         * FR: Relit une image capturée en pixels RGB ; pour les vérifications et les outils.
+         */
+        static int[] readFrame(Path directory, Format format, int width, int height, int sequence) throws IOException {
+            int[] pixels = new int[width * height];
+            if (format == Format.PNG) {
+                BufferedImage image = ImageIO.read(directory.resolve(String.format("frame_%06d.png", sequence)).toFile());
+                if (image == null) throw new IOException("image illisible");
+                image.getRGB(0, 0, width, height, pixels, 0, width);
+                for (int i = 0; i < pixels.length; i++) pixels[i] &= 0xFFFFFF;
+                return pixels;
+            }
+            try (FileChannel channel = FileChannel.open(directory.resolve(RAW_FILE), StandardOpenOption.READ)) {
+                ByteBuffer rgb = ByteBuffer.allocate(pixels.length * 3);
+                long at = (long) sequence * rgb.capacity();
+                while (rgb.hasRemaining()) {
+                    int n = channel.read(rgb, at + rgb.position());
+                    if (n < 0) throw new IOException("fichier brut tronqué");
+                }
+                rgb.flip();
+                for (int i = 0; i < pixels.length; i++) pixels[i] = (rgb.get() & 0xFF) << 16 | (rgb.get() & 0xFF) << 8 | rgb.get() & 0xFF;
+                return pixels;
+            }
+        }
+
+        /**
+         * EN: Frames captured and dropped, encoding throughput and disk usage.
+         * FR: Images capturées et perdues, débit d'encodage et place sur le disque.
+         */
+        String summary() {
+            long frames = encoded.get(), offered = nextSequence + dropped;
+            return String.format("%,d images capturées, %,d perdues (%.1f %%), %,d en échec ; encodage %s : %.1f ms par image, %.1f images/s par thread ; %.1f Mo dans %s",
+                    nextSequence, dropped, offered == 0 ? 0.0 : 100.0 * dropped / offered, failed.get(), format.name(),
+                    frames == 0 ? 0.0 : encodeNanos.get() / 1e6 / frames, encodeNanos.get() == 0 ? 0.0 : frames / (encodeNanos.get() / 1e9),
+                    bytesWritten.get() / 1e6, directory.toAbsolutePath());
+        }
+
+        /**
+         * EN: Encodes the frames still queued, writes the index header and closes the files.
+         * FR: Encode les images encore en file, écrit l'en-tête de l'index et ferme les fichiers.
+         */
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            for (Thread worker : workers) filled.add(END);
+            try {
+                for (Thread worker : workers) worker.join();
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER);
+                header.putInt(INDEX_MAGIC).put((byte) format.ordinal()).putShort((short) width).putShort((short) height).putInt(nextSequence).flip();
+                index.write(header, 0);
+            } catch (IOException e) {
+                failure = e.getMessage();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    index.close();
+                    if (raw != null) raw.close();
+                } catch (IOException e) {
+                    failure = e.getMessage();
+                }
+            }
+            if (failure != null) System.err.println("Capture incomplète : " + failure);
+        }
+    }
+
+    /**
+     * EN: Paints a bot game offscreen at a given frame rate into a capture, which may not keep up and then drops frames,
+     *     then checks that no frame was lost between the game and the disk (every captured frame encoded, every offered
+     *     frame captured or dropped), that every captured frame reads back identical to what was painted, and that
+     *     handing a frame over never held the game up.
+     * FR: Peint hors écran une partie du robot à une cadence donnée dans une capture, qui peut ne pas suivre et perd
+     *     alors des images, puis vérifie qu'aucune image ne s'est perdue entre le jeu et le disque (toute image
+     *     capturée encodée, toute image proposée capturée ou perdue), que chaque image capturée se relit identique à ce
+     *     qui a été peint, et que confier une image n'a jamais retenu le jeu.
+     * @param seed The seed of the game.
+     * @param frames The number of frames to offer.
+     * @param format The capture format.
+     * @param fps The frame rate to paint at, or 0 to paint as fast as possible.
+     * @return True if every frame is accounted for and reads back identical.
+     */
+    private static boolean runCaptureCheck(long seed, int frames, FrameCapture.Format format, int fps) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("cyber-runner-capture");
+        } catch (IOException e) {
+            System.out.println("Vérification de la capture impossible : " + e.getMessage());
+            return false;
+        }
+        WorldConfig config = WorldConfig.classic().withAIBudget(0);
+        GameWorld world = new GameWorld(config, seed);
+        world.loadLevel(1);
+        AutoPlayer bot = new GreedyBot();
+        List<Integer> hashes = new ArrayList<>();
+        int[] pixels = new int[WIDTH * HEIGHT];
+        long handOffNanos = 0, maxHandOffNanos = 0;
+        long start = System.nanoTime();
+        boolean ok;
+        FrameCapture capture = null;
+        try {
+            capture = new FrameCapture(directory, format, WIDTH, HEIGHT, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+            for (int f = 0; f < frames; f++) {
+                if (fps > 0) LockSupport.parkNanos(start + f * 1_000_000_000L / fps - System.nanoTime());
+                autoSteer(world, bot);
+                TickOutcome outcome = world.step();
+                if (outcome != TickOutcome.NONE) world.loadLevel(outcome == TickOutcome.LEVEL_CLEARED ? world.level % CAMPAIGN_LEVELS + 1 : world.level);
+                long before = System.nanoTime();
+                FrameCapture.Frame frame = capture.acquire();
+                long spent = System.nanoTime() - before;
+                if (frame != null) {
+                    Graphics2D g = frame.image.createGraphics();
+                    g.setColor(UITheme.CYBER_NEON.bgColor);
+                    g.fillRect(0, 0, WIDTH, HEIGHT);
+                    WorldRenderer.paint(g, world, UITheme.CYBER_NEON, world.level);
+                    g.dispose();
+                    frame.image.getRaster().getDataElements(0, 0, WIDTH, HEIGHT, pixels);
+                    for (int i = 0; i < pixels.length; i++) pixels[i] &= 0xFFFFFF;
+                    hashes.add(Arrays.hashCode(pixels));
+                    before = System.nanoTime();
+                    capture.submit(frame);
+                    spent += System.nanoTime() - before;
+                }
+                handOffNanos += spent;
+                maxHandOffNanos = Math.max(maxHandOffNanos, spent);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            capture.close();
+            int mismatches = 0;
+            for (int i = 0; i < hashes.size(); i++) {
+                if (Arrays.hashCode(FrameCapture.readFrame(directory, format, WIDTH, HEIGHT, i)) != hashes.get(i)) mismatches++;
+            }
+            System.out.printf("%,d images proposées en %.1f s (%.0f images/s), remise moyenne %.1f µs, au plus %.1f µs%n",
+                    frames, seconds, frames / seconds, handOffNanos / 1e3 / frames, maxHandOffNanos / 1e3);
+            System.out.println(capture.summary());
+            boolean accounted = capture.captured() + capture.dropped == frames && capture.encoded.get() == capture.captured();
+            System.out.printf("%,d images relues : %s%s%n", hashes.size(), mismatches == 0 ? "toutes identiques" : mismatches + " différentes  <- ÉCHEC",
+                    accounted ? "" : ", des images manquent  <- ÉCHEC");
+            ok = mismatches == 0 && accounted && hashes.size() > 0;
+        } catch (IOException e) {
+            System.out.println("Vérification de la capture impossible : " + e.getMessage());
+            ok = false;
+        } finally {
+            if (capture != null) capture.close();
+            File[] files = directory.toFile().listFiles();
+            if (files != null) for (File file : files) file.delete();
+            directory.toFile().delete();
+        }
+        return ok;
+    }
+
+    // =================================================================================
+    // Mission thumbnails
+    // =================================================================================
+
+    /**
+     * EN: Renders small previews of the missions on daemon worker threads, in the manner of {@link ChunkStreamer}, and
+     *     keeps them in memory and as PNGs in a cache directory, so the mission screen opens at once and fills in as
+     *     previews arrive. Memory only holds the theme last requested, since the screen shows one theme at a time; the
+     *     others come back from disk. A preview's file name holds a checksum of everything that shapes it (the level's record in
+     *     the pack, or else the seed, board and settings it is generated from), so a rebaked or recalibrated mission
+     *     never shows a stale picture. Requests made before {@link #cancelPending()} are dropped, so changing theme does
+     *     not wait for previews nobody will see.
+     *     Missions outside the pack are generated from a new seed each time they start: their preview is built from
+     *     PREVIEW_SEED and shows the mission's density, enemies and power-ups rather than the exact maze.
+     * FR: Rend de petits aperçus des missions sur des threads démons, à la manière de {@link ChunkStreamer}, et les garde
+     *     en mémoire et en PNG dans un dossier de cache, afin que l'écran des missions s'ouvre aussitôt et se complète à
+     *     mesure que les aperçus arrivent. La mémoire ne garde que le dernier thème demandé, puisque l'écran n'en montre
+     *     qu'un à la fois ; les autres reviennent du disque. Le nom de fichier d'un aperçu contient une somme de contrôle de tout ce qui le
+     *     façonne (l'enregistrement du niveau dans le pack, ou sinon la graine, le plateau et les paramètres dont il est
+     *     généré), donc une mission recuite ou recalibrée ne montre jamais une image périmée. Les demandes faites avant
+     *     {@link #cancelPending()} sont abandonnées, donc changer de thème n'attend pas des aperçus que personne ne verra.
+     *     Les missions hors du pack sont générées d'une nouvelle graine à chaque départ : leur aperçu est construit à
+     *     partir de PREVIEW_SEED et montre la densité, les ennemis et les power-ups de la mission plutôt que le
+     *     labyrinthe exact.
+     */
+    private static final class LevelThumbnails implements Closeable {
+        static final String DIRECTORY = "thumbnails";
+        static final int SIZE = 80;
+        static final long PREVIEW_SEED = 42L;
+        // À augmenter dès que le dessin ou le générateur change, pour retirer tous les aperçus en cache.
+        private static final int VERSION = 1;
+
+        /**
+         * EN: Receives a preview on the worker thread that loaded or rendered it.
+         * FR: Reçoit un aperçu sur le thread qui l'a chargé ou rendu.
+         */
+        interface Listener {
+            void thumbnailReady(int level, UITheme theme, BufferedImage image);
+        }
+
+        private static final class Job {
+            final int level, generation; final UITheme theme; final Listener listener;
+            Job(int level, UITheme theme, int generation, Listener listener) {
+                this.level = level; this.theme = theme; this.generation = generation; this.listener = listener;
+            }
+        }
+
+        final Path directory;
+        private final WorldConfig config;
+        private final long previewSeed;
+        private final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<>();
+        private volatile UITheme memoryTheme;
+        private final ConcurrentLinkedQueue<Job> jobs = new ConcurrentLinkedQueue<>();
+        private final Thread[] workers;
+        private final AtomicInteger idleWorkers = new AtomicInteger(), generation = new AtomicInteger();
+        final LongAdder memoryHits = new LongAdder(), diskHits = new LongAdder(), rendered = new LongAdder(), renderNanos = new LongAdder();
+        private volatile boolean closed;
+
+        /**
+         * EN: Starts the workers, at the lowest priority so that menu animations come first.
+         * FR: Démarre les threads, à la priorité la plus basse afin que les animations du menu passent d'abord.
+         * @param config The board and missions to preview.
+         * @param previewSeed The seed of missions outside the pack.
+         * @param workerCount The number of worker threads.
+         */
+        LevelThumbnails(Path directory, WorldConfig config, long previewSeed, int workerCount) {
+            this.directory = directory;
+            this.config = config;
+            this.previewSeed = previewSeed;
+            workers = new Thread[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                workers[i] = new Thread(this::work, "miniatures-" + i);
+                workers[i].setDaemon(true);
+                workers[i].setPriority(Thread.MIN_PRIORITY);
+                workers[i].start();
+            }
+        }
+
+        /**
+         * EN: Gets a mission's preview if it is in memory; otherwise queues it for the workers, which hand it to the
+         *     listener once loaded or rendered. Asking for another theme than the last one empties the memory.
+         * FR: Obtient l'aperçu d'une mission s'il est en mémoire ; sinon le confie aux threads, qui le remettent à
+         *     l'écouteur une fois chargé ou rendu. Demander un autre thème que le dernier vide la mémoire.
+         * @return The preview, or null if it will go to the listener.
+         */
+        BufferedImage request(int level, UITheme theme, Listener listener) {
+            if (theme != memoryTheme) {
+                memoryTheme = theme;
+                images.clear();
+            }
+            BufferedImage image = images.get(key(level, theme));
+            if (image != null) {
+                memoryHits.increment();
+                return image;
+            }
+            jobs.offer(new Job(level, theme, generation.get(), listener));
+            if (idleWorkers.get() > 0) for (Thread worker : workers) LockSupport.unpark(worker);
+            return null;
+        }
+
+        /**
+         * EN: Drops every request not yet delivered; a preview being rendered is still saved to disk, but not delivered.
+         * FR: Abandonne toutes les demandes pas encore livrées ; un aperçu en cours de rendu est tout de même enregistré
+         *     sur le disque, mais pas livré.
+         */
+        void cancelPending() {
+            generation.incrementAndGet();
+            jobs.clear();
+        }
+
+        /**
+         * EN: Names a preview after its theme, its level and a checksum of what it shows.
+         * FR: Nomme un aperçu d'après son thème, son niveau et une somme de contrôle de ce qu'il montre.
+         */
+        String key(int level, UITheme theme) {
+            ByteBuffer shape = ByteBuffer.allocate(48);
+            shape.putInt(VERSION).putShort((short) SIZE).putShort((short) config.gridCols).putShort((short) config.gridRows);
+            if (config.packed(level)) {
+                shape.putLong(config.pack.seed).putLong(config.pack.checksum(level));
+            } else {
+                shape.putLong(previewSeed);
+                LevelPack.putParams(shape, config.levelParams(level));
+            }
+            CRC32 crc = new CRC32();
+            crc.update(shape.array(), 0, shape.position());
+            return String.format("%s-%03d-%08x.png", theme.name().toLowerCase(), level, crc.getValue());
+        }
+
+        /**
+         * EN: Gets a mission's preview on the calling thread: from memory, from the cache directory, or rendered and then
+         *     saved there. It stays in memory only if its theme is still the one requested.
+         * FR: Obtient l'aperçu d'une mission sur le thread appelant : depuis la mémoire, depuis le dossier de cache, ou
+         *     rendu puis enregistré dans celui-ci. Il ne reste en mémoire que si son thème est toujours celui demandé.
+         */
+        BufferedImage load(int level, UITheme theme) {
+            String key = key(level, theme);
+            BufferedImage image = images.get(key);
+            if (image != null) return image;
+            Path file = directory.resolve(key);
+            try {
+                if (Files.exists(file)) image = ImageIO.read(file.toFile());
+            } catch (IOException e) {
+                System.err.println("Lecture de la miniature " + file + " impossible : " + e.getMessage());
+            }
+            if (image != null && image.getWidth() == SIZE && image.getHeight() == SIZE) {
+                diskHits.increment();
+            } else {
+                image = render(level, theme);
+                save(file, image);
+            }
+            images.put(key, image);
+            // EN: Checked after the put, so a theme change racing with it cannot leave the preview behind.
+            // FR: Vérifié après l'ajout, pour qu'un changement de thème simultané ne puisse pas l'y laisser.
+            if (theme != memoryTheme) images.remove(key);
+            return image;
+        }
+
+        /**
+         * EN: Builds a mission as it starts and paints it, without touching either cache.
+         * FR: Construit une mission telle qu'elle commence et la peint, sans toucher à aucun des caches.
+         */
+        BufferedImage render(int level, UITheme theme) {
+            long start = System.nanoTime();
+            GameWorld world = new GameWorld(config, config.packed(level) ? config.pack.seed : previewSeed);
+            world.loadLevel(level);
+            BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            WorldRenderer.paintThumbnail(g, world, theme, SIZE);
+            g.dispose();
+            rendered.increment();
+            renderNanos.add(System.nanoTime() - start);
+            return image;
+        }
+
+        private void save(Path file, BufferedImage image) {
+            try {
+                Files.createDirectories(directory);
+                Path temp = Files.createTempFile(directory, "miniature", ".tmp");
+                try {
+                    ImageIO.write(image, "png", temp.toFile());
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException e) {
+                System.err.println("Écriture de la miniature impossible : " + e.getMessage());
+            }
+        }
+
+        private void work() {
+            while (!closed) {
+                Job job = jobs.poll();
+                if (job == null) {
+                    idleWorkers.incrementAndGet();
+                    if (jobs.isEmpty() && !closed) LockSupport.park(this);
+                    idleWorkers.decrementAndGet();
+                    continue;
+                }
+                if (job.generation != generation.get()) continue;
+                BufferedImage image = load(job.level, job.theme);
+                if (job.generation == generation.get()) job.listener.thumbnailReady(job.level, job.theme, image);
+            }
+        }
+
+        /**
+         * EN: Whether two pictures have the same size and pixels.
+         * FR: Indique si deux images ont la même taille et les mêmes pixels.
+         */
+        static boolean samePixels(BufferedImage a, BufferedImage b) {
+            if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) return false;
+            for (int y = 0; y < a.getHeight(); y++) {
+                for (int x = 0; x < a.getWidth(); x++) {
+                    if ((a.getRGB(x, y) & 0xFFFFFF) != (b.getRGB(x, y) & 0xFFFFFF)) return false;
+                }
+            }
+            return true;
+        }
+
+        String summary() {
+            long count = rendered.sum();
+            return String.format("%,d aperçus rendus (%.2f ms chacun), %,d lus sur disque, %,d servis depuis la mémoire",
+                    count, count == 0 ? 0 : renderNanos.sum() / 1e6 / count, diskHits.sum(), memoryHits.sum());
+        }
+
+        /**
+         * EN: Stops the workers; pending requests are dropped.
+         * FR: Arrête les threads ; les demandes en attente sont abandonnées.
+         */
+        @Override public void close() {
+            closed = true;
+            for (Thread worker : workers) LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * EN: Previews many missions three times: cold, rendered by every core into an empty cache; then from memory; then
+     *     from disk through a fresh instance. Checks that each preview matches a direct render, that the disk gives back
+     *     the same pixels without rendering anything, and that requests cancelled by a change of theme are not
+     *     delivered in its place nor kept in memory; reports how long asking held up the caller.
+     * FR: Prévisualise de nombreuses missions trois fois : à froid, rendues par tous les cœurs dans un cache vide ; puis
+     *     depuis la mémoire ; puis depuis le disque par une nouvelle instance. Vérifie que chaque aperçu correspond à un
+     *     rendu direct, que le disque rend les mêmes pixels sans rien rendre, et que les demandes annulées par un
+     *     changement de thème ne sont ni livrées à sa place ni gardées en mémoire ; indique combien de temps demander a
+     *     retenu l'appelant.
+     * @param seed The seed of the previewed missions outside the pack.
+     * @param missions The number of missions to preview.
+     * @return True if every preview was delivered and identical each time.
+     */
+    private static boolean runThumbnailCheck(long seed, int missions) {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("cyber-runner-miniatures");
+        } catch (IOException e) {
+            System.out.println("Vérification des aperçus impossible : " + e.getMessage());
+            return false;
+        }
+        WorldConfig config = WorldConfig.classic().withLevelPack(LevelPack.shared());
+        int threads = Runtime.getRuntime().availableProcessors();
+        UITheme theme = UITheme.CYBER_NEON;
+        boolean ok = true;
+        LevelThumbnails cold = new LevelThumbnails(directory, config, seed, threads);
+        LevelThumbnails warm = new LevelThumbnails(directory, config, seed, threads);
+        try {
+            ConcurrentHashMap<Integer, BufferedImage> coldImages = new ConcurrentHashMap<>();
+            long start = System.nanoTime();
+            long requestNanos = 0, maxRequestNanos = 0;
+            for (int level = 1; level <= missions; level++) {
+                long before = System.nanoTime();
+                cold.request(level, theme, (l, t, image) -> coldImages.put(l, image));
+                long spent = System.nanoTime() - before;
+                requestNanos += spent;
+                maxRequestNanos = Math.max(maxRequestNanos, spent);
+            }
+            ok &= awaitThumbnails(coldImages, missions);
+            double coldSeconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("À froid : %,d aperçus en %.2f s sur %d threads, demande moyenne %.1f µs, au plus %.1f µs%n",
+                    coldImages.size(), coldSeconds, threads, requestNanos / 1e3 / missions, maxRequestNanos / 1e3);
+
+            int mismatches = 0, memoryMisses = 0;
+            for (int level = 1; level <= missions; level++) {
+                BufferedImage image = coldImages.get(level);
+                if (image == null || !LevelThumbnails.samePixels(image, cold.render(level, theme))) mismatches++;
+                if (cold.request(level, theme, (l, t, i) -> { }) != image) memoryMisses++;
+            }
+            System.out.printf("Rendus directs : %s ; mémoire : %s%n", mismatches == 0 ? "tous identiques" : mismatches + " différents  <- ÉCHEC",
+                    memoryMisses == 0 ? "tout servi" : memoryMisses + " absents  <- ÉCHEC");
+            ok &= mismatches == 0 && memoryMisses == 0;
+
+            ConcurrentHashMap<Integer, BufferedImage> cancelled = new ConcurrentHashMap<>(), switched = new ConcurrentHashMap<>();
+            for (int level = 1; level <= missions; level++) cold.request(level, UITheme.ARCTIC_MATRIX, (l, t, image) -> cancelled.put(l, image));
+            cold.cancelPending();
+            for (int level = 1; level <= missions; level++) cold.request(level, UITheme.VOLCANIC_CORE, (l, t, image) -> switched.put(l, image));
+            ok &= awaitThumbnails(switched, missions);
+            String kept = UITheme.VOLCANIC_CORE.name().toLowerCase() + "-";
+            long stale = cold.images.keySet().stream().filter(key -> !key.startsWith(kept)).count();
+            System.out.printf("Changement de thème : %,d demandes annulées, %,d livrées avant l'annulation%s ; mémoire : %,d aperçus, %,d d'autres thèmes%s%n",
+                    missions, cancelled.size(), cancelled.size() < missions ? "" : "  <- ÉCHEC", cold.images.size(), stale, stale == 0 ? "" : "  <- ÉCHEC");
+            ok &= cancelled.size() < missions && stale == 0 && cold.images.size() <= missions;
+
+            ConcurrentHashMap<Integer, BufferedImage> warmImages = new ConcurrentHashMap<>();
+            start = System.nanoTime();
+            for (int level = 1; level <= missions; level++) warm.request(level, theme, (l, t, image) -> warmImages.put(l, image));
+            ok &= awaitThumbnails(warmImages, missions);
+            double warmSeconds = (System.nanoTime() - start) / 1e9;
+            int diskMismatches = 0;
+            for (int level = 1; level <= missions; level++) {
+                BufferedImage image = warmImages.get(level);
+                if (image == null || !LevelThumbnails.samePixels(image, coldImages.get(level))) diskMismatches++;
+            }
+            long warmRendered = warm.rendered.sum();
+            System.out.printf("Depuis le disque : %,d aperçus en %.2f s (%.0f fois plus vite), %s, %d rendus%s%n",
+                    warmImages.size(), warmSeconds, coldSeconds / warmSeconds,
+                    diskMismatches == 0 ? "tous identiques" : diskMismatches + " différents  <- ÉCHEC",
+                    warmRendered, warmRendered == 0 ? "" : "  <- ÉCHEC");
+            ok &= diskMismatches == 0 && warmRendered == 0;
+            System.out.println("À froid : " + cold.summary());
+            System.out.println("Depuis le disque : " + warm.summary());
+        } finally {
+            cold.close();
+            warm.close();
+            File[] files = directory.toFile().listFiles();
+            if (files != null) for (File file : files) file.delete();
+            directory.toFile().delete();
+        }
+        return ok;
+    }
+
+    private static boolean awaitThumbnails(Map<Integer, BufferedImage> delivered, int count) {
+        long deadline = System.nanoTime() + 120_000_000_000L;
+        while (delivered.size() < count) {
+            if (System.nanoTime() > deadline) {
+                System.out.printf("%,d aperçus sur %,d livrés après 2 minutes  <- ÉCHEC%n", delivered.size(), count);
+                return false;
+            }
+            LockSupport.parkNanos(1_000_000);
+        }
+        return true;
+    }
+
+    // =================================================================================
+    // Game events
+    // =================================================================================
+
+    /**
+     * EN: What happened during a tick that matters outside the simulation.
+     * FR: Ce qui s'est passé pendant un tick et qui compte hors de la simulation.
+     */
+    private enum GameEvent { DOT_EATEN, POWERUP, ENEMY_DEFEATED, DEATH, LEVEL_COMPLETE }
+
+    /**
+     * EN: Carries game events from the tick to consumers on threads of their own, through a preallocated ring in the
+     *     manner of the LMAX Disruptor: one producer and any number of consumers, each seeing every event in order. An
+     *     event is a slot of parallel arrays, filled by the producer before it publishes the event's sequence number with
+     *     an ordered store. Each consumer reads up to the published sequence and then publishes its own sequence the same
+     *     way, which frees the slots behind it. Publishing takes no lock, allocates nothing and wakes nobody: idle
+     *     consumers park for a millisecond at a time. When the slowest consumer is a whole ring behind, the event is
+     *     dropped and counted rather than holding up the tick, as {@link HeatmapAnalytics} does.
+     * FR: Transporte les événements de jeu du tick vers des consommateurs ayant chacun leur thread, par un anneau
+     *     préalloué à la manière du Disruptor de LMAX : un producteur et autant de consommateurs que voulu, chacun voyant
+     *     tous les événements dans l'ordre. Un événement est une case de tableaux parallèles, remplie par le producteur
+     *     avant qu'il publie son numéro de séquence par une écriture ordonnée. Chaque consommateur lit jusqu'à la séquence
+     *     publiée puis publie la sienne de la même façon, ce qui libère les cases derrière lui. Publier ne prend aucun
+     *     verrou, n'alloue rien et ne réveille personne : les consommateurs inactifs se garent une milliseconde à la fois.
+     *     Quand le consommateur le plus lent a un anneau entier de retard, l'événement est abandonné et compté plutôt que
+     *     de retenir le tick, comme le fait {@link HeatmapAnalytics}.
+     */
+    private static final class GameEventBus implements Closeable {
+        static final int CAPACITY = 1 << 14;
+        private static final long IDLE_PARK_NANOS = 1_000_000;
+
+        /**
+         * EN: Receives events on its consumer's thread.
+         * FR: Reçoit les événements sur le thread de son consommateur.
+         */
+        interface Handler {
+            /**
+             * EN: Handles one event; the next one is not read before this returns.
+             * FR: Traite un événement ; le suivant n'est pas lu avant le retour.
+             * @param type What happened.
+             * @param tick The world tick during which it happened.
+             * @param level The level being played.
+             * @param cell The cell where it happened.
+             * @param value The points it earned, or the {@link PowerUpType} ordinal of a POWERUP.
+             * @param endOfBatch Whether it is the last event available for now, a good time to flush.
+             */
+            void onEvent(GameEvent type, long tick, int level, int cell, int value, boolean endOfBatch);
+        }
+
+        private static final class Subscriber {
+            final String name; final Handler handler;
+            final AtomicLong sequence;
+            Thread thread;
+            volatile long failures;
+
+            Subscriber(String name, Handler handler, long sequence) {
+                this.name = name; this.handler = handler; this.sequence = new AtomicLong(sequence);
+            }
+        }
+
+        private final GameEvent[] types = new GameEvent[CAPACITY];
+        private final long[] ticks = new long[CAPACITY];
+        private final int[] levels = new int[CAPACITY], cells = new int[CAPACITY], values = new int[CAPACITY];
+        private final AtomicLong published = new AtomicLong(-1);
+        private volatile Subscriber[] subscribers = new Subscriber[0];
+        private long next = -1, gate = -1;
+        /**
+         * EN: Events published so far of each type, counted by the producer.
+         * FR: Événements publiés jusqu'ici de chaque type, comptés par le producteur.
+         */
+        final long[] counts = new long[GameEvent.values().length];
+        volatile long dropped;
+        private volatile boolean closed;
+
+        /**
+         * EN: Starts a consumer, which sees the events published from now on.
+         * FR: Démarre un consommateur, qui voit les événements publiés à partir de maintenant.
+         * @param name The name of its thread.
          */
-        private void drawPowerUp(Graphics2D g2d, PowerUp powerUp) {
-            int x = powerUp.position.x * CELL_SIZE; int y = powerUp.position.y * CELL_SIZE;
-            float pulse = (float) (Math.sin((System.currentTimeMillis() - powerUp.spawnTime) / 200.0) + 1.0) / 2.0f;
-            switch(powerUp.type) {
-                case SUPER_PELLET: g2d.setColor(new Color(255, 255, 0, (int)(155 + 100 * pulse))); g2d.fill(new Ellipse2D.Double(x + CELL_SIZE*0.2, y + CELL_SIZE*0.2, CELL_SIZE*0.6, CELL_SIZE*0.6)); break;
-                case FREEZE: g2d.setColor(new Color(0, 150, 255, (int)(155 + 100 * pulse))); g2d.fill(new Rectangle2D.Double(x + CELL_SIZE*0.25, y + CELL_SIZE*0.25, CELL_SIZE*0.5, CELL_SIZE*0.5)); g2d.setColor(Color.WHITE); g2d.draw(new Rectangle2D.Double(x + CELL_SIZE*0.25, y + CELL_SIZE*0.25, CELL_SIZE*0.5, CELL_SIZE*0.5)); break;
-                case SHIELD: g2d.setColor(new Color(0, 255, 0, (int)(155 + 100 * pulse))); g2d.setStroke(new BasicStroke(3)); g2d.draw(new Ellipse2D.Double(x + CELL_SIZE*0.2, y + CELL_SIZE*0.2, CELL_SIZE*0.6, CELL_SIZE*0.6)); break;
-            }
+        synchronized void subscribe(String name, Handler handler) {
+            Subscriber subscriber = new Subscriber(name, handler, published.get());
+            Subscriber[] grown = Arrays.copyOf(subscribers, subscribers.length + 1);
+            grown[subscribers.length] = subscriber;
+            subscribers = grown;
+            subscriber.thread = new Thread(() -> consume(subscriber), name);
+            subscriber.thread.setDaemon(true);
+            subscriber.thread.start();
         }
-        
+
         /**
-         * EN: Draws an enemy on the screen.
-         * FR: Dessine un ennemi à l'écran.
-         * @param g2d The Graphics2D context.
-         * @param enemy The enemy to draw.
+         * EN: Publishes an event; only ever called from one thread, the one that steps the world.
+         * FR: Publie un événement ; toujours appelé depuis un seul thread, celui qui fait avancer le monde.
+         * @return False if the slowest consumer is a whole ring behind and the event was dropped.
          */
-        private void drawEnemy(Graphics2D g2d, Enemy enemy) {
-            int ex = enemy.position.x * CELL_SIZE; int ey = enemy.position.y * CELL_SIZE;
-            Color bodyColor;
+        boolean publish(GameEvent type, long tick, int level, int cell, int value) {
+            long sequence = next + 1;
+            if (sequence - CAPACITY > gate) {
+                gate = slowestSequence(next);
+                if (sequence - CAPACITY > gate) {
+                    dropped++;
+                    return false;
+                }
+            }
+            int slot = (int) sequence & (CAPACITY - 1);
+            types[slot] = type;
+            ticks[slot] = tick;
+            levels[slot] = level;
+            cells[slot] = cell;
+            values[slot] = value;
+            counts[type.ordinal()]++;
+            next = sequence;
+            published.lazySet(sequence);
+            return true;
+        }
 
-            switch(enemy.state) {
-                case FLEEING: bodyColor = new Color(0, 100, 255, 150); break;
-                case AGGRO_TELEGRAPH:
-                    bodyColor = (System.currentTimeMillis() / 100) % 2 == 0 ? Color.WHITE : getEnemyBaseColor(enemy.behavior);
-                    break;
-                case CHASING:
-                    bodyColor = getEnemyBaseColor(enemy.behavior).brighter();
-                    g2d.setColor(new Color(255, 0, 0, 100));
-                    g2d.fill(new Ellipse2D.Double(ex, ey, CELL_SIZE, CELL_SIZE));
-                    break;
-                case PATROLLING: default:
-                    bodyColor = getEnemyBaseColor(enemy.behavior);
-                    break;
+        private long slowestSequence(long upTo) {
+            long slowest = upTo;
+            for (Subscriber subscriber : subscribers) slowest = Math.min(slowest, subscriber.sequence.get());
+            return slowest;
+        }
+
+        private void consume(Subscriber subscriber) {
+            long sequence = subscriber.sequence.get();
+            while (!closed) {
+                long available = published.get();
+                if (available == sequence) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                while (sequence < available) {
+                    sequence++;
+                    int slot = (int) sequence & (CAPACITY - 1);
+                    try {
+                        subscriber.handler.onEvent(types[slot], ticks[slot], levels[slot], cells[slot], values[slot], sequence == available);
+                    } catch (RuntimeException e) {
+                        if (subscriber.failures++ == 0) System.err.println("Consommateur " + subscriber.name + " en échec : " + e);
+                    }
+                }
+                subscriber.sequence.lazySet(sequence);
             }
-            
-            g2d.setColor(bodyColor);
-            g2d.fill(new Rectangle2D.Double(ex + 4, ey + 4, CELL_SIZE - 8, CELL_SIZE - 8));
         }
-        
+
         /**
-         * EN: Gets the base color for an enemy based on its behavior.
-         * FR: Obtient la couleur de base d'un ennemi en fonction de son comportement.
-         * @param behavior The enemy's behavior.
-         * @return The base color of the enemy.
+         * EN: Waits until every consumer has handled every event published so far; what they wrote is then visible to
+         *     the caller.
+         * FR: Attend que chaque consommateur ait traité tous les événements publiés jusqu'ici ; ce qu'ils ont écrit est
+         *     alors visible de l'appelant.
+         * @return False if they did not catch up in time.
          */
-        private Color getEnemyBaseColor(EnemyBehavior behavior) {
-            switch(behavior) {
-                case HUNTER: return new Color(255, 0, 0);
-                case AMBUSHER: return new Color(255, 105, 180);
-                case FLANKER: return new Color(255, 165, 0);
-                case ROAMER: default: return new Color(128, 0, 128);
+        boolean awaitConsumed(long timeoutMillis) {
+            long target = published.get(), deadline = System.nanoTime() + timeoutMillis * 1_000_000;
+            while (slowestSequence(target) < target) {
+                if (System.nanoTime() > deadline) return false;
+                LockSupport.parkNanos(IDLE_PARK_NANOS / 10);
             }
+            return true;
         }
-    }
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-        if (currentGameState == GameState.PLAYING) {
-            Point newPlayerPos = (Point) playerPosition.clone();
-            switch (e.getKeyCode()) {
-                case KeyEvent.VK_UP: newPlayerPos.y--; break;
-                case KeyEvent.VK_DOWN: newPlayerPos.y++; break;
-                case KeyEvent.VK_LEFT: newPlayerPos.x--; break;
-                case KeyEvent.VK_RIGHT: newPlayerPos.x++; break;
-                default: return;
-            }
-            if (isWalkable(newPlayerPos)) {
-                playerPosition.setLocation(newPlayerPos);
-                if (dots.removeIf(dot -> dot.equals(playerPosition))) score += 10;
-                powerUps.removeIf(p -> {
-                    if (p.position.equals(playerPosition)) { activatePowerUp(p.type); return true; }
-                    return false;
-                });
+        long published() {
+            return published.get() + 1;
+        }
+
+        String summary() {
+            StringBuilder line = new StringBuilder(String.format("%,d événements publiés, %,d abandonnés", published(), dropped));
+            for (Subscriber subscriber : subscribers) {
+                long behind = published.get() - subscriber.sequence.get();
+                line.append(String.format(", %s %,d en retard%s", subscriber.name, behind, subscriber.failures > 0 ? " (" + subscriber.failures + " échecs)" : ""));
             }
+            return line.toString();
+        }
+
+        /**
+         * EN: Lets the consumers handle what was published, for at most a second, then stops them.
+         * FR: Laisse les consommateurs traiter ce qui a été publié, au plus une seconde, puis les arrête.
+         */
+        @Override public void close() {
+            awaitConsumed(1000);
+            closed = true;
+            for (Subscriber subscriber : subscribers) LockSupport.unpark(subscriber.thread);
         }
     }
-    
+
     /**
-     * EN: Activates a power-up when the player collects it.
-     * FR: Active un power-up lorsque le joueur le récupère.
-     * @param type The type of power-up to activate.
+     * EN: Counts a session's events by type, for the pause screen.
+     * FR: Compte les événements d'une session par type, pour l'écran de pause.
      */
-    private void activatePowerUp(PowerUpType type) {
-        long currentTime = System.currentTimeMillis();
-        playerProfile.powerupsCollected++;
-        switch(type) {
-            case SHIELD: isShieldActive = true; shieldEndTime = currentTime + 5000; break;
-            case FREEZE: areEnemiesFrozen = true; freezeEndTime = currentTime + 3000; break;
-            case SUPER_PELLET:
-                areEnemiesVulnerable = true;
-                vulnerableEndTime = currentTime + 8000;
-                for(Enemy e : enemies) e.changeState(EnemyState.FLEEING);
-                score += 50;
-                break;
+    private static final class EventTally implements GameEventBus.Handler {
+        final long[] counts = new long[GameEvent.values().length];
+
+        @Override public void onEvent(GameEvent type, long tick, int level, int cell, int value, boolean endOfBatch) {
+            counts[type.ordinal()]++;
+        }
+
+        String summary() {
+            return String.format("Session : %,d points mangés, %,d power-ups, %,d ennemis vaincus, %,d défaites, %,d niveaux terminés",
+                    counts[GameEvent.DOT_EATEN.ordinal()], counts[GameEvent.POWERUP.ordinal()], counts[GameEvent.ENEMY_DEFEATED.ordinal()],
+                    counts[GameEvent.DEATH.ordinal()], counts[GameEvent.LEVEL_COMPLETE.ordinal()]);
         }
     }
 
     /**
-     * EN: Checks if a given point on the grid is walkable.
-     * FR: Vérifie si un point donné sur la grille est praticable.
-     * @param p The point to check.
-     * @return True if the point is walkable, false otherwise.
+     * EN: The feats a player can unlock, kept in their profile as one bit each.
+     * FR: Les exploits qu'un joueur peut débloquer, gardés dans son profil à raison d'un bit chacun.
      */
-    private boolean isWalkable(Point p) {
-        return p.x >= 0 && p.y >= 0 && p.x < gridCols && p.y < gridRows && !obstacles.contains(p);
+    private enum Achievement {
+        FIRST_BLOOD("Premier sang", "vaincre un ennemi"),
+        GLUTTON("Glouton", "vaincre trois ennemis avec un même super pellet"),
+        COLLECTOR("Collectionneur", "ramasser les trois sortes de power-ups dans un même niveau"),
+        FLAWLESS("Sans faute", "terminer un niveau sans être attrapé"),
+        MARATHON("Marathon", "terminer cinq niveaux d'affilée sans être attrapé");
+
+        final String title, description;
+        Achievement(String title, String description) { this.title = title; this.description = description; }
     }
-    
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        if (currentGameState == GameState.PLAYING) {
-            updateGameLogic();
-            if(!areEnemiesFrozen) moveEnemies();
-            checkEnemyCollision(); checkWinCondition();
-            gamePanel.repaint();
+
+    /**
+     * EN: Unlocks achievements from the sequence of events. A tick lower than the previous one means a new run, which
+     *     starts every streak over. The latest unlock is kept for the game panel to announce.
+     * FR: Débloque les succès d'après la suite des événements. Un tick inférieur au précédent signale une nouvelle partie,
+     *     qui remet toutes les séries à zéro. Le dernier succès débloqué est gardé pour que le panneau de jeu l'annonce.
+     */
+    private static final class AchievementTracker implements GameEventBus.Handler {
+        private final PlayerProfile profile;
+        private long lastTick = Long.MAX_VALUE;
+        private int lastLevel, defeatedSincePellet, powerUpKinds, clearedInARow;
+        private boolean caughtThisLevel;
+        volatile Achievement latest;
+        volatile long latestNanos;
+
+        AchievementTracker(PlayerProfile profile) {
+            this.profile = profile;
+        }
+
+        @Override public void onEvent(GameEvent type, long tick, int level, int cell, int value, boolean endOfBatch) {
+            if (tick < lastTick || level != lastLevel) {
+                if (tick < lastTick) clearedInARow = 0;
+                powerUpKinds = 0;
+                caughtThisLevel = false;
+            }
+            lastTick = tick;
+            lastLevel = level;
+            switch (type) {
+                case POWERUP:
+                    powerUpKinds |= 1 << value;
+                    if (value == PowerUpType.SUPER_PELLET.ordinal()) defeatedSincePellet = 0;
+                    if (powerUpKinds == (1 << PowerUpType.values().length) - 1) unlock(Achievement.COLLECTOR);
+                    break;
+                case ENEMY_DEFEATED:
+                    unlock(Achievement.FIRST_BLOOD);
+                    if (++defeatedSincePellet >= 3) unlock(Achievement.GLUTTON);
+                    break;
+                case DEATH:
+                    caughtThisLevel = true;
+                    clearedInARow = 0;
+                    break;
+                case LEVEL_COMPLETE:
+                    if (!caughtThisLevel) {
+                        unlock(Achievement.FLAWLESS);
+                        if (++clearedInARow >= 5) unlock(Achievement.MARATHON);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        boolean unlocked(Achievement achievement) {
+            return (profile.achievements & (1 << achievement.ordinal())) != 0;
+        }
+
+        private void unlock(Achievement achievement) {
+            if (unlocked(achievement)) return;
+            profile.unlock(achievement);
+            latestNanos = System.nanoTime();
+            latest = achievement;
         }
     }
 
     /**
-     * EN: Checks if the win condition (all dots collected) has been met.
-     * FR: Vérifie si la condition de victoire (tous les points collectés) est remplie.
+     * EN: Plays bot games with the bus attached and checks that consumers saw exactly what happened: as many dots, deaths
+     *     and cleared levels as the game counted, every event in the same order for every consumer, none dropped. The
+     *     same games are played without the bus to show what publishing costs the tick in time and allocation. Then
+     *     floods the bus from this thread, retrying when the ring is full, to measure its throughput, each consumer
+     *     checking that events arrive in order.
+     * FR: Joue des parties du robot avec le bus branché et vérifie que les consommateurs ont vu exactement ce qui s'est
+     *     passé : autant de points, de défaites et de niveaux terminés que le jeu en a comptés, chaque événement dans le
+     *     même ordre pour chaque consommateur, aucun abandonné. Les mêmes parties sont jouées sans le bus pour montrer ce
+     *     que publier coûte au tick en temps et en allocation. Puis inonde le bus depuis ce thread, en réessayant quand
+     *     l'anneau est plein, pour mesurer son débit, chaque consommateur vérifiant que les événements arrivent dans
+     *     l'ordre.
+     * @param seed The seed of the games.
+     * @param ticks The number of ticks to play.
+     * @return True if every consumer saw every event exactly once and in order.
      */
-    private void checkWinCondition() {
-        if (currentGameState == GameState.PLAYING && dots.isEmpty()) gameWinLevel();
+    private static boolean runEventCheck(long seed, int ticks) {
+        final class OrderHash implements GameEventBus.Handler {
+            long hash = 17, events;
+
+            @Override public void onEvent(GameEvent type, long tick, int level, int cell, int value, boolean endOfBatch) {
+                hash = GameRandom.mix(hash ^ (type.ordinal() | (long) cell << 8 | tick << 24) ^ (long) value << 40 ^ level);
+                events++;
+            }
+        }
+        boolean ok = true;
+        playEventGames(seed, Math.min(ticks, 20_000), null);
+        long[] plain = playEventGames(seed, ticks, null);
+        GameEventBus bus = new GameEventBus();
+        EventTally tally = new EventTally();
+        OrderHash first = new OrderHash(), second = new OrderHash();
+        PlayerProfile profile = new PlayerProfile();
+        AchievementTracker achievements = new AchievementTracker(profile);
+        bus.subscribe("evenements-total", tally);
+        bus.subscribe("evenements-ordre-1", first);
+        bus.subscribe("evenements-ordre-2", second);
+        bus.subscribe("evenements-succes", achievements);
+        long[] played = playEventGames(seed, ticks, bus);
+        ok &= bus.awaitConsumed(10_000);
+        System.out.printf("%,d ticks sans bus : %.0f ns par tick, %,d octets alloués%n", ticks, (double) plain[0] / ticks, plain[1]);
+        System.out.printf("%,d ticks avec bus : %.0f ns par tick, %,d octets alloués%s%n", ticks, (double) played[0] / ticks, played[1],
+                played[1] - plain[1] <= ALLOCATION_BUDGET_BYTES ? "" : "  <- ÉCHEC");
+        ok &= played[1] - plain[1] <= ALLOCATION_BUDGET_BYTES;
+        long[] expected = {played[2], -1, -1, played[3], played[4]};
+        for (GameEvent type : GameEvent.values()) {
+            int t = type.ordinal();
+            boolean matches = tally.counts[t] == bus.counts[t] && (expected[t] < 0 || expected[t] == bus.counts[t]);
+            System.out.printf("  %-15s %,8d publiés, %,8d reçus%s%s%n", type, bus.counts[t], tally.counts[t],
+                    expected[t] < 0 ? "" : String.format(", %,d selon le jeu", expected[t]), matches ? "" : "  <- ÉCHEC");
+            ok &= matches;
+        }
+        boolean ordered = first.events == bus.published() && second.events == bus.published() && first.hash == second.hash;
+        System.out.printf("Ordre : %s ; %s%n", ordered ? "identique pour chaque consommateur" : "différent  <- ÉCHEC", bus.summary());
+        ok &= ordered && bus.dropped == 0;
+        StringBuilder unlocked = new StringBuilder("Succès débloqués :");
+        for (Achievement achievement : Achievement.values()) if (achievements.unlocked(achievement)) unlocked.append(' ').append(achievement.title).append(',');
+        System.out.println(unlocked.charAt(unlocked.length() - 1) == ',' ? unlocked.substring(0, unlocked.length() - 1) : unlocked + " aucun");
+        bus.close();
+
+        final class Sequenced implements GameEventBus.Handler {
+            long events, lastTick = -1, outOfOrder;
+
+            @Override public void onEvent(GameEvent type, long tick, int level, int cell, int value, boolean endOfBatch) {
+                if (tick <= lastTick) outOfOrder++;
+                lastTick = tick;
+                events++;
+            }
+        }
+        GameEventBus flood = new GameEventBus();
+        Sequenced[] consumers = new Sequenced[4];
+        for (int i = 0; i < consumers.length; i++) flood.subscribe("evenements-debit-" + i, consumers[i] = new Sequenced());
+        // Contrairement au tick, ce producteur réessaie quand l'anneau est plein, pour mesurer le débit de bout en bout.
+        int events = 20_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            while (!flood.publish(GameEvent.DOT_EATEN, i, 1, i & 1023, 10)) Thread.yield();
+        }
+        ok &= flood.awaitConsumed(10_000);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        boolean complete = true;
+        for (Sequenced consumer : consumers) complete &= consumer.events == events && consumer.outOfOrder == 0;
+        System.out.printf("Débit : %,d événements vers %d consommateurs en %.2f s (%,.0f par seconde), anneau plein %,d fois%s%n",
+                events, consumers.length, seconds, events / seconds, flood.dropped, complete ? "" : "  <- ÉCHEC");
+        ok &= complete && flood.published() == events;
+        flood.close();
+        return ok;
     }
-    
+
+    private static final int EVENT_WARM_UP_TICKS = 100;
+
     /**
-     * EN: Moves the enemies based on their behavior and state.
-     * FR: Déplace les ennemis en fonction de leur comportement et de leur état.
+     * EN: Plays bot games for a number of ticks, publishing to a bus if one is given.
+     * FR: Joue des parties du robot pendant un nombre de ticks, en publiant sur un bus s'il y en a un.
+     * @return The nanoseconds and bytes the ticks took, after a warm-up, then the dots eaten, the deaths and the levels
+     *         cleared.
      */
-    private void moveEnemies() {
-        for (Enemy enemy : enemies) {
-            discoveredEnemies.add(enemy.behavior);
-            
-            if(enemy.state == EnemyState.PATROLLING && enemy.position.distance(playerPosition) < 6) {
-                enemy.changeState(EnemyState.AGGRO_TELEGRAPH);
-            } else if (enemy.state == EnemyState.CHASING && enemy.position.distance(playerPosition) > 10) {
-                 enemy.changeState(EnemyState.PATROLLING);
+    private static long[] playEventGames(long seed, int ticks, GameEventBus bus) {
+        GameWorld world = new GameWorld(WorldConfig.classic().withAIBudget(0), seed);
+        world.events = bus;
+        world.loadLevel(1);
+        AutoPlayer bot = new GreedyBot();
+        long[] result = new long[5];
+        for (int t = 0; t < ticks; t++) {
+            int dots = world.dotCount;
+            long before = System.nanoTime(), allocated = PerfMetrics.allocatedBytes();
+            autoSteer(world, bot);
+            TickOutcome outcome = world.step();
+            if (t >= EVENT_WARM_UP_TICKS) {
+                result[1] += PerfMetrics.allocatedBytes() - allocated;
+                result[0] += System.nanoTime() - before;
             }
-            
-            if(enemy.state == EnemyState.FLEEING) {
-                moveEnemyAway(enemy);
-            } else if (enemy.state == EnemyState.CHASING) {
-                enemy.pathRecalculationCounter++;
-                boolean shouldRecalculate = true;
-                if(currentLevel < 5) {
-                    if(enemy.pathRecalculationCounter % (random.nextInt(3)+1) != 0) {
-                        shouldRecalculate = false;
+            result[2] += dots - world.dotCount;
+            if (outcome == TickOutcome.PLAYER_CAUGHT) result[3]++;
+            if (outcome == TickOutcome.LEVEL_CLEARED) result[4]++;
+            if (outcome != TickOutcome.NONE) world.loadLevel(outcome == TickOutcome.LEVEL_CLEARED ? world.level % CAMPAIGN_LEVELS + 1 : world.level);
+        }
+        return result;
+    }
+
+    // =================================================================================
+    // Telemetry log
+    // =================================================================================
+
+    /**
+     * EN: Appends the key facts of every tick, as fixed-width records, to memory-mapped segment files. Each segment is
+     *     mapped at its full size when it is created, so appending a record is a handful of stores into the mapping and
+     *     one more to bump the record count in its header: no system call, no allocation. A full segment, or a tick from
+     *     a board of another size, starts a new one; beyond maxSegments the oldest is deleted, which caps the disk used.
+     *     Records stay in the page cache when the game dies, so only a machine crash can lose the latest ones.
+     *     <pre>
+     *     header (32)  int magic, short version, short columns, short rows, short enemy slots, short record bytes,
+     *                  short 0, int records, int segment number, long creation time (ms since the epoch)
+     *     record       long tick, int score, short level, char player cell, byte power-ups (1 shield, 2 freeze,
+     *                  4 super pellet), byte outcome ({@link TickOutcome} ordinal), char live enemies,
+     *                  then per enemy slot char cell and byte {@link EnemyState} ordinal
+     *     </pre>
+     * FR: Ajoute les faits marquants de chaque tick, en enregistrements de taille fixe, à des segments de fichier
+     *     projetés en mémoire. Chaque segment est projeté à sa taille complète dès sa création, donc ajouter un
+     *     enregistrement revient à quelques écritures dans la projection et une de plus pour augmenter le nombre
+     *     d'enregistrements de son en-tête : aucun appel système, aucune allocation. Un segment plein, ou un tick d'un
+     *     plateau d'une autre taille, en commence un nouveau ; au-delà de maxSegments le plus ancien est supprimé, ce qui
+     *     borne la place prise sur disque. Les enregistrements restent dans le cache de pages si le jeu meurt, donc seul
+     *     un plantage de la machine peut perdre les derniers. Le format est décrit ci-dessus.
+     */
+    private static final class TelemetryLog implements Closeable {
+        static final String DIRECTORY = "telemetry";
+        static final int SEGMENTS = 8;
+        /** EN: A mapping holds less than 2 GB. FR: Une projection contient moins de 2 Go. */
+        static final int MAX_SEGMENT_MEGABYTES = 2047;
+        static final int HEADER_BYTES = 32, FIXED_BYTES = 20, ENEMY_BYTES = 3;
+        static final byte SHIELD = 1, FREEZE = 2, SUPER_PELLET = 4;
+        private static final int MAGIC = 0x4352544C, RECORDS_AT = 16;
+        private static final short VERSION = 1;
+
+        final Path directory;
+        private final long segmentBytes;
+        private final int maxSegments;
+        private MappedByteBuffer segment;
+        private int sequence, gridCols, gridRows, enemySlots, recordBytes, position, records;
+        private boolean failed;
+        long appended, rotations;
+
+        /**
+         * EN: Opens a log in a directory, its first segment following the segments already there.
+         * FR: Ouvre un journal dans un dossier, son premier segment suivant les segments déjà présents.
+         * @param segmentBytes The size of each segment file.
+         * @param maxSegments The number of segments kept.
+         */
+        TelemetryLog(Path directory, long segmentBytes, int maxSegments) throws IOException {
+            this.directory = Files.createDirectories(directory);
+            this.segmentBytes = segmentBytes;
+            this.maxSegments = maxSegments;
+            List<Path> existing = segments(directory);
+            if (!existing.isEmpty()) {
+                String name = existing.get(existing.size() - 1).getFileName().toString();
+                sequence = Integer.parseInt(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+            }
+        }
+
+        /**
+         * EN: The segment files of a directory, oldest first.
+         * FR: Les segments d'un dossier, du plus ancien au plus récent.
+         */
+        static List<Path> segments(Path directory) throws IOException {
+            List<Path> files = new ArrayList<>();
+            File[] listed = directory.toFile().listFiles((dir, name) -> name.matches("telemetry-\\d{6}\\.log"));
+            if (listed != null) for (File file : listed) files.add(file.toPath());
+            Collections.sort(files);
+            return files;
+        }
+
+        /**
+         * EN: Records the tick the world just played; call after each {@link GameWorld#step()}.
+         * FR: Enregistre le tick que le monde vient de jouer ; à appeler après chaque {@link GameWorld#step()}.
+         */
+        void append(GameWorld world, TickOutcome outcome) {
+            if (failed) return;
+            if (segment == null || position + recordBytes > segmentBytes || world.gridCols != gridCols || world.gridRows != gridRows
+                    || world.config.maxEnemies != enemySlots) {
+                if (!rotate(world)) return;
+            }
+            MappedByteBuffer out = segment;
+            int p = position;
+            out.putLong(p, world.tick);
+            out.putInt(p + 8, world.score);
+            out.putShort(p + 12, (short) world.level);
+            out.putChar(p + 14, (char) (world.playerPosition.y * gridCols + world.playerPosition.x));
+            out.put(p + 16, (byte) powerUps(world));
+            out.put(p + 17, (byte) outcome.ordinal());
+            EnemyStore enemies = world.enemies;
+            out.putChar(p + 18, (char) enemies.count);
+            int written = Math.min(enemies.count, enemySlots);
+            for (int i = 0, at = p + FIXED_BYTES; i < written; i++, at += ENEMY_BYTES) {
+                out.putChar(at, (char) (enemies.y[i] * gridCols + enemies.x[i]));
+                out.put(at + 2, enemies.state[i]);
+            }
+            position = p + recordBytes;
+            out.putInt(RECORDS_AT, ++records);
+            appended++;
+        }
+
+        /**
+         * EN: The power-ups active in a world, as record flags.
+         * FR: Les power-ups actifs dans un monde, en indicateurs d'enregistrement.
+         */
+        static int powerUps(GameWorld world) {
+            return (world.isShieldActive ? SHIELD : 0) | (world.areEnemiesFrozen ? FREEZE : 0) | (world.areEnemiesVulnerable ? SUPER_PELLET : 0);
+        }
+
+        /**
+         * EN: Flushes the current segment and starts one for the world's board, then deletes the oldest segments beyond
+         *     the cap. A released segment stays mapped until the collector frees its buffer, and some systems refuse to
+         *     delete a mapped file, so a segment that cannot be deleted yet is simply tried again at the next rotation.
+         *     Should the new segment fail, the log stops rather than retrying every tick.
+         * FR: Écrit le segment en cours et en commence un pour le plateau du monde, puis supprime les segments les plus
+         *     anciens au-delà de la limite. Un segment libéré reste projeté jusqu'à ce que le ramasse-miettes libère son
+         *     tampon, et certains systèmes refusent de supprimer un fichier projeté, donc un segment qui ne peut pas
+         *     encore être supprimé est simplement retenté à la rotation suivante. Si le nouveau segment échoue, le
+         *     journal s'arrête plutôt que de réessayer à chaque tick.
+         */
+        private boolean rotate(GameWorld world) {
+            if (segment != null) segment.force();
+            segment = null;
+            gridCols = world.gridCols;
+            gridRows = world.gridRows;
+            enemySlots = world.config.maxEnemies;
+            recordBytes = FIXED_BYTES + ENEMY_BYTES * enemySlots;
+            Path file = directory.resolve(String.format("telemetry-%06d.log", ++sequence));
+            try {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(file);
+                    throw e;
+                }
+                segment.putInt(0, MAGIC).putShort(4, VERSION).putShort(6, (short) gridCols).putShort(8, (short) gridRows)
+                        .putShort(10, (short) enemySlots).putShort(12, (short) recordBytes).putInt(20, sequence).putLong(24, System.currentTimeMillis());
+                position = HEADER_BYTES;
+                records = 0;
+                rotations++;
+                List<Path> all = segments(directory);
+                for (int i = 0; i < all.size() - maxSegments; i++) {
+                    try {
+                        Files.deleteIfExists(all.get(i));
+                    } catch (IOException stillMapped) {
+                        // EN: Tried again at the next rotation. FR: Retenté à la rotation suivante.
                     }
                 }
-                if(shouldRecalculate) {
-                    Point target = getTargetForEnemy(enemy);
-                    List<Point> path = findPath(enemy.position, target);
-                    if (path != null && path.size() > 1) enemy.position.setLocation(path.get(1));
+                return true;
+            } catch (IOException | RuntimeException e) {
+                segment = null;
+                System.err.println("Journal de télémétrie arrêté : " + e.getMessage());
+                failed = true;
+                return false;
+            }
+        }
+
+        /**
+         * EN: Flushes the current segment to disk.
+         * FR: Écrit le segment en cours sur le disque.
+         */
+        @Override public void close() {
+            if (segment != null) segment.force();
+            segment = null;
+            failed = true;
+        }
+
+        /**
+         * EN: A segment file mapped for reading, with an accessor per field of its records.
+         * FR: Un segment projeté en lecture, avec un accesseur par champ de ses enregistrements.
+         */
+        static final class Segment {
+            final Path file;
+            final int gridCols, gridRows, enemySlots, recordBytes, records, number;
+            final long createdMillis;
+            private final ByteBuffer data;
+
+            /**
+             * @throws IOException If the file cannot be read.
+             * @throws IllegalArgumentException If it is not a segment this version understands.
+             */
+            Segment(Path file) throws IOException {
+                this.file = file;
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+                if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC) throw new IllegalArgumentException("pas un segment de télémétrie");
+                if (data.getShort(4) != VERSION) throw new IllegalArgumentException("version " + data.getShort(4) + " non prise en charge");
+                gridCols = data.getShort(6);
+                gridRows = data.getShort(8);
+                enemySlots = data.getShort(10);
+                recordBytes = data.getShort(12);
+                number = data.getInt(20);
+                createdMillis = data.getLong(24);
+                int stored = data.getInt(RECORDS_AT);
+                if (recordBytes != FIXED_BYTES + ENEMY_BYTES * enemySlots || stored < 0) throw new IllegalArgumentException("en-tête incohérent");
+                records = Math.min(stored, (data.limit() - HEADER_BYTES) / recordBytes);
+            }
+
+            private int at(int record) { return HEADER_BYTES + record * recordBytes; }
+            long tick(int record) { return data.getLong(at(record)); }
+            int score(int record) { return data.getInt(at(record) + 8); }
+            int level(int record) { return data.getShort(at(record) + 12); }
+            int playerCell(int record) { return data.getChar(at(record) + 14); }
+            int powerUps(int record) { return data.get(at(record) + 16); }
+            TickOutcome outcome(int record) { return TickOutcome.values()[data.get(at(record) + 17)]; }
+            int enemies(int record) { return data.getChar(at(record) + 18); }
+            int enemyCell(int record, int i) { return data.getChar(at(record) + FIXED_BYTES + i * ENEMY_BYTES); }
+            EnemyState enemyState(int record, int i) { return EnemyState.values()[data.get(at(record) + FIXED_BYTES + i * ENEMY_BYTES + 2)]; }
+
+            /**
+             * EN: Describes a record on one line.
+             * FR: Décrit un enregistrement sur une ligne.
+             */
+            String describe(int record) {
+                int cell = playerCell(record), flags = powerUps(record);
+                StringBuilder line = new StringBuilder(String.format("tick %,d  niveau %d  score %,d  joueur (%d,%d)", tick(record), level(record),
+                        score(record), cell % gridCols, cell / gridCols));
+                if ((flags & SHIELD) != 0) line.append("  bouclier");
+                if ((flags & FREEZE) != 0) line.append("  gel");
+                if ((flags & SUPER_PELLET) != 0) line.append("  super pellet");
+                if (outcome(record) != TickOutcome.NONE) line.append("  ").append(outcome(record));
+                int shown = Math.min(enemies(record), enemySlots);
+                line.append("  ennemis ").append(enemies(record)).append(shown > 0 ? " :" : "");
+                for (int i = 0; i < shown; i++) {
+                    int at = enemyCell(record, i);
+                    line.append(String.format(" (%d,%d) %s", at % gridCols, at / gridCols, enemyState(record, i)));
                 }
+                return line.toString();
             }
         }
     }
-    
+
     /**
-     * EN: Moves an enemy away from the player (when fleeing).
-     * FR: Éloigne un ennemi du joueur (lorsqu'il fuit).
-     * @param enemy The enemy to move.
+     * EN: Decodes telemetry segments, keeps the records that pass the filters and summarises them per level: ticks,
+     *     defeats, cleared levels, best score, live enemies on average and how often each power-up was active. Tick
+     *     numbers that stop increasing mark a new stretch of play: a new run, or a practice rewind.
+     * FR: Décode des segments de télémétrie, garde les enregistrements qui passent les filtres et les résume par niveau :
+     *     ticks, défaites, niveaux terminés, meilleur score, ennemis présents en moyenne et fréquence de chaque power-up.
+     *     Des numéros de tick qui cessent de croître marquent une nouvelle séquence de jeu : une nouvelle partie, ou un
+     *     retour en arrière d'entraînement.
+     * @param path A segment file, or a directory of segments.
+     * @param filters {@code level=N}, {@code from=tick}, {@code to=tick}, {@code outcome=caught|cleared} and
+     *                {@code show=N} to print the first N records kept.
+     * @return True if every segment could be read.
      */
-    private void moveEnemyAway(Enemy enemy) {
-        int bestDist = -1;
-        Point bestMove = enemy.position;
-        int[] dx = {0, 0, 1, -1, 0}; int[] dy = {1, -1, 0, 0, 0};
-        
-        for (int i = 0; i < 5; i++) {
-            Point next = new Point(enemy.position.x + dx[i], enemy.position.y + dy[i]);
-            if(isWalkable(next)) {
-                double dist = next.distanceSq(playerPosition);
-                if(dist > bestDist) {
-                    bestDist = (int) dist;
-                    bestMove = next;
+    private static boolean runTelemetryRead(Path path, List<String> filters) {
+        int onlyLevel = -1, show = 0;
+        long from = Long.MIN_VALUE, to = Long.MAX_VALUE;
+        TickOutcome onlyOutcome = null;
+        for (String filter : filters) {
+            String[] pair = filter.split("=", 2);
+            String value = pair.length > 1 ? pair[1] : "";
+            try {
+                switch (pair[0]) {
+                    case "level": onlyLevel = Integer.parseInt(value); break;
+                    case "from": from = Long.parseLong(value); break;
+                    case "to": to = Long.parseLong(value); break;
+                    case "show": show = Integer.parseInt(value); break;
+                    case "outcome": onlyOutcome = value.equals("caught") ? TickOutcome.PLAYER_CAUGHT : value.equals("cleared") ? TickOutcome.LEVEL_CLEARED : TickOutcome.NONE; break;
+                    default: throw new IllegalArgumentException();
                 }
+            } catch (IllegalArgumentException e) {
+                System.out.println("Filtre « " + filter + " » invalide : level=N, from=tick, to=tick, outcome=caught|cleared ou show=N attendu");
+                return false;
+            }
+        }
+        if (!Files.exists(path)) {
+            System.out.println("Aucun journal de télémétrie à " + path);
+            return false;
+        }
+        List<Path> files;
+        try {
+            files = Files.isDirectory(path) ? TelemetryLog.segments(path) : Collections.singletonList(path);
+        } catch (IOException e) {
+            System.out.println("Lecture de " + path + " impossible : " + e.getMessage());
+            return false;
+        }
+        // Par niveau : ticks, défaites, niveaux terminés, meilleur score, somme des ennemis, bouclier, gel, super pellet.
+        Map<Integer, long[]> levels = new TreeMap<>();
+        long read = 0, kept = 0, stretches = 0, bytes = 0, firstTick = Long.MAX_VALUE, lastTick = Long.MIN_VALUE, previous = Long.MAX_VALUE;
+        boolean ok = true;
+        long start = System.nanoTime();
+        for (Path file : files) {
+            TelemetryLog.Segment segment;
+            try {
+                segment = new TelemetryLog.Segment(file);
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Segment " + file.getFileName() + " illisible : " + e.getMessage());
+                ok = false;
+                continue;
             }
+            bytes += TelemetryLog.HEADER_BYTES + (long) segment.records * segment.recordBytes;
+            for (int r = 0; r < segment.records; r++) {
+                long tick = segment.tick(r);
+                read++;
+                if (tick <= previous) stretches++;
+                previous = tick;
+                int level = segment.level(r);
+                TickOutcome outcome = segment.outcome(r);
+                if (tick < from || tick > to || (onlyLevel >= 0 && level != onlyLevel) || (onlyOutcome != null && outcome != onlyOutcome)) continue;
+                kept++;
+                firstTick = Math.min(firstTick, tick);
+                lastTick = Math.max(lastTick, tick);
+                long[] stats = levels.computeIfAbsent(level, l -> new long[8]);
+                int flags = segment.powerUps(r);
+                stats[0]++;
+                if (outcome == TickOutcome.PLAYER_CAUGHT) stats[1]++;
+                if (outcome == TickOutcome.LEVEL_CLEARED) stats[2]++;
+                stats[3] = Math.max(stats[3], segment.score(r));
+                stats[4] += segment.enemies(r);
+                if ((flags & TelemetryLog.SHIELD) != 0) stats[5]++;
+                if ((flags & TelemetryLog.FREEZE) != 0) stats[6]++;
+                if ((flags & TelemetryLog.SUPER_PELLET) != 0) stats[7]++;
+                if (kept <= show) System.out.println(segment.describe(r));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d segments, %,d enregistrements (%,.1f Mo) lus en %.2f s (%,.0f par seconde), %,d séquences de jeu%n",
+                files.size(), read, bytes / 1e6, seconds, read / Math.max(seconds, 1e-9), stretches);
+        if (kept == 0) {
+            System.out.println("Aucun enregistrement ne passe les filtres.");
+            return ok;
         }
-        enemy.position.setLocation(bestMove);
+        System.out.printf("%,d enregistrements retenus, ticks %,d à %,d%n", kept, firstTick, lastTick);
+        System.out.println("niveau      ticks  défaites  terminés  meilleur score  ennemis  bouclier   gel  super pellet");
+        for (Map.Entry<Integer, long[]> entry : levels.entrySet()) {
+            long[] s = entry.getValue();
+            System.out.printf("%6d %10d %9d %9d %15d %8.1f %8.1f%% %4.1f%% %12.1f%%%n", entry.getKey(), s[0], s[1], s[2], s[3],
+                    (double) s[4] / s[0], 100.0 * s[5] / s[0], 100.0 * s[6] / s[0], 100.0 * s[7] / s[0]);
+        }
+        return ok;
     }
 
     /**
-     * EN: Determines the target position for an enemy based on its behavior.
-     * FR: Détermine la position cible d'un ennemi en fonction de son comportement.
-     * @param enemy The enemy to determine the target for.
-     * @return The target point.
+     * EN: Logs a bot game into small segments so that the log rotates and deletes old segments, then checks that the
+     *     disk stays within the cap, that the segments kept hold exactly the latest ticks, and that appending costs the
+     *     tick no allocation. Then fills a larger log with millions of records and times the reader over it.
+     * FR: Journalise une partie du robot dans de petits segments afin que le journal tourne et supprime les anciens
+     *     segments, puis vérifie que le disque reste dans la limite, que les segments gardés contiennent exactement les
+     *     derniers ticks, et qu'ajouter n'alloue rien pendant le tick. Puis remplit un journal plus grand de millions
+     *     d'enregistrements et chronomètre la lecture.
+     * @param seed The seed of the game.
+     * @param ticks The number of ticks to play and log.
+     * @return True if the log holds exactly the latest ticks within its cap.
      */
-    private Point getTargetForEnemy(Enemy enemy) {
-        switch(enemy.behavior) {
-            case HUNTER: return playerPosition;
-            case AMBUSHER: return new Point(playerPosition.x + random.nextInt(5)-2, playerPosition.y + random.nextInt(5)-2);
-            case ROAMER:
-                if(enemy.position.distance(playerPosition) > 8) return playerPosition;
-                else return new Point(1,1);
-            case FLANKER:
-                 if(enemies.size() > 0) {
-                     Point hunterPos = enemies.get(0).position;
-                     return new Point(hunterPos.x + (hunterPos.x - playerPosition.x), hunterPos.y + (hunterPos.y - playerPosition.y));
-                 }
-                 return playerPosition;
-            default: return playerPosition;
+    private static boolean runTelemetryCheck(long seed, int ticks) {
+        Path directory, big;
+        try {
+            directory = Files.createTempDirectory("cyber-runner-telemetrie");
+            big = Files.createTempDirectory("cyber-runner-telemetrie");
+        } catch (IOException e) {
+            System.out.println("Vérification de la télémétrie impossible : " + e.getMessage());
+            return false;
+        }
+        long segmentBytes = 1 << 20;
+        int maxSegments = 3;
+        boolean ok = true;
+        TelemetryLog log = null;
+        try {
+            log = new TelemetryLog(directory, segmentBytes, maxSegments);
+            GameWorld world = new GameWorld(WorldConfig.classic().withAIBudget(0), seed);
+            world.loadLevel(1);
+            AutoPlayer bot = new GreedyBot();
+            long[] digests = new long[ticks];
+            long appendNanos = 0, maxAppendNanos = 0, allocated = 0;
+            for (int t = 0; t < ticks; t++) {
+                autoSteer(world, bot);
+                TickOutcome outcome = world.step();
+                long rotations = log.rotations, bytesBefore = PerfMetrics.allocatedBytes(), before = System.nanoTime();
+                log.append(world, outcome);
+                long spent = System.nanoTime() - before, bytes = PerfMetrics.allocatedBytes() - bytesBefore;
+                if (log.rotations == rotations) {
+                    appendNanos += spent;
+                    maxAppendNanos = Math.max(maxAppendNanos, spent);
+                    if (t >= ticks / 2) allocated += bytes;
+                }
+                digests[t] = telemetryDigest(world, outcome);
+                if (outcome != TickOutcome.NONE) world.loadLevel(outcome == TickOutcome.LEVEL_CLEARED ? world.level % CAMPAIGN_LEVELS + 1 : world.level);
+            }
+            log.close();
+            long appends = ticks - log.rotations;
+            boolean rotated = log.rotations > maxSegments;
+            System.out.printf("%,d ticks journalisés : %.0f ns par ajout, au plus %.1f µs, %,d octets alloués sur la seconde moitié hors rotations%s, %d rotations%s%n",
+                    ticks, (double) appendNanos / appends, maxAppendNanos / 1e3, allocated, allocated <= ALLOCATION_BUDGET_BYTES ? "" : "  <- ÉCHEC", log.rotations,
+                    rotated ? "" : "  <- ÉCHEC (il en faut plus de " + maxSegments + " pour supprimer des segments : jouer plus de ticks)");
+            ok &= allocated <= ALLOCATION_BUDGET_BYTES && rotated;
+
+            List<Path> kept = TelemetryLog.segments(directory);
+            long diskBytes = 0;
+            for (Path file : kept) diskBytes += Files.size(file);
+            boolean capped = kept.size() <= maxSegments && diskBytes <= maxSegments * segmentBytes;
+            int records = 0, mismatches = 0;
+            for (Path file : kept) records += new TelemetryLog.Segment(file).records;
+            int t = ticks - records;
+            for (Path file : kept) {
+                TelemetryLog.Segment segment = new TelemetryLog.Segment(file);
+                for (int r = 0; r < segment.records; r++, t++) {
+                    if (t < 0 || telemetryDigest(segment, r) != digests[t]) mismatches++;
+                }
+            }
+            System.out.printf("%d segments gardés (%,d octets, limite %,d)%s, %,d derniers ticks relus : %s%n", kept.size(), diskBytes,
+                    maxSegments * segmentBytes, capped ? "" : "  <- ÉCHEC", records, mismatches == 0 ? "tous identiques" : mismatches + " différents  <- ÉCHEC");
+            ok &= capped && mismatches == 0 && records > 0;
+            ok &= runTelemetryRead(directory, Arrays.asList("from=" + (ticks - records / 2), "outcome=caught", "show=3"));
+
+            TelemetryLog bulk = new TelemetryLog(big, 64L << 20, 2);
+            int bulkRecords = 3_000_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < bulkRecords; i++) {
+                world.tick++;
+                bulk.append(world, TickOutcome.NONE);
+            }
+            bulk.close();
+            System.out.printf("%,d enregistrements écrits en %.2f s%n", bulkRecords, (System.nanoTime() - start) / 1e9);
+            ok &= runTelemetryRead(big, Collections.emptyList());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Vérification de la télémétrie impossible : " + e.getMessage());
+            ok = false;
+        } finally {
+            if (log != null) log.close();
+            for (Path temporary : new Path[] {directory, big}) {
+                File[] files = temporary.toFile().listFiles();
+                if (files != null) for (File file : files) file.delete();
+                temporary.toFile().delete();
+            }
         }
+        return ok;
     }
 
     /**
-     * EN: Finds a path from a start point to a target point using Breadth-First Search (BFS).
-     * FR: Trouve un chemin d'un point de départ à un point cible en utilisant une recherche en largeur (BFS).
-     * @param start The starting point.
-     * @param target The target point.
-     * @return A list of points representing the path, or null if no path is found.
+     * EN: Hashes what a telemetry record holds of the tick a world just played.
+     * FR: Hache ce qu'un enregistrement de télémétrie retient du tick qu'un monde vient de jouer.
      */
-    private List<Point> findPath(Point start, Point target) {
-        Queue<List<Point>> queue = new LinkedList<>();
-        Set<Point> visited = new HashSet<>();
-        List<Point> initialPath = new ArrayList<>();
-        initialPath.add(start);
-        queue.add(initialPath);
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            List<Point> currentPath = queue.poll();
-            Point current = currentPath.get(currentPath.size() - 1);
-            if (current.equals(target)) return currentPath;
+    private static long telemetryDigest(GameWorld world, TickOutcome outcome) {
+        EnemyStore enemies = world.enemies;
+        long hash = telemetryDigest(world.tick, world.score, world.level, world.playerPosition.y * world.gridCols + world.playerPosition.x,
+                TelemetryLog.powerUps(world), outcome, enemies.count);
+        for (int i = 0; i < Math.min(enemies.count, world.config.maxEnemies); i++) {
+            hash = GameRandom.mix(hash ^ (enemies.y[i] * world.gridCols + enemies.x[i]) ^ (long) enemies.state[i] << 16);
+        }
+        return hash;
+    }
 
-            int[] dx = {0, 0, 1, -1}; int[] dy = {1, -1, 0, 0};
-            for (int i = 0; i < 4; i++) {
-                Point next = new Point(current.x + dx[i], current.y + dy[i]);
-                if (isWalkable(next) && !visited.contains(next)) {
-                    visited.add(next);
-                    List<Point> newPath = new ArrayList<>(currentPath);
-                    newPath.add(next);
-                    queue.add(newPath);
-                }
-            }
+    /**
+     * EN: Hashes a telemetry record the same way.
+     * FR: Hache un enregistrement de télémétrie de la même façon.
+     */
+    private static long telemetryDigest(TelemetryLog.Segment segment, int record) {
+        long hash = telemetryDigest(segment.tick(record), segment.score(record), segment.level(record), segment.playerCell(record),
+                segment.powerUps(record), segment.outcome(record), segment.enemies(record));
+        for (int i = 0; i < Math.min(segment.enemies(record), segment.enemySlots); i++) {
+            hash = GameRandom.mix(hash ^ segment.enemyCell(record, i) ^ (long) segment.enemyState(record, i).ordinal() << 16);
         }
-        return null;
+        return hash;
     }
 
+    private static long telemetryDigest(long tick, int score, int level, int playerCell, int powerUps, TickOutcome outcome, int enemies) {
+        long hash = GameRandom.mix(tick);
+        hash = GameRandom.mix(hash ^ score ^ (long) level << 32);
+        return GameRandom.mix(hash ^ playerCell ^ (long) powerUps << 16 ^ (long) outcome.ordinal() << 24 ^ (long) enemies << 32);
+    }
+    // =================================================================================
+    // Benchmarks
+    // =================================================================================
+
     /**
-     * EN: Checks for collisions between the player and enemies.
-     * FR: Vérifie les collisions entre le joueur et les ennemis.
+     * EN: Entry points for the JMH benchmarks in {@code benchmarks/}. The game lives in the default package, which
+     *     benchmark code cannot import, so the benchmarks reach this class through method handles. Each method runs
+     *     one hot path of the game on a world of the requested size and returns a value the benchmark consumes.
+     * FR: Points d'entrée des benchmarks JMH de {@code benchmarks/}. Le jeu est dans le paquetage par défaut, que le
+     *     code des benchmarks ne peut pas importer, donc les benchmarks atteignent cette classe par des method handles.
+     *     Chaque méthode exécute un chemin critique du jeu sur un monde de la taille demandée et renvoie une valeur que
+     *     le benchmark consomme.
      */
-    private void checkEnemyCollision() {
-        if (currentGameState != GameState.PLAYING) return;
-        for (Iterator<Enemy> iterator = enemies.iterator(); iterator.hasNext();) {
-            Enemy enemy = iterator.next();
-            if (enemy.position.equals(playerPosition)) {
-                if (enemy.state == EnemyState.FLEEING) {
-                    score += 200;
-                    playerProfile.enemiesDefeated++;
-                    iterator.remove(); 
-                } else if (isShieldActive) {
-                    isShieldActive = false;
-                    enemy.position.setLocation(1, gridRows - 2);
-                } else {
-                    gameOver(); return;
-                }
+    static final class BenchmarkHarness {
+        private final GameWorld world, mazeWorld;
+        private final AutoPlayer bot = new GreedyBot();
+        private final BufferedImage frame = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        private final Point[] pathEnds;
+        private int nextPath;
+
+        /**
+         * EN: Builds a square level with every enemy already in the maze. Enemies cannot share a cell and there is no AI
+         *     time budget, so that runs are comparable.
+         * FR: Construit un niveau carré avec tous les ennemis déjà dans le labyrinthe. Les ennemis ne partagent pas de
+         *     cellule et l'IA n'a pas de budget de temps, afin que les mesures soient comparables.
+         * @param gridSize The number of cells on each side.
+         * @param enemies The number of enemies (fewer if the maze has no room for them).
+         * @param seed The world seed.
+         */
+        BenchmarkHarness(int gridSize, int enemies, long seed) {
+            WorldConfig config = new WorldConfig(gridSize, gridSize, enemies, 0, 0, false, false, true, false, null, null);
+            world = new GameWorld(config, seed);
+            world.loadLevel(1);
+            world.step();
+            mazeWorld = new GameWorld(config, seed);
+            mazeWorld.loadLevel(1);
+            List<Point> open = world.getAvailablePositions();
+            Collections.shuffle(open, new GameRandom(seed));
+            pathEnds = open.subList(0, Math.min(64, open.size())).toArray(new Point[0]);
+        }
+
+        int findPath() {
+            Point start = pathEnds[nextPath];
+            nextPath = (nextPath + 1) % pathEnds.length;
+            List<Point> path = world.findPath(start, pathEnds[nextPath]);
+            return path == null ? -1 : path.size();
+        }
+
+        int isWalkable() {
+            int walkable = 0;
+            for (int y = 0; y < world.gridRows; y++) {
+                for (int x = 0; x < world.gridCols; x++) if (world.isWalkable(x, y)) walkable++;
             }
+            return walkable;
+        }
+
+        int createMazeAndDotsForLevel() {
+            mazeWorld.createMazeAndDotsForLevel(1);
+            return mazeWorld.dotCount;
+        }
+
+        int getAvailablePositions() {
+            return world.getAvailablePositions().size();
+        }
+
+        int moveEnemies() {
+            world.moveEnemies();
+            return world.enemies.count;
+        }
+
+        boolean checkEnemyCollision() {
+            return world.checkEnemyCollision();
+        }
+
+        /**
+         * EN: One game-loop tick as {@link PacManGame#actionPerformed} runs it, with the bot at the keys. The level is
+         *     rebuilt when it ends.
+         * FR: Un tick de la boucle de jeu tel que {@link PacManGame#actionPerformed} l'exécute, avec le robot aux commandes.
+         *     Le niveau est reconstruit quand il se termine.
+         */
+        int tick() {
+            autoSteer(world, bot);
+            TickOutcome outcome = world.step();
+            if (outcome != TickOutcome.NONE) world.loadLevel(1);
+            return outcome.ordinal();
+        }
+
+        int paint() {
+            Graphics2D g2d = frame.createGraphics();
+            g2d.setColor(UITheme.CYBER_NEON.bgColor);
+            g2d.fillRect(0, 0, WIDTH, HEIGHT);
+            WorldRenderer.paint(g2d, world, UITheme.CYBER_NEON, world.level);
+            g2d.dispose();
+            return frame.getRGB(WIDTH / 2, HEIGHT / 2);
         }
     }
-    
+
     /**
      * EN: Represents a high score entry, with a name and a score.
      * FR: Représente une entrée de meilleur score, avec un nom et un score.
@@ -1151,7 +10551,11 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      * FR: Sauvegarde les meilleurs scores actuels dans un fichier.
      */
     private void saveHighScores() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(HIGHSCORE_FILE))) { oos.writeObject(highScores); } catch (IOException e) { /* Gérer l'erreur */ }
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        boolean saved = false;
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(HIGHSCORE_FILE))) { oos.writeObject(highScores); saved = true; } catch (IOException e) { /* Gérer l'erreur */ }
+        event.finish("saveHighScores", HIGHSCORE_FILE, saved);
     }
     
     /**
@@ -1165,12 +10569,38 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
         } else { playerProfile = new PlayerProfile(); }
     }
 
+    /**
+     * EN: Feeds the game's events to the profile's statistics, the sounds (one per batch for dots, which come in bursts),
+     *     the session tally and the achievements. The profile is updated atomically and the sounds are played on the
+     *     Swing thread. Call once the profile is loaded.
+     * FR: Transmet les événements du jeu aux statistiques du profil, aux sons (un par lot pour les points, qui arrivent
+     *     en rafales), au bilan de la session et aux succès. Le profil est mis à jour atomiquement et les sons sont joués
+     *     sur le thread de Swing. À appeler une fois le profil chargé.
+     */
+    private void subscribeToGameEvents() {
+        PlayerProfile profile = playerProfile;
+        events.subscribe("evenements-profil", (type, tick, level, cell, value, endOfBatch) -> profile.count(type));
+        events.subscribe("evenements-son", (type, tick, level, cell, value, endOfBatch) -> {
+            if (endOfBatch || type != GameEvent.DOT_EATEN) {
+                String sound = EVENT_SOUNDS[type.ordinal()];
+                SwingUtilities.invokeLater(() -> soundManager.play(sound));
+            }
+        });
+        events.subscribe("evenements-session", sessionTally);
+        achievements = new AchievementTracker(profile);
+        events.subscribe("evenements-succes", achievements);
+    }
+
     /**
      * EN: Saves the current player's profile to a file.
      * FR: Sauvegarde le profil du joueur actuel dans un fichier.
      */
     private void saveProfile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(PROFILE_FILE))) { oos.writeObject(playerProfile); } catch (IOException e) { /* Gérer l'erreur */ }
+        PersistenceEvent event = new PersistenceEvent();
+        event.begin();
+        boolean saved = false;
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(PROFILE_FILE))) { oos.writeObject(playerProfile); saved = true; } catch (IOException e) { /* Gérer l'erreur */ }
+        event.finish("saveProfile", PROFILE_FILE, saved);
     }
     
     /**
@@ -1232,6 +10662,8 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      */
     private class AnimatedButton extends JButton {
         private float hoverAnimation = 0f; private Timer animationTimer;
+        private int outlineWidth = 220, outlineHeight = 30;
+        private Dimension preferredSize = new Dimension(300, 50);
         public AnimatedButton(String text) { this(text, null); }
         public AnimatedButton(String text, ActionListener listener) {
             super(text);
@@ -1264,8 +10696,8 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
             
             int width = getWidth();
             int height = getHeight();
-            int baseWidth = 220;
-            int baseHeight = 30;
+            int baseWidth = outlineWidth;
+            int baseHeight = outlineHeight;
 
             // Halo lumineux de survol
             if (hoverAnimation > 0) {
@@ -1289,8 +10721,35 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
             super.paintComponent(g);
             g2d.dispose();
         }
-        @Override public Dimension getPreferredSize() { return new Dimension(300, 50); }
+        @Override public Dimension getPreferredSize() { return preferredSize; }
         @Override public Dimension getMaximumSize() { return getPreferredSize(); }
+
+        /**
+         * EN: Makes room for a square picture above the label, the outline framing both; the picture stays blank until
+         *     {@link #setThumbnail} provides it.
+         * FR: Réserve la place d'une image carrée au-dessus du libellé, le contour encadrant les deux ; l'image reste vide
+         *     jusqu'à ce que {@link #setThumbnail} la fournisse.
+         * @param size The side of the picture in pixels.
+         */
+        void reserveThumbnail(int size) {
+            setIcon(new ImageIcon(new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB)));
+            setVerticalTextPosition(SwingConstants.BOTTOM);
+            setHorizontalTextPosition(SwingConstants.CENTER);
+            setIconTextGap(2);
+            setFont(getFont().deriveFont(18f));
+            outlineWidth = size + 12;
+            outlineHeight = size + 34;
+            preferredSize = new Dimension(size + 24, size + 44);
+        }
+
+        /**
+         * EN: Shows a picture reserved with {@link #reserveThumbnail}; Swing greys it out while the button is disabled.
+         * FR: Affiche une image réservée avec {@link #reserveThumbnail} ; Swing la grise tant que le bouton est désactivé.
+         * @param image The picture, or null to keep the current one.
+         */
+        void setThumbnail(Image image) {
+            if (image != null) setIcon(new ImageIcon(image));
+        }
     }
 
     /**
@@ -1460,6 +10919,7 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
      */
     private class SoundManager {
         private Clip menuMusic, hoverSound, clickSound, navigateSound;
+        private Clip dotSound, powerUpSound, enemySound, deathSound, levelSound;
 
         public SoundManager() {
             // Assurez-vous que les fichiers .wav sont dans un dossier "sounds" à la racine de votre classpath.
@@ -1467,6 +10927,11 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
             hoverSound = loadClip("/sounds/hover.wav");
             clickSound = loadClip("/sounds/click.wav");
             navigateSound = loadClip("/sounds/navigate.wav");
+            dotSound = loadClip("/sounds/dot.wav");
+            powerUpSound = loadClip("/sounds/powerup.wav");
+            enemySound = loadClip("/sounds/enemy.wav");
+            deathSound = loadClip("/sounds/death.wav");
+            levelSound = loadClip("/sounds/level.wav");
         }
 
         private Clip loadClip(String path) {
@@ -1516,21 +10981,257 @@ public class PacManGame extends JFrame implements KeyListener, ActionListener {
                 case "hover": return hoverSound;
                 case "click": return clickSound;
                 case "navigate": return navigateSound;
+                case "dot": return dotSound;
+                case "powerup": return powerUpSound;
+                case "enemy": return enemySound;
+                case "death": return deathSound;
+                case "level": return levelSound;
                 default: return null;
             }
         }
     }
 
 
+    /**
+     * EN: Starts the continuous flight recording if {@code --jfr [hitch threshold in ms, 50 by default]} is among the arguments.
+     * FR: Démarre l'enregistrement JFR continu si {@code --jfr [seuil de saccade en ms, 50 par défaut]} figure parmi les arguments.
+     * @return The recording, or null if it was not requested or could not start.
+     */
+    private static FlightRecording startFlightRecording(String[] args) {
+        int at = Arrays.asList(args).indexOf("--jfr");
+        if (at < 0) return null;
+        long hitchMillis = at + 1 < args.length && args[at + 1].matches("\\d+") ? Long.parseLong(args[at + 1]) : 50;
+        try {
+            return FlightRecording.start(hitchMillis);
+        } catch (IOException | ParseException e) {
+            System.err.println("Impossible de démarrer l'enregistrement JFR : " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * EN: Starts broadcasting to spectators if {@code --broadcast [port, 4778 by default]} is among the arguments.
+     * FR: Démarre la diffusion aux spectateurs si {@code --broadcast [port, 4778 par défaut]} figure parmi les arguments.
+     * @return The broadcast, or null if it was not requested or could not start.
+     */
+    private static BroadcastHub startBroadcast(String[] args) {
+        int at = Arrays.asList(args).indexOf("--broadcast");
+        if (at < 0) return null;
+        int port = at + 1 < args.length && args[at + 1].matches("\\d+") ? Integer.parseInt(args[at + 1]) : BroadcastHub.PORT;
+        try {
+            BroadcastHub hub = new BroadcastHub(new InetSocketAddress(port));
+            System.out.println("Diffusion aux spectateurs sur le port " + hub.port() + ".");
+            return hub;
+        } catch (IOException e) {
+            System.err.println("Impossible de démarrer la diffusion : " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * EN: Starts the telemetry log if {@code --telemetry [megabytes, 128 by default]} is among the arguments; the
+     *     megabytes are shared between {@value TelemetryLog#SEGMENTS} segments in {@value TelemetryLog#DIRECTORY}, so the
+     *     disk used never exceeds them. A limit that leaves a segment under 1 MB or over 2 GB is refused.
+     * FR: Démarre le journal de télémétrie si {@code --telemetry [mégaoctets, 128 par défaut]} figure parmi les
+     *     arguments ; les mégaoctets sont répartis entre {@value TelemetryLog#SEGMENTS} segments dans
+     *     {@value TelemetryLog#DIRECTORY}, donc la place prise sur disque ne les dépasse jamais. Une limite qui laisse un
+     *     segment sous 1 Mo ou au-delà de 2 Go est refusée.
+     * @return The log, or null if it was not requested or could not start.
+     */
+    private static TelemetryLog startTelemetry(String[] args) {
+        int at = Arrays.asList(args).indexOf("--telemetry");
+        if (at < 0) return null;
+        String limit = at + 1 < args.length && args[at + 1].matches("\\d+") ? args[at + 1] : "128";
+        long megabytes = limit.length() > 18 ? Long.MAX_VALUE : Long.parseLong(limit);
+        long segmentMegabytes = megabytes / TelemetryLog.SEGMENTS;
+        if (segmentMegabytes < 1 || segmentMegabytes > TelemetryLog.MAX_SEGMENT_MEGABYTES) {
+            System.err.printf("Télémétrie non démarrée : la limite doit être comprise entre %d et %,d mégaoctets (%d segments de 1 à %,d Mo).%n",
+                    TelemetryLog.SEGMENTS, TelemetryLog.SEGMENTS * TelemetryLog.MAX_SEGMENT_MEGABYTES, TelemetryLog.SEGMENTS, TelemetryLog.MAX_SEGMENT_MEGABYTES);
+            return null;
+        }
+        try {
+            return new TelemetryLog(Paths.get(TelemetryLog.DIRECTORY), segmentMegabytes << 20, TelemetryLog.SEGMENTS);
+        } catch (IOException e) {
+            System.err.println("Impossible de démarrer la télémétrie : " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * EN: The main entry point for the application.
      * FR: Le point d'entrée principal de l'application.
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments: none to play, {@code --autoplay} to let the bot play the windowed game,
+     *             {@code --soak [seed] [seconds]} to let it play headless at full speed,
+     *             {@code --calibrate [games] [seed] [firstWinRate] [lastWinRate]} to tune level difficulty towards target win rates,
+     *             {@code --swarm-check [seed] [ticks]} to verify that parallel swarm AI matches a single-threaded run,
+     *             {@code --alloc-check [seed] [ticks]} to verify that the steady-state tick allocates nothing,
+     *             {@code --endless-check [seed] [ticks]} to verify that the endless maze streams chunks to disk and
+     *             back without changing the game and within its memory bound,
+     *             {@code --bake-pack [file] [seed] [levels]} to bake the missions into a level pack,
+     *             {@code --snapshot-check [seed] [ticks]} to verify that saved games restore exactly,
+     *             {@code --rewind-check [seed] [ticks]} to verify that practice rewinds restore exactly without
+     *             allocating while recording,
+     *             {@code --serve [port] [seed]} to host a LAN game without a window,
+     *             {@code --net-check [seed] [ticks] [lossPercent]} to play a LAN game over loopback and verify that
+     *             every client decodes the server's state exactly, packet loss included,
+     *             {@code --watch [host[:port]]} to watch a broadcast game,
+     *             {@code --broadcast-check [seed] [ticks] [viewers]} to broadcast a bot game to loopback spectators
+     *             and verify that each decodes it exactly, a slow one included,
+     *             {@code --gym-check [seed] [envs] [steps]} to step vectorized training environments and verify that
+     *             parallel steps match sequential ones without allocating,
+     *             {@code --heatmap-check [seed] [ticks]} to verify that heatmaps aggregate exactly what the game
+     *             recorded, survive a save and load, and cost the game thread no allocation,
+     *             {@code --capture-check [seed] [frames] [png|raw] [fps]} to capture frames, 0 fps meaning as fast as
+     *             possible, and verify that every captured frame reads back identical and every other one is counted,
+     *             {@code --thumbnail-check [seed] [missions]} to preview missions in the background and verify that
+     *             the memory and disk caches give back exactly what was rendered,
+     *             {@code --event-check [seed] [ticks]} to verify that every consumer of the game event bus sees
+     *             every event in order, and measure what publishing costs the tick,
+     *             {@code --telemetry-read [directory|file] [level=N] [from=tick] [to=tick] [outcome=caught|cleared] [show=N]}
+     *             to decode, filter and summarise a telemetry log,
+     *             or {@code --telemetry-check [seed] [ticks]} to verify that the telemetry log keeps exactly the
+     *             latest ticks within its size cap without allocating.
+     *             The windowed game also accepts {@code --jfr [hitchMillis]} to keep a flight recording that is written
+     *             to disk on a defeat or a hitch, {@code --broadcast [port]} to let spectators watch it, and
+     *             {@code --telemetry [megabytes]} to log every tick of the level-based game.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--swarm-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+            System.exit(runSwarmCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--alloc-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+            System.exit(runAllocationCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--endless-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+            System.exit(runEndlessCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--bake-pack")) {
+            Path file = Paths.get(args.length > 1 ? args[1] : LevelPack.FILE);
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+            int levels = args.length > 3 ? Integer.parseInt(args[3]) : CAMPAIGN_LEVELS;
+            System.exit(runBakePack(file, seed, levels) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--snapshot-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+            System.exit(runSnapshotCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--rewind-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+            System.exit(runRewindCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : ArenaServer.PORT;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+            try {
+                ArenaServer server = new ArenaServer(new InetSocketAddress(port), seed, ArenaServer.TICK_MS);
+                server.reportEveryMs = 10_000;
+                System.out.println("Partie en réseau local sur le port " + server.port() + ", jusqu'à " + ArenaWorld.MAX_RUNNERS + " joueurs.");
+                server.serve();
+            } catch (IOException e) {
+                System.err.println("Impossible de démarrer le serveur : " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--net-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+            int loss = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+            System.exit(runNetCheck(seed, ticks, loss) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--broadcast-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+            int viewers = args.length > 3 ? Integer.parseInt(args[3]) : 12;
+            System.exit(runBroadcastCheck(seed, ticks, viewers) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--gym-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int envs = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+            int steps = args.length > 3 ? Integer.parseInt(args[3]) : 5000;
+            System.exit(runGymCheck(seed, envs, steps) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--heatmap-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+            System.exit(runHeatmapCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--capture-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int frames = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+            FrameCapture.Format format = args.length > 3 ? FrameCapture.Format.valueOf(args[3].toUpperCase()) : FrameCapture.Format.PNG;
+            int fps = args.length > 4 ? Integer.parseInt(args[4]) : 60;
+            System.exit(runCaptureCheck(seed, frames, format, fps) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--thumbnail-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int missions = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+            System.exit(runThumbnailCheck(seed, missions) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--event-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+            System.exit(runEventCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--telemetry-check")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+            System.exit(runTelemetryCheck(seed, ticks) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--telemetry-read")) {
+            Path path = Paths.get(args.length > 1 ? args[1] : TelemetryLog.DIRECTORY);
+            List<String> filters = Arrays.asList(args).subList(Math.min(args.length, 2), args.length);
+            System.exit(runTelemetryRead(path, filters) ? 0 : 1);
+        }
+        if (args.length > 0 && args[0].equals("--watch")) {
+            try {
+                SpectatorFeed feed = SpectatorFeed.connect(ArenaClient.parseAddress(args.length > 1 ? args[1] : "localhost", BroadcastHub.PORT));
+                SwingUtilities.invokeLater(() -> openSpectatorWindow(feed, "Cyber Runner - Spectateur", UITheme.CYBER_NEON, true));
+            } catch (IOException e) {
+                System.err.println("Impossible de rejoindre la diffusion : " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--calibrate")) {
+            int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+            long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+            double first = args.length > 3 ? Double.parseDouble(args[3]) : 0.9;
+            double last = args.length > 4 ? Double.parseDouble(args[4]) : 0.3;
+            runCalibration(games, seed, first, last);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--soak")) {
+            long seed = args.length > 1 ? Long.parseLong(args[1]) : 42L;
+            long seconds = args.length > 2 ? Long.parseLong(args[2]) : 60L;
+            runSoak(seed, seconds);
+            return;
+        }
+        boolean autoplay = args.length > 0 && args[0].equals("--autoplay");
+        FlightRecording recording = startFlightRecording(args);
+        BroadcastHub broadcast = startBroadcast(args);
+        TelemetryLog telemetry = startTelemetry(args);
         SwingUtilities.invokeLater(() -> {
             PacManGame game = new PacManGame();
+            game.flightRecording = recording;
+            game.broadcast = broadcast;
+            game.telemetry = telemetry;
             game.setVisible(true);
+            if (autoplay) {
+                SoakStats stats = new SoakStats();
+                game.autoPlayer = new GreedyBot();
+                game.soakStats = stats;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(stats.summary())));
+                game.startPredefinedGame(1);
+            }
         });
     }
 }
\ No newline at end of file
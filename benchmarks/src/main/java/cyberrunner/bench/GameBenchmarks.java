@@ -0,0 +1,85 @@
+package cyberrunner.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * EN: The game's hot paths, each on square mazes of several sizes and enemy counts. Worlds that a benchmark changes
+ *     (enemy moves, ticks) keep evolving from one call to the next, as they do in a real game.
+ *     Run with {@code java -jar target/benchmarks.jar -prof gc -rf json -rff results.json}.
+ * FR: Les chemins critiques du jeu, chacun sur des labyrinthes carrés de plusieurs tailles et nombres d'ennemis. Les
+ *     mondes qu'un benchmark modifie (déplacements, ticks) continuent d'évoluer d'un appel à l'autre, comme en jeu.
+ *     Lancer avec {@code java -jar target/benchmarks.jar -prof gc -rf json -rff results.json}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameBenchmarks {
+
+    @Param({"20", "40", "80"})
+    public int gridSize;
+
+    @Param({"4", "64", "400"})
+    public int enemies;
+
+    private Object harness;
+
+    @Setup
+    public void setUp() throws Throwable {
+        harness = GameHarness.create(gridSize, enemies, 42L);
+    }
+
+    @Benchmark
+    public int findPath() throws Throwable {
+        return (int) GameHarness.FIND_PATH.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int isWalkable() throws Throwable {
+        return (int) GameHarness.IS_WALKABLE.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int createMazeAndDotsForLevel() throws Throwable {
+        return (int) GameHarness.CREATE_MAZE.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int getAvailablePositions() throws Throwable {
+        return (int) GameHarness.AVAILABLE_POSITIONS.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int moveEnemies() throws Throwable {
+        return (int) GameHarness.MOVE_ENEMIES.invokeExact(harness);
+    }
+
+    @Benchmark
+    public boolean checkEnemyCollision() throws Throwable {
+        return (boolean) GameHarness.CHECK_COLLISION.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int tick() throws Throwable {
+        return (int) GameHarness.TICK.invokeExact(harness);
+    }
+
+    @Benchmark
+    public int paintComponent() throws Throwable {
+        return (int) GameHarness.PAINT.invokeExact(harness);
+    }
+}
@@ -0,0 +1,63 @@
+package cyberrunner.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * EN: Reaches {@code PacManGame.BenchmarkHarness} through method handles. The game is in the default package, which
+ *     cannot be imported from a named package; the handles are static final, so the JIT inlines them like direct calls.
+ * FR: Atteint {@code PacManGame.BenchmarkHarness} par des method handles. Le jeu est dans le paquetage par défaut, qui
+ *     ne peut pas être importé depuis un paquetage nommé ; les handles sont static final, donc le JIT les intègre comme
+ *     des appels directs.
+ */
+final class GameHarness {
+    private static final MethodHandles.Lookup LOOKUP = lookup();
+
+    static final MethodHandle CREATE = constructor();
+    static final MethodHandle FIND_PATH = method("findPath", int.class);
+    static final MethodHandle IS_WALKABLE = method("isWalkable", int.class);
+    static final MethodHandle CREATE_MAZE = method("createMazeAndDotsForLevel", int.class);
+    static final MethodHandle AVAILABLE_POSITIONS = method("getAvailablePositions", int.class);
+    static final MethodHandle MOVE_ENEMIES = method("moveEnemies", int.class);
+    static final MethodHandle CHECK_COLLISION = method("checkEnemyCollision", boolean.class);
+    static final MethodHandle TICK = method("tick", int.class);
+    static final MethodHandle PAINT = method("paint", int.class);
+
+    private GameHarness() {}
+
+    /**
+     * EN: Creates a harness: a square level of {@code gridSize} cells per side with {@code enemies} enemies.
+     * FR: Crée un banc d'essai : un niveau carré de {@code gridSize} cellules de côté avec {@code enemies} ennemis.
+     */
+    static Object create(int gridSize, int enemies, long seed) throws Throwable {
+        return (Object) CREATE.invokeExact(gridSize, enemies, seed);
+    }
+
+    private static MethodHandles.Lookup lookup() {
+        try {
+            Class<?> type = Class.forName("PacManGame$BenchmarkHarness");
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor() {
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(LOOKUP.lookupClass(), MethodType.methodType(void.class, int.class, int.class, long.class));
+            return handle.asType(MethodType.methodType(Object.class, int.class, int.class, long.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle method(String name, Class<?> returnType) {
+        try {
+            MethodHandle handle = LOOKUP.findVirtual(LOOKUP.lookupClass(), name, MethodType.methodType(returnType));
+            return handle.asType(MethodType.methodType(returnType, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
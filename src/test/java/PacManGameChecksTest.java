@@ -0,0 +1,79 @@
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * EN: Runs the game's self-checks under {@code mvn test}, with the arguments the command line uses by default. Each
+ *     check prints its measurements and returns whether they passed; the game keeps them private, so they are reached
+ *     by reflection.
+ * FR: Lance les vérifications du jeu avec {@code mvn test}, avec les arguments qu'utilise par défaut la ligne de
+ *     commande. Chaque vérification affiche ses mesures et indique si elles sont bonnes ; le jeu les garde privées, on
+ *     les atteint donc par réflexion.
+ */
+class PacManGameChecksTest {
+
+    private static final long SEED = 42L;
+
+    /**
+     * EN: The steady-state tick allocates nothing on every campaign level.
+     * FR: Le tick en régime établi n'alloue rien, à chaque niveau de la campagne.
+     */
+    @Test
+    void tickAllocatesNothing() throws Exception {
+        assertTrue(check("runAllocationCheck", SEED, 5000), "--alloc-check");
+    }
+
+    /**
+     * EN: Parallel swarm planning plays exactly the game a single thread plays.
+     * FR: La planification parallèle de l'essaim joue exactement la partie d'un seul thread.
+     */
+    @Test
+    void swarmIsDeterministic() throws Exception {
+        assertTrue(check("runSwarmCheck", SEED, 500), "--swarm-check");
+    }
+
+    /**
+     * EN: A saved game restores to the exact world it was saved from, and goes on identically.
+     * FR: Une partie sauvegardée se restaure au monde exact d'où elle vient, et se poursuit à l'identique.
+     */
+    @Test
+    void snapshotRoundTrips() throws Exception {
+        assertTrue(check("runSnapshotCheck", SEED, 5000), "--snapshot-check");
+    }
+
+    /**
+     * EN: Practice rewinds restore exactly, without allocating while recording.
+     * FR: Les retours en arrière d'entraînement restaurent exactement, sans allouer pendant l'enregistrement.
+     */
+    @Test
+    void rewindRoundTrips() throws Exception {
+        assertTrue(check("runRewindCheck", SEED, 50_000), "--rewind-check");
+    }
+
+    /**
+     * EN: The telemetry log reads back exactly the latest ticks, within its size cap.
+     * FR: Le journal de télémétrie se relit avec exactement les derniers ticks, dans sa limite de taille.
+     */
+    @Test
+    void telemetryRoundTrips() throws Exception {
+        assertTrue(check("runTelemetryCheck", SEED, 200_000), "--telemetry-check");
+    }
+
+    /**
+     * EN: Calls one of the game's {@code (long seed, int count)} checks.
+     * FR: Appelle une des vérifications {@code (long graine, int nombre)} du jeu.
+     */
+    private static boolean check(String name, long seed, int count) throws Exception {
+        Method method = PacManGame.class.getDeclaredMethod(name, long.class, int.class);
+        method.setAccessible(true);
+        try {
+            return (Boolean) method.invoke(null, seed, count);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+}